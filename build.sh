@@ -43,6 +43,17 @@ if [[ $? != 0 ]] ; then
   exit 1
 fi
 
+if [[ -n `java --list-modules 2> /dev/null | grep jdk.incubator.vector` ]] ; then
+  echo Compiling SIMD kernels...
+  javac --add-modules jdk.incubator.vector -cp ../bin -d ../bin `find ../src-simd -name *.java` 2> ../javac-simd.out
+
+  if [[ $? != 0 ]] ; then
+    echo Failed to compile SIMD kernels, continuing without them. Error log saved to javac-simd.out
+  else
+    rm -f ../javac-simd.out
+  fi
+fi
+
 cd ../bin
 
 echo Done
@@ -0,0 +1,349 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The vectorized backend of the array kernels,
+ * built upon the incubating JDK Vector API. This
+ * class is compiled separately from the rest of
+ * the library and is only loaded when the module
+ * jdk.incubator.vector has been added to the
+ * running JVM (--add-modules jdk.incubator.vector).
+ */
+class SimdKernelBackend extends KernelBackend {
+
+  private static final VectorSpecies<Double>
+          SPECIES = DoubleVector.SPECIES_PREFERRED,
+          TILE_SPECIES = DoubleVector.SPECIES_256
+                  ;
+
+  private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+
+  /*
+   * Number of elements summed in single precision
+   * lanes before being added to a double total
+   */
+  private static final int FLOAT_BLOCK = 1024;
+
+  @Override
+  boolean isAccelerated() {
+    return true;
+  }
+
+  @Override
+  double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+    DoubleVector acc = DoubleVector.zero(SPECIES);
+    int bound = SPECIES.loopBound(length), k = 0;
+
+    for (; k < bound; k += SPECIES.length()) {
+      DoubleVector av = DoubleVector.fromArray(SPECIES, a, aOffset + k);
+      DoubleVector bv = DoubleVector.fromArray(SPECIES, b, bOffset + k);
+      acc = av.fma(bv, acc);
+    }
+
+    double ret = acc.reduceLanes(VectorOperators.ADD);
+    for (; k < length; k++) {
+      ret += a[aOffset + k] * b[bOffset + k];
+    }
+    return ret;
+  }
+
+  @Override
+  void axpy(double s, double[] x, int xOffset, double[] y, int yOffset, int length) {
+    DoubleVector sv = DoubleVector.broadcast(SPECIES, s);
+    int bound = SPECIES.loopBound(length), k = 0;
+
+    for (; k < bound; k += SPECIES.length()) {
+      DoubleVector xv = DoubleVector.fromArray(SPECIES, x, xOffset + k);
+      DoubleVector yv = DoubleVector.fromArray(SPECIES, y, yOffset + k);
+      xv.fma(sv, yv).intoArray(y, yOffset + k);
+    }
+
+    for (; k < length; k++) {
+      y[yOffset + k] += s * x[xOffset + k];
+    }
+  }
+
+  @Override
+  void add(double[] a, double[] b, double[] out, int length) {
+    int bound = SPECIES.loopBound(length), k = 0;
+
+    for (; k < bound; k += SPECIES.length()) {
+      DoubleVector.fromArray(SPECIES, a, k)
+              .add(DoubleVector.fromArray(SPECIES, b, k))
+              .intoArray(out, k);
+    }
+
+    for (; k < length; k++) {
+      out[k] = a[k] + b[k];
+    }
+  }
+
+  @Override
+  void scale(double s, double[] x, double[] out, int length) {
+    int bound = SPECIES.loopBound(length), k = 0;
+
+    for (; k < bound; k += SPECIES.length()) {
+      DoubleVector.fromArray(SPECIES, x, k).mul(s).intoArray(out, k);
+    }
+
+    for (; k < length; k++) {
+      out[k] = s * x[k];
+    }
+  }
+
+  @Override
+  double sum(double[] x, int length) {
+    DoubleVector acc = DoubleVector.zero(SPECIES);
+    int bound = SPECIES.loopBound(length), k = 0;
+
+    for (; k < bound; k += SPECIES.length()) {
+      acc = acc.add(DoubleVector.fromArray(SPECIES, x, k));
+    }
+
+    double ret = acc.reduceLanes(VectorOperators.ADD);
+    for (; k < length; k++) {
+      ret += x[k];
+    }
+    return ret;
+  }
+
+  @Override
+  double sumOfSquares(double[] x, int length) {
+    return dot(x, 0, x, 0, length);
+  }
+
+  @Override
+  double sumOfSquaredDeviations(double[] x, double mean, int length) {
+    DoubleVector acc = DoubleVector.zero(SPECIES);
+    int bound = SPECIES.loopBound(length), k = 0;
+
+    for (; k < bound; k += SPECIES.length()) {
+      DoubleVector d = DoubleVector.fromArray(SPECIES, x, k).sub(mean);
+      acc = d.fma(d, acc);
+    }
+
+    double ret = acc.reduceLanes(VectorOperators.ADD);
+    for (; k < length; k++) {
+      double d = x[k] - mean;
+      ret += d * d;
+    }
+    return ret;
+  }
+
+  @Override
+  double sumOfProductDeviations(double[] x, double xMean, double[] y, double yMean, int length) {
+    DoubleVector acc = DoubleVector.zero(SPECIES);
+    int bound = SPECIES.loopBound(length), k = 0;
+
+    for (; k < bound; k += SPECIES.length()) {
+      DoubleVector dx = DoubleVector.fromArray(SPECIES, x, k).sub(xMean);
+      DoubleVector dy = DoubleVector.fromArray(SPECIES, y, k).sub(yMean);
+      acc = dx.fma(dy, acc);
+    }
+
+    double ret = acc.reduceLanes(VectorOperators.ADD);
+    for (; k < length; k++) {
+      ret += (x[k] - xMean) * (y[k] - yMean);
+    }
+    return ret;
+  }
+
+  @Override
+  void affine3(
+          double[] m,
+          double[] xs, double[] ys, double[] zs,
+          double[] xOut, double[] yOut, double[] zOut,
+          int offset, int length
+    ) {
+    double
+            m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3],
+            m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7],
+            m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11]
+                    ;
+
+    DoubleVector
+            v00 = DoubleVector.broadcast(SPECIES, m00),
+            v01 = DoubleVector.broadcast(SPECIES, m01),
+            v02 = DoubleVector.broadcast(SPECIES, m02),
+            v03 = DoubleVector.broadcast(SPECIES, m03),
+            v10 = DoubleVector.broadcast(SPECIES, m10),
+            v11 = DoubleVector.broadcast(SPECIES, m11),
+            v12 = DoubleVector.broadcast(SPECIES, m12),
+            v13 = DoubleVector.broadcast(SPECIES, m13),
+            v20 = DoubleVector.broadcast(SPECIES, m20),
+            v21 = DoubleVector.broadcast(SPECIES, m21),
+            v22 = DoubleVector.broadcast(SPECIES, m22),
+            v23 = DoubleVector.broadcast(SPECIES, m23)
+                    ;
+
+    int bound = offset + SPECIES.loopBound(length), end = offset + length, k = offset;
+
+    for (; k < bound; k += SPECIES.length()) {
+      DoubleVector x = DoubleVector.fromArray(SPECIES, xs, k);
+      DoubleVector y = DoubleVector.fromArray(SPECIES, ys, k);
+      DoubleVector z = DoubleVector.fromArray(SPECIES, zs, k);
+
+      DoubleVector rx = z.fma(v02, y.fma(v01, x.fma(v00, v03)));
+      DoubleVector ry = z.fma(v12, y.fma(v11, x.fma(v10, v13)));
+      DoubleVector rz = z.fma(v22, y.fma(v21, x.fma(v20, v23)));
+
+      rx.intoArray(xOut, k);
+      ry.intoArray(yOut, k);
+      rz.intoArray(zOut, k);
+    }
+
+    for (; k < end; k++) {
+      double x = xs[k], y = ys[k], z = zs[k];
+      xOut[k] = m00 * x + m01 * y + m02 * z + m03;
+      yOut[k] = m10 * x + m11 * y + m12 * z + m13;
+      zOut[k] = m20 * x + m21 * y + m22 * z + m23;
+    }
+  }
+
+
+  @Override
+  double dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+    double ret = 0;
+    int k = 0;
+
+    for (int block = 0; block < length; block += FLOAT_BLOCK) {
+      int end = Math.min(length, block + FLOAT_BLOCK);
+      int bound = block + FLOAT_SPECIES.loopBound(end - block);
+
+      FloatVector acc = FloatVector.zero(FLOAT_SPECIES);
+      for (k = block; k < bound; k += FLOAT_SPECIES.length()) {
+        FloatVector av = FloatVector.fromArray(FLOAT_SPECIES, a, aOffset + k);
+        FloatVector bv = FloatVector.fromArray(FLOAT_SPECIES, b, bOffset + k);
+        acc = av.fma(bv, acc);
+      }
+      ret += acc.reduceLanes(VectorOperators.ADD);
+
+      for (; k < end; k++) {
+        ret += a[aOffset + k] * b[bOffset + k];
+      }
+    }
+
+    return ret;
+  }
+
+  @Override
+  void axpy(float s, float[] x, int xOffset, float[] y, int yOffset, int length) {
+    FloatVector sv = FloatVector.broadcast(FLOAT_SPECIES, s);
+    int bound = FLOAT_SPECIES.loopBound(length), k = 0;
+
+    for (; k < bound; k += FLOAT_SPECIES.length()) {
+      FloatVector xv = FloatVector.fromArray(FLOAT_SPECIES, x, xOffset + k);
+      FloatVector yv = FloatVector.fromArray(FLOAT_SPECIES, y, yOffset + k);
+      xv.fma(sv, yv).intoArray(y, yOffset + k);
+    }
+
+    for (; k < length; k++) {
+      y[yOffset + k] += s * x[xOffset + k];
+    }
+  }
+
+  @Override
+  void add(float[] a, float[] b, float[] out, int length) {
+    int bound = FLOAT_SPECIES.loopBound(length), k = 0;
+
+    for (; k < bound; k += FLOAT_SPECIES.length()) {
+      FloatVector.fromArray(FLOAT_SPECIES, a, k)
+              .add(FloatVector.fromArray(FLOAT_SPECIES, b, k))
+              .intoArray(out, k);
+    }
+
+    for (; k < length; k++) {
+      out[k] = a[k] + b[k];
+    }
+  }
+
+  @Override
+  void scale(float s, float[] x, float[] out, int length) {
+    int bound = FLOAT_SPECIES.loopBound(length), k = 0;
+
+    for (; k < bound; k += FLOAT_SPECIES.length()) {
+      FloatVector.fromArray(FLOAT_SPECIES, x, k).mul(s).intoArray(out, k);
+    }
+
+    for (; k < length; k++) {
+      out[k] = s * x[k];
+    }
+  }
+
+  @Override
+  double sumOfSquares(float[] x, int length) {
+    return dot(x, 0, x, 0, length);
+  }
+
+
+  @Override
+  boolean hasMultiplyTile() {
+    return TILE_SPECIES.length() == 4 && SPECIES.vectorBitSize() >= 256;
+  }
+
+  /*
+   * Each row of the 4x4 tile is held in a single
+   * 256-bit register, updated by a broadcast of the
+   * packed A value against the packed B row
+   */
+  @Override
+  void multiplyTile(
+          int kc, double alpha,
+          double[] a, int aIndex,
+          double[] b, int bIndex,
+          double[] c, int cIndex, int cRowStride
+    ) {
+
+    DoubleVector
+            c0 = DoubleVector.zero(TILE_SPECIES),
+            c1 = DoubleVector.zero(TILE_SPECIES),
+            c2 = DoubleVector.zero(TILE_SPECIES),
+            c3 = DoubleVector.zero(TILE_SPECIES)
+                    ;
+
+    for (int p = 0; p < kc; p++) {
+      DoubleVector bv = DoubleVector.fromArray(TILE_SPECIES, b, bIndex);
+
+      c0 = bv.fma(DoubleVector.broadcast(TILE_SPECIES, a[aIndex]), c0);
+      c1 = bv.fma(DoubleVector.broadcast(TILE_SPECIES, a[aIndex + 1]), c1);
+      c2 = bv.fma(DoubleVector.broadcast(TILE_SPECIES, a[aIndex + 2]), c2);
+      c3 = bv.fma(DoubleVector.broadcast(TILE_SPECIES, a[aIndex + 3]), c3);
+
+      aIndex += 4;
+      bIndex += 4;
+    }
+
+    DoubleVector av = DoubleVector.broadcast(TILE_SPECIES, alpha);
+    int r0 = cIndex, r1 = r0 + cRowStride, r2 = r1 + cRowStride, r3 = r2 + cRowStride;
+
+    c0.fma(av, DoubleVector.fromArray(TILE_SPECIES, c, r0)).intoArray(c, r0);
+    c1.fma(av, DoubleVector.fromArray(TILE_SPECIES, c, r1)).intoArray(c, r1);
+    c2.fma(av, DoubleVector.fromArray(TILE_SPECIES, c, r2)).intoArray(c, r2);
+    c3.fma(av, DoubleVector.fromArray(TILE_SPECIES, c, r3)).intoArray(c, r3);
+  }
+
+}
@@ -21,6 +21,7 @@
 package jmath;
 
 
+import jmath.fft.Convolution;
 import jmath.types.*;
 
 import java.util.Arrays;
@@ -3018,15 +3019,7 @@ public /*static*/ class JMath { private JMath() {}
    * @return the sum of the values
    */
   public static double cumulativeSum(double... values) {
-    if (values == null)
-      throw new IllegalArgumentException("Values array cannot be null");
-
-    double ret = 0;
-    for(double v : values) {
-      ret += v;
-    }
-
-    return ret;
+    return ArrayKernels.sum(values);
   }
 
   /**
@@ -3129,6 +3122,35 @@ public /*static*/ class JMath { private JMath() {}
     return ret;
   }
 
+  /**
+   *
+   * Calculates the full linear convolution of the
+   * provided arrays, of length a.length + b.length - 1,
+   * directly or by FFT as suits their lengths
+   *
+   * @param a the first array
+   * @param b the second array
+   * @return the convolution of the arrays
+   */
+  public static double[] convolve(double[] a, double[] b) {
+    return Convolution.convolve(a, b);
+  }
+
+  /**
+   *
+   * Calculates the full cross-correlation of the
+   * provided arrays, of length a.length + b.length - 1,
+   * where index k holds the correlation at a lag of
+   * k - (b.length - 1)
+   *
+   * @param a the first array
+   * @param b the second array
+   * @return the cross-correlation of the arrays
+   */
+  public static double[] correlate(double[] a, double[] b) {
+    return Convolution.correlate(a, b);
+  }
+
   /**
    *
    * Calculates the 'ceiling' function on the provided
@@ -1,9 +1,11 @@
 package jmath;
 
 import upsilon.tools.ArrayTools;
+import jmath.types.ArrayKernels;
 import jmath.types.Complex;
 import jmath.types.Fixed;
 import jmath.types.IVector;
+import jmath.types.PointCloud;
 import jmath.types.Vector;
 
 /**
@@ -26,12 +28,7 @@ public /*static*/ class JStats { private JStats() {  }
     else if (values.length == 0)
       throw new IllegalArgumentException("Values array must contain at least one value");
 
-    double total = 0;
-    for(double v : values) {
-      total += v;
-    }
-
-    return total / values.length;
+    return ArrayKernels.sum(values) / values.length;
   }
 
   /**
@@ -89,6 +86,22 @@ public /*static*/ class JStats { private JStats() {  }
     return Vector.add(values).scale(1.0 / values.length);
   }
 
+  /**
+   *
+   * Returns the vector average of the points of the point cloud provided
+   *
+   * @param values the points from which to calculate the average
+   * @return the average of the provided points
+   */
+  public static Vector average(PointCloud values) {
+    if (values == null)
+      throw new IllegalArgumentException("Point cloud cannot be null");
+    else if (values.size() == 0)
+      throw new IllegalArgumentException("Point cloud must contain at least one point");
+
+    return values.centroid();
+  }
+
   /**
    *
    * Returns the weighted arithmetic average of the values provided,
@@ -203,6 +216,27 @@ public /*static*/ class JStats { private JStats() {  }
     return ret;
   }
 
+  /**
+   *
+   * Returns the weighted vector average of the points of the point
+   * cloud provided, weighted by the weights provided. The weights to
+   * not necessarily need to sum to one.
+   *
+   * @param values the points for the average
+   * @param weight the weights assigned to the points
+   * @return the calculated weighted average
+   */
+  public static Vector weightedAverage(PointCloud values, double[] weight) {
+    if (values == null)
+      throw new IllegalArgumentException("Point cloud cannot be null");
+    if (weight == null)
+      throw new IllegalArgumentException("Weight array cannot be null");
+    if (values.size() != weight.length)
+      throw new IllegalArgumentException(String.format("Array length mismatch (%d != %d)", values.size(), weight.length));
+
+    return values.weightedCentroid(weight);
+  }
+
   /**
    *
    * Calculates the variance of the values array
@@ -222,12 +256,7 @@ public /*static*/ class JStats { private JStats() {  }
       density = 1d / (values.length - 1)
               ; /* sample density */
 
-    double ret = 0;
-    for (int k = 0; k < values.length; k++) {
-      ret += JMath.square(values[k] - average);
-    }
-
-    return density * ret;
+    return density * ArrayKernels.sumOfSquaredDeviations(values, average);
   }
 
 
@@ -265,17 +294,12 @@ public /*static*/ class JStats { private JStats() {  }
       throw new IllegalArgumentException("Array dimensions cannot be zero");
 
     double
-      ret = 0,
       density = 1d / (xValues.length - 1),
       xAve = average(xValues),
       yAve = average(yValues)
               ;
 
-    for (int k = 0; k < xValues.length; k++) {
-      ret += (xValues[k] - xAve) * (yValues[k] - yAve);
-    }
-
-    return density * ret;
+    return density * ArrayKernels.sumOfProductDeviations(xValues, xAve, yValues, yAve);
   }
 
 
@@ -344,24 +368,13 @@ public /*static*/ class JStats { private JStats() {  }
       throw new IllegalArgumentException("Array dimensions cannot be zero");
 
     double
-            top = 0,
-            bottom1 = 0,
-            bottom2 = 0,
             xAve = average(xValues),
-            yAve = average(yValues)
+            yAve = average(yValues),
+            top = ArrayKernels.sumOfProductDeviations(xValues, xAve, yValues, yAve),
+            bottom1 = ArrayKernels.sumOfSquaredDeviations(xValues, xAve),
+            bottom2 = ArrayKernels.sumOfSquaredDeviations(yValues, yAve)
                     ;
 
-    for (int k = 0; k < xValues.length; k++) {
-
-      top +=
-              (xValues[k] - xAve) *
-                      (yValues[k] - yAve);
-
-      bottom1 += JMath.square(xValues[k] - xAve);
-      bottom2 += JMath.square(yValues[k] - yAve);
-
-    }
-
     return top / (JMath.sqrt(bottom1) * JMath.sqrt(bottom2));
   }
 
@@ -0,0 +1,251 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.fft;
+
+import java.util.Arrays;
+import jmath.types.ArrayKernels;
+
+/**
+ * A static class of linear convolution and
+ * cross-correlation of double arrays. Each is
+ * computed directly for short kernels, and
+ * otherwise by the overlap-add or overlap-save
+ * method over real transforms of a block size
+ * chosen for the kernel. See Convolver for the
+ * convolution of unbounded input.
+ */
+public /*static*/ class Convolution {
+
+  private Convolution() {}
+
+  /**
+   * The methods by which a convolution
+   * may be computed
+   */
+  public enum Method {
+    DIRECT,
+    OVERLAP_ADD,
+    OVERLAP_SAVE,
+
+    ;
+  }
+
+  /* Kernels of at most this many values are convolved directly */
+  static final int DIRECT_TAPS = 40;
+
+  /* Signals at least this many times the kernel length use overlap-save */
+  static final int OVERLAP_SAVE_RATIO = 16;
+
+
+  /**
+   * Calculates the full linear convolution of two
+   * arrays, of length a.length + b.length - 1, by
+   * the method chosen by select(...)
+   *
+   * @param a the first array
+   * @param b the second array
+   * @return the convolution of the arrays
+   */
+  public static double[] convolve(double[] a, double[] b) {
+    checkArrays(a, b);
+    return convolve(a, b, select(a.length, b.length));
+  }
+
+  /**
+   * Calculates the full linear convolution of two
+   * arrays by the provided method
+   *
+   * @param a the first array
+   * @param b the second array
+   * @param method the method of computation
+   * @return the convolution of the arrays
+   */
+  public static double[] convolve(double[] a, double[] b, Method method) {
+    checkArrays(a, b);
+    if (method == null)
+      throw new IllegalArgumentException("Method cannot be null");
+
+    /* The shorter array is the kernel */
+    double[] signal = a.length >= b.length ? a : b, kernel = signal == a ? b : a;
+
+    switch (method) {
+      case DIRECT:
+        return direct(signal, kernel);
+      case OVERLAP_ADD:
+        return overlapAdd(signal, kernel);
+      case OVERLAP_SAVE:
+        return overlapSave(signal, kernel);
+      default:
+        throw new RuntimeException();
+    }
+  }
+
+  /**
+   * Calculates the full cross-correlation of two
+   * arrays, of length a.length + b.length - 1. The
+   * value at index k is the sum over j of
+   * a[j + k - (b.length - 1)] * b[j], the correlation
+   * at a lag of k - (b.length - 1).
+   *
+   * @param a the first array
+   * @param b the second array
+   * @return the cross-correlation of the arrays
+   */
+  public static double[] correlate(double[] a, double[] b) {
+    checkArrays(a, b);
+    return correlate(a, b, select(a.length, b.length));
+  }
+
+  public static double[] correlate(double[] a, double[] b, Method method) {
+    checkArrays(a, b);
+
+    double[] reversed = new double[b.length];
+    for (int k = 0; k < b.length; k++) {
+      reversed[k] = b[b.length - 1 - k];
+    }
+
+    return convolve(a, reversed, method);
+  }
+
+  /**
+   * Returns the method by which convolve(...) and
+   * correlate(...) compute with arrays of the
+   * provided lengths: directly for kernels (the
+   * shorter array) of at most 40 values, by
+   * overlap-save for signals at least 16 times the
+   * length of the kernel, and by overlap-add
+   * otherwise
+   *
+   * @param a the length of the first array
+   * @param b the length of the second array
+   * @return the method of computation
+   */
+  public static Method select(int a, int b) {
+    int taps = Math.min(a, b), length = Math.max(a, b);
+
+    if (taps <= DIRECT_TAPS)
+      return Method.DIRECT;
+    else if ((long) length >= (long) OVERLAP_SAVE_RATIO * taps)
+      return Method.OVERLAP_SAVE;
+    else
+      return Method.OVERLAP_ADD;
+  }
+
+  private static void checkArrays(double[] a, double[] b) {
+    if (a == null || b == null)
+      throw new IllegalArgumentException("Arrays cannot be null");
+    if (a.length == 0 || b.length == 0)
+      throw new IllegalArgumentException("Cannot convolve empty array");
+  }
+
+  /*
+   * Returns the power of two transform size which
+   * minimizes the cost per output value of convolving
+   * 'length' values with a kernel of 'taps' values
+   */
+  static int blockSize(int taps, int length) {
+    long limit = Math.max(taps, (long) length + taps - 1);
+    int ret = Integer.highestOneBit(taps);
+    if (ret < taps)
+      ret <<= 1;
+
+    double best = cost(ret, taps);
+    while (ret < limit && ret < (1 << 29)) {
+      double next = cost(2 * ret, taps);
+      if (next >= best)
+        break;
+      ret *= 2;
+      best = next;
+    }
+
+    return ret;
+  }
+
+  private static double cost(int blockSize, int taps) {
+    return blockSize * (Math.log(blockSize) + 1) / (blockSize - taps + 1);
+  }
+
+
+  /* Methods */
+
+  private static double[] direct(double[] signal, double[] kernel) {
+    double[] ret = new double[signal.length + kernel.length - 1];
+
+    /* One pass along the signal per kernel value */
+    for (int t = 0; t < kernel.length; t++) {
+      if (kernel[t] != 0)
+        ArrayKernels.axpy(kernel[t], signal, 0, ret, t, signal.length);
+    }
+
+    return ret;
+  }
+
+  private static double[] overlapAdd(double[] signal, double[] kernel) {
+    int
+            taps = kernel.length,
+            blockSize = blockSize(taps, signal.length),
+            step = blockSize - taps + 1,
+            bins = blockSize / 2 + 1
+                    ;
+    FFTPlan plan = FFTPlan.of(blockSize);
+
+    double[]
+            ret = new double[signal.length + taps - 1],
+            kernelReal = new double[bins], kernelImaginary = new double[bins],
+            block = new double[blockSize], result = new double[blockSize],
+            real = new double[bins], imaginary = new double[bins]
+                    ;
+    plan.forwardReal(Arrays.copyOf(kernel, blockSize), kernelReal, kernelImaginary);
+
+    for (int start = 0; start < signal.length; start += step) {
+      int count = Math.min(step, signal.length - start);
+      System.arraycopy(signal, start, block, 0, count);
+      Arrays.fill(block, count, blockSize, 0);
+
+      plan.forwardReal(block, real, imaginary);
+      for (int k = 0; k < bins; k++) {
+        double
+                ar = real[k], ai = imaginary[k],
+                br = kernelReal[k], bi = kernelImaginary[k]
+                        ;
+        real[k] = ar * br - ai * bi;
+        imaginary[k] = ar * bi + ai * br;
+      }
+      plan.inverseReal(real, imaginary, result);
+
+      /* Each block's convolution overlaps the next by taps - 1 values */
+      ArrayKernels.axpy(1, result, 0, ret, start, count + taps - 1);
+    }
+
+    return ret;
+  }
+
+  private static double[] overlapSave(double[] signal, double[] kernel) {
+    double[] ret = new double[signal.length + kernel.length - 1];
+
+    Convolver convolver = new Convolver(kernel, blockSize(kernel.length, signal.length));
+    int written = convolver.process(signal, 0, signal.length, ret, 0);
+    convolver.flush(ret, written);
+
+    return ret;
+  }
+
+}
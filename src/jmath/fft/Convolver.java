@@ -0,0 +1,206 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.fft;
+
+import java.util.Arrays;
+
+/**
+ * A streaming convolution of an unbounded input
+ * with a fixed kernel by the overlap-save method.
+ * Input is given in pieces of any length to
+ * process(...), which returns the output completed
+ * so far; flush() ends the input and returns the
+ * remaining output. Together the outputs are the
+ * full linear convolution of the input with the
+ * kernel, of (input length) + (kernel length) - 1
+ * values. An object of this class holds the state
+ * of one stream and is not safe for concurrent use.
+ */
+public final class Convolver {
+
+  private final int taps, blockSize, step;
+  private final FFTPlan plan;
+  private final double[] kernelReal, kernelImaginary;
+
+  /* The last taps - 1 input values followed by up to 'step' new ones */
+  private final double[] window;
+  private final double[] spectrumReal, spectrumImaginary, result;
+  private int filled;
+
+  /**
+   * Creates a streaming convolution with the
+   * provided kernel, using transforms of a size
+   * chosen for the kernel length
+   *
+   * @param kernel the kernel, which is copied
+   */
+  public Convolver(double[] kernel) {
+    this(kernel, Convolution.blockSize(checkKernel(kernel).length, Integer.MAX_VALUE));
+  }
+
+  /**
+   * Creates a streaming convolution with the
+   * provided kernel, using transforms of the
+   * provided size. Each transform completes
+   * blockSize - (kernel length) + 1 output values.
+   *
+   * @param kernel the kernel, which is copied
+   * @param blockSize the transform size, a power of two of at least the kernel length
+   */
+  public Convolver(double[] kernel, int blockSize) {
+    checkKernel(kernel);
+    if (blockSize < kernel.length || Integer.bitCount(blockSize) != 1)
+      throw new IllegalArgumentException("Block size must be a power of two no less than the kernel length");
+
+    this.taps = kernel.length;
+    this.blockSize = blockSize;
+    this.step = blockSize - taps + 1;
+    this.plan = FFTPlan.of(blockSize);
+
+    int bins = blockSize / 2 + 1;
+    kernelReal = new double[bins];
+    kernelImaginary = new double[bins];
+    plan.forwardReal(Arrays.copyOf(kernel, blockSize), kernelReal, kernelImaginary);
+
+    window = new double[blockSize];
+    spectrumReal = new double[bins];
+    spectrumImaginary = new double[bins];
+    result = new double[blockSize];
+  }
+
+  private static double[] checkKernel(double[] kernel) {
+    if (kernel == null)
+      throw new IllegalArgumentException("Kernel cannot be null");
+    if (kernel.length == 0)
+      throw new IllegalArgumentException("Kernel cannot be empty");
+    return kernel;
+  }
+
+
+  public int blockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Adds the provided values to the input, returning
+   * the output values completed by them
+   *
+   * @param input the next values of the input
+   * @return the newly completed output values
+   */
+  public double[] process(double[] input) {
+    if (input == null)
+      throw new IllegalArgumentException("Input array cannot be null");
+
+    return process(input, 0, input.length);
+  }
+
+  public double[] process(double[] input, int offset, int length) {
+    if (input == null)
+      throw new IllegalArgumentException("Input array cannot be null");
+    if (offset < 0 || length < 0 || offset > input.length - length)
+      throw new IllegalArgumentException("Input range out of bounds");
+
+    double[] ret = new double[(filled + length) / step * step];
+    process(input, offset, length, ret, 0);
+    return ret;
+  }
+
+  /**
+   * Ends the input, returning the remaining output
+   * values. This convolver may then be reused for a
+   * new stream.
+   *
+   * @return the remaining output values
+   */
+  public double[] flush() {
+    double[] ret = new double[filled + taps - 1];
+    flush(ret, 0);
+    return ret;
+  }
+
+  /*
+   * Adds the input range, writing each completed block
+   * of output into 'out' from 'outOffset', and returns
+   * the number of values written
+   */
+  int process(double[] input, int offset, int length, double[] out, int outOffset) {
+    int written = 0;
+
+    while (length > 0) {
+      int count = Math.min(length, step - filled);
+      System.arraycopy(input, offset, window, taps - 1 + filled, count);
+      filled += count;
+      offset += count;
+      length -= count;
+
+      if (filled == step) {
+        convolveWindow(out, outOffset + written, step);
+        written += step;
+      }
+    }
+
+    return written;
+  }
+
+  /* Writes the remaining filled + taps - 1 output values into 'out' from 'outOffset', and resets */
+  void flush(double[] out, int outOffset) {
+    int remaining = filled + taps - 1;
+
+    while (remaining > 0) {
+      Arrays.fill(window, taps - 1 + filled, blockSize, 0);
+      int count = Math.min(step, remaining);
+      convolveWindow(out, outOffset, count);
+      outOffset += count;
+      remaining -= count;
+    }
+
+    Arrays.fill(window, 0);
+    filled = 0;
+  }
+
+  /*
+   * Circularly convolves the window with the kernel,
+   * writes the first 'count' valid values into 'out',
+   * and slides the window on by one step
+   */
+  private void convolveWindow(double[] out, int outOffset, int count) {
+    plan.forwardReal(window, spectrumReal, spectrumImaginary);
+
+    for (int k = 0; k < spectrumReal.length; k++) {
+      double
+              ar = spectrumReal[k], ai = spectrumImaginary[k],
+              br = kernelReal[k], bi = kernelImaginary[k]
+                      ;
+      spectrumReal[k] = ar * br - ai * bi;
+      spectrumImaginary[k] = ar * bi + ai * br;
+    }
+
+    plan.inverseReal(spectrumReal, spectrumImaginary, result);
+
+    /* The first taps - 1 values wrap around and are discarded */
+    System.arraycopy(result, taps - 1, out, outOffset, count);
+
+    System.arraycopy(window, step, window, 0, taps - 1);
+    filled = 0;
+  }
+
+}
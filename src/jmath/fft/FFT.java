@@ -0,0 +1,131 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.fft;
+
+import jmath.types.ComplexArray;
+
+/**
+ * A static class of discrete Fourier transforms
+ * over primitive arrays, through the cached plan
+ * of each size (see FFTPlan.of(int) for which plans
+ * the cache keeps). The forward transform
+ * is X[k] = sum of x[j] e^(-2 pi i j k / n), and the
+ * inverse includes the scale of 1 / n.
+ */
+public /*static*/ class FFT {
+
+  private FFT() {}
+
+
+  /**
+   * Transforms the provided values in place
+   *
+   * @param real the real parts of the values
+   * @param imaginary the imaginary parts of the values
+   */
+  public static void forward(double[] real, double[] imaginary) {
+    plan(real).forward(real, imaginary);
+  }
+
+  /**
+   * Inverts the transform of the provided values
+   * in place
+   *
+   * @param real the real parts of the values
+   * @param imaginary the imaginary parts of the values
+   */
+  public static void inverse(double[] real, double[] imaginary) {
+    plan(real).inverse(real, imaginary);
+  }
+
+  public static ComplexArray forward(ComplexArray values) {
+    if (values == null)
+      throw new IllegalArgumentException("Complex array cannot be null");
+
+    forward(values.real(), values.imaginary());
+    return values;
+  }
+
+  public static ComplexArray inverse(ComplexArray values) {
+    if (values == null)
+      throw new IllegalArgumentException("Complex array cannot be null");
+
+    inverse(values.real(), values.imaginary());
+    return values;
+  }
+
+  /**
+   * Transforms the provided values in place, splitting
+   * the work across the common pool for transforms of
+   * at least 2^20 values
+   *
+   * @param real the real parts of the values
+   * @param imaginary the imaginary parts of the values
+   */
+  public static void parallelForward(double[] real, double[] imaginary) {
+    plan(real).parallelForward(real, imaginary);
+  }
+
+  public static void parallelInverse(double[] real, double[] imaginary) {
+    plan(real).parallelInverse(real, imaginary);
+  }
+
+  /**
+   * Transforms the provided real values, returning
+   * the first n / 2 + 1 values of the transform (the
+   * rest being their conjugates)
+   *
+   * @param values the real values
+   * @return the non-redundant half of the transform
+   */
+  public static ComplexArray forwardReal(double[] values) {
+    FFTPlan plan = plan(values);
+    ComplexArray ret = new ComplexArray(values.length / 2 + 1);
+    plan.forwardReal(values, ret.real(), ret.imaginary());
+    return ret;
+  }
+
+  /**
+   * Inverts the transform of real values of the
+   * provided size from the first n / 2 + 1 values of
+   * the transform
+   *
+   * @param spectrum the non-redundant half of the transform
+   * @param n the number of real values
+   * @return the real values
+   */
+  public static double[] inverseReal(ComplexArray spectrum, int n) {
+    if (spectrum == null)
+      throw new IllegalArgumentException("Complex array cannot be null");
+
+    double[] ret = new double[n];
+    FFTPlan.of(n).inverseReal(spectrum.real(), spectrum.imaginary(), ret);
+    return ret;
+  }
+
+  private static FFTPlan plan(double[] values) {
+    if (values == null)
+      throw new IllegalArgumentException("Arrays cannot be null");
+
+    return FFTPlan.of(values.length);
+  }
+
+}
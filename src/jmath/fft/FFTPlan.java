@@ -0,0 +1,749 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.fft;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import jmath.types.ComplexArray;
+
+/**
+ * The precomputed factorization and twiddle
+ * factors for discrete Fourier transforms of a
+ * single size. Plans are created by of(int) and
+ * cached, so repeated transforms of the same length
+ * reuse the precomputation: every power of two plan
+ * is kept, along with the CACHE_SIZE most recently
+ * used plans of other sizes. Sizes whose
+ * prime factors are all small are transformed by
+ * mixed-radix Cooley-Tukey (radix 4 and 2, and
+ * direct butterflies for other factors); sizes with
+ * a large prime factor are transformed by
+ * Bluestein's algorithm through a power of two
+ * plan. The forward transform is unscaled and the
+ * inverse is scaled by 1 / n. A plan is immutable
+ * and may be shared between threads.
+ */
+public final class FFTPlan {
+
+  /* Prime factors above this are transformed by Bluestein's algorithm */
+  private static final int MAX_RADIX = 64;
+
+  /* Transforms smaller than this are computed on the calling thread by the parallel methods */
+  static final int PARALLEL_SIZE = 1 << 20;
+
+  /* Sub-transforms and butterfly ranges smaller than this are not split across tasks */
+  private static final int PARALLEL_GRAIN = 1 << 14;
+
+  /* Bluestein transforms through a power of two of at least 2n - 1, which must fit in an int */
+  static final int MAX_BLUESTEIN_SIZE = 1 << 29;
+
+  /* Number of plans of sizes other than powers of two kept by the cache */
+  static final int CACHE_SIZE = 32;
+
+  /* Plans of powers of two, of which there are at most 31 */
+  private static final ConcurrentHashMap<Integer, FFTPlan> POWER_OF_TWO_CACHE = new ConcurrentHashMap<>();
+
+  /* Plans of other sizes, in order of use, guarded by its own lock */
+  private static final LinkedHashMap<Integer, FFTPlan> CACHE = new LinkedHashMap<Integer, FFTPlan>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Integer, FFTPlan> eldest) {
+      return size() > CACHE_SIZE;
+    }
+  };
+
+  /**
+   * Returns the plan for transforms of the
+   * provided size, creating it if it is not
+   * cached. Plans of powers of two are kept
+   * indefinitely; of other sizes only the
+   * CACHE_SIZE (32) most recently used are kept,
+   * so transforming many distinct lengths does
+   * not grow the cache without bound.
+   *
+   * @param n the size of the transforms
+   * @return the plan
+   */
+  public static FFTPlan of(int n) {
+    if (n <= 0)
+      throw new IllegalArgumentException("Cannot plan transform of non-positive size");
+
+    if ((n & (n - 1)) == 0) {
+      FFTPlan ret = POWER_OF_TWO_CACHE.get(n);
+      if (ret == null) {
+        FFTPlan plan = new FFTPlan(n);
+        ret = POWER_OF_TWO_CACHE.putIfAbsent(n, plan);
+        if (ret == null)
+          ret = plan;
+      }
+      return ret;
+    }
+
+    FFTPlan ret;
+    synchronized (CACHE) {
+      ret = CACHE.get(n);
+    }
+
+    if (ret == null) {
+      /* Created outside the lock, as plans are costly and Bluestein plans look up a second plan */
+      FFTPlan plan = new FFTPlan(n);
+      synchronized (CACHE) {
+        ret = CACHE.putIfAbsent(n, plan);
+      }
+      if (ret == null)
+        ret = plan;
+    }
+
+    return ret;
+  }
+
+  /**
+   * Removes all cached plans. Plans already held
+   * remain usable.
+   */
+  public static void clearCache() {
+    POWER_OF_TWO_CACHE.clear();
+    synchronized (CACHE) {
+      CACHE.clear();
+    }
+  }
+
+
+  private final int n;
+
+  /* Radices of the Cooley-Tukey stages, or null for Bluestein */
+  private final int[] factors;
+
+  /* W_n^k = cos(2 pi k / n) - i sin(2 pi k / n) for k in [0, n) */
+  private final double[] twiddleReal, twiddleImaginary;
+
+  /* Bluestein: the chirp w_k = exp(-i pi k^2 / n), and the transform of its conjugate padded to 'inner' */
+  private final FFTPlan inner;
+  private final double[] chirpReal, chirpImaginary, filterReal, filterImaginary;
+
+  /* The plan of size n / 2 and the twiddles used to split it, created on the first real transform */
+  private volatile RealSplit split;
+
+  private FFTPlan(int n) {
+    this.n = n;
+    this.factors = factor(n);
+
+    if (factors != null) {
+      twiddleReal = new double[n];
+      twiddleImaginary = new double[n];
+      for (int k = 0; k < n; k++) {
+        double angle = 2 * Math.PI * k / n;
+        twiddleReal[k] = Math.cos(angle);
+        twiddleImaginary[k] = -Math.sin(angle);
+      }
+
+      inner = null;
+      chirpReal = chirpImaginary = filterReal = filterImaginary = null;
+    }
+    else {
+      twiddleReal = twiddleImaginary = null;
+
+      if (n > MAX_BLUESTEIN_SIZE)
+        throw new IllegalArgumentException(String.format(
+                "Cannot plan transform of size %d, which has a prime factor above %d, as sizes transformed by Bluestein's algorithm are limited to %d",
+                n, MAX_RADIX, MAX_BLUESTEIN_SIZE
+          ));
+
+      int m = Integer.highestOneBit(2 * n - 1);
+      if (m < 2 * n - 1)
+        m <<= 1;
+      inner = of(m);
+
+      chirpReal = new double[n];
+      chirpImaginary = new double[n];
+      filterReal = new double[m];
+      filterImaginary = new double[m];
+
+      for (int k = 0; k < n; k++) {
+        /* k^2 mod 2n keeps the angle small, and so exact */
+        double angle = Math.PI * (double) ((long) k * k % (2L * n)) / n;
+        chirpReal[k] = Math.cos(angle);
+        chirpImaginary[k] = -Math.sin(angle);
+
+        filterReal[k] = chirpReal[k];
+        filterImaginary[k] = -chirpImaginary[k];
+        if (k != 0) {
+          filterReal[m - k] = filterReal[k];
+          filterImaginary[m - k] = filterImaginary[k];
+        }
+      }
+
+      inner.forward(filterReal, filterImaginary);
+    }
+  }
+
+  /*
+   * Returns the radices of the stages for size 'n',
+   * taking fours first, or null if 'n' has a prime
+   * factor above MAX_RADIX
+   */
+  private static int[] factor(int n) {
+    List<Integer> ret = new ArrayList<>();
+
+    while (n % 4 == 0) {
+      ret.add(4);
+      n /= 4;
+    }
+    if (n % 2 == 0) {
+      ret.add(2);
+      n /= 2;
+    }
+    for (int p = 3; n > 1; p += 2) {
+      if (p > MAX_RADIX)
+        return null;
+      while (n % p == 0) {
+        ret.add(p);
+        n /= p;
+      }
+    }
+
+    int[] factors = new int[ret.size()];
+    for (int k = 0; k < factors.length; k++) {
+      factors[k] = ret.get(k);
+    }
+    return factors;
+  }
+
+
+  /**
+   * Returns the size of the transforms of this plan
+   *
+   * @return the size
+   */
+  public int size() {
+    return n;
+  }
+
+  /**
+   * Returns whether this plan transforms by
+   * Bluestein's algorithm rather than by direct
+   * Cooley-Tukey factorization
+   *
+   * @return true if this plan uses Bluestein's algorithm
+   */
+  public boolean isBluestein() {
+    return factors == null;
+  }
+
+
+  private void checkArrays(double[] real, double[] imaginary) {
+    if (real == null || imaginary == null)
+      throw new IllegalArgumentException("Arrays cannot be null");
+    if (real.length != n || imaginary.length != n)
+      throw new IllegalArgumentException(String.format("Arrays must be of the plan size (%d)", n));
+  }
+
+
+  /* Complex transforms */
+
+  /**
+   * Transforms the provided values in place
+   *
+   * @param real the real parts of the values
+   * @param imaginary the imaginary parts of the values
+   */
+  public void forward(double[] real, double[] imaginary) {
+    checkArrays(real, imaginary);
+    transform(real.clone(), imaginary.clone(), real, imaginary, null);
+  }
+
+  /**
+   * Transforms the provided values into the output
+   * arrays, which must not be the input arrays. No
+   * memory is allocated except by Bluestein plans.
+   *
+   * @param real the real parts of the values
+   * @param imaginary the imaginary parts of the values
+   * @param outReal the destination of the real parts of the transform
+   * @param outImaginary the destination of the imaginary parts of the transform
+   */
+  public void forward(double[] real, double[] imaginary, double[] outReal, double[] outImaginary) {
+    checkArrays(real, imaginary);
+    checkArrays(outReal, outImaginary);
+    checkDistinct(real, imaginary, outReal, outImaginary);
+    transform(real, imaginary, outReal, outImaginary, null);
+  }
+
+  public void forward(ComplexArray values) {
+    if (values == null)
+      throw new IllegalArgumentException("Complex array cannot be null");
+
+    forward(values.real(), values.imaginary());
+  }
+
+  /**
+   * Inverts the transform of the provided values in
+   * place, including the scale of 1 / n
+   *
+   * @param real the real parts of the values
+   * @param imaginary the imaginary parts of the values
+   */
+  public void inverse(double[] real, double[] imaginary) {
+    checkArrays(real, imaginary);
+    conjugate(imaginary);
+    forward(real, imaginary);
+    conjugateAndScale(real, imaginary);
+  }
+
+  public void inverse(double[] real, double[] imaginary, double[] outReal, double[] outImaginary) {
+    checkArrays(real, imaginary);
+    checkArrays(outReal, outImaginary);
+    checkDistinct(real, imaginary, outReal, outImaginary);
+
+    /* The input is conjugated for the transform and restored afterwards */
+    conjugate(imaginary);
+    try {
+      transform(real, imaginary, outReal, outImaginary, null);
+    } finally {
+      conjugate(imaginary);
+    }
+    conjugateAndScale(outReal, outImaginary);
+  }
+
+  public void inverse(ComplexArray values) {
+    if (values == null)
+      throw new IllegalArgumentException("Complex array cannot be null");
+
+    inverse(values.real(), values.imaginary());
+  }
+
+  /**
+   * Transforms the provided values in place, splitting
+   * the work across the common pool for transforms of
+   * at least 2^20 values
+   *
+   * @param real the real parts of the values
+   * @param imaginary the imaginary parts of the values
+   */
+  public void parallelForward(double[] real, double[] imaginary) {
+    parallelForward(real, imaginary, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Transforms the provided values in place, splitting
+   * the work across the provided pool for transforms
+   * of at least 2^20 values
+   *
+   * @param real the real parts of the values
+   * @param imaginary the imaginary parts of the values
+   * @param pool the pool on which to schedule the work
+   */
+  public void parallelForward(double[] real, double[] imaginary, ForkJoinPool pool) {
+    checkArrays(real, imaginary);
+    if (pool == null)
+      throw new IllegalArgumentException("Pool cannot be null");
+
+    double[] inReal = real.clone(), inImaginary = imaginary.clone();
+    if (n < PARALLEL_SIZE || pool.getParallelism() == 1)
+      transform(inReal, inImaginary, real, imaginary, null);
+    else
+      pool.invoke(ForkJoinTask.adapt(() -> transform(inReal, inImaginary, real, imaginary, pool)));
+  }
+
+  public void parallelInverse(double[] real, double[] imaginary) {
+    parallelInverse(real, imaginary, ForkJoinPool.commonPool());
+  }
+
+  public void parallelInverse(double[] real, double[] imaginary, ForkJoinPool pool) {
+    checkArrays(real, imaginary);
+    conjugate(imaginary);
+    parallelForward(real, imaginary, pool);
+    conjugateAndScale(real, imaginary);
+  }
+
+  private static void checkDistinct(double[] real, double[] imaginary, double[] outReal, double[] outImaginary) {
+    if (
+            outReal == real || outReal == imaginary ||
+            outImaginary == real || outImaginary == imaginary ||
+            outReal == outImaginary
+            )
+      throw new IllegalArgumentException("Output arrays cannot be input arrays");
+  }
+
+  private static void conjugate(double[] imaginary) {
+    for (int k = 0; k < imaginary.length; k++) {
+      imaginary[k] = -imaginary[k];
+    }
+  }
+
+  private static void conjugateAndScale(double[] real, double[] imaginary) {
+    double s = 1.0 / real.length;
+    for (int k = 0; k < real.length; k++) {
+      real[k] *= s;
+      imaginary[k] *= -s;
+    }
+  }
+
+
+  /* Real transforms */
+
+  /**
+   * Transforms the provided real values, writing the
+   * first n / 2 + 1 values of the transform into the
+   * output arrays. The remaining values are the
+   * conjugates of these, as X[n - k] = conj(X[k]).
+   * Transforms of even size are computed by a complex
+   * transform of half the size.
+   *
+   * @param values the real values
+   * @param outReal the destination of the real parts, of length n / 2 + 1
+   * @param outImaginary the destination of the imaginary parts, of length n / 2 + 1
+   */
+  public void forwardReal(double[] values, double[] outReal, double[] outImaginary) {
+    if (values == null || outReal == null || outImaginary == null)
+      throw new IllegalArgumentException("Arrays cannot be null");
+    if (values.length != n)
+      throw new IllegalArgumentException(String.format("Array must be of the plan size (%d)", n));
+    if (outReal.length != n / 2 + 1 || outImaginary.length != n / 2 + 1)
+      throw new IllegalArgumentException(String.format("Output arrays must be of length %d", n / 2 + 1));
+
+    if (n % 2 != 0) {
+      double[] real = values.clone(), imaginary = new double[n];
+      forward(real, imaginary);
+      System.arraycopy(real, 0, outReal, 0, outReal.length);
+      System.arraycopy(imaginary, 0, outImaginary, 0, outImaginary.length);
+      return;
+    }
+
+    int h = n / 2;
+    RealSplit split = split();
+    double[] zr = new double[h], zi = new double[h], fr = new double[h], fi = new double[h];
+
+    /* z_k = x_2k + i x_2k+1 */
+    for (int k = 0; k < h; k++) {
+      zr[k] = values[2 * k];
+      zi[k] = values[2 * k + 1];
+    }
+    split.half.transform(zr, zi, fr, fi, null);
+
+    /* X_k = E_k + W_n^k O_k, where E and O are the transforms of the even and odd values */
+    for (int k = 0; k <= h; k++) {
+      int a = k % h, b = (h - k) % h;
+      double
+              er = (fr[a] + fr[b]) / 2, ei = (fi[a] - fi[b]) / 2,
+              or = (fi[a] + fi[b]) / 2, oi = (fr[b] - fr[a]) / 2,
+              wr = split.twiddleReal[k], wi = split.twiddleImaginary[k]
+                      ;
+      outReal[k] = er + wr * or - wi * oi;
+      outImaginary[k] = ei + wr * oi + wi * or;
+    }
+  }
+
+  /**
+   * Inverts the transform of real values given its
+   * first n / 2 + 1 values, as written by
+   * forwardReal(...), including the scale of 1 / n
+   *
+   * @param real the real parts of the transform, of length n / 2 + 1
+   * @param imaginary the imaginary parts of the transform, of length n / 2 + 1
+   * @param out the destination of the real values
+   */
+  public void inverseReal(double[] real, double[] imaginary, double[] out) {
+    if (real == null || imaginary == null || out == null)
+      throw new IllegalArgumentException("Arrays cannot be null");
+    if (real.length != n / 2 + 1 || imaginary.length != n / 2 + 1)
+      throw new IllegalArgumentException(String.format("Transform arrays must be of length %d", n / 2 + 1));
+    if (out.length != n)
+      throw new IllegalArgumentException(String.format("Output array must be of the plan size (%d)", n));
+
+    if (n % 2 != 0) {
+      double[] fr = new double[n], fi = new double[n];
+      for (int k = 0; k < real.length; k++) {
+        fr[k] = real[k];
+        fi[k] = imaginary[k];
+        if (k != 0) {
+          fr[n - k] = real[k];
+          fi[n - k] = -imaginary[k];
+        }
+      }
+      inverse(fr, fi);
+      System.arraycopy(fr, 0, out, 0, n);
+      return;
+    }
+
+    int h = n / 2;
+    RealSplit split = split();
+    double[] zr = new double[h], zi = new double[h], fr = new double[h], fi = new double[h];
+
+    /* Z_k = E_k + i O_k, where E_k = (X_k + conj X_h-k) / 2 and O_k = (X_k - conj X_h-k) W_n^-k / 2 */
+    for (int k = 0; k < h; k++) {
+      double
+              er = (real[k] + real[h - k]) / 2, ei = (imaginary[k] - imaginary[h - k]) / 2,
+              dr = (real[k] - real[h - k]) / 2, di = (imaginary[k] + imaginary[h - k]) / 2,
+              wr = split.twiddleReal[k], wi = -split.twiddleImaginary[k],
+              or = dr * wr - di * wi, oi = dr * wi + di * wr
+                      ;
+      zr[k] = er - oi;
+      zi[k] = ei + or;
+    }
+
+    conjugate(zi);
+    split.half.transform(zr, zi, fr, fi, null);
+
+    double s = 1.0 / h;
+    for (int k = 0; k < h; k++) {
+      out[2 * k] = fr[k] * s;
+      out[2 * k + 1] = -fi[k] * s;
+    }
+  }
+
+  private RealSplit split() {
+    RealSplit ret = split;
+    if (ret == null)
+      split = ret = new RealSplit(n);
+    return ret;
+  }
+
+  /* The half size plan of a real transform of even size n, and W_n^k for k in [0, n / 2] */
+  private static final class RealSplit {
+
+    final FFTPlan half;
+    final double[] twiddleReal, twiddleImaginary;
+
+    RealSplit(int n) {
+      half = of(n / 2);
+      twiddleReal = new double[n / 2 + 1];
+      twiddleImaginary = new double[n / 2 + 1];
+      for (int k = 0; k <= n / 2; k++) {
+        double angle = 2 * Math.PI * k / n;
+        twiddleReal[k] = Math.cos(angle);
+        twiddleImaginary[k] = -Math.sin(angle);
+      }
+    }
+  }
+
+
+  /* Transform engine */
+
+  /*
+   * Writes the transform of (xr, xi) into (yr, yi),
+   * which are distinct arrays of size n, splitting the
+   * work across 'pool' if it is not null
+   */
+  private void transform(double[] xr, double[] xi, double[] yr, double[] yi, ForkJoinPool pool) {
+    if (n == 1) {
+      yr[0] = xr[0];
+      yi[0] = xi[0];
+    }
+    else if (factors != null)
+      transform(xr, xi, 0, 1, yr, yi, 0, n, 0, 1, pool);
+    else
+      bluestein(xr, xi, yr, yi, pool);
+  }
+
+  /*
+   * Writes the transform of the 'size' values of x at
+   * 'in' + j * 'stride' into y at ['out', 'out' + size),
+   * by transforming the 'p' interleaved subsequences of
+   * x (p being the radix of stage 'f') and combining
+   * them with butterflies. The twiddles of this size
+   * are every 'twiddleStride'th twiddle of the plan.
+   */
+  private void transform(
+          double[] xr, double[] xi, int in, int stride,
+          double[] yr, double[] yi, int out,
+          int size, int f, int twiddleStride,
+          ForkJoinPool pool
+    ) {
+    int p = factors[f], m = size / p;
+
+    if (m == 1) {
+      for (int q = 0; q < p; q++) {
+        yr[out + q] = xr[in + q * stride];
+        yi[out + q] = xi[in + q * stride];
+      }
+    }
+    else if (pool != null && m >= PARALLEL_GRAIN) {
+      List<ForkJoinTask<?>> tasks = new ArrayList<>(p);
+      for (int q = 0; q < p; q++) {
+        int qIn = in + q * stride, qOut = out + q * m;
+        tasks.add(ForkJoinTask.adapt(() -> transform(
+                xr, xi, qIn, stride * p,
+                yr, yi, qOut,
+                m, f + 1, twiddleStride * p,
+                pool
+          )));
+      }
+      ForkJoinTask.invokeAll(tasks);
+    }
+    else {
+      for (int q = 0; q < p; q++) {
+        transform(
+                xr, xi, in + q * stride, stride * p,
+                yr, yi, out + q * m,
+                m, f + 1, twiddleStride * p,
+                null
+          );
+      }
+    }
+
+    if (pool != null && m >= 2 * PARALLEL_GRAIN) {
+      List<ForkJoinTask<?>> tasks = new ArrayList<>();
+      for (int k = 0; k < m; k += PARALLEL_GRAIN) {
+        int from = k, to = Math.min(m, k + PARALLEL_GRAIN);
+        tasks.add(ForkJoinTask.adapt(() -> butterflies(p, yr, yi, out, m, twiddleStride, from, to)));
+      }
+      ForkJoinTask.invokeAll(tasks);
+    }
+    else
+      butterflies(p, yr, yi, out, m, twiddleStride, 0, m);
+  }
+
+  /*
+   * Combines the p transforms of size m held at 'out'
+   * + q * m into one of size p * m, for the butterflies
+   * k in [from, to)
+   */
+  private void butterflies(int p, double[] yr, double[] yi, int out, int m, int twiddleStride, int from, int to) {
+    switch (p) {
+      case 2:
+        butterfly2(yr, yi, out, m, twiddleStride, from, to);
+        break;
+      case 4:
+        butterfly4(yr, yi, out, m, twiddleStride, from, to);
+        break;
+      default:
+        butterfly(p, yr, yi, out, m, twiddleStride, from, to);
+        break;
+    }
+  }
+
+  private void butterfly2(double[] yr, double[] yi, int out, int m, int twiddleStride, int from, int to) {
+    double[] wr = twiddleReal, wi = twiddleImaginary;
+
+    for (int k = from; k < to; k++) {
+      int a = out + k, b = a + m, w = k * twiddleStride;
+      double
+              tr = yr[b] * wr[w] - yi[b] * wi[w],
+              ti = yr[b] * wi[w] + yi[b] * wr[w]
+                      ;
+      yr[b] = yr[a] - tr;
+      yi[b] = yi[a] - ti;
+      yr[a] += tr;
+      yi[a] += ti;
+    }
+  }
+
+  private void butterfly4(double[] yr, double[] yi, int out, int m, int twiddleStride, int from, int to) {
+    double[] wr = twiddleReal, wi = twiddleImaginary;
+
+    for (int k = from; k < to; k++) {
+      int
+              i0 = out + k, i1 = i0 + m, i2 = i1 + m, i3 = i2 + m,
+              w1 = k * twiddleStride, w2 = 2 * w1, w3 = 3 * w1
+                      ;
+      double
+              ar = yr[i0], ai = yi[i0],
+              br = yr[i1] * wr[w1] - yi[i1] * wi[w1], bi = yr[i1] * wi[w1] + yi[i1] * wr[w1],
+              cr = yr[i2] * wr[w2] - yi[i2] * wi[w2], ci = yr[i2] * wi[w2] + yi[i2] * wr[w2],
+              dr = yr[i3] * wr[w3] - yi[i3] * wi[w3], di = yr[i3] * wi[w3] + yi[i3] * wr[w3],
+              sr = ar + cr, si = ai + ci,
+              tr = ar - cr, ti = ai - ci,
+              ur = br + dr, ui = bi + di,
+              vr = br - dr, vi = bi - di
+                      ;
+
+      /* X0 = s + u, X1 = t - i v, X2 = s - u, X3 = t + i v */
+      yr[i0] = sr + ur;
+      yi[i0] = si + ui;
+      yr[i1] = tr + vi;
+      yi[i1] = ti - vr;
+      yr[i2] = sr - ur;
+      yi[i2] = si - ui;
+      yr[i3] = tr - vi;
+      yi[i3] = ti + vr;
+    }
+  }
+
+  /* A direct DFT of size p across each butterfly, for odd radices */
+  private void butterfly(int p, double[] yr, double[] yi, int out, int m, int twiddleStride, int from, int to) {
+    double[] wr = twiddleReal, wi = twiddleImaginary, tr = new double[p], ti = new double[p];
+    int size = p * m, rootStride = twiddleStride * m;
+
+    for (int k = from; k < to; k++) {
+      for (int q = 0; q < p; q++) {
+        int i = out + k + q * m, w = q * k * twiddleStride;
+        tr[q] = yr[i] * wr[w] - yi[i] * wi[w];
+        ti[q] = yr[i] * wi[w] + yi[i] * wr[w];
+      }
+
+      for (int s = 0; s < p; s++) {
+        double sumR = tr[0], sumI = ti[0];
+        int j = 0;
+        for (int q = 1; q < p; q++) {
+          j += s;
+          if (j >= p)
+            j -= p;
+          int w = j * rootStride;
+          sumR += tr[q] * wr[w] - ti[q] * wi[w];
+          sumI += tr[q] * wi[w] + ti[q] * wr[w];
+        }
+        yr[out + k + s * m] = sumR;
+        yi[out + k + s * m] = sumI;
+      }
+    }
+  }
+
+  /*
+   * Bluestein's algorithm: the transform is the chirp
+   * times the circular convolution of the chirped input
+   * with the conjugate chirp, computed by the inner plan
+   */
+  private void bluestein(double[] xr, double[] xi, double[] yr, double[] yi, ForkJoinPool pool) {
+    int m = inner.n;
+    double[] ar = new double[m], ai = new double[m], br = new double[m], bi = new double[m];
+
+    for (int k = 0; k < n; k++) {
+      ar[k] = xr[k] * chirpReal[k] - xi[k] * chirpImaginary[k];
+      ai[k] = xr[k] * chirpImaginary[k] + xi[k] * chirpReal[k];
+    }
+
+    boolean parallel = pool != null && m >= PARALLEL_SIZE;
+    inner.transform(ar, ai, br, bi, parallel ? pool : null);
+
+    /* Conjugating the product lets the forward transform serve as the inverse */
+    for (int k = 0; k < m; k++) {
+      double r = br[k] * filterReal[k] - bi[k] * filterImaginary[k];
+      double i = br[k] * filterImaginary[k] + bi[k] * filterReal[k];
+      br[k] = r;
+      bi[k] = -i;
+    }
+
+    inner.transform(br, bi, ar, ai, parallel ? pool : null);
+
+    double s = 1.0 / m;
+    for (int k = 0; k < n; k++) {
+      double r = ar[k] * s, i = -ai[k] * s;
+      yr[k] = r * chirpReal[k] - i * chirpImaginary[k];
+      yi[k] = r * chirpImaginary[k] + i * chirpReal[k];
+    }
+  }
+
+}
@@ -0,0 +1,112 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.solvers;
+
+import jmath.types.LinearOperator;
+
+/**
+ * The biconjugate gradient stabilized method
+ * (BiCGSTAB) for general non-symmetric systems,
+ * with right preconditioning. Each iteration costs
+ * two operator products and two applications of
+ * the preconditioner.
+ */
+public class BiCGStabSolver extends IterativeSolver {
+
+  public BiCGStabSolver() {}
+
+
+  @Override
+  SolverResult iterate(LinearOperator a, double[] b, double[] x, double bNorm) {
+    int n = b.length;
+    double[]
+            r = new double[n],
+            rHat = new double[n],
+            p = new double[n],
+            v = new double[n],
+            pHat = new double[n],
+            s = new double[n],
+            sHat = new double[n],
+            t = new double[n]
+                    ;
+
+    residual(a, b, x, r);
+    double res = norm(r) / bNorm;
+    if (converged(res))
+      return result(x, 0, res);
+
+    System.arraycopy(r, 0, rHat, 0, n);
+    double rho = 1, alpha = 1, omega = 1;
+
+    for (int iteration = 1; iteration <= getMaxIterations(); iteration++) {
+      double rhoNext = dot(rHat, r);
+      if (rhoNext == 0)
+        throw new ArithmeticException("BiCGSTAB breakdown: residual orthogonal to shadow residual");
+
+      if (iteration == 1)
+        System.arraycopy(r, 0, p, 0, n);
+      else {
+        double beta = (rhoNext / rho) * (alpha / omega);
+        for (int k = 0; k < n; k++) {
+          p[k] = r[k] + beta * (p[k] - omega * v[k]);
+        }
+      }
+      rho = rhoNext;
+
+      precondition(p, pHat);
+      a.transform(pHat, v);
+      alpha = rho / dot(rHat, v);
+
+      for (int k = 0; k < n; k++) {
+        s[k] = r[k] - alpha * v[k];
+      }
+
+      res = norm(s) / bNorm;
+      if (converged(res)) {
+        axpy(alpha, pHat, x);
+        report(iteration, res);
+        return result(x, iteration, res);
+      }
+
+      precondition(s, sHat);
+      a.transform(sHat, t);
+
+      double tt = dot(t, t);
+      omega = tt == 0 ? 0 : dot(t, s) / tt;
+
+      axpy(alpha, pHat, x);
+      axpy(omega, sHat, x);
+
+      for (int k = 0; k < n; k++) {
+        r[k] = s[k] - omega * t[k];
+      }
+
+      res = norm(r) / bNorm;
+      if (!report(iteration, res) || converged(res))
+        return result(x, iteration, res);
+      if (omega == 0)
+        throw new ArithmeticException("BiCGSTAB breakdown: stabilization step vanished");
+    }
+
+    return result(x, getMaxIterations(), res);
+  }
+
+}
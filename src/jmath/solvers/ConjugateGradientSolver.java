@@ -0,0 +1,80 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.solvers;
+
+import jmath.types.LinearOperator;
+
+/**
+ * The (preconditioned) conjugate gradient method,
+ * for systems whose operator is symmetric positive
+ * definite. Each iteration costs one operator
+ * product and one application of the
+ * preconditioner, which must also be symmetric
+ * positive definite.
+ */
+public class ConjugateGradientSolver extends IterativeSolver {
+
+  public ConjugateGradientSolver() {}
+
+
+  @Override
+  SolverResult iterate(LinearOperator a, double[] b, double[] x, double bNorm) {
+    int n = b.length;
+    double[] r = new double[n], z = new double[n], p = new double[n], ap = new double[n];
+
+    residual(a, b, x, r);
+    double res = norm(r) / bNorm;
+    if (converged(res))
+      return result(x, 0, res);
+
+    precondition(r, z);
+    System.arraycopy(z, 0, p, 0, n);
+    double rz = dot(r, z);
+
+    for (int iteration = 1; iteration <= getMaxIterations(); iteration++) {
+      a.transform(p, ap);
+
+      double pAp = dot(p, ap);
+      if (!(pAp > 0))
+        throw new ArithmeticException("Conjugate gradient requires a symmetric positive definite operator");
+
+      double alpha = rz / pAp;
+      axpy(alpha, p, x);
+      axpy(-alpha, ap, r);
+
+      res = norm(r) / bNorm;
+      if (!report(iteration, res) || converged(res))
+        return result(x, iteration, res);
+
+      precondition(r, z);
+      double rzNext = dot(r, z);
+      double beta = rzNext / rz;
+      rz = rzNext;
+
+      for (int k = 0; k < n; k++) {
+        p[k] = z[k] + beta * p[k];
+      }
+    }
+
+    return result(x, getMaxIterations(), res);
+  }
+
+}
@@ -0,0 +1,157 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.solvers;
+
+import jmath.types.LinearOperator;
+
+import java.util.Arrays;
+
+/**
+ * The restarted generalized minimal residual
+ * method, GMRES(m), for general non-symmetric
+ * systems, with right preconditioning. The
+ * solver keeps m + 1 basis vectors of the
+ * system's dimension, and restarts from the
+ * current solution once all are used. Every
+ * iteration, including those after a restart,
+ * counts towards the iteration limit.
+ */
+public class GMRESSolver extends IterativeSolver {
+
+  public static final int DEFAULT_RESTART = 30;
+
+
+  private final int restart;
+
+  public GMRESSolver() {
+    this(DEFAULT_RESTART);
+  }
+
+  public GMRESSolver(int restart) {
+    if (restart <= 0)
+      throw new IllegalArgumentException("Restart length must be positive");
+
+    this.restart = restart;
+  }
+
+  public int getRestart() {
+    return restart;
+  }
+
+
+  @Override
+  SolverResult iterate(LinearOperator a, double[] b, double[] x, double bNorm) {
+    int n = b.length, m = Math.min(restart, n);
+
+    double[][] basis = new double[m + 1][];
+    double[][] h = new double[m + 1][m];
+    double[] cs = new double[m], sn = new double[m], g = new double[m + 1], y = new double[m];
+    double[] r = new double[n], z = new double[n];
+
+    int iteration = 0;
+    double res;
+
+    while (true) {
+      residual(a, b, x, r);
+      double beta = norm(r);
+      res = beta / bNorm;
+      if (converged(res) || iteration >= getMaxIterations())
+        return result(x, iteration, res);
+
+      if (basis[0] == null)
+        basis[0] = new double[n];
+      for (int k = 0; k < n; k++) {
+        basis[0][k] = r[k] / beta;
+      }
+      Arrays.fill(g, 0);
+      g[0] = beta;
+
+      int j = 0;
+      boolean stop = false;
+
+      while (j < m && iteration < getMaxIterations()) {
+        if (basis[j + 1] == null)
+          basis[j + 1] = new double[n];
+        double[] w = basis[j + 1];
+
+        precondition(basis[j], z);
+        a.transform(z, w);
+
+        /* Modified Gram-Schmidt against the existing basis */
+        for (int i = 0; i <= j; i++) {
+          h[i][j] = dot(w, basis[i]);
+          axpy(-h[i][j], basis[i], w);
+        }
+        double wNorm = norm(w);
+        h[j + 1][j] = wNorm;
+        if (wNorm != 0) {
+          for (int k = 0; k < n; k++) {
+            w[k] /= wNorm;
+          }
+        }
+
+        /* Apply the previous Givens rotations, then eliminate h[j + 1][j] */
+        for (int i = 0; i < j; i++) {
+          double t = cs[i] * h[i][j] + sn[i] * h[i + 1][j];
+          h[i + 1][j] = -sn[i] * h[i][j] + cs[i] * h[i + 1][j];
+          h[i][j] = t;
+        }
+        double d = Math.hypot(h[j][j], h[j + 1][j]);
+        if (d == 0)
+          throw new ArithmeticException("GMRES breakdown: operator is singular on the Krylov subspace");
+        cs[j] = h[j][j] / d;
+        sn[j] = h[j + 1][j] / d;
+        h[j][j] = d;
+        h[j + 1][j] = 0;
+        g[j + 1] = -sn[j] * g[j];
+        g[j] = cs[j] * g[j];
+
+        j++;
+        iteration++;
+        res = Math.abs(g[j]) / bNorm;
+
+        stop = !report(iteration, res);
+        if (stop || converged(res) || wNorm == 0)
+          break;
+      }
+
+      /* Solve the triangular least-squares system and update x = x + M^-1 * V * y */
+      for (int i = j - 1; i >= 0; i--) {
+        double s = g[i];
+        for (int k = i + 1; k < j; k++) {
+          s -= h[i][k] * y[k];
+        }
+        y[i] = s / h[i][i];
+      }
+
+      Arrays.fill(r, 0);
+      for (int i = 0; i < j; i++) {
+        axpy(y[i], basis[i], r);
+      }
+      precondition(r, z);
+      axpy(1, z, x);
+
+      if (stop || converged(res))
+        return result(x, iteration, res);
+    }
+  }
+
+}
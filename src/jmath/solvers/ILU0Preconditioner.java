@@ -0,0 +1,130 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.solvers;
+
+import jmath.types.IMatrix;
+import jmath.types.SparseMatrix;
+
+import java.util.Arrays;
+
+/**
+ * An incomplete LU preconditioner with no
+ * fill-in, ILU(0). The factors L and U keep the
+ * sparsity pattern of the system's matrix, so
+ * the preconditioner uses as much memory as the
+ * matrix and is applied by one forward and one
+ * backward sparse substitution.
+ */
+public class ILU0Preconditioner implements Preconditioner {
+
+  private final int n;
+  private final int[] rowPointers, columnIndices, diagonal;
+  private final double[] values;
+
+  /**
+   * Factors the provided matrix. Matrices which are
+   * not a SparseMatrix are first compressed.
+   *
+   * @param matrix the square matrix to factor
+   */
+  public ILU0Preconditioner(IMatrix matrix) {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    if (matrix.numberOfRows() != matrix.numberOfColumns())
+      throw new IllegalArgumentException("Cannot precondition non-square matrix");
+
+    SparseMatrix sparse = SparseMatrix.fromMatrix(matrix);
+
+    n = sparse.numberOfRows();
+    rowPointers = sparse.getRowPointers();
+    columnIndices = sparse.getColumnIndices();
+    values = sparse.getValues();
+    diagonal = new int[n];
+
+    for (int k = 0; k < n; k++) {
+      int p = Arrays.binarySearch(columnIndices, rowPointers[k], rowPointers[k + 1], k);
+      if (p < 0)
+        throw new ArithmeticException(String.format("Cannot create ILU(0) preconditioner with zero diagonal entry at %d", k));
+      diagonal[k] = p;
+    }
+
+    factor();
+  }
+
+  /* In-place IKJ elimination restricted to the existing non-zeros */
+  private void factor() {
+    int[] position = new int[n];
+    Arrays.fill(position, -1);
+
+    for (int i = 0; i < n; i++) {
+      int start = rowPointers[i], end = rowPointers[i + 1];
+      for (int p = start; p < end; p++) {
+        position[columnIndices[p]] = p;
+      }
+
+      for (int p = start; p < diagonal[i]; p++) {
+        int k = columnIndices[p];
+        double l = values[p] /= values[diagonal[k]];
+
+        for (int q = diagonal[k] + 1; q < rowPointers[k + 1]; q++) {
+          int target = position[columnIndices[q]];
+          if (target != -1)
+            values[target] -= l * values[q];
+        }
+      }
+
+      if (values[diagonal[i]] == 0)
+        throw new ArithmeticException(String.format("Zero pivot in ILU(0) factorization at %d", i));
+
+      for (int p = start; p < end; p++) {
+        position[columnIndices[p]] = -1;
+      }
+    }
+  }
+
+
+  @Override
+  public int dimension() {
+    return n;
+  }
+
+  @Override
+  public void apply(double[] r, double[] z) {
+
+    for (int i = 0; i < n; i++) {
+      double s = r[i];
+      for (int p = rowPointers[i]; p < diagonal[i]; p++) {
+        s -= values[p] * z[columnIndices[p]];
+      }
+      z[i] = s;
+    }
+
+    for (int i = n - 1; i >= 0; i--) {
+      double s = z[i];
+      for (int p = diagonal[i] + 1; p < rowPointers[i + 1]; p++) {
+        s -= values[p] * z[columnIndices[p]];
+      }
+      z[i] = s / values[diagonal[i]];
+    }
+
+  }
+
+}
@@ -0,0 +1,216 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.solvers;
+
+import jmath.types.ArrayKernels;
+import jmath.types.IVector;
+import jmath.types.LinearOperator;
+import jmath.types.NVector;
+
+/**
+ * The class from which the iterative (Krylov
+ * subspace) solvers of this package inherit.
+ * These solve A * x = b using only products of
+ * the operator A with vectors, and so never form
+ * or factor A. A solver object holds only its
+ * settings and may be reused for any number of
+ * systems.
+ */
+public abstract class IterativeSolver {
+
+  public static final double DEFAULT_TOLERANCE = 1e-10;
+  public static final int DEFAULT_MAX_ITERATIONS = 1000;
+
+
+  private double tolerance = DEFAULT_TOLERANCE;
+  private int maxIterations = DEFAULT_MAX_ITERATIONS;
+  private Preconditioner preconditioner;
+  private ResidualCallback callback;
+
+  IterativeSolver() {}
+
+
+  /**
+   * Sets the relative residual |b - Ax| / |b| at
+   * which the solver stops
+   *
+   * @param tolerance the positive tolerance
+   * @return this solver
+   */
+  public IterativeSolver setTolerance(double tolerance) {
+    if (!(tolerance > 0))
+      throw new IllegalArgumentException("Tolerance must be positive");
+
+    this.tolerance = tolerance;
+    return this;
+  }
+
+  public IterativeSolver setMaxIterations(int maxIterations) {
+    if (maxIterations <= 0)
+      throw new IllegalArgumentException("Iteration limit must be positive");
+
+    this.maxIterations = maxIterations;
+    return this;
+  }
+
+  /**
+   * Sets the preconditioner of this solver, or
+   * removes it if 'null'
+   *
+   * @param preconditioner the preconditioner
+   * @return this solver
+   */
+  public IterativeSolver setPreconditioner(Preconditioner preconditioner) {
+    this.preconditioner = preconditioner;
+    return this;
+  }
+
+  /**
+   * Sets a callback to be told the residual after
+   * every iteration, or removes it if 'null'
+   *
+   * @param callback the callback
+   * @return this solver
+   */
+  public IterativeSolver setResidualCallback(ResidualCallback callback) {
+    this.callback = callback;
+    return this;
+  }
+
+  public double getTolerance() {
+    return tolerance;
+  }
+
+  public int getMaxIterations() {
+    return maxIterations;
+  }
+
+  public Preconditioner getPreconditioner() {
+    return preconditioner;
+  }
+
+  public ResidualCallback getResidualCallback() {
+    return callback;
+  }
+
+
+  /**
+   * Solves A * x = b starting from a zero guess
+   *
+   * @param a the square operator A
+   * @param b the right-hand side
+   * @return the result of the solve
+   */
+  public SolverResult solve(LinearOperator a, IVector b) {
+    return solve(a, b, null);
+  }
+
+  /**
+   * Solves A * x = b starting from the provided
+   * guess, or from zero if the guess is 'null'
+   *
+   * @param a the square operator A
+   * @param b the right-hand side
+   * @param initialGuess the starting point of the iteration
+   * @return the result of the solve
+   */
+  public SolverResult solve(LinearOperator a, IVector b, IVector initialGuess) {
+    if (a == null)
+      throw new IllegalArgumentException("Operator cannot be null");
+    if (b == null)
+      throw new IllegalArgumentException("Right-hand side vector cannot be null");
+    if (a.numberOfRows() != a.numberOfColumns())
+      throw new IllegalArgumentException(String.format(
+              "Cannot solve system of non-square operator (%dx%d)",
+              a.numberOfRows(),
+              a.numberOfColumns()
+        ));
+
+    int n = a.numberOfRows();
+    if (b.dimension() != n)
+      throw new IllegalArgumentException("Dimensional mismatch on linear solve");
+    if (initialGuess != null && initialGuess.dimension() != n)
+      throw new IllegalArgumentException("Dimensional mismatch of initial guess");
+    if (preconditioner != null && preconditioner.dimension() != n)
+      throw new IllegalArgumentException("Dimensional mismatch of preconditioner");
+
+    double[] bValues = b.toArray();
+    double[] x = initialGuess == null ? new double[n] : initialGuess.toArray();
+
+    double bNorm = norm(bValues);
+    if (bNorm == 0)
+      return new SolverResult(new NVector(new double[n]), 0, 0, true);
+
+    return iterate(a, bValues, x, bNorm);
+  }
+
+  /*
+   * Runs the iteration, improving 'x' in place, and
+   * returns the result of the solve
+   */
+  abstract SolverResult iterate(LinearOperator a, double[] b, double[] x, double bNorm);
+
+
+  /* Shared helpers */
+
+  /* Writes r = b - A * x */
+  static void residual(LinearOperator a, double[] b, double[] x, double[] r) {
+    a.transform(x, r);
+    for (int k = 0; k < r.length; k++) {
+      r[k] = b[k] - r[k];
+    }
+  }
+
+  /* Writes z = M^-1 * r, or copies r if there is no preconditioner */
+  void precondition(double[] r, double[] z) {
+    if (preconditioner == null)
+      System.arraycopy(r, 0, z, 0, r.length);
+    else
+      preconditioner.apply(r, z);
+  }
+
+  /* Reports an iteration to the callback, returning whether to continue */
+  boolean report(int iteration, double residual) {
+    return callback == null || callback.iteration(iteration, residual);
+  }
+
+  boolean converged(double residual) {
+    return residual <= tolerance;
+  }
+
+  SolverResult result(double[] x, int iterations, double residual) {
+    return new SolverResult(new NVector(x), iterations, residual, converged(residual));
+  }
+
+  static double norm(double[] x) {
+    return Math.sqrt(ArrayKernels.sumOfSquares(x));
+  }
+
+  static double dot(double[] a, double[] b) {
+    return ArrayKernels.dot(a, b);
+  }
+
+  /* y = y + s * x */
+  static void axpy(double s, double[] x, double[] y) {
+    ArrayKernels.axpy(s, x, y);
+  }
+
+}
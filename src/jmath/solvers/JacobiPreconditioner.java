@@ -0,0 +1,81 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.solvers;
+
+import jmath.types.IMatrix;
+
+/**
+ * A preconditioner which scales each residual
+ * component by the inverse of the corresponding
+ * diagonal entry of the system's matrix
+ */
+public class JacobiPreconditioner implements Preconditioner {
+
+  private final double[] inverseDiagonal;
+
+  public JacobiPreconditioner(IMatrix matrix) {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    if (matrix.numberOfRows() != matrix.numberOfColumns())
+      throw new IllegalArgumentException("Cannot precondition non-square matrix");
+
+    inverseDiagonal = new double[matrix.numberOfRows()];
+    for (int k = 0; k < inverseDiagonal.length; k++) {
+      inverseDiagonal[k] = invert(matrix.get(k, k), k);
+    }
+  }
+
+  /**
+   * Creates a Jacobi preconditioner from the
+   * diagonal of a (possibly matrix-free) operator
+   *
+   * @param diagonal the diagonal entries of the operator
+   */
+  public JacobiPreconditioner(double[] diagonal) {
+    if (diagonal == null)
+      throw new IllegalArgumentException("Diagonal array cannot be null");
+
+    inverseDiagonal = new double[diagonal.length];
+    for (int k = 0; k < inverseDiagonal.length; k++) {
+      inverseDiagonal[k] = invert(diagonal[k], k);
+    }
+  }
+
+  private static double invert(double value, int k) {
+    if (value == 0)
+      throw new ArithmeticException(String.format("Cannot create Jacobi preconditioner with zero diagonal entry at %d", k));
+    return 1 / value;
+  }
+
+
+  @Override
+  public int dimension() {
+    return inverseDiagonal.length;
+  }
+
+  @Override
+  public void apply(double[] r, double[] z) {
+    for (int k = 0; k < z.length; k++) {
+      z[k] = r[k] * inverseDiagonal[k];
+    }
+  }
+
+}
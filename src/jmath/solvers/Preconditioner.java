@@ -0,0 +1,43 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.solvers;
+
+/**
+ * An interface for preconditioners of iterative
+ * solvers. A preconditioner approximates the
+ * inverse of a system's matrix, M^-1, and is
+ * applied once or twice per iteration.
+ */
+public interface Preconditioner {
+
+  int dimension();
+
+  /**
+   * Applies the preconditioner to the residual 'r',
+   * writing z = M^-1 * r into 'z'. The two arrays are
+   * never the same.
+   *
+   * @param r the residual
+   * @param z the array into which to write the result
+   */
+  void apply(double[] r, double[] z);
+
+}
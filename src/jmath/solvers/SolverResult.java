@@ -0,0 +1,77 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.solvers;
+
+import jmath.types.NVector;
+
+/**
+ * The result of an iterative solve: the
+ * approximate solution, the number of iterations
+ * performed, the final relative residual, and
+ * whether the requested tolerance was reached
+ */
+public class SolverResult {
+
+  private final NVector solution;
+  private final int iterations;
+  private final double residual;
+  private final boolean converged;
+
+  SolverResult(NVector solution, int iterations, double residual, boolean converged) {
+    this.solution = solution;
+    this.iterations = iterations;
+    this.residual = residual;
+    this.converged = converged;
+  }
+
+  public NVector getSolution() {
+    return solution;
+  }
+
+  public int getIterations() {
+    return iterations;
+  }
+
+  /**
+   * Returns the relative residual norm |b - Ax| / |b|
+   * of the solution as tracked by the solver
+   *
+   * @return the relative residual
+   */
+  public double getResidual() {
+    return residual;
+  }
+
+  public boolean hasConverged() {
+    return converged;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+            "%s after %d iterations (residual %s)",
+            converged ? "Converged" : "Did not converge",
+            iterations,
+            Double.toString(residual)
+      );
+  }
+
+}
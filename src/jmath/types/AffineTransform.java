@@ -0,0 +1,581 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+
+import upsilon.tools.ArrayTools;
+
+/**
+ * A class for affine transformations in 3
+ * dimensions. An object of this class represents
+ * a single 4-by-4 homogeneous matrix whose last
+ * row is (0, 0, 0, 1): a linear part (the upper
+ * left 3-by-3 block) followed by a translation
+ * (the last column). Chains of transforms may be
+ * flattened into one object by compose(...), and
+ * the inverse is computed in closed form on first
+ * use and kept for later calls.
+ */
+public class AffineTransform extends IMatrix {
+
+  public static final AffineTransform
+          IDENTITY = new AffineTransform(Matrix.IDENTITY, Vector.ZERO)
+          ;
+
+  public static AffineTransform translation(double x, double y, double z) {
+    return new AffineTransform(1, 0, 0, x, 0, 1, 0, y, 0, 0, 1, z);
+  }
+
+  public static AffineTransform translation(Vector translation) {
+    return new AffineTransform(Matrix.IDENTITY, translation);
+  }
+
+  public static AffineTransform scaling(double sx, double sy, double sz) {
+    return new AffineTransform(sx, 0, 0, 0, 0, sy, 0, 0, 0, 0, sz, 0);
+  }
+
+  public static AffineTransform rotation(Matrix rotation) {
+    return new AffineTransform(rotation, Vector.ZERO);
+  }
+
+  public static AffineTransform rotation(Quaternion rotation) {
+    if (rotation == null)
+      throw new IllegalArgumentException("Quaternion cannot be null");
+
+    return new AffineTransform(rotation.toMatrix(), Vector.ZERO);
+  }
+
+  /**
+   * Creates an affine transform from a 4-by-4
+   * matrix whose last row is (0, 0, 0, 1)
+   *
+   * @param m the homogeneous matrix
+   * @return the affine transform
+   */
+  public static AffineTransform fromMatrix(IMatrix m) {
+    if (m == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    if (m instanceof AffineTransform)
+      return (AffineTransform) m;
+    if (m.numberOfRows() != 4 || m.numberOfColumns() != 4)
+      throw new IllegalArgumentException("Matrix cannot be of dimensions other than (4x4)");
+    if (m.get(3, 0) != 0 || m.get(3, 1) != 0 || m.get(3, 2) != 0 || m.get(3, 3) != 1)
+      throw new IllegalArgumentException("Last row of an affine matrix must be (0, 0, 0, 1)");
+
+    double[] values = new double[12];
+    for (int k = 0; k < 12; k++) {
+      values[k] = m.get(k / 4, k % 4);
+    }
+
+    return new AffineTransform(values);
+  }
+
+  /**
+   * Flattens a chain of transforms into one. As
+   * with matrix products, the last transform is
+   * applied first, so a scene graph chain is given
+   * from the root to the leaf.
+   *
+   * @param transforms the transforms to compose
+   * @return the composed transform
+   */
+  public static AffineTransform compose(AffineTransform... transforms) {
+    if (transforms == null)
+      throw new IllegalArgumentException("Transform array cannot be null");
+    if (ArrayTools.containsNull(transforms))
+      throw new IllegalArgumentException("Transform array cannot contain nulls");
+    if (transforms.length == 0)
+      return IDENTITY;
+
+    double[] ret = transforms[0].values.clone(), scratch = new double[12];
+    for (int k = 1; k < transforms.length; k++) {
+      multiply(ret, transforms[k].values, scratch);
+      double[] t = ret;
+      ret = scratch;
+      scratch = t;
+    }
+
+    return new AffineTransform(ret);
+  }
+
+  /* Writes the product of the 3x4 affine blocks 'a' and 'b' into 'dest' */
+  private static void multiply(double[] a, double[] b, double[] dest) {
+    for (int row = 0; row < 12; row += 4) {
+      double a0 = a[row], a1 = a[row + 1], a2 = a[row + 2];
+      dest[row] = a0 * b[0] + a1 * b[4] + a2 * b[8];
+      dest[row + 1] = a0 * b[1] + a1 * b[5] + a2 * b[9];
+      dest[row + 2] = a0 * b[2] + a1 * b[6] + a2 * b[10];
+      dest[row + 3] = a0 * b[3] + a1 * b[7] + a2 * b[11] + a[row + 3];
+    }
+  }
+
+
+
+
+  /* The upper three rows in row-major order, as taken by ArrayKernels.affine3 */
+  private final double[] values;
+  private volatile AffineTransform inverse;
+
+  public AffineTransform(
+          double m00, double m01, double m02, double m03,
+          double m10, double m11, double m12, double m13,
+          double m20, double m21, double m22, double m23
+    ) {
+    this(new double[] {
+            m00, m01, m02, m03,
+            m10, m11, m12, m13,
+            m20, m21, m22, m23,
+      });
+  }
+
+  public AffineTransform(Matrix linear, Vector translation) {
+    if (linear == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    if (translation == null)
+      throw new IllegalArgumentException("Translation vector cannot be null");
+
+    values = new double[] {
+            linear.m00, linear.m01, linear.m02, translation.x,
+            linear.m10, linear.m11, linear.m12, translation.y,
+            linear.m20, linear.m21, linear.m22, translation.z,
+      };
+  }
+
+  private AffineTransform(double[] values) {
+    this.values = values;
+  }
+
+
+  /* accessors */
+
+  @Override
+  public double get(int row, int column) {
+    if (row < 0 || row >= 4)
+      throw new IllegalArgumentException(String.format("Row index out of bounds for (4x4) matrix access: %d", row));
+    if (column < 0 || column >= 4)
+      throw new IllegalArgumentException(String.format("Column index out of bounds for (4x4) matrix access: %d", column));
+
+    if (row == 3)
+      return column == 3 ? 1 : 0;
+
+    return values[row * 4 + column];
+  }
+
+  /**
+   * Returns a copy of this matrix with the provided
+   * entry changed. Changing the last row makes the
+   * result non-affine, in which case an NMatrix is
+   * returned.
+   */
+  @Override
+  public IMatrix set(int row, int column, double value) {
+    if (row == 3) {
+      if (get(row, column) == value)
+        return this;
+      return toNMatrix().set(row, column, value);
+    }
+    get(row, column);
+
+    double[] ret = values.clone();
+    ret[row * 4 + column] = value;
+    return new AffineTransform(ret);
+  }
+
+  @Override
+  public int numberOfRows() {
+    return 4;
+  }
+
+  @Override
+  public int numberOfColumns() {
+    return 4;
+  }
+
+  /**
+   * Returns the linear part of this transform, the
+   * upper left 3-by-3 block
+   *
+   * @return the linear part
+   */
+  public Matrix getLinear() {
+    return new Matrix(
+            values[0], values[1], values[2],
+            values[4], values[5], values[6],
+            values[8], values[9], values[10]
+      );
+  }
+
+  public Vector getTranslation() {
+    return new Vector(values[3], values[7], values[11]);
+  }
+
+
+  /* Vector operations */
+
+  /**
+   * Transforms the provided point, which is
+   * translated as well as linearly transformed
+   *
+   * @param p the point to transform
+   * @return the transformed point
+   */
+  public Vector transformPoint(Vector p) {
+    if (p == null)
+      throw new IllegalArgumentException("Vector cannot be null");
+
+    return new Vector(
+            values[0] * p.x + values[1] * p.y + values[2] * p.z + values[3],
+            values[4] * p.x + values[5] * p.y + values[6] * p.z + values[7],
+            values[8] * p.x + values[9] * p.y + values[10] * p.z + values[11]
+      );
+  }
+
+  /**
+   * Transforms the provided direction, to which
+   * only the linear part applies
+   *
+   * @param d the direction to transform
+   * @return the transformed direction
+   */
+  public Vector transformDirection(Vector d) {
+    if (d == null)
+      throw new IllegalArgumentException("Vector cannot be null");
+
+    return new Vector(
+            values[0] * d.x + values[1] * d.y + values[2] * d.z,
+            values[4] * d.x + values[5] * d.y + values[6] * d.z,
+            values[8] * d.x + values[9] * d.y + values[10] * d.z
+      );
+  }
+
+  /**
+   * Applies this homogeneous matrix to a vector of
+   * dimension 4
+   */
+  @Override
+  public IVector transform(IVector v) {
+    if (v == null)
+      throw new IllegalArgumentException("Vector cannot be null");
+    if (v.dimension() != 4)
+      throw new IllegalArgumentException("Invalid dimension of vector to transform");
+
+    double[] ret = new double[4];
+    transform(v.toArray(), ret);
+    return NVector.wrap(ret);
+  }
+
+  @Override
+  public void transform(double[] vector, double[] dest) {
+    if (vector == null || dest == null)
+      throw new IllegalArgumentException("Arrays cannot be null");
+    if (vector.length != 4 || dest.length != 4)
+      throw new IllegalArgumentException("Dimensional mismatch on transform of vector");
+
+    double x = vector[0], y = vector[1], z = vector[2], w = vector[3];
+    dest[0] = values[0] * x + values[1] * y + values[2] * z + values[3] * w;
+    dest[1] = values[4] * x + values[5] * y + values[6] * z + values[7] * w;
+    dest[2] = values[8] * x + values[9] * y + values[10] * z + values[11] * w;
+    dest[3] = w;
+  }
+
+  /* Batch operations over points held as separate coordinate arrays */
+
+  /**
+   * Transforms each of the points (xs[k], ys[k], zs[k])
+   * by this transform in place
+   *
+   * @param xs the x coordinates of the points
+   * @param ys the y coordinates of the points
+   * @param zs the z coordinates of the points
+   */
+  public void transformPoints(double[] xs, double[] ys, double[] zs) {
+    transformPoints(xs, ys, zs, xs, ys, zs);
+  }
+
+  /**
+   * Transforms each of the points (xs[k], ys[k], zs[k])
+   * by this transform, writing the results into the
+   * output arrays. Each output array may be the same
+   * as any input array.
+   *
+   * @param xs the x coordinates of the points
+   * @param ys the y coordinates of the points
+   * @param zs the z coordinates of the points
+   * @param xOut the destination of the x coordinates
+   * @param yOut the destination of the y coordinates
+   * @param zOut the destination of the z coordinates
+   */
+  public void transformPoints(
+          double[] xs, double[] ys, double[] zs,
+          double[] xOut, double[] yOut, double[] zOut
+    ) {
+    if (xs == null)
+      throw new IllegalArgumentException("Coordinate arrays cannot be null");
+    transformPoints(xs, ys, zs, xOut, yOut, zOut, 0, xs.length);
+  }
+
+  /**
+   * Transforms the points at indices [offset, offset +
+   * length) of the coordinate arrays, writing the
+   * results into the same indices of the output arrays
+   *
+   * @param offset the index of the first point
+   * @param length the number of points
+   */
+  public void transformPoints(
+          double[] xs, double[] ys, double[] zs,
+          double[] xOut, double[] yOut, double[] zOut,
+          int offset, int length
+    ) {
+    Matrix.checkPointArrays(xs, ys, zs, xOut, yOut, zOut, offset, length);
+    ArrayKernels.BACKEND.affine3(values, xs, ys, zs, xOut, yOut, zOut, offset, length);
+  }
+
+  /**
+   * Transforms each of the directions (xs[k], ys[k],
+   * zs[k]) by the linear part of this transform in
+   * place
+   *
+   * @param xs the x components of the directions
+   * @param ys the y components of the directions
+   * @param zs the z components of the directions
+   */
+  public void transformDirections(double[] xs, double[] ys, double[] zs) {
+    transformDirections(xs, ys, zs, xs, ys, zs);
+  }
+
+  public void transformDirections(
+          double[] xs, double[] ys, double[] zs,
+          double[] xOut, double[] yOut, double[] zOut
+    ) {
+    if (xs == null)
+      throw new IllegalArgumentException("Coordinate arrays cannot be null");
+    transformDirections(xs, ys, zs, xOut, yOut, zOut, 0, xs.length);
+  }
+
+  public void transformDirections(
+          double[] xs, double[] ys, double[] zs,
+          double[] xOut, double[] yOut, double[] zOut,
+          int offset, int length
+    ) {
+    Matrix.checkPointArrays(xs, ys, zs, xOut, yOut, zOut, offset, length);
+
+    double[] m = values.clone();
+    m[3] = m[7] = m[11] = 0;
+    ArrayKernels.BACKEND.affine3(m, xs, ys, zs, xOut, yOut, zOut, offset, length);
+  }
+
+  /**
+   * Transforms every point of the provided point
+   * cloud by this transform in place
+   *
+   * @param points the point cloud to transform
+   * @return the point cloud
+   */
+  public PointCloud transformPoints(PointCloud points) {
+    if (points == null)
+      throw new IllegalArgumentException("Point cloud cannot be null");
+
+    transformPoints(points.xs(), points.ys(), points.zs());
+    return points;
+  }
+
+
+  /* To vector representations */
+
+  @Override
+  public NVector[] toColumnVectors() {
+    NVector[] ret = new NVector[4];
+    for (int k = 0; k < 4; k++) {
+      ret[k] = NVector.wrap(new double[] { values[k], values[4 + k], values[8 + k], k == 3 ? 1 : 0 });
+    }
+    return ret;
+  }
+
+  @Override
+  public NVector[] toRowVectors() {
+    return new NVector[] {
+            NVector.wrap(new double[] { values[0], values[1], values[2], values[3] }),
+            NVector.wrap(new double[] { values[4], values[5], values[6], values[7] }),
+            NVector.wrap(new double[] { values[8], values[9], values[10], values[11] }),
+            NVector.wrap(new double[] { 0, 0, 0, 1 }),
+      };
+  }
+
+
+  /* Unary operations */
+
+  /**
+   * Returns the inverse of this transform, computed
+   * in closed form from the inverse of the linear
+   * part (see Matrix.inverse()) on the first call
+   * and kept thereafter
+   *
+   * @return the inverse transform
+   */
+  public AffineTransform inverse() {
+    AffineTransform ret = inverse;
+    if (ret == null) {
+      ret = computeInverse();
+      ret.inverse = this;
+      inverse = ret;
+    }
+    return ret;
+  }
+
+  private AffineTransform computeInverse() {
+    Matrix linear = getLinear().inverse();
+    Vector translation = linear.transform(getTranslation());
+
+    return new AffineTransform(linear, new Vector(-translation.x, -translation.y, -translation.z));
+  }
+
+  @Override
+  public NMatrix transpose() {
+    return toNMatrix().transpose();
+  }
+
+  @Override
+  public NMatrix negative() {
+    return toNMatrix().negative();
+  }
+
+  @Override
+  public double determinant() {
+    return
+      values[0] * (values[5] * values[10] - values[6] * values[9]) -
+      values[1] * (values[4] * values[10] - values[6] * values[8]) +
+      values[2] * (values[4] * values[9] - values[5] * values[8]);
+  }
+
+
+  /* Binary Operations */
+
+  @Override
+  public NMatrix scale(double s) {
+    return toNMatrix().scale(s);
+  }
+
+  @Override
+  public NMatrix subtract(IMatrix m) {
+    return sub(m);
+  }
+  @Override
+  public NMatrix subtract(IMatrix... matrices) {
+    return sub(matrices);
+  }
+  @Override
+  public NMatrix sub(IMatrix m) {
+    return toNMatrix().sub(m);
+  }
+  @Override
+  public NMatrix sub(IMatrix... matrices) {
+    return toNMatrix().sub(matrices);
+  }
+
+  /**
+   * Composes this transform with another, such
+   * that the result applies 'other' first and then
+   * this transform
+   *
+   * @param other the transform applied first
+   * @return the composed transform
+   */
+  public AffineTransform multiply(AffineTransform other) {
+    if (other == null)
+      throw new IllegalArgumentException("Cannot multiply by null matrix");
+
+    double[] ret = new double[12];
+    multiply(values, other.values, ret);
+    return new AffineTransform(ret);
+  }
+
+  @Override
+  public IMatrix multiply(IMatrix other) {
+    if (other == null)
+      throw new IllegalArgumentException("Cannot multiply by null matrix");
+    if (other instanceof AffineTransform)
+      return multiply((AffineTransform) other);
+
+    return toNMatrix().multiply(other);
+  }
+
+
+  @Override
+  public String toString() {
+    return String.format(
+            "[[%s,%s,%s,%s][%s,%s,%s,%s][%s,%s,%s,%s][0.0,0.0,0.0,1.0]]",
+            values[0], values[1], values[2], values[3],
+            values[4], values[5], values[6], values[7],
+            values[8], values[9], values[10], values[11]
+      );
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof IMatrix)
+      return equals((IMatrix) o);
+    else
+      return false;
+  }
+
+  @Override
+  public boolean equals(IMatrix m) {
+    if (m instanceof AffineTransform) {
+      double[] other = ((AffineTransform) m).values;
+      for (int k = 0; k < values.length; k++) {
+        if (values[k] != other[k])
+          return false;
+      }
+      return true;
+    }
+    if (m == null || m.numberOfColumns() != 4 || m.numberOfRows() != 4)
+      return false;
+
+    for (int k = 0; k < 4; k++) {
+      for (int i = 0; i < 4; i++) {
+        if (get(k, i) != m.get(k, i))
+          return false;
+      }
+    }
+
+    return true;
+  }
+
+
+  /**
+   * Always fails, as an affine transform is 4-by-4;
+   * see getLinear() for its 3-by-3 linear part
+   */
+  @Override
+  public Matrix toMatrix() {
+    throw new IllegalArgumentException("Matrix cannot be of dimensions other than (3x3)");
+  }
+
+  @Override
+  public NMatrix toNMatrix() {
+    double[] ret = new double[16];
+    System.arraycopy(values, 0, ret, 0, 12);
+    ret[15] = 1;
+    return NMatrix.wrap(4, 4, ret);
+  }
+
+}
@@ -0,0 +1,188 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+/**
+ * A static class of kernels over primitive
+ * double arrays, shared by the vector, matrix
+ * and statistics operations of this library.
+ *
+ * When the JVM is started with the incubating
+ * Vector API module (--add-modules
+ * jdk.incubator.vector) and the library was built
+ * with its vectorized backend, these kernels use
+ * explicit SIMD instructions. Otherwise, or when
+ * the system property 'jmath.simd' is set to
+ * 'false', they fall back to scalar loops.
+ */
+public final class ArrayKernels { private ArrayKernels() {}
+
+  private static final String
+          SIMD_MODULE = "jdk.incubator.vector",
+          SIMD_BACKEND = "jmath.types.SimdKernelBackend"
+                  ;
+
+  static final KernelBackend BACKEND = loadBackend();
+
+  private static KernelBackend loadBackend() {
+    if (!Boolean.parseBoolean(System.getProperty("jmath.simd", "true")))
+      return new ScalarKernelBackend();
+    if (!ModuleLayer.boot().findModule(SIMD_MODULE).isPresent())
+      return new ScalarKernelBackend();
+
+    try {
+      KernelBackend backend = (KernelBackend) Class.forName(SIMD_BACKEND)
+              .getDeclaredConstructor()
+              .newInstance();
+
+      /* Forces linkage against the incubator module */
+      backend.dot(new double[1], 0, new double[1], 0, 1);
+
+      return backend;
+    } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+      return new ScalarKernelBackend();
+    }
+  }
+
+
+  /**
+   * Returns whether these kernels are running
+   * on the vectorized (SIMD) backend
+   *
+   * @return true if SIMD instructions are in use
+   */
+  public static boolean isAccelerated() {
+    return BACKEND.isAccelerated();
+  }
+
+  /**
+   * Calculates the inner product of two arrays
+   * of equal length
+   *
+   * @param a the first array
+   * @param b the second array
+   * @return the sum of the pairwise products
+   */
+  public static double dot(double[] a, double[] b) {
+    checkPair(a, b);
+    return BACKEND.dot(a, 0, b, 0, a.length);
+  }
+
+  /**
+   * Adds 's' times 'x' to 'y' in place:
+   * y = y + s * x
+   *
+   * @param s the scale applied to 'x'
+   * @param x the array to add
+   * @param y the array to which to add
+   */
+  public static void axpy(double s, double[] x, double[] y) {
+    checkPair(x, y);
+    BACKEND.axpy(s, x, 0, y, 0, x.length);
+  }
+
+  /**
+   * Adds 's' times the range of 'x' starting at
+   * 'xOffset' to the range of 'y' starting at
+   * 'yOffset', both of the provided length
+   *
+   * @param s the scale applied to 'x'
+   * @param x the array to add
+   * @param xOffset the index of the first value of 'x'
+   * @param y the array to which to add
+   * @param yOffset the index of the first value of 'y'
+   * @param length the number of values
+   */
+  public static void axpy(double s, double[] x, int xOffset, double[] y, int yOffset, int length) {
+    if (x == null || y == null)
+      throw new IllegalArgumentException("Arrays cannot be null");
+    if (
+            length < 0 || xOffset < 0 || yOffset < 0 ||
+            xOffset > x.length - length || yOffset > y.length - length
+            )
+      throw new IllegalArgumentException("Array range out of bounds");
+    BACKEND.axpy(s, x, xOffset, y, yOffset, length);
+  }
+
+  /**
+   * Calculates the sum of the values of an array
+   *
+   * @param values the array to sum
+   * @return the sum of the values
+   */
+  public static double sum(double[] values) {
+    if (values == null)
+      throw new IllegalArgumentException("Values array cannot be null");
+    return BACKEND.sum(values, values.length);
+  }
+
+  /**
+   * Calculates the sum of the squares of the
+   * values of an array
+   *
+   * @param values the array to sum
+   * @return the sum of the squared values
+   */
+  public static double sumOfSquares(double[] values) {
+    if (values == null)
+      throw new IllegalArgumentException("Values array cannot be null");
+    return BACKEND.sumOfSquares(values, values.length);
+  }
+
+  /**
+   * Calculates the sum of the squared deviations
+   * of the values of an array from a given mean
+   *
+   * @param values the array to sum
+   * @param mean the value from which deviations are measured
+   * @return the sum of the squared deviations
+   */
+  public static double sumOfSquaredDeviations(double[] values, double mean) {
+    if (values == null)
+      throw new IllegalArgumentException("Values array cannot be null");
+    return BACKEND.sumOfSquaredDeviations(values, mean, values.length);
+  }
+
+  /**
+   * Calculates the sum of the products of the
+   * deviations of two arrays from their respective
+   * means
+   *
+   * @param x the first array
+   * @param xMean the value from which deviations of 'x' are measured
+   * @param y the second array
+   * @param yMean the value from which deviations of 'y' are measured
+   * @return the sum of the products of the deviations
+   */
+  public static double sumOfProductDeviations(double[] x, double xMean, double[] y, double yMean) {
+    checkPair(x, y);
+    return BACKEND.sumOfProductDeviations(x, xMean, y, yMean, x.length);
+  }
+
+
+  private static void checkPair(double[] a, double[] b) {
+    if (a == null || b == null)
+      throw new IllegalArgumentException("Arrays cannot be null");
+    if (a.length != b.length)
+      throw new IllegalArgumentException(String.format("Array length mismatch (%d != %d)", a.length, b.length));
+  }
+
+}
@@ -0,0 +1,235 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+/**
+ * The Cholesky decomposition of a symmetric
+ * positive definite matrix, A = L * L^T, where L
+ * is lower triangular. Only the lower triangle
+ * of the decomposed matrix is read. The factor is
+ * computed by blocks, so that most of the work is
+ * done by the blocked matrix multiplication kernel.
+ * An object of this class is immutable and may be
+ * used to solve any number of systems.
+ */
+public class CholeskyDecomposition {
+
+  /* Width of the column blocks factored at a time */
+  private static final int BLOCK = 64;
+
+
+  private final int n;
+  private final double[] l;
+
+  CholeskyDecomposition(NMatrix matrix) {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    if (matrix.numberOfRows() != matrix.numberOfColumns())
+      throw new ArithmeticException(String.format(
+              "Cannot find Cholesky decomposition of non-square matrix (%dx%d)",
+              matrix.numberOfRows(),
+              matrix.numberOfColumns()
+        ));
+
+    n = matrix.numberOfRows();
+    l = matrix.values.clone();
+
+    for (int k = 0; k < n; k += BLOCK) {
+      int nb = Math.min(BLOCK, n - k);
+
+      factorDiagonalBlock(k, nb);
+      solvePanel(k, nb);
+      updateTrailing(k, nb);
+    }
+
+    for (int i = 0; i < n; i++) {
+      for (int j = i + 1; j < n; j++) {
+        l[i * n + j] = 0;
+      }
+    }
+  }
+
+  /* Unblocked factorization of the (nb x nb) block at (k, k) */
+  private void factorDiagonalBlock(int k, int nb) {
+    for (int j = k; j < k + nb; j++) {
+      int jRow = j * n;
+      double d = l[jRow + j] - ArrayKernels.BACKEND.dot(l, jRow + k, l, jRow + k, j - k);
+      if (!(d > 0))
+        throw new ArithmeticException("Cannot find Cholesky decomposition of matrix which is not positive definite");
+
+      double diagonal = Math.sqrt(d);
+      l[jRow + j] = diagonal;
+
+      for (int i = j + 1; i < k + nb; i++) {
+        int iRow = i * n;
+        l[iRow + j] = (l[iRow + j] - ArrayKernels.BACKEND.dot(l, iRow + k, l, jRow + k, j - k)) / diagonal;
+      }
+    }
+  }
+
+  /* Solves L21 * L11^T = A21 for the rows below the diagonal block */
+  private void solvePanel(int k, int nb) {
+    for (int i = k + nb; i < n; i++) {
+      int iRow = i * n;
+      for (int j = k; j < k + nb; j++) {
+        int jRow = j * n;
+        l[iRow + j] = (l[iRow + j] - ArrayKernels.BACKEND.dot(l, iRow + k, l, jRow + k, j - k)) / l[jRow + j];
+      }
+    }
+  }
+
+  /*
+   * Updates the lower triangle of the trailing matrix,
+   * A22 = A22 - L21 * L21^T, one block row at a time
+   * so that the upper triangle is never computed
+   */
+  private void updateTrailing(int k, int nb) {
+    for (int i = k + nb; i < n; i += BLOCK) {
+      int rows = Math.min(BLOCK, n - i);
+      int columns = i + rows - (k + nb);
+
+      MatrixKernel.multiply(
+              rows, columns, nb, -1,
+              l, i * n + k, n, 1,
+              l, (k + nb) * n + k, 1, n,
+              l, i * n + k + nb, n
+        );
+    }
+  }
+
+
+  public int dimension() {
+    return n;
+  }
+
+  /**
+   * Returns the lower triangular factor L
+   *
+   * @return the L factor
+   */
+  public NMatrix getL() {
+    return NMatrix.wrap(n, n, l.clone());
+  }
+
+  /**
+   * Calculates the determinant of the decomposed
+   * matrix as the squared product of the diagonal
+   * of L
+   *
+   * @return the determinant
+   */
+  public double determinant() {
+    double ret = 1;
+    for (int k = 0; k < n; k++) {
+      ret *= l[k * n + k];
+    }
+
+    return ret * ret;
+  }
+
+
+  /**
+   * Solves the system A * x = b for x
+   *
+   * @param b the right-hand side
+   * @return the solution vector
+   */
+  public NVector solve(IVector b) {
+    if (b == null)
+      throw new IllegalArgumentException("Right-hand side vector cannot be null");
+    if (b.dimension() != n)
+      throw new IllegalArgumentException("Dimensional mismatch on linear solve");
+
+    double[] x = b.toArray();
+    solveRowsInPlace(x, 1);
+
+    return NVector.wrap(x);
+  }
+
+  /**
+   * Solves the system A * X = B for X, treating
+   * each column of B as a right-hand side
+   *
+   * @param b the right-hand side matrix
+   * @return the solution matrix
+   */
+  public NMatrix solve(IMatrix b) {
+    if (b == null)
+      throw new IllegalArgumentException("Right-hand side matrix cannot be null");
+    if (b.numberOfRows() != n)
+      throw new IllegalArgumentException("Dimensional mismatch on linear solve");
+
+    int columns = b.numberOfColumns();
+    double[] x = MutableNMatrix.arrayOf(b);
+    x = x != null ? x.clone() : b.toNMatrix().values.clone();
+
+    solveRowsInPlace(x, columns);
+
+    return NMatrix.wrap(n, columns, x);
+  }
+
+  /**
+   * Calculates the inverse of the decomposed
+   * matrix
+   *
+   * @return the inverse matrix
+   */
+  public NMatrix inverse() {
+    return solve(NMatrix.identity(n));
+  }
+
+
+  /*
+   * Forward substitution with L and back substitution
+   * with L^T on all columns of a row-major right-hand
+   * side at once
+   */
+  private void solveRowsInPlace(double[] x, int columns) {
+
+    for (int i = 0; i < n; i++) {
+      int xRow = i * columns;
+      for (int j = 0; j < i; j++) {
+        double v = l[i * n + j];
+        if (v != 0)
+          ArrayKernels.BACKEND.axpy(-v, x, j * columns, x, xRow, columns);
+      }
+      scaleRow(x, xRow, columns, 1 / l[i * n + i]);
+    }
+
+    for (int i = n - 1; i >= 0; i--) {
+      int xRow = i * columns;
+      scaleRow(x, xRow, columns, 1 / l[i * n + i]);
+      for (int j = 0; j < i; j++) {
+        double v = l[i * n + j];
+        if (v != 0)
+          ArrayKernels.BACKEND.axpy(-v, x, xRow, x, j * columns, columns);
+      }
+    }
+
+  }
+
+  private static void scaleRow(double[] x, int offset, int length, double s) {
+    for (int c = 0; c < length; c++) {
+      x[offset + c] *= s;
+    }
+  }
+
+}
@@ -0,0 +1,215 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Storage of doubles outside of the Java heap,
+ * addressed by a long index. As a single NIO
+ * buffer cannot hold more than 2^31 - 1 bytes,
+ * the values are split over a series of byte
+ * buffers of CHUNK_SIZE doubles each (the last
+ * possibly shorter), which may be direct or
+ * memory-mapped.
+ *
+ * The storage may be released explicitly, after
+ * which any access fails with an
+ * IllegalStateException. Releasing only drops the
+ * references to the buffers, whose memory is
+ * returned by their own cleaners once they are
+ * garbage collected, so an access racing with a
+ * release on another thread may still complete
+ * but never reads freed memory.
+ */
+final class ChunkedDoubleBuffer {
+
+  static final int CHUNK_SHIFT = 27;
+  static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+  /*
+   * Returns the number of chunks needed to hold
+   * the provided number of doubles
+   */
+  static int numberOfChunks(long length) {
+    return (int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT);
+  }
+
+  /*
+   * Returns the number of doubles held by the
+   * chunk at the provided index
+   */
+  static int chunkLength(long length, int chunk) {
+    return (int) Math.min(CHUNK_SIZE, length - ((long) chunk << CHUNK_SHIFT));
+  }
+
+  /*
+   * Allocates zeroed storage for the provided
+   * number of doubles from direct buffers
+   */
+  static ChunkedDoubleBuffer allocateDirect(long length) {
+    ByteBuffer[] buffers = new ByteBuffer[numberOfChunks(length)];
+
+    for (int k = 0; k < buffers.length; k++) {
+      buffers[k] = ByteBuffer.allocateDirect(chunkLength(length, k) * Double.BYTES);
+    }
+
+    return new ChunkedDoubleBuffer(buffers, length, ByteOrder.nativeOrder());
+  }
+
+  /*
+   * Maps storage for the provided number of doubles
+   * from the provided channel, starting at byte
+   * 'position' of its file
+   */
+  static ChunkedDoubleBuffer map(
+          FileChannel channel, FileChannel.MapMode mode,
+          long position, long length, ByteOrder order
+    ) throws IOException {
+    ByteBuffer[] buffers = new ByteBuffer[numberOfChunks(length)];
+
+    for (int k = 0; k < buffers.length; k++) {
+      long chunkPosition = position + ((long) k << CHUNK_SHIFT) * Double.BYTES;
+      buffers[k] = channel.map(mode, chunkPosition, (long) chunkLength(length, k) * Double.BYTES);
+    }
+
+    return new ChunkedDoubleBuffer(buffers, length, order);
+  }
+
+
+  private final long length;
+  private volatile ByteBuffer[] buffers;
+  private volatile DoubleBuffer[] chunks;
+
+  /*
+   * Creates storage over the provided byte buffers,
+   * each of which but the last must hold exactly
+   * CHUNK_SIZE doubles, reading the values in the
+   * provided byte order
+   */
+  ChunkedDoubleBuffer(ByteBuffer[] buffers, long length, ByteOrder order) {
+    this.length = length;
+    this.buffers = buffers;
+    this.chunks = new DoubleBuffer[buffers.length];
+
+    for (int k = 0; k < buffers.length; k++) {
+      chunks[k] = buffers[k].order(order).asDoubleBuffer();
+    }
+  }
+
+
+  private DoubleBuffer[] chunks() {
+    DoubleBuffer[] chunks = this.chunks;
+    if (chunks == null)
+      throw new IllegalStateException("Off-heap storage has been released and may no longer be used");
+    return chunks;
+  }
+
+  long length() {
+    return length;
+  }
+
+  boolean isReleased() {
+    return chunks == null;
+  }
+
+  double get(long index) {
+    return chunks()[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+  }
+
+  void set(long index, double value) {
+    chunks()[(int) (index >>> CHUNK_SHIFT)].put((int) (index & CHUNK_MASK), value);
+  }
+
+  /*
+   * Copies 'count' values starting at 'index'
+   * into the provided array
+   */
+  void get(long index, double[] dest, int destOffset, int count) {
+    DoubleBuffer[] chunks = chunks();
+
+    while (count > 0) {
+      DoubleBuffer chunk = chunks[(int) (index >>> CHUNK_SHIFT)].duplicate();
+      int position = (int) (index & CHUNK_MASK);
+      int n = Math.min(count, chunk.limit() - position);
+
+      chunk.position(position);
+      chunk.get(dest, destOffset, n);
+
+      index += n;
+      destOffset += n;
+      count -= n;
+    }
+  }
+
+  /*
+   * Copies 'count' values of the provided array
+   * into this storage starting at 'index'
+   */
+  void put(long index, double[] source, int sourceOffset, int count) {
+    DoubleBuffer[] chunks = chunks();
+
+    while (count > 0) {
+      DoubleBuffer chunk = chunks[(int) (index >>> CHUNK_SHIFT)].duplicate();
+      int position = (int) (index & CHUNK_MASK);
+      int n = Math.min(count, chunk.limit() - position);
+
+      chunk.position(position);
+      chunk.put(source, sourceOffset, n);
+
+      index += n;
+      sourceOffset += n;
+      count -= n;
+    }
+  }
+
+  /*
+   * Writes any modified values of mapped storage
+   * through to the underlying file
+   */
+  void force() {
+    ByteBuffer[] buffers = this.buffers;
+    if (buffers == null)
+      throw new IllegalStateException("Off-heap storage has been released and may no longer be used");
+
+    for (ByteBuffer buffer : buffers) {
+      if (buffer instanceof MappedByteBuffer)
+        ((MappedByteBuffer) buffer).force();
+    }
+  }
+
+  /*
+   * Makes this storage unusable. The buffers are
+   * freed by the garbage collector once no thread
+   * still holds them.
+   */
+  void release() {
+    chunks = null;
+    buffers = null;
+  }
+
+}
@@ -230,6 +230,10 @@ public class Complex extends MObject {
 
 
 
+  /* Integral exponents of at most this magnitude are raised by repeated squaring */
+  private static final double INTEGER_POWER_LIMIT = 0x1p62;
+
+
   public final double real, imaginary;
 
   public Complex(double real, double imaginary) {
@@ -373,6 +377,8 @@ public class Complex extends MObject {
       return this;
     else if (i == 2)
       return this.squared();
+    else if (i == Math.rint(i) && Math.abs(i) <= INTEGER_POWER_LIMIT)
+      return power((long) i);
     else {
 
       return polar(
@@ -382,6 +388,50 @@ public class Complex extends MObject {
 
     }
   }
+  /**
+   * Raises this value to an integer power by
+   * repeated squaring, which is exact for small
+   * Gaussian integers and avoids the rounding of
+   * the polar form. Negative powers are found as
+   * the reciprocal of the positive power.
+   *
+   * @param n the exponent
+   * @return this value to the power of 'n'
+   */
+  public Complex power(long n) {
+    if (n == 0)
+      return Complex.ONE;
+    else if (n == Long.MIN_VALUE)
+      return power(n / 2).squared();
+
+    long e = Math.abs(n);
+    double
+            re,
+            baseReal = real, baseImaginary = imaginary,
+            retReal = 1, retImaginary = 0
+                    ;
+
+    while (true) {
+      if ((e & 1) != 0) {
+        re = retReal * baseReal - retImaginary * baseImaginary;
+        retImaginary = retReal * baseImaginary + retImaginary * baseReal;
+        retReal = re;
+      }
+      e >>>= 1;
+      if (e == 0)
+        break;
+
+      re = baseReal * baseReal - baseImaginary * baseImaginary;
+      baseImaginary = 2 * baseReal * baseImaginary;
+      baseReal = re;
+    }
+
+    if (n > 0)
+      return new Complex(retReal, retImaginary);
+    else
+      return ONE.div(new Complex(retReal, retImaginary));
+  }
+
   public Complex power(Complex complex) {
     return multiply(
           real(JMath.pow(absoluteValue(), complex.real)),
@@ -398,7 +448,7 @@ public class Complex extends MObject {
     if (i == 0)
       throw new IllegalArgumentException("Cannot take the 0th root of a complex getValue");
     else
-      return power(1 / i);
+      return power(1.0 / i);
   }
 
   public Complex[] root(int i) {
@@ -428,6 +478,107 @@ public class Complex extends MObject {
 
 
 
+  /* Polynomial methods */
+
+  /**
+   * Evaluates the polynomial with the provided
+   * real coefficients, in ascending order of
+   * power, at a complex point by Horner's method
+   *
+   * @param coefficients the coefficients, c[k] of z^k
+   * @param z the point at which to evaluate
+   * @return the sum of c[k] * z^k
+   */
+  public static Complex polynomial(double[] coefficients, Complex z) {
+    if (coefficients == null)
+      throw new IllegalArgumentException("Coefficient array cannot be null");
+    if (z == null)
+      throw new IllegalArgumentException("Point cannot be null");
+
+    double re = 0, im = 0, t;
+    for (int k = coefficients.length - 1; k >= 0; k--) {
+      t = re * z.real - im * z.imaginary + coefficients[k];
+      im = re * z.imaginary + im * z.real;
+      re = t;
+    }
+
+    return new Complex(re, im);
+  }
+
+  /**
+   * Evaluates the polynomial with the provided
+   * complex coefficients, split into real and
+   * imaginary parts in ascending order of power,
+   * at a complex point by Horner's method
+   *
+   * @param real the real parts of the coefficients
+   * @param imaginary the imaginary parts of the coefficients
+   * @param z the point at which to evaluate
+   * @return the sum of c[k] * z^k
+   */
+  public static Complex polynomial(double[] real, double[] imaginary, Complex z) {
+    checkCoefficients(real, imaginary);
+    if (z == null)
+      throw new IllegalArgumentException("Point cannot be null");
+
+    double re = 0, im = 0, t;
+    for (int k = real.length - 1; k >= 0; k--) {
+      t = re * z.real - im * z.imaginary + real[k];
+      im = re * z.imaginary + im * z.real + imaginary[k];
+      re = t;
+    }
+
+    return new Complex(re, im);
+  }
+
+  /**
+   * Evaluates the polynomial with the provided
+   * complex coefficients at each of the provided
+   * points, allocating nothing. The destination
+   * may be the array of points.
+   *
+   * @param real the real parts of the coefficients
+   * @param imaginary the imaginary parts of the coefficients
+   * @param points the points at which to evaluate
+   * @param dest the array to receive the values
+   * @return the destination array
+   */
+  public static ComplexArray polynomial(double[] real, double[] imaginary, ComplexArray points, ComplexArray dest) {
+    checkCoefficients(real, imaginary);
+    if (points == null || dest == null)
+      throw new IllegalArgumentException("Complex arrays cannot be null");
+    if (points.size() != dest.size())
+      throw new IllegalArgumentException("Mismatching complex array sizes");
+
+    double[]
+            zr = points.real(), zi = points.imaginary(),
+            outReal = dest.real(), outImaginary = dest.imaginary()
+                    ;
+
+    for (int j = 0; j < zr.length; j++) {
+      double x = zr[j], y = zi[j], re = 0, im = 0, t;
+      for (int k = real.length - 1; k >= 0; k--) {
+        t = re * x - im * y + real[k];
+        im = re * y + im * x + imaginary[k];
+        re = t;
+      }
+      outReal[j] = re;
+      outImaginary[j] = im;
+    }
+
+    return dest;
+  }
+
+  private static void checkCoefficients(double[] real, double[] imaginary) {
+    if (real == null || imaginary == null)
+      throw new IllegalArgumentException("Coefficient arrays cannot be null");
+    if (real.length != imaginary.length)
+      throw new IllegalArgumentException("Coefficient arrays must be of equal lengths");
+  }
+
+
+
+
   @Override
   public String toString() {
 
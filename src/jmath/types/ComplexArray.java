@@ -0,0 +1,490 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import java.util.Arrays;
+import jmath.JMath;
+import upsilon.tools.ArrayTools;
+
+/**
+ * An array of N complex numbers, stored as two
+ * primitive arrays of real and imaginary parts
+ * rather than as N Complex objects. This costs 16
+ * bytes per value, and lets bulk arithmetic run
+ * along contiguous arrays without allocating.
+ * The bulk operations write into a provided
+ * destination, which may be either operand, or,
+ * in their '...InPlace' forms, into this array.
+ * An object of this class is mutable and
+ * not safe for concurrent modification.
+ */
+public final class ComplexArray {
+
+  /**
+   * Creates a complex array which adopts the provided
+   * arrays as its storage without copying
+   *
+   * @param real the real parts of the values
+   * @param imaginary the imaginary parts of the values
+   * @return a complex array sharing the provided arrays
+   */
+  public static ComplexArray wrap(double[] real, double[] imaginary) {
+    if (real == null || imaginary == null)
+      throw new IllegalArgumentException("Component arrays cannot be null");
+    if (real.length != imaginary.length)
+      throw new IllegalArgumentException("Component arrays must be of equal lengths");
+
+    return new ComplexArray(real, imaginary);
+  }
+
+  /**
+   * Creates a complex array holding copies of the
+   * provided real values, with imaginary parts of
+   * zero
+   *
+   * @param real the real values
+   * @return a new complex array
+   */
+  public static ComplexArray ofReal(double[] real) {
+    if (real == null)
+      throw new IllegalArgumentException("Array cannot be null");
+
+    return new ComplexArray(real.clone(), new double[real.length]);
+  }
+
+  /**
+   * Creates a complex array from values stored as
+   * alternating real and imaginary parts
+   *
+   * @param values the interleaved values
+   * @return a new complex array
+   */
+  public static ComplexArray fromInterleaved(double[] values) {
+    if (values == null)
+      throw new IllegalArgumentException("Array cannot be null");
+    if (values.length % 2 != 0)
+      throw new IllegalArgumentException("Interleaved array must be of even length");
+
+    ComplexArray ret = new ComplexArray(values.length / 2);
+    for (int k = 0; k < ret.real.length; k++) {
+      ret.real[k] = values[2 * k];
+      ret.imaginary[k] = values[2 * k + 1];
+    }
+
+    return ret;
+  }
+
+
+  private final double[] real, imaginary;
+
+  /**
+   * Creates a complex array of the provided
+   * number of values, each zero
+   *
+   * @param size the number of values
+   */
+  public ComplexArray(int size) {
+    if (size < 0)
+      throw new IllegalArgumentException("Cannot create complex array of negative size");
+
+    real = new double[size];
+    imaginary = new double[size];
+  }
+
+  public ComplexArray(Complex... values) {
+    if (values == null)
+      throw new IllegalArgumentException("Values array cannot be null");
+    if (ArrayTools.containsNull(values))
+      throw new IllegalArgumentException("Values array cannot contain nulls");
+
+    real = new double[values.length];
+    imaginary = new double[values.length];
+
+    for (int k = 0; k < values.length; k++) {
+      real[k] = values[k].real;
+      imaginary[k] = values[k].imaginary;
+    }
+  }
+
+  private ComplexArray(double[] real, double[] imaginary) {
+    this.real = real;
+    this.imaginary = imaginary;
+  }
+
+
+  private void checkIndex(int k) {
+    if (k < 0 || k >= real.length)
+      throw new IllegalArgumentException(String.format("Cannot access complex array (size %d) index %d", real.length, k));
+  }
+
+  private void checkSize(ComplexArray other) {
+    if (other == null)
+      throw new IllegalArgumentException("Complex array cannot be null");
+    if (other.size() != size())
+      throw new IllegalArgumentException("Mismatching complex array sizes");
+  }
+
+
+  public int size() {
+    return real.length;
+  }
+
+  public double getReal(int k) {
+    checkIndex(k);
+    return real[k];
+  }
+
+  public double getImaginary(int k) {
+    checkIndex(k);
+    return imaginary[k];
+  }
+
+  public Complex get(int k) {
+    checkIndex(k);
+    return new Complex(real[k], imaginary[k]);
+  }
+
+  public ComplexArray set(int k, double real, double imaginary) {
+    checkIndex(k);
+    this.real[k] = real;
+    this.imaginary[k] = imaginary;
+    return this;
+  }
+
+  public ComplexArray set(int k, Complex value) {
+    if (value == null)
+      throw new IllegalArgumentException("Value cannot be null");
+
+    return set(k, value.real, value.imaginary);
+  }
+
+  /**
+   * Returns the array of real parts backing this
+   * complex array. Changes to the array are changes
+   * to the values.
+   *
+   * @return the backing array of real parts
+   */
+  public double[] real() {
+    return real;
+  }
+
+  /**
+   * Returns the array of imaginary parts backing
+   * this complex array
+   *
+   * @return the backing array of imaginary parts
+   */
+  public double[] imaginary() {
+    return imaginary;
+  }
+
+
+  /* Bulk operations */
+
+  public ComplexArray addInPlace(ComplexArray other) {
+    return add(other, this);
+  }
+
+  /**
+   * Writes the sums of the values of this array and
+   * another into the destination: dest[k] = this[k] +
+   * other[k]
+   *
+   * @param other the other operand
+   * @param dest the complex array receiving the results
+   * @return the destination complex array
+   */
+  public ComplexArray add(ComplexArray other, ComplexArray dest) {
+    checkSize(other);
+    checkSize(dest);
+
+    ArrayKernels.BACKEND.add(real, other.real, dest.real, real.length);
+    ArrayKernels.BACKEND.add(imaginary, other.imaginary, dest.imaginary, real.length);
+    return dest;
+  }
+
+  public ComplexArray subInPlace(ComplexArray other) {
+    return sub(other, this);
+  }
+
+  public ComplexArray sub(ComplexArray other, ComplexArray dest) {
+    checkSize(other);
+    checkSize(dest);
+
+    for (int k = 0; k < real.length; k++) {
+      dest.real[k] = real[k] - other.real[k];
+      dest.imaginary[k] = imaginary[k] - other.imaginary[k];
+    }
+    return dest;
+  }
+
+  public ComplexArray subtractInPlace(ComplexArray other) { /* Alias of subInPlace(ComplexArray other) */
+    return subInPlace(other);
+  }
+
+  public ComplexArray multiplyInPlace(ComplexArray other) {
+    return multiply(other, this);
+  }
+
+  /**
+   * Writes the elementwise products of the values of
+   * this array and another into the destination:
+   * dest[k] = this[k] * other[k]
+   *
+   * @param other the other operand
+   * @param dest the complex array receiving the results
+   * @return the destination complex array
+   */
+  public ComplexArray multiply(ComplexArray other, ComplexArray dest) {
+    checkSize(other);
+    checkSize(dest);
+
+    for (int k = 0; k < real.length; k++) {
+      double ar = real[k], ai = imaginary[k], br = other.real[k], bi = other.imaginary[k];
+      dest.real[k] = ar * br - ai * bi;
+      dest.imaginary[k] = ar * bi + ai * br;
+    }
+    return dest;
+  }
+
+  public ComplexArray multiplyConjugateInPlace(ComplexArray other) {
+    return multiplyConjugate(other, this);
+  }
+
+  /**
+   * Writes the elementwise products of the values of
+   * this array and the conjugates of those of another
+   * into the destination: dest[k] = this[k] *
+   * conj(other[k]), as used in cross-correlation
+   *
+   * @param other the other operand
+   * @param dest the complex array receiving the results
+   * @return the destination complex array
+   */
+  public ComplexArray multiplyConjugate(ComplexArray other, ComplexArray dest) {
+    checkSize(other);
+    checkSize(dest);
+
+    for (int k = 0; k < real.length; k++) {
+      double ar = real[k], ai = imaginary[k], br = other.real[k], bi = other.imaginary[k];
+      dest.real[k] = ar * br + ai * bi;
+      dest.imaginary[k] = ai * br - ar * bi;
+    }
+    return dest;
+  }
+
+  public ComplexArray scaleInPlace(double s) {
+    ArrayKernels.BACKEND.scale(s, real, real, real.length);
+    ArrayKernels.BACKEND.scale(s, imaginary, imaginary, real.length);
+    return this;
+  }
+
+  public ComplexArray scaleInPlace(Complex s) {
+    if (s == null)
+      throw new IllegalArgumentException("Scale cannot be null");
+
+    return scaleInPlace(s.real, s.imaginary);
+  }
+
+  /**
+   * Multiplies every value of this array by the
+   * complex number sr + si i in place
+   *
+   * @param sr the real part of the scale
+   * @param si the imaginary part of the scale
+   * @return this complex array
+   */
+  public ComplexArray scaleInPlace(double sr, double si) {
+    for (int k = 0; k < real.length; k++) {
+      double ar = real[k], ai = imaginary[k];
+      real[k] = ar * sr - ai * si;
+      imaginary[k] = ar * si + ai * sr;
+    }
+    return this;
+  }
+
+  public ComplexArray conjugateInPlace() {
+    ArrayKernels.BACKEND.scale(-1, imaginary, imaginary, real.length);
+    return this;
+  }
+
+  public ComplexArray negateInPlace() {
+    return scaleInPlace(-1);
+  }
+
+  /**
+   * Returns the magnitudes (absolute values) of the
+   * values of this array
+   *
+   * @return a new array of the magnitudes
+   */
+  public double[] magnitudes() {
+    return magnitudes(new double[real.length]);
+  }
+
+  public double[] magnitudes(double[] dest) {
+    squaredMagnitudes(dest);
+    for (int k = 0; k < dest.length; k++) {
+      dest[k] = JMath.sqrt(dest[k]);
+    }
+    return dest;
+  }
+
+  /**
+   * Writes the squared magnitudes of the values of
+   * this array into the destination, which must be
+   * of the same length as this array
+   *
+   * @param dest the array receiving the squared magnitudes
+   * @return the destination array
+   */
+  public double[] squaredMagnitudes(double[] dest) {
+    if (dest == null)
+      throw new IllegalArgumentException("Destination array cannot be null");
+    if (dest.length != real.length)
+      throw new IllegalArgumentException("Destination array must be of the same size as the complex array");
+
+    for (int k = 0; k < real.length; k++) {
+      dest[k] = real[k] * real[k] + imaginary[k] * imaginary[k];
+    }
+    return dest;
+  }
+
+  public double[] phases() {
+    double[] ret = new double[real.length];
+    for (int k = 0; k < ret.length; k++) {
+      ret[k] = JMath.atan2(imaginary[k], real[k]);
+    }
+    return ret;
+  }
+
+
+  /* Reductions */
+
+  public Complex sum() {
+    return new Complex(
+            ArrayKernels.BACKEND.sum(real, real.length),
+            ArrayKernels.BACKEND.sum(imaginary, real.length)
+      );
+  }
+
+  /**
+   * Calculates the sum of the products of the values
+   * of this array and another, without conjugation
+   *
+   * @param other the other operand
+   * @return the sum of this[k] * other[k]
+   */
+  public Complex dot(ComplexArray other) {
+    checkSize(other);
+
+    int n = real.length;
+    return new Complex(
+            ArrayKernels.BACKEND.dot(real, 0, other.real, 0, n) - ArrayKernels.BACKEND.dot(imaginary, 0, other.imaginary, 0, n),
+            ArrayKernels.BACKEND.dot(real, 0, other.imaginary, 0, n) + ArrayKernels.BACKEND.dot(imaginary, 0, other.real, 0, n)
+      );
+  }
+
+  /**
+   * Calculates the inner product of this array and
+   * another, conjugating the values of this array
+   *
+   * @param other the other operand
+   * @return the sum of conj(this[k]) * other[k]
+   */
+  public Complex conjugateDot(ComplexArray other) {
+    checkSize(other);
+
+    int n = real.length;
+    return new Complex(
+            ArrayKernels.BACKEND.dot(real, 0, other.real, 0, n) + ArrayKernels.BACKEND.dot(imaginary, 0, other.imaginary, 0, n),
+            ArrayKernels.BACKEND.dot(real, 0, other.imaginary, 0, n) - ArrayKernels.BACKEND.dot(imaginary, 0, other.real, 0, n)
+      );
+  }
+
+
+  /* Conversions */
+
+  /**
+   * Returns a copy of this complex array which does
+   * not share its arrays
+   *
+   * @return a new complex array of the same values
+   */
+  public ComplexArray copy() {
+    return new ComplexArray(real.clone(), imaginary.clone());
+  }
+
+  public Complex[] toComplex() {
+    Complex[] ret = new Complex[real.length];
+    for (int k = 0; k < ret.length; k++) {
+      ret[k] = new Complex(real[k], imaginary[k]);
+    }
+    return ret;
+  }
+
+  /**
+   * Returns the values of this array as alternating
+   * real and imaginary parts
+   *
+   * @return a new interleaved array
+   */
+  public double[] toInterleaved() {
+    double[] ret = new double[2 * real.length];
+    for (int k = 0; k < real.length; k++) {
+      ret[2 * k] = real[k];
+      ret[2 * k + 1] = imaginary[k];
+    }
+    return ret;
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof ComplexArray))
+      return false;
+
+    ComplexArray other = (ComplexArray) o;
+    return Arrays.equals(real, other.real) && Arrays.equals(imaginary, other.imaginary);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(real) + Arrays.hashCode(imaginary);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+
+    sb.append("{");
+    for (int k = 0; k < real.length; k++) {
+      if (k != 0)
+        sb.append(",");
+      sb.append(new Complex(real[k], imaginary[k]));
+    }
+    sb.append("}");
+
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,376 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+/**
+ * The LU decomposition of a square complex matrix
+ * computed with partial (row) pivoting, such that
+ * P * A = L * U. The factors are held as split
+ * real and imaginary arrays, and eliminated with
+ * the real array kernels. An object of this class
+ * is immutable and may be used to solve any
+ * number of systems against the same matrix
+ * without refactoring it.
+ */
+public class ComplexLUDecomposition {
+
+  private final int n;
+  private final double[] real, imaginary;
+  private final int[] pivot;
+  private final int pivotSign;
+  private final boolean singular;
+
+  ComplexLUDecomposition(ComplexNMatrix matrix) {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    if (matrix.numberOfRows() != matrix.numberOfColumns())
+      throw new ArithmeticException(String.format(
+              "Cannot find LU decomposition of non-square matrix (%dx%d)",
+              matrix.numberOfRows(),
+              matrix.numberOfColumns()
+        ));
+
+    n = matrix.numberOfRows();
+    real = matrix.real.clone();
+    imaginary = matrix.imaginary.clone();
+    pivot = new int[n];
+
+    int sign = 1;
+    boolean singular = false;
+
+    for (int k = 0; k < n; k++) {
+      pivot[k] = k;
+    }
+
+    for (int k = 0; k < n; k++) {
+
+      int p = k;
+      double max = squareAbsoluteValue(k * n + k);
+      for (int i = k + 1; i < n; i++) {
+        double v = squareAbsoluteValue(i * n + k);
+        if (v > max) {
+          max = v;
+          p = i;
+        }
+      }
+
+      if (p != k) {
+        swapRows(p, k);
+        int t = pivot[p];
+        pivot[p] = pivot[k];
+        pivot[k] = t;
+        sign = -sign;
+      }
+
+      if (max == 0) {
+        singular = true;
+        continue;
+      }
+
+      int kRow = k * n, length = n - k - 1;
+      double dr = real[kRow + k], di = imaginary[kRow + k];
+
+      for (int i = k + 1; i < n; i++) {
+        int iRow = i * n;
+        double ar = real[iRow + k], ai = imaginary[iRow + k];
+        if (ar == 0 && ai == 0)
+          continue;
+
+        /* l = a(i, k) / a(k, k) */
+        double
+                lr = (ar * dr + ai * di) / max,
+                li = (ai * dr - ar * di) / max
+                        ;
+        real[iRow + k] = lr;
+        imaginary[iRow + k] = li;
+
+        /* row(i) -= l * row(k) */
+        ArrayKernels.BACKEND.axpy(-lr, real, kRow + k + 1, real, iRow + k + 1, length);
+        ArrayKernels.BACKEND.axpy(li, imaginary, kRow + k + 1, real, iRow + k + 1, length);
+        ArrayKernels.BACKEND.axpy(-lr, imaginary, kRow + k + 1, imaginary, iRow + k + 1, length);
+        ArrayKernels.BACKEND.axpy(-li, real, kRow + k + 1, imaginary, iRow + k + 1, length);
+      }
+    }
+
+    this.pivotSign = sign;
+    this.singular = singular;
+  }
+
+  private double squareAbsoluteValue(int index) {
+    return real[index] * real[index] + imaginary[index] * imaginary[index];
+  }
+
+  private void swapRows(int a, int b) {
+    int aRow = a * n, bRow = b * n;
+    for (int j = 0; j < n; j++) {
+      double t = real[aRow + j];
+      real[aRow + j] = real[bRow + j];
+      real[bRow + j] = t;
+
+      t = imaginary[aRow + j];
+      imaginary[aRow + j] = imaginary[bRow + j];
+      imaginary[bRow + j] = t;
+    }
+  }
+
+
+  /**
+   * Returns whether the decomposed matrix
+   * is singular (has a zero pivot)
+   *
+   * @return true if the matrix is singular
+   */
+  public boolean isSingular() {
+    return singular;
+  }
+
+  /**
+   * Returns the dimension of the decomposed
+   * matrix
+   *
+   * @return the number of rows (and columns)
+   */
+  public int dimension() {
+    return n;
+  }
+
+  /**
+   * Calculates the determinant of the decomposed
+   * matrix as the signed product of the pivots
+   *
+   * @return the determinant
+   */
+  public Complex determinant() {
+    if (singular)
+      return Complex.ZERO;
+
+    double re = pivotSign, im = 0;
+    for (int k = 0; k < n; k++) {
+      double dr = real[k * n + k], di = imaginary[k * n + k], t = re * dr - im * di;
+      im = re * di + im * dr;
+      re = t;
+    }
+
+    return new Complex(re, im);
+  }
+
+  /**
+   * Returns the unit lower triangular factor L
+   *
+   * @return the L factor
+   */
+  public ComplexNMatrix getL() {
+    double[] re = new double[n * n], im = new double[n * n];
+
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < i; j++) {
+        re[i * n + j] = real[i * n + j];
+        im[i * n + j] = imaginary[i * n + j];
+      }
+      re[i * n + i] = 1;
+    }
+
+    return ComplexNMatrix.wrap(n, n, re, im);
+  }
+
+  /**
+   * Returns the upper triangular factor U
+   *
+   * @return the U factor
+   */
+  public ComplexNMatrix getU() {
+    double[] re = new double[n * n], im = new double[n * n];
+
+    for (int i = 0; i < n; i++) {
+      for (int j = i; j < n; j++) {
+        re[i * n + j] = real[i * n + j];
+        im[i * n + j] = imaginary[i * n + j];
+      }
+    }
+
+    return ComplexNMatrix.wrap(n, n, re, im);
+  }
+
+  /**
+   * Returns the row permutation, where row 'k'
+   * of P * A is row 'getPivot()[k]' of A
+   *
+   * @return the pivot permutation
+   */
+  public int[] getPivot() {
+    return pivot.clone();
+  }
+
+
+  /**
+   * Solves the system A * x = b for x
+   *
+   * @param b the right-hand side
+   * @return the solution vector
+   */
+  public ComplexNVector solve(ComplexNVector b) {
+    if (b == null)
+      throw new IllegalArgumentException("Right-hand side vector cannot be null");
+    if (b.dimension() != n)
+      throw new IllegalArgumentException("Dimensional mismatch on linear solve");
+    checkNonSingular();
+
+    double[] xr = new double[n], xi = new double[n];
+    for (int k = 0; k < n; k++) {
+      xr[k] = b.real[pivot[k]];
+      xi[k] = b.imaginary[pivot[k]];
+    }
+
+    solveInPlace(xr, xi);
+
+    return ComplexNVector.wrap(xr, xi);
+  }
+
+  /**
+   * Solves the system A * X = B for X, treating
+   * each column of B as a right-hand side
+   *
+   * @param b the right-hand side matrix
+   * @return the solution matrix
+   */
+  public ComplexNMatrix solve(ComplexNMatrix b) {
+    if (b == null)
+      throw new IllegalArgumentException("Right-hand side matrix cannot be null");
+    if (b.numberOfRows() != n)
+      throw new IllegalArgumentException("Dimensional mismatch on linear solve");
+    checkNonSingular();
+
+    int columns = b.numberOfColumns();
+    double[] xr = new double[n * columns], xi = new double[n * columns];
+
+    for (int k = 0; k < n; k++) {
+      System.arraycopy(b.real, pivot[k] * columns, xr, k * columns, columns);
+      System.arraycopy(b.imaginary, pivot[k] * columns, xi, k * columns, columns);
+    }
+
+    solveRowsInPlace(xr, xi, columns);
+
+    return ComplexNMatrix.wrap(n, columns, xr, xi);
+  }
+
+  /**
+   * Calculates the inverse of the decomposed
+   * matrix
+   *
+   * @return the inverse matrix
+   */
+  public ComplexNMatrix inverse() {
+    checkNonSingular();
+
+    double[] xr = new double[n * n], xi = new double[n * n];
+    for (int k = 0; k < n; k++) {
+      xr[k * n + pivot[k]] = 1;
+    }
+
+    solveRowsInPlace(xr, xi, n);
+
+    return ComplexNMatrix.wrap(n, n, xr, xi);
+  }
+
+
+  private void checkNonSingular() {
+    if (singular)
+      throw new ArithmeticException("Cannot solve system of singular matrix");
+  }
+
+  /* Forward and back substitution on a single permuted right-hand side */
+  private void solveInPlace(double[] xr, double[] xi) {
+
+    for (int i = 0; i < n; i++) {
+      int iRow = i * n;
+      xr[i] -=
+              ArrayKernels.BACKEND.dot(real, iRow, xr, 0, i) -
+              ArrayKernels.BACKEND.dot(imaginary, iRow, xi, 0, i);
+      xi[i] -=
+              ArrayKernels.BACKEND.dot(real, iRow, xi, 0, i) +
+              ArrayKernels.BACKEND.dot(imaginary, iRow, xr, 0, i);
+    }
+
+    for (int i = n - 1; i >= 0; i--) {
+      int iRow = i * n, length = n - i - 1;
+      double
+              sr = xr[i]
+                      - ArrayKernels.BACKEND.dot(real, iRow + i + 1, xr, i + 1, length)
+                      + ArrayKernels.BACKEND.dot(imaginary, iRow + i + 1, xi, i + 1, length),
+              si = xi[i]
+                      - ArrayKernels.BACKEND.dot(real, iRow + i + 1, xi, i + 1, length)
+                      - ArrayKernels.BACKEND.dot(imaginary, iRow + i + 1, xr, i + 1, length),
+              dr = real[iRow + i], di = imaginary[iRow + i],
+              d = dr * dr + di * di
+                      ;
+      xr[i] = (sr * dr + si * di) / d;
+      xi[i] = (si * dr - sr * di) / d;
+    }
+
+  }
+
+  /*
+   * Forward and back substitution on all columns of
+   * a permuted, row-major right-hand side at once so
+   * that the inner loops run along contiguous rows
+   */
+  private void solveRowsInPlace(double[] xr, double[] xi, int columns) {
+
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < i; j++) {
+        eliminate(xr, xi, columns, i, j);
+      }
+    }
+
+    for (int i = n - 1; i >= 0; i--) {
+      for (int j = i + 1; j < n; j++) {
+        eliminate(xr, xi, columns, i, j);
+      }
+
+      int xRow = i * columns;
+      double
+              dr = real[i * n + i], di = imaginary[i * n + i],
+              d = dr * dr + di * di,
+              sr = dr / d, si = -di / d
+                      ;
+      for (int c = 0; c < columns; c++) {
+        double ar = xr[xRow + c], ai = xi[xRow + c];
+        xr[xRow + c] = ar * sr - ai * si;
+        xi[xRow + c] = ar * si + ai * sr;
+      }
+    }
+
+  }
+
+  /* row(i) of X -= LU(i, j) * row(j) of X */
+  private void eliminate(double[] xr, double[] xi, int columns, int i, int j) {
+    double lr = real[i * n + j], li = imaginary[i * n + j];
+    if (lr == 0 && li == 0)
+      return;
+
+    int xRow = i * columns, jRow = j * columns;
+    ArrayKernels.BACKEND.axpy(-lr, xr, jRow, xr, xRow, columns);
+    ArrayKernels.BACKEND.axpy(li, xi, jRow, xr, xRow, columns);
+    ArrayKernels.BACKEND.axpy(-lr, xi, jRow, xi, xRow, columns);
+    ArrayKernels.BACKEND.axpy(-li, xr, jRow, xi, xRow, columns);
+  }
+
+}
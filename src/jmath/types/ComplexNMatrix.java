@@ -0,0 +1,556 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A matrix of complex values, stored as two
+ * row-major primitive arrays of real and
+ * imaginary parts. A complex product is computed
+ * as four real products on the blocked kernel
+ * used by NMatrix, so it runs at close to four
+ * times the cost of a real product of the same
+ * dimensions. An object of this class is
+ * immutable.
+ */
+public class ComplexNMatrix extends MObject {
+
+  public static ComplexNMatrix identity(int dim) {
+    if (dim <= 0)
+      throw new IllegalArgumentException("Cannot create identity matrix of non-positive dimensions");
+
+    double[] real = new double[dim * dim];
+    for (int k = 0; k < dim; k++) {
+      real[k * (dim + 1)] = 1;
+    }
+
+    return wrap(dim, dim, real, new double[dim * dim]);
+  }
+
+  public static ComplexNMatrix zero(int rows, int columns) {
+    if (rows <= 0 || columns <= 0)
+      throw new IllegalArgumentException("Cannot create zero matrix of non-positive dimensions");
+
+    return wrap(rows, columns, new double[rows * columns], new double[rows * columns]);
+  }
+
+  /**
+   * Creates a complex matrix with the values of
+   * the provided real matrix and imaginary parts
+   * of zero
+   *
+   * @param matrix the real matrix
+   * @return a new complex matrix
+   */
+  public static ComplexNMatrix ofReal(IMatrix matrix) {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+
+    int rows = matrix.numberOfRows(), columns = matrix.numberOfColumns();
+    return wrap(rows, columns, valuesOf(matrix), new double[rows * columns]);
+  }
+
+  /**
+   * Creates a complex matrix from a rectangular
+   * array of rows of Complex values
+   *
+   * @param values the rows of the matrix
+   * @return a new complex matrix
+   */
+  public static ComplexNMatrix fromRows(Complex[][] values) {
+    if (values == null)
+      throw new IllegalArgumentException("Values array cannot be null");
+    if (values.length == 0 || values[0] == null || values[0].length == 0)
+      throw new IllegalArgumentException("Cannot create matrix of non-positive dimensions");
+
+    int rows = values.length, columns = values[0].length;
+    double[] real = new double[rows * columns], imaginary = new double[rows * columns];
+
+    for (int i = 0; i < rows; i++) {
+      if (values[i] == null || values[i].length != columns)
+        throw new IllegalArgumentException("Rows of matrix must be of equal lengths");
+
+      for (int j = 0; j < columns; j++) {
+        Complex c = values[i][j];
+        if (c == null)
+          throw new IllegalArgumentException("Values array cannot contain nulls");
+
+        real[i * columns + j] = c.real;
+        imaginary[i * columns + j] = c.imaginary;
+      }
+    }
+
+    return wrap(rows, columns, real, imaginary);
+  }
+
+  public static ComplexNMatrix add(ComplexNMatrix a, ComplexNMatrix b) {
+    if (a == null || b == null)
+      throw new IllegalArgumentException("Cannot add null matrices");
+
+    return a.add(b);
+  }
+
+
+  /*
+   * Creates a matrix which adopts the provided
+   * arrays as its backing storage without copying.
+   * The caller must not retain the arrays.
+   */
+  static ComplexNMatrix wrap(int rows, int columns, double[] real, double[] imaginary) {
+    return new ComplexNMatrix(rows, columns, real, imaginary, false);
+  }
+
+  /* Returns the row-major values of a real matrix */
+  private static double[] valuesOf(IMatrix matrix) {
+    if (matrix instanceof NMatrix)
+      return ((NMatrix) matrix).values.clone();
+
+    int rows = matrix.numberOfRows(), columns = matrix.numberOfColumns();
+    double[] ret = new double[rows * columns];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        ret[i * columns + j] = matrix.get(i, j);
+      }
+    }
+
+    return ret;
+  }
+
+
+  final double[] real, imaginary;
+  private final int rows, columns;
+
+  public ComplexNMatrix(int rows, int columns, double[] real, double[] imaginary) {
+    this(rows, columns, real, imaginary, true);
+  }
+
+  /**
+   * Creates a complex matrix from its real and
+   * imaginary parts
+   *
+   * @param real the real part
+   * @param imaginary the imaginary part
+   */
+  public ComplexNMatrix(IMatrix real, IMatrix imaginary) {
+    super(Type.COMPLEX_MATRIX);
+
+    if (real == null || imaginary == null)
+      throw new IllegalArgumentException("Component matrices cannot be null");
+    if (
+            real.numberOfRows() != imaginary.numberOfRows() ||
+            real.numberOfColumns() != imaginary.numberOfColumns()
+            )
+      throw new IllegalArgumentException("Dimensional mismatch of component matrices");
+
+    this.rows = real.numberOfRows();
+    this.columns = real.numberOfColumns();
+    this.real = valuesOf(real);
+    this.imaginary = valuesOf(imaginary);
+  }
+
+  private ComplexNMatrix(int rows, int columns, double[] real, double[] imaginary, boolean copy) {
+    super(Type.COMPLEX_MATRIX);
+
+    if (real == null || imaginary == null)
+      throw new IllegalArgumentException("Component arrays cannot be null");
+    if (rows <= 0)
+      throw new IllegalArgumentException("Row count cannot be non-positive");
+    if (columns <= 0)
+      throw new IllegalArgumentException("Column count cannot be non-positive");
+    if (rows * columns != real.length || rows * columns != imaginary.length)
+      throw new IllegalArgumentException("Matrix is not filled by the number of provided values");
+
+    this.rows = rows;
+    this.columns = columns;
+    this.real = copy ? real.clone() : real;
+    this.imaginary = copy ? imaginary.clone() : imaginary;
+  }
+
+
+  private void checkRowColumn(int row, int column) {
+    if (row < 0 || row >= rows)
+      throw new IllegalArgumentException(String.format("Row out of bounds for (%dx%d) matrix access: %d", rows, columns, row));
+    if (column < 0 || column >= columns)
+      throw new IllegalArgumentException(String.format("Column out of bounds for (%dx%d) matrix access: %d", rows, columns, column));
+  }
+
+  private void checkDimensions(ComplexNMatrix matrix) {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    if (matrix.rows != rows || matrix.columns != columns)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix operation");
+  }
+
+  private int index(int row, int column) {
+    return column + row * columns;
+  }
+
+
+  public Complex get(int row, int column) {
+    checkRowColumn(row, column);
+    return new Complex(real[index(row, column)], imaginary[index(row, column)]);
+  }
+
+  public double getReal(int row, int column) {
+    checkRowColumn(row, column);
+    return real[index(row, column)];
+  }
+
+  public double getImaginary(int row, int column) {
+    checkRowColumn(row, column);
+    return imaginary[index(row, column)];
+  }
+
+  public ComplexNMatrix set(int row, int column, Complex value) {
+    checkRowColumn(row, column);
+    if (value == null)
+      throw new IllegalArgumentException("Value cannot be null");
+
+    double[] real = this.real.clone(), imaginary = this.imaginary.clone();
+    real[index(row, column)] = value.real;
+    imaginary[index(row, column)] = value.imaginary;
+
+    return wrap(rows, columns, real, imaginary);
+  }
+
+  public int numberOfRows() {
+    return rows;
+  }
+
+  public int numberOfColumns() {
+    return columns;
+  }
+
+  public boolean isSquare() {
+    return rows == columns;
+  }
+
+  /**
+   * Returns whether this matrix is equal to its
+   * conjugate transpose
+   *
+   * @return true if this matrix is Hermitian
+   */
+  public boolean isHermitian() {
+    if (rows != columns)
+      return false;
+
+    for (int i = 0; i < rows; i++) {
+      for (int j = i; j < columns; j++) {
+        if (
+                real[index(i, j)] != real[index(j, i)] ||
+                imaginary[index(i, j)] != -imaginary[index(j, i)]
+                )
+          return false;
+      }
+    }
+
+    return true;
+  }
+
+
+  /* Conversions */
+
+  /**
+   * Returns the real parts of the values of
+   * this matrix
+   *
+   * @return the real part of this matrix
+   */
+  public NMatrix realPart() {
+    return NMatrix.wrap(rows, columns, real.clone());
+  }
+
+  /**
+   * Returns the imaginary parts of the values
+   * of this matrix
+   *
+   * @return the imaginary part of this matrix
+   */
+  public NMatrix imaginaryPart() {
+    return NMatrix.wrap(rows, columns, imaginary.clone());
+  }
+
+  public Complex[][] toComplex() {
+    Complex[][] ret = new Complex[rows][columns];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        ret[i][j] = new Complex(real[index(i, j)], imaginary[index(i, j)]);
+      }
+    }
+    return ret;
+  }
+
+
+  /* Operations returning new matrices */
+
+  public ComplexNMatrix negative() {
+    return scale(-1);
+  }
+
+  public ComplexNMatrix conjugate() {
+    double[] imaginary = new double[this.imaginary.length];
+    ArrayKernels.BACKEND.scale(-1, this.imaginary, imaginary, imaginary.length);
+    return wrap(rows, columns, real.clone(), imaginary);
+  }
+
+  public ComplexNMatrix transpose() {
+    return transpose(1);
+  }
+
+  /**
+   * Returns the conjugate (Hermitian) transpose
+   * of this matrix
+   *
+   * @return the conjugate transpose
+   */
+  public ComplexNMatrix conjugateTranspose() {
+    return transpose(-1);
+  }
+
+  public ComplexNMatrix hermitianTranspose() { /* Alias of conjugateTranspose() */
+    return conjugateTranspose();
+  }
+
+  private ComplexNMatrix transpose(double sign) {
+    double[] real = new double[this.real.length], imaginary = new double[this.real.length];
+
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        real[j * rows + i] = this.real[index(i, j)];
+        imaginary[j * rows + i] = sign * this.imaginary[index(i, j)];
+      }
+    }
+
+    return wrap(columns, rows, real, imaginary);
+  }
+
+  public ComplexNMatrix scale(double s) {
+    double[] real = new double[this.real.length], imaginary = new double[this.real.length];
+
+    ArrayKernels.BACKEND.scale(s, this.real, real, real.length);
+    ArrayKernels.BACKEND.scale(s, this.imaginary, imaginary, real.length);
+
+    return wrap(rows, columns, real, imaginary);
+  }
+
+  public ComplexNMatrix scale(Complex s) {
+    if (s == null)
+      throw new IllegalArgumentException("Scalar cannot be null");
+
+    int n = this.real.length;
+    double[] real = new double[n], imaginary = new double[n];
+
+    ArrayKernels.BACKEND.scale(s.real, this.real, real, n);
+    ArrayKernels.BACKEND.axpy(-s.imaginary, this.imaginary, 0, real, 0, n);
+    ArrayKernels.BACKEND.scale(s.real, this.imaginary, imaginary, n);
+    ArrayKernels.BACKEND.axpy(s.imaginary, this.real, 0, imaginary, 0, n);
+
+    return wrap(rows, columns, real, imaginary);
+  }
+
+  public ComplexNMatrix add(ComplexNMatrix matrix) {
+    checkDimensions(matrix);
+
+    int n = this.real.length;
+    double[] real = new double[n], imaginary = new double[n];
+
+    ArrayKernels.BACKEND.add(this.real, matrix.real, real, n);
+    ArrayKernels.BACKEND.add(this.imaginary, matrix.imaginary, imaginary, n);
+
+    return wrap(rows, columns, real, imaginary);
+  }
+
+  public ComplexNMatrix subtract(ComplexNMatrix matrix) { /* Alias of sub(ComplexNMatrix matrix) */
+    return sub(matrix);
+  }
+
+  public ComplexNMatrix sub(ComplexNMatrix matrix) {
+    checkDimensions(matrix);
+
+    double[] real = this.real.clone(), imaginary = this.imaginary.clone();
+
+    ArrayKernels.BACKEND.axpy(-1, matrix.real, 0, real, 0, real.length);
+    ArrayKernels.BACKEND.axpy(-1, matrix.imaginary, 0, imaginary, 0, real.length);
+
+    return wrap(rows, columns, real, imaginary);
+  }
+
+
+  /**
+   * Transforms the provided vector by this matrix
+   *
+   * @param vector the vector to transform
+   * @return the product of this matrix and the vector
+   */
+  public ComplexNVector transform(ComplexNVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Vector cannot be null");
+    if (vector.dimension() != columns)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix transformation");
+
+    double[]
+            xr = vector.real, xi = vector.imaginary,
+            real = new double[rows], imaginary = new double[rows]
+                    ;
+
+    for (int i = 0; i < rows; i++) {
+      int row = i * columns;
+      real[i] =
+              ArrayKernels.BACKEND.dot(this.real, row, xr, 0, columns) -
+              ArrayKernels.BACKEND.dot(this.imaginary, row, xi, 0, columns);
+      imaginary[i] =
+              ArrayKernels.BACKEND.dot(this.real, row, xi, 0, columns) +
+              ArrayKernels.BACKEND.dot(this.imaginary, row, xr, 0, columns);
+    }
+
+    return ComplexNVector.wrap(real, imaginary);
+  }
+
+  /**
+   * Multiplies this matrix by another as four real
+   * products on the blocked kernel: the real part
+   * is Ar * Br - Ai * Bi and the imaginary part is
+   * Ar * Bi + Ai * Br
+   *
+   * @param other the right-hand operand
+   * @return the matrix product
+   */
+  public ComplexNMatrix multiply(ComplexNMatrix other) {
+    checkMultiply(other);
+    return multiply(other, null);
+  }
+
+  /**
+   * Multiplies this matrix by another, splitting each
+   * real product into panels computed on the common
+   * fork-join pool. Small products are computed on
+   * the calling thread.
+   *
+   * @param other the right-hand operand
+   * @return the matrix product
+   */
+  public ComplexNMatrix parallelMultiply(ComplexNMatrix other) {
+    return parallelMultiply(other, ForkJoinPool.commonPool());
+  }
+
+  public ComplexNMatrix parallelMultiply(ComplexNMatrix other, ForkJoinPool pool) {
+    checkMultiply(other);
+    if (pool == null)
+      throw new IllegalArgumentException("Fork-join pool cannot be null");
+
+    return multiply(other, pool);
+  }
+
+  private void checkMultiply(ComplexNMatrix other) {
+    if (other == null)
+      throw new IllegalArgumentException("Cannot multiply by null matrix");
+    if (columns != other.rows)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix multiplication");
+  }
+
+  private ComplexNMatrix multiply(ComplexNMatrix other, ForkJoinPool pool) {
+    int m = rows, n = other.columns, k = columns;
+    double[] real = new double[m * n], imaginary = new double[m * n];
+
+    accumulate(m, n, k, 1, this.real, other.real, real, pool);
+    accumulate(m, n, k, -1, this.imaginary, other.imaginary, real, pool);
+    accumulate(m, n, k, 1, this.real, other.imaginary, imaginary, pool);
+    accumulate(m, n, k, 1, this.imaginary, other.real, imaginary, pool);
+
+    return wrap(m, n, real, imaginary);
+  }
+
+  private static void accumulate(
+          int m, int n, int k, double alpha,
+          double[] a, double[] b, double[] c,
+          ForkJoinPool pool
+    ) {
+    if (pool == null)
+      MatrixKernel.multiply(m, n, k, alpha, a, 0, k, 1, b, 0, n, 1, c, 0, n);
+    else
+      MatrixKernel.multiply(m, n, k, alpha, a, 0, k, 1, b, 0, n, 1, c, 0, n, pool);
+  }
+
+
+  /**
+   * Computes the LU decomposition of this matrix
+   * with partial pivoting
+   *
+   * @return the LU decomposition of this matrix
+   */
+  public ComplexLUDecomposition lu() {
+    return new ComplexLUDecomposition(this);
+  }
+
+  public Complex determinant() {
+    if (rows != columns)
+      throw new ArithmeticException(String.format("Cannot find determinant of non-square matrix (%dx%d)", rows, columns));
+
+    return lu().determinant();
+  }
+
+  public ComplexNMatrix inverse() {
+    return lu().inverse();
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof ComplexNMatrix))
+      return false;
+
+    ComplexNMatrix other = (ComplexNMatrix) o;
+    return
+            rows == other.rows &&
+            columns == other.columns &&
+            Arrays.equals(real, other.real) &&
+            Arrays.equals(imaginary, other.imaginary)
+                    ;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * rows + Arrays.hashCode(real)) + Arrays.hashCode(imaginary);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("[");
+
+    for (int i = 0; i < rows; i++) {
+      sb.append("[");
+      for (int j = 0; j < columns; j++) {
+        if (j != 0)
+          sb.append(",");
+        sb.append(new Complex(real[index(i, j)], imaginary[index(i, j)]));
+      }
+      sb.append("]");
+    }
+
+    sb.append("]");
+    return sb.toString();
+  }
+
+}
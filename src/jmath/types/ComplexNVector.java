@@ -0,0 +1,353 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import java.util.Arrays;
+import jmath.JMath;
+import upsilon.tools.ArrayTools;
+
+/**
+ * A vector of N complex dimensions, stored as two
+ * primitive arrays of real and imaginary parts.
+ * Its arithmetic runs on the real array kernels
+ * of this package rather than on Complex objects.
+ * An object of this class is immutable.
+ */
+public class ComplexNVector extends MObject {
+
+  public static ComplexNVector zero(int dim) {
+    if (dim <= 0)
+      throw new IllegalArgumentException("Cannot create vector of non-positive dimension");
+
+    return new ComplexNVector(new double[dim], new double[dim], false);
+  }
+
+  /**
+   * Creates a complex vector with the values of
+   * the provided real vector and imaginary parts
+   * of zero
+   *
+   * @param vector the real vector
+   * @return a new complex vector
+   */
+  public static ComplexNVector ofReal(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Vector cannot be null");
+
+    return new ComplexNVector(vector.toArray(), new double[vector.dimension()], false);
+  }
+
+  public static ComplexNVector add(ComplexNVector a, ComplexNVector b) {
+    if (a == null || b == null)
+      throw new IllegalArgumentException("Cannot add null vectors");
+
+    return a.add(b);
+  }
+
+  /**
+   * Calculates the Hermitian inner product of two
+   * vectors, conjugating the first
+   *
+   * @param a the first operand
+   * @param b the second operand
+   * @return the sum of conj(a[k]) * b[k]
+   */
+  public static Complex dot(ComplexNVector a, ComplexNVector b) {
+    if (a == null || b == null)
+      throw new IllegalArgumentException("Cannot find inner product of null vectors");
+
+    return a.dot(b);
+  }
+
+
+  /*
+   * Creates a vector which adopts the provided
+   * arrays as its backing storage without copying.
+   * The caller must not retain the arrays.
+   */
+  static ComplexNVector wrap(double[] real, double[] imaginary) {
+    return new ComplexNVector(real, imaginary, false);
+  }
+
+
+  final double[] real, imaginary;
+
+  public ComplexNVector(double[] real, double[] imaginary) {
+    this(real, imaginary, true);
+  }
+
+  public ComplexNVector(Complex... values) {
+    super(Type.COMPLEX_VECTOR);
+
+    if (values == null)
+      throw new IllegalArgumentException("Values array cannot be null");
+    if (ArrayTools.containsNull(values))
+      throw new IllegalArgumentException("Values array cannot contain nulls");
+    if (values.length == 0)
+      throw new IllegalArgumentException("Cannot create vector of non-positive dimension");
+
+    real = new double[values.length];
+    imaginary = new double[values.length];
+
+    for (int k = 0; k < values.length; k++) {
+      real[k] = values[k].real;
+      imaginary[k] = values[k].imaginary;
+    }
+  }
+
+  public ComplexNVector(ComplexArray values) {
+    this(values == null ? null : values.real(), values == null ? null : values.imaginary(), true);
+  }
+
+  private ComplexNVector(double[] real, double[] imaginary, boolean copy) {
+    super(Type.COMPLEX_VECTOR);
+
+    if (real == null || imaginary == null)
+      throw new IllegalArgumentException("Component arrays cannot be null");
+    if (real.length != imaginary.length)
+      throw new IllegalArgumentException("Component arrays must be of equal lengths");
+    if (real.length == 0)
+      throw new IllegalArgumentException("Cannot create vector of non-positive dimension");
+
+    this.real = copy ? real.clone() : real;
+    this.imaginary = copy ? imaginary.clone() : imaginary;
+  }
+
+
+  private void checkIndex(int k) {
+    if (k < 0 || k >= real.length)
+      throw new IllegalArgumentException(String.format("Cannot access vector (dimension %d) index %d", real.length, k));
+  }
+
+  private void checkDimension(ComplexNVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Vector cannot be null");
+    if (vector.real.length != real.length)
+      throw new IllegalArgumentException("Mismatching vector dimensions");
+  }
+
+
+  public int dimension() {
+    return real.length;
+  }
+
+  public Complex get(int k) {
+    checkIndex(k);
+    return new Complex(real[k], imaginary[k]);
+  }
+
+  public double getReal(int k) {
+    checkIndex(k);
+    return real[k];
+  }
+
+  public double getImaginary(int k) {
+    checkIndex(k);
+    return imaginary[k];
+  }
+
+  public ComplexNVector set(int k, Complex value) {
+    checkIndex(k);
+    if (value == null)
+      throw new IllegalArgumentException("Value cannot be null");
+
+    double[] real = this.real.clone(), imaginary = this.imaginary.clone();
+    real[k] = value.real;
+    imaginary[k] = value.imaginary;
+
+    return wrap(real, imaginary);
+  }
+
+
+  /* Conversions */
+
+  /**
+   * Returns the real parts of the values of
+   * this vector
+   *
+   * @return the real part of this vector
+   */
+  public NVector realPart() {
+    return NVector.wrap(real.clone());
+  }
+
+  /**
+   * Returns the imaginary parts of the values
+   * of this vector
+   *
+   * @return the imaginary part of this vector
+   */
+  public NVector imaginaryPart() {
+    return NVector.wrap(imaginary.clone());
+  }
+
+  public ComplexArray toComplexArray() {
+    return ComplexArray.wrap(real.clone(), imaginary.clone());
+  }
+
+  public Complex[] toComplex() {
+    Complex[] ret = new Complex[real.length];
+    for (int k = 0; k < ret.length; k++) {
+      ret[k] = new Complex(real[k], imaginary[k]);
+    }
+    return ret;
+  }
+
+
+  /* Unary operations */
+
+  public ComplexNVector negative() {
+    return scale(-1);
+  }
+
+  public ComplexNVector conjugate() {
+    double[] imaginary = new double[real.length];
+    ArrayKernels.BACKEND.scale(-1, this.imaginary, imaginary, real.length);
+    return wrap(real.clone(), imaginary);
+  }
+
+  public ComplexNVector normalize() {
+    double abs = absoluteValue();
+    if (abs == 0)
+      throw new ArithmeticException("Cannot normalize zero vector");
+
+    return scale(1 / abs);
+  }
+
+  public double magnitude() { /* Alias of absoluteValue() */
+    return absoluteValue();
+  }
+
+  public double absoluteValue() {
+    return JMath.sqrt(squareAbsoluteValue());
+  }
+
+  public double squareAbsoluteValue() {
+    return
+            ArrayKernels.BACKEND.sumOfSquares(real, real.length) +
+            ArrayKernels.BACKEND.sumOfSquares(imaginary, real.length)
+                    ;
+  }
+
+
+  /* Binary operations */
+
+  public ComplexNVector scale(double s) {
+    int n = real.length;
+    double[] real = new double[n], imaginary = new double[n];
+
+    ArrayKernels.BACKEND.scale(s, this.real, real, n);
+    ArrayKernels.BACKEND.scale(s, this.imaginary, imaginary, n);
+
+    return wrap(real, imaginary);
+  }
+
+  public ComplexNVector scale(Complex s) {
+    if (s == null)
+      throw new IllegalArgumentException("Scalar cannot be null");
+
+    int n = real.length;
+    double[] real = new double[n], imaginary = new double[n];
+
+    ArrayKernels.BACKEND.scale(s.real, this.real, real, n);
+    ArrayKernels.BACKEND.axpy(-s.imaginary, this.imaginary, 0, real, 0, n);
+    ArrayKernels.BACKEND.scale(s.real, this.imaginary, imaginary, n);
+    ArrayKernels.BACKEND.axpy(s.imaginary, this.real, 0, imaginary, 0, n);
+
+    return wrap(real, imaginary);
+  }
+
+  public ComplexNVector add(ComplexNVector vector) {
+    checkDimension(vector);
+
+    int n = real.length;
+    double[] real = new double[n], imaginary = new double[n];
+
+    ArrayKernels.BACKEND.add(this.real, vector.real, real, n);
+    ArrayKernels.BACKEND.add(this.imaginary, vector.imaginary, imaginary, n);
+
+    return wrap(real, imaginary);
+  }
+
+  public ComplexNVector subtract(ComplexNVector vector) { /* Alias of sub(ComplexNVector vector) */
+    return sub(vector);
+  }
+
+  public ComplexNVector sub(ComplexNVector vector) {
+    checkDimension(vector);
+
+    double[] real = this.real.clone(), imaginary = this.imaginary.clone();
+
+    ArrayKernels.BACKEND.axpy(-1, vector.real, 0, real, 0, real.length);
+    ArrayKernels.BACKEND.axpy(-1, vector.imaginary, 0, imaginary, 0, real.length);
+
+    return wrap(real, imaginary);
+  }
+
+  /**
+   * Calculates the Hermitian inner product of this
+   * vector and the provided vector, conjugating the
+   * values of this vector
+   *
+   * @param vector the other operand
+   * @return the sum of conj(this[k]) * vector[k]
+   */
+  public Complex dot(ComplexNVector vector) {
+    checkDimension(vector);
+
+    int n = real.length;
+    return new Complex(
+            ArrayKernels.BACKEND.dot(real, 0, vector.real, 0, n) + ArrayKernels.BACKEND.dot(imaginary, 0, vector.imaginary, 0, n),
+            ArrayKernels.BACKEND.dot(real, 0, vector.imaginary, 0, n) - ArrayKernels.BACKEND.dot(imaginary, 0, vector.real, 0, n)
+      );
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof ComplexNVector))
+      return false;
+
+    ComplexNVector other = (ComplexNVector) o;
+    return Arrays.equals(real, other.real) && Arrays.equals(imaginary, other.imaginary);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(real) + Arrays.hashCode(imaginary);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+
+    sb.append("[");
+    for (int k = 0; k < real.length; k++) {
+      if (k != 0)
+        sb.append(",");
+      sb.append(new Complex(real[k], imaginary[k]));
+    }
+    sb.append("]");
+
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,553 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The eigendecomposition of a real symmetric
+ * matrix, A = V * D * V^T, where the columns of V
+ * are orthonormal eigenvectors and D is diagonal
+ * with the eigenvalues in decreasing order.
+ *
+ * The full decomposition reduces the matrix to
+ * tridiagonal form with Householder reflections,
+ * whose matrix-vector products and rank-two
+ * updates run as row panels on a fork-join pool,
+ * and then diagonalizes it by the implicit QL
+ * method. Alternatively, largest(...) finds only
+ * the largest few eigenpairs of a symmetric
+ * operator by the Lanczos method.
+ *
+ * An object of this class is immutable.
+ */
+public class EigenDecomposition {
+
+  private static final int MAX_QL_ITERATIONS = 64;
+  private static final double EPSILON = Math.ulp(1.0);
+
+  /* Minimum number of multiply-adds in one parallel row panel */
+  private static final int PARALLEL_GRAIN = 32 * 1024;
+
+  /* Relative residual at which a Lanczos Ritz pair is accepted */
+  private static final double LANCZOS_TOLERANCE = 1e-10;
+  private static final int LANCZOS_CHECK_INTERVAL = 5;
+
+
+  /**
+   * Finds the 'count' algebraically largest
+   * eigenvalues and their eigenvectors of a
+   * symmetric operator by the Lanczos method with
+   * full reorthogonalization. Only products of the
+   * operator with vectors are used, so this is
+   * suited to large or sparse inputs when 'count'
+   * is small.
+   *
+   * @param operator the symmetric operator
+   * @param count the number of eigenpairs to find
+   * @return a decomposition holding 'count' eigenpairs
+   */
+  public static EigenDecomposition largest(LinearOperator operator, int count) {
+    if (operator == null)
+      throw new IllegalArgumentException("Operator cannot be null");
+    if (operator.numberOfRows() != operator.numberOfColumns())
+      throw new ArithmeticException(String.format(
+              "Cannot find eigenvalues of non-square operator (%dx%d)",
+              operator.numberOfRows(),
+              operator.numberOfColumns()
+        ));
+
+    int n = operator.numberOfRows();
+    if (count <= 0 || count > n)
+      throw new IllegalArgumentException(String.format("Cannot find %d eigenpairs of operator of dimension %d", count, n));
+
+    Random random = new Random(n);
+    double[][] basis = new double[n][];
+    double[] alpha = new double[n], beta = new double[n];
+    double[] w = new double[n];
+
+    basis[0] = startVector(random, basis, 0, n);
+
+    for (int j = 0; j < n; j++) {
+      operator.transform(basis[j], w);
+
+      alpha[j] = ArrayKernels.BACKEND.dot(w, 0, basis[j], 0, n);
+      for (int pass = 0; pass < 2; pass++) {
+        for (int i = 0; i <= j; i++) {
+          double h = ArrayKernels.BACKEND.dot(w, 0, basis[i], 0, n);
+          ArrayKernels.BACKEND.axpy(-h, basis[i], 0, w, 0, n);
+        }
+      }
+      beta[j] = Math.sqrt(ArrayKernels.BACKEND.sumOfSquares(w, n));
+
+      int m = j + 1;
+      boolean exhausted = m == n || beta[j] <= EPSILON * Math.abs(alpha[j]);
+
+      if (m >= count && (exhausted || m % LANCZOS_CHECK_INTERVAL == 0)) {
+        double[] d = Arrays.copyOf(alpha, m), e = new double[m];
+        System.arraycopy(beta, 0, e, 0, m - 1);
+        double[] y = identity(m);
+
+        tridiagonalQL(d, e, y, m);
+        int[] order = decreasingOrder(d);
+
+        double threshold = LANCZOS_TOLERANCE * Math.max(Math.abs(d[order[0]]), Double.MIN_NORMAL);
+        boolean converged = true;
+        for (int p = 0; p < count && converged; p++) {
+          converged = Math.abs(beta[j] * y[order[p] * m + m - 1]) <= threshold;
+        }
+
+        if (converged || m == n) {
+          double[] values = new double[count], vectors = new double[n * count];
+          for (int p = 0; p < count; p++) {
+            int r = order[p];
+            values[p] = d[r];
+            for (int i = 0; i < m; i++) {
+              double c = y[r * m + i];
+              for (int k = 0; k < n; k++) {
+                vectors[k * count + p] += c * basis[i][k];
+              }
+            }
+          }
+
+          return new EigenDecomposition(n, count, values, vectors);
+        }
+      }
+
+      if (exhausted) {
+        /* Invariant subspace found; continue from a new orthogonal direction */
+        beta[j] = 0;
+        basis[j + 1] = startVector(random, basis, j + 1, n);
+      }
+      else {
+        double[] next = new double[n];
+        for (int k = 0; k < n; k++) {
+          next[k] = w[k] / beta[j];
+        }
+        basis[j + 1] = next;
+      }
+    }
+
+    throw new ArithmeticException("Lanczos iteration failed to converge");
+  }
+
+  /* A random unit vector orthogonal to the first 'size' basis vectors */
+  private static double[] startVector(Random random, double[][] basis, int size, int n) {
+    double[] ret = new double[n];
+
+    for (int attempt = 0; attempt < 8; attempt++) {
+      for (int k = 0; k < n; k++) {
+        ret[k] = random.nextDouble() - 0.5;
+      }
+      for (int pass = 0; pass < 2; pass++) {
+        for (int i = 0; i < size; i++) {
+          double h = ArrayKernels.BACKEND.dot(ret, 0, basis[i], 0, n);
+          ArrayKernels.BACKEND.axpy(-h, basis[i], 0, ret, 0, n);
+        }
+      }
+
+      double norm = Math.sqrt(ArrayKernels.BACKEND.sumOfSquares(ret, n));
+      if (norm > 1e-8) {
+        for (int k = 0; k < n; k++) {
+          ret[k] /= norm;
+        }
+        return ret;
+      }
+    }
+
+    throw new ArithmeticException("Lanczos iteration failed to find a new direction");
+  }
+
+
+  private final int n, count;
+  private final double[] eigenvalues;
+
+  /* The eigenvectors as the columns of an (n x count) row-major matrix */
+  private final double[] vectors;
+
+  private EigenDecomposition(int n, int count, double[] eigenvalues, double[] vectors) {
+    this.n = n;
+    this.count = count;
+    this.eigenvalues = eigenvalues;
+    this.vectors = vectors;
+  }
+
+  /*
+   * Computes the full decomposition of the symmetric
+   * matrix whose lower triangle is held by 'matrix'
+   */
+  EigenDecomposition(NMatrix matrix, ForkJoinPool pool) {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    if (pool == null)
+      throw new IllegalArgumentException("Fork-join pool cannot be null");
+    if (matrix.numberOfRows() != matrix.numberOfColumns())
+      throw new ArithmeticException(String.format(
+              "Cannot find eigenvalues of non-square matrix (%dx%d)",
+              matrix.numberOfRows(),
+              matrix.numberOfColumns()
+        ));
+
+    n = count = matrix.numberOfRows();
+
+    double[] a = matrix.values.clone();
+    for (int i = 0; i < n; i++) {
+      for (int j = i + 1; j < n; j++) {
+        a[i * n + j] = a[j * n + i];
+      }
+    }
+
+    double[] d = new double[n], e = new double[n], tau = new double[n];
+    tridiagonalize(a, d, e, tau, pool);
+
+    double[] z = accumulate(a, tau, pool);
+    tridiagonalQL(d, e, z, n);
+
+    int[] order = decreasingOrder(d);
+    eigenvalues = new double[n];
+    vectors = new double[n * n];
+
+    for (int p = 0; p < n; p++) {
+      int r = order[p];
+      eigenvalues[p] = d[r];
+      for (int k = 0; k < n; k++) {
+        vectors[k * n + p] = z[r * n + k];
+      }
+    }
+  }
+
+
+  /*
+   * Reduces the full symmetric matrix 'a' to tridiagonal
+   * form T = H(n-2) ... H(0) * A * H(0) ... H(n-2). The
+   * diagonal of T is left in 'd' and its off-diagonal in
+   * 'e'. The Householder vector of H(k), with an implicit
+   * one at index k + 1, is left in row k of 'a' from index
+   * k + 2, with its scale in 'tau'.
+   */
+  private static void tridiagonalize(double[] a, double[] d, double[] e, double[] tau, ForkJoinPool pool) {
+    int n = d.length;
+    double[] v = new double[n], p = new double[n];
+
+    for (int k = 0; k < n - 1; k++) {
+      int row = k * n, start = k + 1, length = n - start;
+
+      double alpha = a[row + start];
+      double sigma = ArrayKernels.BACKEND.dot(a, row + start + 1, a, row + start + 1, length - 1);
+
+      d[k] = a[row + k];
+
+      if (sigma == 0) {
+        e[k] = alpha;
+        continue;
+      }
+
+      double norm = Math.sqrt(alpha * alpha + sigma);
+      double beta = alpha >= 0 ? -norm : norm;
+      double t = (beta - alpha) / beta, scale = 1 / (alpha - beta);
+
+      v[0] = 1;
+      for (int i = 1; i < length; i++) {
+        v[i] = a[row + start + i] *= scale;
+      }
+      e[k] = beta;
+      tau[k] = t;
+
+      /* p = tau * A22 * v */
+      forRows(pool, 0, length, length, (from, to) -> {
+        for (int i = from; i < to; i++) {
+          p[i] = t * ArrayKernels.BACKEND.dot(a, (start + i) * n + start, v, 0, length);
+        }
+      });
+
+      /* w = p - (tau / 2) * (p . v) * v, held in p */
+      double kappa = 0.5 * t * ArrayKernels.BACKEND.dot(p, 0, v, 0, length);
+      ArrayKernels.BACKEND.axpy(-kappa, v, 0, p, 0, length);
+
+      /* A22 = A22 - v * w^T - w * v^T */
+      forRows(pool, 0, length, 2 * length, (from, to) -> {
+        for (int i = from; i < to; i++) {
+          int offset = (start + i) * n + start;
+          ArrayKernels.BACKEND.axpy(-v[i], p, 0, a, offset, length);
+          ArrayKernels.BACKEND.axpy(-p[i], v, 0, a, offset, length);
+        }
+      });
+    }
+
+    d[n - 1] = a[n * n - 1];
+    e[n - 1] = 0;
+  }
+
+  /*
+   * Forms Q^T = H(n-2) ... H(0), by rows, as the product
+   * of the identity with each reflection on the right.
+   * Row 'r' of the result is the r-th column of Q.
+   */
+  private static double[] accumulate(double[] a, double[] tau, ForkJoinPool pool) {
+    int n = tau.length;
+    double[] z = identity(n), v = new double[n];
+
+    for (int k = n - 2; k >= 0; k--) {
+      double t = tau[k];
+      if (t == 0)
+        continue;
+
+      int start = k + 1, length = n - start;
+      v[0] = 1;
+      System.arraycopy(a, k * n + start + 1, v, 1, length - 1);
+
+      forRows(pool, start, n, 2 * length, (from, to) -> {
+        for (int i = from; i < to; i++) {
+          int offset = i * n + start;
+          double s = t * ArrayKernels.BACKEND.dot(z, offset, v, 0, length);
+          ArrayKernels.BACKEND.axpy(-s, v, 0, z, offset, length);
+        }
+      });
+    }
+
+    return z;
+  }
+
+  /*
+   * Diagonalizes the symmetric tridiagonal matrix with
+   * diagonal 'd' and off-diagonal 'e' (e[i] joining i and
+   * i + 1) by the implicit QL method, leaving the
+   * eigenvalues in 'd'. The rotations are applied to the
+   * rows of 'z' (each of length 'n'), which on entry hold
+   * the basis in which the tridiagonal matrix is expressed.
+   */
+  private static void tridiagonalQL(double[] d, double[] e, double[] z, int n) {
+    double f = 0, norm = 0;
+
+    for (int l = 0; l < n; l++) {
+      norm = Math.max(norm, Math.abs(d[l]) + Math.abs(e[l]));
+
+      int m = l;
+      while (m < n - 1 && Math.abs(e[m]) > EPSILON * norm) {
+        m++;
+      }
+
+      if (m > l) {
+        int iteration = 0;
+
+        do {
+          if (++iteration > MAX_QL_ITERATIONS)
+            throw new ArithmeticException("Eigenvalue iteration failed to converge");
+
+          double g = d[l];
+          double p = (d[l + 1] - g) / (2 * e[l]);
+          double r = Math.hypot(p, 1);
+          if (p < 0)
+            r = -r;
+          d[l] = e[l] / (p + r);
+          d[l + 1] = e[l] * (p + r);
+
+          double dl1 = d[l + 1];
+          double h = g - d[l];
+          for (int i = l + 2; i < n; i++) {
+            d[i] -= h;
+          }
+          f += h;
+
+          p = d[m];
+          double c = 1, c2 = 1, c3 = 1, s = 0, s2 = 0;
+          double el1 = e[l + 1];
+
+          for (int i = m - 1; i >= l; i--) {
+            c3 = c2;
+            c2 = c;
+            s2 = s;
+            g = c * e[i];
+            h = c * p;
+            r = Math.hypot(p, e[i]);
+            e[i + 1] = s * r;
+            s = e[i] / r;
+            c = p / r;
+            p = c * d[i] - s * g;
+            d[i + 1] = h + s * (c * g + s * d[i]);
+
+            rotate(z, i * n, (i + 1) * n, n, c, s);
+          }
+
+          p = -s * s2 * c3 * el1 * e[l] / dl1;
+          e[l] = s * p;
+          d[l] = c * p;
+
+        } while (Math.abs(e[l]) > EPSILON * norm);
+      }
+
+      d[l] += f;
+      e[l] = 0;
+    }
+  }
+
+  /* Rotates rows i and i + 1 of 'z' as QL rotates columns of V */
+  private static void rotate(double[] z, int iOffset, int jOffset, int length, double c, double s) {
+    for (int k = 0; k < length; k++) {
+      double h = z[jOffset + k];
+      z[jOffset + k] = s * z[iOffset + k] + c * h;
+      z[iOffset + k] = c * z[iOffset + k] - s * h;
+    }
+  }
+
+  private static double[] identity(int n) {
+    double[] ret = new double[n * n];
+    for (int k = 0; k < n; k++) {
+      ret[k * n + k] = 1;
+    }
+    return ret;
+  }
+
+  private static int[] decreasingOrder(double[] values) {
+    Integer[] order = new Integer[values.length];
+    for (int k = 0; k < order.length; k++) {
+      order[k] = k;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(values[b], values[a]));
+
+    int[] ret = new int[order.length];
+    for (int k = 0; k < ret.length; k++) {
+      ret[k] = order[k];
+    }
+    return ret;
+  }
+
+
+  /* Parallel row panels */
+
+  @FunctionalInterface
+  private interface RowOperation {
+    void apply(int from, int to);
+  }
+
+  /*
+   * Applies the operation to rows [from, to), each costing
+   * about 'rowCost' multiply-adds, as panels on the pool
+   * when there is enough work to share
+   */
+  private static void forRows(ForkJoinPool pool, int from, int to, int rowCost, RowOperation operation) {
+    int grain = Math.max(1, PARALLEL_GRAIN / Math.max(1, rowCost));
+
+    if (to - from <= grain || pool.getParallelism() == 1)
+      operation.apply(from, to);
+    else
+      pool.invoke(new RowTask(from, to, grain, operation));
+  }
+
+  private static final class RowTask extends RecursiveAction {
+
+    private final int from, to, grain;
+    private final RowOperation operation;
+
+    RowTask(int from, int to, int grain, RowOperation operation) {
+      this.from = from;
+      this.to = to;
+      this.grain = grain;
+      this.operation = operation;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= grain) {
+        operation.apply(from, to);
+        return;
+      }
+
+      int half = from + (to - from) / 2;
+      invokeAll(
+              new RowTask(from, half, grain, operation),
+              new RowTask(half, to, grain, operation)
+        );
+    }
+
+  }
+
+
+  public int dimension() {
+    return n;
+  }
+
+  /**
+   * Returns the number of eigenpairs held, which is
+   * the dimension for a full decomposition
+   *
+   * @return the number of eigenpairs
+   */
+  public int numberOfEigenpairs() {
+    return count;
+  }
+
+  /**
+   * Returns the eigenvalues in decreasing order
+   *
+   * @return a copy of the eigenvalues
+   */
+  public double[] getEigenvalues() {
+    return eigenvalues.clone();
+  }
+
+  /**
+   * Returns the eigenvector of the k-th largest
+   * eigenvalue
+   *
+   * @param k the index of the eigenpair
+   * @return the unit eigenvector
+   */
+  public NVector getEigenvector(int k) {
+    if (k < 0 || k >= count)
+      throw new IllegalArgumentException(String.format("Cannot access eigenpair %d of %d", k, count));
+
+    double[] ret = new double[n];
+    for (int i = 0; i < n; i++) {
+      ret[i] = vectors[i * count + k];
+    }
+
+    return NVector.wrap(ret);
+  }
+
+  /**
+   * Returns the eigenvectors as the columns of a
+   * matrix, ordered as the eigenvalues
+   *
+   * @return the V factor
+   */
+  public NMatrix getV() {
+    return NMatrix.wrap(n, count, vectors.clone());
+  }
+
+  /**
+   * Returns the diagonal matrix of eigenvalues
+   *
+   * @return the D factor
+   */
+  public NMatrix getD() {
+    double[] ret = new double[count * count];
+    for (int k = 0; k < count; k++) {
+      ret[k * count + k] = eigenvalues[k];
+    }
+
+    return NMatrix.wrap(count, count, ret);
+  }
+
+}
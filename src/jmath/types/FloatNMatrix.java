@@ -0,0 +1,398 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import upsilon.tools.ArrayTools;
+
+/**
+ * A matrix of NxM dimensions whose values are
+ * stored row-major in single precision, halving
+ * the memory traffic of bandwidth-bound products
+ * at the cost of precision. Values are read as
+ * doubles through the IMatrix interface. Operations
+ * on float matrices return float matrices and
+ * vectors, with other operands first narrowed to
+ * single precision.
+ */
+public class FloatNMatrix extends IMatrix {
+
+  private static final int BLOCK_ROWS = 128, BLOCK_COLUMNS = 1024;
+
+  /**
+   * Narrows the provided matrix to single
+   * precision
+   *
+   * @param matrix the matrix to narrow
+   * @return a float matrix of the rounded values
+   */
+  public static FloatNMatrix narrow(IMatrix matrix) {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    if (matrix instanceof FloatNMatrix)
+      return (FloatNMatrix) matrix;
+
+    int rows = matrix.numberOfRows(), columns = matrix.numberOfColumns();
+    double[] values = MutableNMatrix.arrayOf(matrix);
+    if (values == null)
+      values = matrix.toNMatrix().values;
+
+    return wrap(rows, columns, FloatNVector.narrow(values));
+  }
+
+  public static FloatNMatrix identity(int dim) {
+    if (dim <= 0)
+      throw new IllegalArgumentException("Cannot create identity matrix of non-positive dimensions");
+
+    float[] values = new float[dim * dim];
+    for (int k = 0; k < dim; k++) {
+      values[k * dim + k] = 1;
+    }
+
+    return wrap(dim, dim, values);
+  }
+
+  public static FloatNMatrix zero(int rows, int columns) {
+    if (rows <= 0 || columns <= 0)
+      throw new IllegalArgumentException("Cannot create zero matrix of non-positive dimensions");
+
+    return wrap(rows, columns, new float[rows * columns]);
+  }
+
+  public static FloatNMatrix add(IMatrix a, IMatrix b) {
+    if (a == null || b == null)
+      throw new IllegalArgumentException("Matrix addition cannot be applied to nulls");
+    if (a.numberOfRows() != b.numberOfRows() || a.numberOfColumns() != b.numberOfColumns())
+      throw new IllegalArgumentException("Dimensional mismatch on matrix addition");
+
+    FloatNMatrix fa = narrow(a), fb = narrow(b);
+    float[] ret = new float[fa.values.length];
+    ArrayKernels.BACKEND.add(fa.values, fb.values, ret, ret.length);
+
+    return wrap(fa.rows, fa.columns, ret);
+  }
+
+
+  /*
+   * Creates a matrix which adopts the provided
+   * array as its backing storage without copying
+   */
+  static FloatNMatrix wrap(int rows, int columns, float[] values) {
+    return new FloatNMatrix(rows, columns, values, false);
+  }
+
+
+  final float[] values;
+  private final int rows, columns;
+
+  public FloatNMatrix(int rows, int columns, float... values) {
+    this(rows, columns, values, true);
+  }
+
+  private FloatNMatrix(int rows, int columns, float[] values, boolean copy) {
+    if (values == null)
+      throw new IllegalArgumentException("Values array cannot be null");
+    if (rows <= 0)
+      throw new IllegalArgumentException("Row count cannot be non-positive");
+    if (columns <= 0)
+      throw new IllegalArgumentException("Column count cannot be non-positive");
+    if (rows * columns != values.length)
+      throw new IllegalArgumentException("Matrix is not filled by the number of provided values");
+
+    this.rows = rows;
+    this.columns = columns;
+    this.values = copy ? values.clone() : values;
+  }
+
+
+  private void checkRowColumn(int row, int column) {
+    if (row < 0 || row >= rows)
+      throw new IllegalArgumentException(String.format("Row index out of bounds for (%dx%d) matrix access: %d", rows, columns, row));
+    if (column < 0 || column >= columns)
+      throw new IllegalArgumentException(String.format("Column index out of bounds for (%dx%d) matrix access: %d", rows, columns, column));
+  }
+
+  private int index(int row, int column) {
+    return column + row * columns;
+  }
+
+
+  @Override
+  public double get(int row, int column) {
+    checkRowColumn(row, column);
+
+    return values[index(row, column)];
+  }
+
+  @Override
+  public FloatNMatrix set(int row, int column, double value) {
+    checkRowColumn(row, column);
+
+    float[] values = this.values.clone();
+    values[index(row, column)] = (float) value;
+
+    return wrap(rows, columns, values);
+  }
+
+  @Override
+  public int numberOfRows() {
+    return rows;
+  }
+
+  @Override
+  public int numberOfColumns() {
+    return columns;
+  }
+
+  @Override
+  public FloatNVector[] toColumnVectors() {
+    FloatNVector[] ret = new FloatNVector[columns];
+
+    for (int k = 0; k < columns; k++) {
+      float[] column = new float[rows];
+      for (int i = 0; i < rows; i++) {
+        column[i] = values[index(i, k)];
+      }
+      ret[k] = FloatNVector.wrap(column);
+    }
+
+    return ret;
+  }
+
+  @Override
+  public FloatNVector[] toRowVectors() {
+    FloatNVector[] ret = new FloatNVector[rows];
+
+    for (int k = 0; k < rows; k++) {
+      float[] row = new float[columns];
+      System.arraycopy(values, index(k, 0), row, 0, columns);
+      ret[k] = FloatNVector.wrap(row);
+    }
+
+    return ret;
+  }
+
+  @Override
+  public FloatNVector transform(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Cannot transform null vector");
+    if (vector.dimension() != columns)
+      throw new IllegalArgumentException("Dimensional mismatch on transform of vector");
+
+    float[] v = FloatNVector.narrow(vector).values, ret = new float[rows];
+    for (int k = 0; k < rows; k++) {
+      ret[k] = (float) ArrayKernels.BACKEND.dot(values, index(k, 0), v, 0, columns);
+    }
+
+    return FloatNVector.wrap(ret);
+  }
+
+  /**
+   * Applies this matrix to the provided array,
+   * which is narrowed to single precision. The
+   * result is written in double precision.
+   */
+  @Override
+  public void transform(double[] vector, double[] dest) {
+    NMatrix.checkTransformArrays(vector, dest, rows, columns);
+
+    float[] v = FloatNVector.narrow(vector);
+    for (int k = 0; k < rows; k++) {
+      dest[k] = ArrayKernels.BACKEND.dot(values, index(k, 0), v, 0, columns);
+    }
+  }
+
+  @Override
+  public Matrix toMatrix() {
+    return new Matrix(toNMatrix());
+  }
+
+  /**
+   * Widens this matrix to double precision
+   *
+   * @return an NMatrix of the same values
+   */
+  @Override
+  public NMatrix toNMatrix() {
+    return NMatrix.wrap(rows, columns, FloatNVector.widen(values));
+  }
+
+  public float[] toFloatArray() {
+    return values.clone();
+  }
+
+
+  /* Operations returning new matrices */
+
+  @Override
+  public FloatNMatrix transpose() {
+    float[] ret = new float[rows * columns];
+
+    for (int k = 0; k < rows; k++) {
+      for (int i = 0; i < columns; i++) {
+        ret[k + i * rows] = values[index(k, i)];
+      }
+    }
+
+    return wrap(columns, rows, ret);
+  }
+
+  @Override
+  public FloatNMatrix negative() {
+    return scale(-1);
+  }
+
+  /**
+   * Calculates the determinant of this matrix in
+   * double precision, by LU decomposition of its
+   * widened values
+   *
+   * @return the determinant
+   */
+  @Override
+  public double determinant() {
+    return toNMatrix().determinant();
+  }
+
+  @Override
+  public FloatNMatrix scale(double s) {
+    float[] ret = new float[values.length];
+    ArrayKernels.BACKEND.scale((float) s, values, ret, ret.length);
+    return wrap(rows, columns, ret);
+  }
+
+  @Override
+  public FloatNMatrix subtract(IMatrix m) {
+    return sub(m);
+  }
+
+  @Override
+  public FloatNMatrix subtract(IMatrix... matrices) {
+    return sub(matrices);
+  }
+
+  @Override
+  public FloatNMatrix sub(IMatrix m) {
+    if (m == null)
+      throw new IllegalArgumentException("Cannot subtract by a null matrix");
+    if (m.numberOfColumns() != columns || m.numberOfRows() != rows)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix subtraction");
+
+    float[] ret = values.clone();
+    ArrayKernels.BACKEND.axpy(-1f, narrow(m).values, 0, ret, 0, ret.length);
+
+    return wrap(rows, columns, ret);
+  }
+
+  @Override
+  public FloatNMatrix sub(IMatrix... matrices) {
+    if (matrices == null)
+      throw new IllegalArgumentException("Matrix array cannot be null");
+    if (ArrayTools.containsNull(matrices))
+      throw new IllegalArgumentException("Matrix array cannot contain nulls");
+
+    FloatNMatrix ret = this;
+    for (IMatrix m : matrices) {
+      ret = ret.sub(m);
+    }
+
+    return ret;
+  }
+
+  /**
+   * Multiplies this matrix by another in single
+   * precision. Each row of the product is built
+   * up from rows of the right operand scaled by
+   * the values of this matrix, over blocks of that
+   * operand small enough to remain in cache.
+   *
+   * @param other the right-hand operand
+   * @return the matrix product
+   */
+  @Override
+  public FloatNMatrix multiply(IMatrix other) {
+    if (other == null)
+      throw new IllegalArgumentException("Cannot multiply by null matrix");
+    if (columns != other.numberOfRows())
+      throw new IllegalArgumentException("Dimensional mismatch on matrix multiplication");
+
+    float[] b = narrow(other).values;
+    int n = other.numberOfColumns();
+    float[] ret = new float[rows * n];
+
+    for (int jc = 0; jc < n; jc += BLOCK_COLUMNS) {
+      int nc = Math.min(BLOCK_COLUMNS, n - jc);
+      for (int pc = 0; pc < columns; pc += BLOCK_ROWS) {
+        int pEnd = Math.min(columns, pc + BLOCK_ROWS);
+
+        for (int i = 0; i < rows; i++) {
+          int aRow = i * columns, cRow = i * n + jc;
+          for (int p = pc; p < pEnd; p++) {
+            float s = values[aRow + p];
+            if (s != 0)
+              ArrayKernels.BACKEND.axpy(s, b, p * n + jc, ret, cRow, nc);
+          }
+        }
+      }
+    }
+
+    return wrap(rows, n, ret);
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof IMatrix)
+      return equals((IMatrix) o);
+    else
+      return false;
+  }
+
+  @Override
+  public boolean equals(IMatrix matrix) {
+    if (matrix == null)
+      return false;
+    if (matrix.numberOfColumns() != columns || matrix.numberOfRows() != rows)
+      return false;
+
+    for (int k = 0; k < rows; k++) {
+      for (int i = 0; i < columns; i++) {
+        if (values[index(k, i)] != matrix.get(k, i))
+          return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("[");
+
+    for (FloatNVector row : toRowVectors()) {
+      sb.append(row.toString());
+    }
+
+    sb.append("]");
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,346 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import jmath.JMath;
+import upsilon.tools.ArrayTools;
+
+/**
+ * A vector of N dimensions whose values are
+ * stored in single precision, for workloads
+ * bound by memory bandwidth which tolerate the
+ * loss of precision. Values are read as doubles
+ * through the IVector interface. Operations on
+ * float vectors return float vectors, with other
+ * vector operands first narrowed to single
+ * precision. Inner products and norms are
+ * returned in double precision.
+ */
+public class FloatNVector extends IVector {
+
+  /**
+   * Narrows the provided vector to single
+   * precision
+   *
+   * @param vector the vector to narrow
+   * @return a float vector of the rounded values
+   */
+  public static FloatNVector narrow(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Vector cannot be null");
+    if (vector instanceof FloatNVector)
+      return (FloatNVector) vector;
+
+    return wrap(narrow(vector.toArray()));
+  }
+
+  static float[] narrow(double[] values) {
+    float[] ret = new float[values.length];
+    for (int k = 0; k < ret.length; k++) {
+      ret[k] = (float) values[k];
+    }
+    return ret;
+  }
+
+  static double[] widen(float[] values) {
+    double[] ret = new double[values.length];
+    for (int k = 0; k < ret.length; k++) {
+      ret[k] = values[k];
+    }
+    return ret;
+  }
+
+  public static FloatNVector zero(int dim) {
+    if (dim <= 0)
+      throw new IllegalArgumentException("Cannot get zero vector of non-positive dimension");
+
+    return wrap(new float[dim]);
+  }
+
+
+  public static FloatNVector add(IVector a, IVector b) {
+    if (a == null || b == null)
+      throw new IllegalArgumentException("Vector addition cannot operate on null values");
+    if (a.dimension() != b.dimension())
+      throw new IllegalArgumentException("Mismatching vector dimensions");
+
+    float[] ret = new float[a.dimension()];
+    ArrayKernels.BACKEND.add(narrow(a).values, narrow(b).values, ret, ret.length);
+
+    return wrap(ret);
+  }
+
+  public static double dot(IVector a, IVector b) {
+    if (a == null || b == null)
+      throw new IllegalArgumentException("Vector inner product cannot operate on null values");
+    if (a.dimension() != b.dimension())
+      throw new IllegalArgumentException("Mismatching vector dimensions");
+
+    return ArrayKernels.BACKEND.dot(narrow(a).values, 0, narrow(b).values, 0, a.dimension());
+  }
+
+
+  /*
+   * Creates a vector which adopts the provided
+   * array as its backing storage without copying
+   */
+  static FloatNVector wrap(float[] values) {
+    return new FloatNVector(values, false);
+  }
+
+
+  final float[] values;
+
+  public FloatNVector(float... array) {
+    this(array, true);
+  }
+
+  private FloatNVector(float[] array, boolean copy) {
+    if (array == null)
+      throw new IllegalArgumentException("Array cannot be null");
+    if (array.length == 0)
+      throw new IllegalArgumentException("Cannot create vector of non-positive dimension");
+
+    this.values = copy ? array.clone() : array;
+  }
+
+
+  private void checkDimension(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Vector cannot be null");
+    if (vector.dimension() != values.length)
+      throw new IllegalArgumentException("Mismatching vector dimensions");
+  }
+
+  @Override
+  public int dimension() {
+    return values.length;
+  }
+
+  @Override
+  public double get(int k) {
+    if (k < 0 || k >= values.length)
+      throw new IllegalArgumentException(String.format("Cannot access vector (dimension %d) index %d", values.length, k));
+
+    return values[k];
+  }
+
+  @Override
+  public double getX() {
+    return get(0);
+  }
+
+  @Override
+  public double getY() {
+    return get(1);
+  }
+
+  @Override
+  public double getZ() {
+    return get(2);
+  }
+
+  /**
+   * Returns the values of this vector widened to
+   * double precision
+   *
+   * @return a new array of the values
+   */
+  @Override
+  public double[] toArray() {
+    return widen(values);
+  }
+
+  public float[] toFloatArray() {
+    return values.clone();
+  }
+
+
+  /* Unary operations */
+
+  @Override
+  public FloatNVector negative() {
+    return scale(-1);
+  }
+
+  @Override
+  public FloatNVector normalize() {
+    return scale(1 / absoluteValue());
+  }
+
+  @Override
+  public double magnitude() {
+    return absoluteValue();
+  }
+
+  @Override
+  public double absoluteValue() {
+    return JMath.sqrt(squareAbsoluteValue());
+  }
+
+  @Override
+  public double squareAbsoluteValue() {
+    return ArrayKernels.BACKEND.sumOfSquares(values, values.length);
+  }
+
+
+  /* Binary operations */
+
+  @Override
+  public FloatNVector scale(double s) {
+    float[] ret = new float[values.length];
+    ArrayKernels.BACKEND.scale((float) s, values, ret, ret.length);
+    return wrap(ret);
+  }
+
+  @Override
+  public FloatNVector subtract(IVector v) { /* Alias of sub(IVector v) */
+    return sub(v);
+  }
+
+  @Override
+  public FloatNVector subtract(IVector... vectors) { /* Alias of sub(IVector... vectors) */
+    return sub(vectors);
+  }
+
+  @Override
+  public FloatNVector sub(IVector v) {
+    checkDimension(v);
+
+    float[] ret = values.clone();
+    ArrayKernels.BACKEND.axpy(-1f, narrow(v).values, 0, ret, 0, ret.length);
+
+    return wrap(ret);
+  }
+
+  @Override
+  public FloatNVector sub(IVector... vectors) {
+    if (vectors == null)
+      throw new IllegalArgumentException("Vectors array cannot be null");
+    if (ArrayTools.containsNull(vectors))
+      throw new IllegalArgumentException("Vector array cannot contain nulls");
+    IVector.checkDimensions(vectors, dimension());
+
+    float[] ret = values.clone();
+    for (IVector v : vectors) {
+      ArrayKernels.BACKEND.axpy(-1f, narrow(v).values, 0, ret, 0, ret.length);
+    }
+
+    return wrap(ret);
+  }
+
+  @Override
+  public FloatNVector cross(IVector a) {
+    return narrow(toNVector().cross(a));
+  }
+
+  @Override
+  public FloatNVector proj(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Vector projection cannot operate on null values");
+    if (vector.dimension() != dimension())
+      throw new IllegalArgumentException("Dimensional mismatch for projection operation");
+
+    FloatNVector v = narrow(vector);
+    return v.scale(dot(this, v) / v.squareAbsoluteValue());
+  }
+
+  @Override
+  public FloatNVector projection(IVector vector) {
+    return proj(vector);
+  }
+
+  @Override
+  public double sproj(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Vector projection cannot operate on null values");
+    if (vector.dimension() != dimension())
+      throw new IllegalArgumentException("Dimensional mismatch for projection operation");
+
+    FloatNVector v = narrow(vector);
+    return dot(this, v) / v.absoluteValue();
+  }
+
+  @Override
+  public double scalarProjection(IVector vector) {
+    return sproj(vector);
+  }
+
+
+  /* Conversions */
+
+  /**
+   * Widens this vector to double precision
+   *
+   * @return an NVector of the same values
+   */
+  @Override
+  public NVector toNVector() {
+    return NVector.wrap(widen(values));
+  }
+
+  @Override
+  public Vector toVector() {
+    return new Vector(toNVector());
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof IVector)
+      return equals((IVector) o);
+    else
+      return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return toNVector().hashCode();
+  }
+
+  @Override
+  public boolean equals(IVector vector) {
+    if (vector == null || vector.dimension() != values.length)
+      return false;
+
+    for (int k = 0; k < values.length; k++) {
+      if (values[k] != vector.get(k))
+        return false;
+    }
+
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+
+    sb.append("[");
+    sb.append(values[0]);
+    for (int k = 1; k < values.length; k++) {
+      sb.append(",").append(values[k]);
+    }
+    sb.append("]");
+
+    return sb.toString();
+  }
+
+}
@@ -24,7 +24,7 @@ package jmath.types;
  * Matrix class from which both
  * Matrix and NMatrix inherit.
  */
-public abstract class IMatrix extends MObject{
+public abstract class IMatrix extends MObject implements LinearOperator {
 
   IMatrix() {
     super(Type.MATRIX);
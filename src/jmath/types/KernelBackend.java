@@ -0,0 +1,119 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+/**
+ * The set of primitive array kernels upon which
+ * the vector, matrix and statistics operations of
+ * this library are built. An implementation is
+ * chosen once, when this class is loaded.
+ */
+abstract class KernelBackend {
+
+  /**
+   * Returns whether this backend uses explicit
+   * SIMD instructions
+   *
+   * @return true for vectorized backends
+   */
+  abstract boolean isAccelerated();
+
+  /* sum of a[aOffset + k] * b[bOffset + k] for k in [0, length) */
+  abstract double dot(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+  /* y[yOffset + k] += s * x[xOffset + k] for k in [0, length) */
+  abstract void axpy(double s, double[] x, int xOffset, double[] y, int yOffset, int length);
+
+  /* out[k] = a[k] + b[k] for k in [0, length) */
+  abstract void add(double[] a, double[] b, double[] out, int length);
+
+  /* out[k] = s * x[k] for k in [0, length) */
+  abstract void scale(double s, double[] x, double[] out, int length);
+
+  /* sum of x[k] for k in [0, length) */
+  abstract double sum(double[] x, int length);
+
+  /* sum of x[k] * x[k] for k in [0, length) */
+  abstract double sumOfSquares(double[] x, int length);
+
+  /* sum of (x[k] - mean)^2 for k in [0, length) */
+  abstract double sumOfSquaredDeviations(double[] x, double mean, int length);
+
+  /* sum of (x[k] - xMean) * (y[k] - yMean) for k in [0, length) */
+  abstract double sumOfProductDeviations(double[] x, double xMean, double[] y, double yMean, int length);
+
+  /*
+   * for k in [offset, offset + length):
+   *   (xOut, yOut, zOut)[k] = M * (xs, ys, zs)[k] + t
+   * where 'm' holds the rows of the 3x4 matrix [M | t].
+   * Each output array may be the same as any input.
+   */
+  abstract void affine3(
+          double[] m,
+          double[] xs, double[] ys, double[] zs,
+          double[] xOut, double[] yOut, double[] zOut,
+          int offset, int length
+    );
+
+
+  /*
+   * Single precision kernels. Sums are accumulated
+   * in single precision over blocks of values, whose
+   * totals are accumulated in double precision.
+   */
+
+  /* sum of a[aOffset + k] * b[bOffset + k] for k in [0, length) */
+  abstract double dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+  /* y[yOffset + k] += s * x[xOffset + k] for k in [0, length) */
+  abstract void axpy(float s, float[] x, int xOffset, float[] y, int yOffset, int length);
+
+  /* out[k] = a[k] + b[k] for k in [0, length) */
+  abstract void add(float[] a, float[] b, float[] out, int length);
+
+  /* out[k] = s * x[k] for k in [0, length) */
+  abstract void scale(float s, float[] x, float[] out, int length);
+
+  /* sum of x[k] * x[k] for k in [0, length) */
+  abstract double sumOfSquares(float[] x, int length);
+
+
+  /**
+   * Returns whether this backend provides a
+   * vectorized 4-by-4 tile for MatrixKernel
+   *
+   * @return true if multiplyTile(...) may be called
+   */
+  abstract boolean hasMultiplyTile();
+
+  /*
+   * Accumulates one full 4x4 tile of a packed
+   * product into C, using the packing layout of
+   * MatrixKernel
+   */
+  abstract void multiplyTile(
+          int kc, double alpha,
+          double[] a, int aIndex,
+          double[] b, int bIndex,
+          double[] c, int cIndex, int cRowStride
+    );
+
+}
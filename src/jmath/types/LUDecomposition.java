@@ -0,0 +1,333 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+/**
+ * The LU decomposition of a square matrix
+ * computed with partial (row) pivoting, such
+ * that P * A = L * U. An object of this class
+ * is immutable and may be used to solve any
+ * number of systems against the same matrix
+ * without refactoring it.
+ */
+public class LUDecomposition {
+
+  private final int n;
+  private final double[] lu;
+  private final int[] pivot;
+  private final int pivotSign;
+  private final boolean singular;
+
+  LUDecomposition(NMatrix matrix) {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    if (matrix.numberOfRows() != matrix.numberOfColumns())
+      throw new ArithmeticException(String.format(
+              "Cannot find LU decomposition of non-square matrix (%dx%d)",
+              matrix.numberOfRows(),
+              matrix.numberOfColumns()
+        ));
+
+    n = matrix.numberOfRows();
+    lu = matrix.values.clone();
+    pivot = new int[n];
+
+    int sign = 1;
+    boolean singular = false;
+
+    for (int k = 0; k < n; k++) {
+      pivot[k] = k;
+    }
+
+    for (int k = 0; k < n; k++) {
+
+      int p = k;
+      double max = Math.abs(lu[k * n + k]);
+      for (int i = k + 1; i < n; i++) {
+        double v = Math.abs(lu[i * n + k]);
+        if (v > max) {
+          max = v;
+          p = i;
+        }
+      }
+
+      if (p != k) {
+        swapRows(p, k);
+        int t = pivot[p];
+        pivot[p] = pivot[k];
+        pivot[k] = t;
+        sign = -sign;
+      }
+
+      double diagonal = lu[k * n + k];
+      if (diagonal == 0) {
+        singular = true;
+        continue;
+      }
+
+      int kRow = k * n;
+      for (int i = k + 1; i < n; i++) {
+        int iRow = i * n;
+        double l = lu[iRow + k] /= diagonal;
+        if (l == 0)
+          continue;
+
+        ArrayKernels.BACKEND.axpy(-l, lu, kRow + k + 1, lu, iRow + k + 1, n - k - 1);
+      }
+    }
+
+    this.pivotSign = sign;
+    this.singular = singular;
+  }
+
+  private void swapRows(int a, int b) {
+    int aRow = a * n, bRow = b * n;
+    for (int j = 0; j < n; j++) {
+      double t = lu[aRow + j];
+      lu[aRow + j] = lu[bRow + j];
+      lu[bRow + j] = t;
+    }
+  }
+
+
+  /**
+   * Returns whether the decomposed matrix
+   * is singular (has a zero pivot)
+   *
+   * @return true if the matrix is singular
+   */
+  public boolean isSingular() {
+    return singular;
+  }
+
+  /**
+   * Returns the dimension of the decomposed
+   * matrix
+   *
+   * @return the number of rows (and columns)
+   */
+  public int dimension() {
+    return n;
+  }
+
+  /**
+   * Calculates the determinant of the decomposed
+   * matrix as the signed product of the pivots
+   *
+   * @return the determinant
+   */
+  public double determinant() {
+    if (singular)
+      return 0;
+
+    double ret = pivotSign;
+    for (int k = 0; k < n; k++) {
+      ret *= lu[k * n + k];
+    }
+
+    return ret;
+  }
+
+  /**
+   * Returns the unit lower triangular factor L
+   *
+   * @return the L factor
+   */
+  public NMatrix getL() {
+    double[] ret = new double[n * n];
+
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < i; j++) {
+        ret[i * n + j] = lu[i * n + j];
+      }
+      ret[i * n + i] = 1;
+    }
+
+    return NMatrix.wrap(n, n, ret);
+  }
+
+  /**
+   * Returns the upper triangular factor U
+   *
+   * @return the U factor
+   */
+  public NMatrix getU() {
+    double[] ret = new double[n * n];
+
+    for (int i = 0; i < n; i++) {
+      for (int j = i; j < n; j++) {
+        ret[i * n + j] = lu[i * n + j];
+      }
+    }
+
+    return NMatrix.wrap(n, n, ret);
+  }
+
+  /**
+   * Returns the row permutation, where row 'k'
+   * of P * A is row 'getPivot()[k]' of A
+   *
+   * @return the pivot permutation
+   */
+  public int[] getPivot() {
+    return pivot.clone();
+  }
+
+
+  /**
+   * Solves the system A * x = b for x
+   *
+   * @param b the right-hand side
+   * @return the solution vector
+   */
+  public NVector solve(IVector b) {
+    if (b == null)
+      throw new IllegalArgumentException("Right-hand side vector cannot be null");
+    if (b.dimension() != n)
+      throw new IllegalArgumentException("Dimensional mismatch on linear solve");
+    checkNonSingular();
+
+    double[] x = new double[n];
+    for (int k = 0; k < n; k++) {
+      x[k] = b.get(pivot[k]);
+    }
+
+    solveInPlace(x);
+
+    return NVector.wrap(x);
+  }
+
+  /**
+   * Solves the system A * X = B for X, treating
+   * each column of B as a right-hand side
+   *
+   * @param b the right-hand side matrix
+   * @return the solution matrix
+   */
+  public NMatrix solve(IMatrix b) {
+    if (b == null)
+      throw new IllegalArgumentException("Right-hand side matrix cannot be null");
+    if (b.numberOfRows() != n)
+      throw new IllegalArgumentException("Dimensional mismatch on linear solve");
+    checkNonSingular();
+
+    int columns = b.numberOfColumns();
+    double[] x = new double[n * columns];
+
+    for (int k = 0; k < n; k++) {
+      for (int j = 0; j < columns; j++) {
+        x[k * columns + j] = b.get(pivot[k], j);
+      }
+    }
+
+    solveRowsInPlace(x, columns);
+
+    return NMatrix.wrap(n, columns, x);
+  }
+
+  /**
+   * Calculates the inverse of the decomposed
+   * matrix
+   *
+   * @return the inverse matrix
+   */
+  public NMatrix inverse() {
+    checkNonSingular();
+
+    double[] x = new double[n * n];
+    for (int k = 0; k < n; k++) {
+      x[k * n + pivot[k]] = 1;
+    }
+
+    solveRowsInPlace(x, n);
+
+    return NMatrix.wrap(n, n, x);
+  }
+
+
+  private void checkNonSingular() {
+    if (singular)
+      throw new ArithmeticException("Cannot solve system of singular matrix");
+  }
+
+  /* Forward and back substitution on a single permuted right-hand side */
+  private void solveInPlace(double[] x) {
+
+    for (int i = 0; i < n; i++) {
+      double s = x[i];
+      int iRow = i * n;
+      for (int j = 0; j < i; j++) {
+        s -= lu[iRow + j] * x[j];
+      }
+      x[i] = s;
+    }
+
+    for (int i = n - 1; i >= 0; i--) {
+      double s = x[i];
+      int iRow = i * n;
+      for (int j = i + 1; j < n; j++) {
+        s -= lu[iRow + j] * x[j];
+      }
+      x[i] = s / lu[iRow + i];
+    }
+
+  }
+
+  /*
+   * Forward and back substitution on all columns of
+   * a permuted, row-major right-hand side at once so
+   * that the inner loops run along contiguous rows
+   */
+  private void solveRowsInPlace(double[] x, int columns) {
+
+    for (int i = 0; i < n; i++) {
+      int xRow = i * columns;
+      for (int j = 0; j < i; j++) {
+        double l = lu[i * n + j];
+        if (l == 0)
+          continue;
+        int jRow = j * columns;
+        for (int c = 0; c < columns; c++) {
+          x[xRow + c] -= l * x[jRow + c];
+        }
+      }
+    }
+
+    for (int i = n - 1; i >= 0; i--) {
+      int xRow = i * columns;
+      for (int j = i + 1; j < n; j++) {
+        double u = lu[i * n + j];
+        if (u == 0)
+          continue;
+        int jRow = j * columns;
+        for (int c = 0; c < columns; c++) {
+          x[xRow + c] -= u * x[jRow + c];
+        }
+      }
+      double diagonal = lu[i * n + i];
+      for (int c = 0; c < columns; c++) {
+        x[xRow + c] /= diagonal;
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,60 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+/**
+ * An interface for linear maps which can be
+ * applied to a vector without necessarily being
+ * stored as a matrix. Every IMatrix is a linear
+ * operator, and matrix-free operators may be
+ * defined by implementing the transform methods
+ * directly.
+ */
+public interface LinearOperator {
+
+  int numberOfRows();
+  int numberOfColumns();
+
+  IVector transform(IVector vector);
+
+  /**
+   * Applies this operator to the array 'vector',
+   * writing the result into 'dest'. The two arrays
+   * must not be the same. Implementations should
+   * override this method to avoid the intermediate
+   * vector allocated by the default.
+   *
+   * @param vector the values of the vector to transform
+   * @param dest the array into which to write the result
+   */
+  default void transform(double[] vector, double[] dest) {
+    if (vector == null || dest == null)
+      throw new IllegalArgumentException("Arrays cannot be null");
+    if (vector.length != numberOfColumns() || dest.length != numberOfRows())
+      throw new IllegalArgumentException("Dimensional mismatch on transform of vector");
+
+    IVector ret = transform(NVector.wrap(vector));
+    for (int k = 0; k < dest.length; k++) {
+      dest[k] = ret.get(k);
+    }
+  }
+
+}
@@ -44,6 +44,9 @@ public class MObject {
     MATRIX,
     COMPLEX_NUMBER,
     FIXED_POINT_NUMBER,
+    QUATERNION,
+    COMPLEX_VECTOR,
+    COMPLEX_MATRIX,
 
     ;
 
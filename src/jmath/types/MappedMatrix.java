@@ -0,0 +1,601 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A matrix stored in a binary file which is
+ * mapped into memory rather than read, so that
+ * opening it costs nothing and only the pages
+ * actually accessed are loaded. Matrices larger
+ * than the available memory may thus be used, and
+ * may be multiplied out-of-core into another
+ * mapped file.
+ *
+ * The file holds a 32 byte header followed by the
+ * values as little-endian doubles. The header holds,
+ * in order, the magic bytes 'JMAT', the format
+ * version, the layout (0 for row-major, 1 for
+ * column-major), the number of rows and the number
+ * of columns, each as a little-endian 32 bit
+ * integer, and is padded with zeros.
+ *
+ * A mapped matrix opened for writing may be
+ * modified in place. It must be closed once no
+ * longer used, after which it may not be accessed.
+ * Operations producing new matrices, apart from
+ * multiply(IMatrix, Path), return NMatrix objects.
+ */
+public final class MappedMatrix extends IMatrix implements AutoCloseable {
+
+  public enum Layout {
+
+    ROW_MAJOR,
+    COLUMN_MAJOR,
+
+    ;
+
+  }
+
+  static final int HEADER_SIZE = 32;
+  static final int VERSION = 1;
+  private static final byte[] MAGIC = { 'J', 'M', 'A', 'T' };
+
+
+  /**
+   * Creates a row-major file of zeros of the
+   * provided dimensions, replacing any existing
+   * file, and maps it for writing
+   *
+   * @param path the path of the file
+   * @param rows the number of rows
+   * @param columns the number of columns
+   * @return the writable mapped matrix
+   * @throws IOException if the file cannot be created
+   */
+  public static MappedMatrix create(Path path, int rows, int columns) throws IOException {
+    return create(path, rows, columns, Layout.ROW_MAJOR);
+  }
+
+  /**
+   * Creates a file of zeros of the provided
+   * dimensions and layout, replacing any existing
+   * file, and maps it for writing
+   *
+   * @param path the path of the file
+   * @param rows the number of rows
+   * @param columns the number of columns
+   * @param layout the order in which values are stored
+   * @return the writable mapped matrix
+   * @throws IOException if the file cannot be created
+   */
+  public static MappedMatrix create(Path path, int rows, int columns, Layout layout) throws IOException {
+    if (path == null)
+      throw new IllegalArgumentException("Path cannot be null");
+    if (layout == null)
+      throw new IllegalArgumentException("Layout cannot be null");
+    if (rows <= 0 || columns <= 0)
+      throw new IllegalArgumentException("Cannot create matrix of non-positive dimensions");
+
+    try (FileChannel channel = FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+      )) {
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      header.put(MAGIC)
+              .putInt(VERSION)
+              .putInt(layout.ordinal())
+              .putInt(rows)
+              .putInt(columns)
+              .position(0);
+
+      while (header.hasRemaining()) {
+        channel.write(header);
+      }
+
+      return map(channel, FileChannel.MapMode.READ_WRITE, rows, columns, layout);
+    }
+  }
+
+  /**
+   * Writes the provided matrix to a new row-major
+   * file, replacing any existing file, and maps it
+   * for writing
+   *
+   * @param path the path of the file
+   * @param matrix the matrix to write
+   * @return the writable mapped matrix
+   * @throws IOException if the file cannot be written
+   */
+  public static MappedMatrix write(Path path, IMatrix matrix) throws IOException {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+
+    MappedMatrix ret = create(path, matrix.numberOfRows(), matrix.numberOfColumns());
+    try {
+      ret.assign(matrix).flush();
+    } catch (RuntimeException e) {
+      ret.close();
+      throw e;
+    }
+
+    return ret;
+  }
+
+  /**
+   * Maps an existing matrix file for reading
+   *
+   * @param path the path of the file
+   * @return the read-only mapped matrix
+   * @throws IOException if the file cannot be read or is not a matrix file
+   */
+  public static MappedMatrix open(Path path) throws IOException {
+    return open(path, false);
+  }
+
+  /**
+   * Maps an existing matrix file for reading and,
+   * if requested, for writing
+   *
+   * @param path the path of the file
+   * @param writable whether the matrix may be modified
+   * @return the mapped matrix
+   * @throws IOException if the file cannot be opened or is not a matrix file
+   */
+  public static MappedMatrix open(Path path, boolean writable) throws IOException {
+    if (path == null)
+      throw new IllegalArgumentException("Path cannot be null");
+
+    try (FileChannel channel = writable
+            ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+            : FileChannel.open(path, StandardOpenOption.READ)) {
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining()) {
+        if (channel.read(header, header.position()) < 0)
+          throw new IOException(String.format("'%s' is not a matrix file", path));
+      }
+      header.position(0);
+
+      byte[] magic = new byte[MAGIC.length];
+      header.get(magic);
+      int version = header.getInt(), layout = header.getInt(), rows = header.getInt(), columns = header.getInt();
+
+      if (!Arrays.equals(magic, MAGIC))
+        throw new IOException(String.format("'%s' is not a matrix file", path));
+      if (version != VERSION)
+        throw new IOException(String.format("Unsupported matrix file version %d", version));
+      if (layout < 0 || layout >= Layout.values().length || rows <= 0 || columns <= 0)
+        throw new IOException(String.format("Corrupt matrix file header in '%s'", path));
+      if (channel.size() < HEADER_SIZE + (long) rows * columns * Double.BYTES)
+        throw new IOException(String.format("Matrix file '%s' is truncated", path));
+
+      return map(
+              channel,
+              writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+              rows, columns, Layout.values()[layout]
+        );
+    }
+  }
+
+  private static MappedMatrix map(
+          FileChannel channel, FileChannel.MapMode mode,
+          int rows, int columns, Layout layout
+    ) throws IOException {
+    ChunkedDoubleBuffer storage = ChunkedDoubleBuffer.map(
+            channel, mode,
+            HEADER_SIZE, (long) rows * columns,
+            ByteOrder.LITTLE_ENDIAN
+      );
+
+    return new MappedMatrix(storage, rows, columns, layout, mode == FileChannel.MapMode.READ_WRITE);
+  }
+
+
+  private final ChunkedDoubleBuffer storage;
+  private final int rows, columns;
+  private final Layout layout;
+  private final boolean writable;
+
+  private MappedMatrix(ChunkedDoubleBuffer storage, int rows, int columns, Layout layout, boolean writable) {
+    this.storage = storage;
+    this.rows = rows;
+    this.columns = columns;
+    this.layout = layout;
+    this.writable = writable;
+  }
+
+
+  private void checkRowColumn(int row, int column) {
+    if (row < 0 || row >= rows)
+      throw new IllegalArgumentException(String.format("Row index out of bounds for (%dx%d) matrix access: %d", rows, columns, row));
+    if (column < 0 || column >= columns)
+      throw new IllegalArgumentException(String.format("Column index out of bounds for (%dx%d) matrix access: %d", rows, columns, column));
+  }
+
+  private void checkWritable() {
+    if (!writable)
+      throw new IllegalStateException("Mapped matrix was not opened for writing");
+  }
+
+  private long index(int row, int column) {
+    return layout == Layout.ROW_MAJOR
+            ? (long) row * columns + column
+            : (long) column * rows + row;
+  }
+
+  void readTile(int row, int column, int rows, int columns, double[] dest) {
+    if (layout == Layout.ROW_MAJOR) {
+      for (int k = 0; k < rows; k++) {
+        storage.get(index(row + k, column), dest, k * columns, columns);
+      }
+    }
+    else {
+      double[] values = new double[rows];
+      for (int i = 0; i < columns; i++) {
+        storage.get(index(row, column + i), values, 0, rows);
+        for (int k = 0; k < rows; k++) {
+          dest[k * columns + i] = values[k];
+        }
+      }
+    }
+  }
+
+  void writeTile(int row, int column, int rows, int columns, double[] source) {
+    checkWritable();
+
+    if (layout == Layout.ROW_MAJOR) {
+      for (int k = 0; k < rows; k++) {
+        storage.put(index(row + k, column), source, k * columns, columns);
+      }
+    }
+    else {
+      double[] values = new double[rows];
+      for (int i = 0; i < columns; i++) {
+        for (int k = 0; k < rows; k++) {
+          values[k] = source[k * columns + i];
+        }
+        storage.put(index(row, column + i), values, 0, rows);
+      }
+    }
+  }
+
+
+  public Layout layout() {
+    return layout;
+  }
+
+  public boolean isWritable() {
+    return writable;
+  }
+
+  @Override
+  public double get(int row, int column) {
+    checkRowColumn(row, column);
+    return storage.get(index(row, column));
+  }
+
+  @Override
+  public MappedMatrix set(int row, int column, double value) {
+    checkRowColumn(row, column);
+    checkWritable();
+    storage.set(index(row, column), value);
+    return this;
+  }
+
+  @Override
+  public int numberOfRows() {
+    return rows;
+  }
+
+  @Override
+  public int numberOfColumns() {
+    return columns;
+  }
+
+  /**
+   * Overwrites the values of this matrix with
+   * those of the provided matrix
+   *
+   * @param m the matrix from which to copy
+   * @return this matrix
+   */
+  public MappedMatrix assign(IMatrix m) {
+    if (m == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    if (m.numberOfRows() != rows || m.numberOfColumns() != columns)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix operation");
+    checkWritable();
+
+    int tile = MatrixTiles.TILE;
+    double[] buffer = new double[tile * tile];
+    for (int k = 0; k < rows; k += tile) {
+      int h = Math.min(tile, rows - k);
+      for (int i = 0; i < columns; i += tile) {
+        int w = Math.min(tile, columns - i);
+        MatrixTiles.read(m, k, i, h, w, buffer);
+        writeTile(k, i, h, w, buffer);
+      }
+    }
+
+    return this;
+  }
+
+  /**
+   * Writes any modifications of this matrix
+   * through to its file
+   *
+   * @return this matrix
+   */
+  public MappedMatrix flush() {
+    if (writable)
+      storage.force();
+    return this;
+  }
+
+  /**
+   * Flushes and releases this matrix, whose file
+   * is unmapped once the garbage collector finds
+   * its buffers unreachable. Closing a matrix more
+   * than once has no effect.
+   */
+  @Override
+  public void close() {
+    if (storage.isReleased())
+      return;
+
+    flush();
+    storage.release();
+  }
+
+
+  @Override
+  public NVector[] toColumnVectors() {
+    NVector[] ret = new NVector[columns];
+    for (int k = 0; k < columns; k++) {
+      double[] column = new double[rows];
+      readTile(0, k, rows, 1, column);
+      ret[k] = NVector.wrap(column);
+    }
+
+    return ret;
+  }
+
+  @Override
+  public NVector[] toRowVectors() {
+    NVector[] ret = new NVector[rows];
+    for (int k = 0; k < rows; k++) {
+      double[] row = new double[columns];
+      readTile(k, 0, 1, columns, row);
+      ret[k] = NVector.wrap(row);
+    }
+
+    return ret;
+  }
+
+  @Override
+  public NVector transform(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Cannot transform null vector");
+    if (vector.dimension() != columns)
+      throw new IllegalArgumentException("Dimensional mismatch on transform of vector");
+
+    double[] ret = new double[rows];
+    multiplyVector(vector.toArray(), ret);
+
+    return NVector.wrap(ret);
+  }
+
+  @Override
+  public void transform(double[] vector, double[] dest) {
+    NMatrix.checkTransformArrays(vector, dest, rows, columns);
+    multiplyVector(vector, dest);
+  }
+
+  private void multiplyVector(double[] vector, double[] dest) {
+    int block = OffHeapVector.BLOCK;
+
+    if (layout == Layout.ROW_MAJOR) {
+      double[] row = new double[Math.min(columns, block)];
+      for (int k = 0; k < rows; k++) {
+        double sum = 0;
+        for (int i = 0; i < columns; i += block) {
+          int n = Math.min(block, columns - i);
+          storage.get(index(k, i), row, 0, n);
+          sum += ArrayKernels.BACKEND.dot(row, 0, vector, i, n);
+        }
+        dest[k] = sum;
+      }
+    }
+    else {
+      double[] column = new double[Math.min(rows, block)];
+      Arrays.fill(dest, 0);
+      for (int i = 0; i < columns; i++) {
+        for (int k = 0; k < rows; k += block) {
+          int n = Math.min(block, rows - k);
+          storage.get(index(k, i), column, 0, n);
+          ArrayKernels.BACKEND.axpy(vector[i], column, 0, dest, k, n);
+        }
+      }
+    }
+  }
+
+  @Override
+  public Matrix toMatrix() {
+    return new Matrix(toNMatrix());
+  }
+
+  /**
+   * Copies the values of this matrix into a new
+   * matrix on the heap
+   *
+   * @return a new NMatrix holding the values of this matrix
+   */
+  @Override
+  public NMatrix toNMatrix() {
+    if ((long) rows * columns > Integer.MAX_VALUE - 8)
+      throw new IllegalStateException(String.format("Matrix (%dx%d) is too large to be copied onto the heap", rows, columns));
+
+    double[] ret = new double[rows * columns];
+    readTile(0, 0, rows, columns, ret);
+
+    return NMatrix.wrap(rows, columns, ret);
+  }
+
+
+  /* Operations returning new matrices */
+
+  @Override
+  public NMatrix transpose() {
+    return toNMatrix().transpose();
+  }
+
+  @Override
+  public NMatrix negative() {
+    return scale(-1);
+  }
+
+  @Override
+  public double determinant() {
+    return toNMatrix().determinant();
+  }
+
+  @Override
+  public NMatrix scale(double s) {
+    return toNMatrix().toMutableNMatrix().scaleInPlace(s).freeze();
+  }
+
+  @Override
+  public NMatrix subtract(IMatrix m) {
+    return sub(m);
+  }
+
+  @Override
+  public NMatrix subtract(IMatrix... matrices) {
+    return sub(matrices);
+  }
+
+  @Override
+  public NMatrix sub(IMatrix m) {
+    return toNMatrix().sub(m);
+  }
+
+  @Override
+  public NMatrix sub(IMatrix... matrices) {
+    return toNMatrix().sub(matrices);
+  }
+
+  /**
+   * Multiplies this matrix by another, tile by tile,
+   * into a new matrix on the heap
+   *
+   * @param other the right-hand operand
+   * @return the matrix product
+   */
+  @Override
+  public NMatrix multiply(IMatrix other) {
+    if (other == null)
+      throw new IllegalArgumentException("Cannot multiply by null matrix");
+    if (columns != other.numberOfRows())
+      throw new IllegalArgumentException("Dimensional mismatch on matrix multiplication");
+
+    MutableNMatrix ret = new MutableNMatrix(rows, other.numberOfColumns());
+    MatrixTiles.multiply(this, other, ret);
+
+    return ret.freeze();
+  }
+
+  /**
+   * Multiplies this matrix by another out-of-core,
+   * streaming tiles of both operands into a new
+   * row-major matrix file. Only a few tiles are held
+   * in memory at once, so the operands and product
+   * may all be larger than the available memory.
+   *
+   * @param other the right-hand operand
+   * @param output the path of the product's file
+   * @return the product, mapped for writing
+   * @throws IOException if the product's file cannot be created
+   */
+  public MappedMatrix multiply(IMatrix other, Path output) throws IOException {
+    if (other == null)
+      throw new IllegalArgumentException("Cannot multiply by null matrix");
+    if (columns != other.numberOfRows())
+      throw new IllegalArgumentException("Dimensional mismatch on matrix multiplication");
+
+    MappedMatrix ret = create(output, rows, other.numberOfColumns());
+    try {
+      MatrixTiles.multiply(this, other, ret);
+      ret.flush();
+    } catch (RuntimeException e) {
+      ret.close();
+      throw e;
+    }
+
+    return ret;
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof IMatrix)
+      return equals((IMatrix) o);
+    else
+      return false;
+  }
+
+  @Override
+  public boolean equals(IMatrix matrix) {
+    if (matrix == null)
+      return false;
+    if (matrix.numberOfColumns() != columns || matrix.numberOfRows() != rows)
+      return false;
+
+    double[] x = new double[columns], y = new double[columns];
+    for (int k = 0; k < rows; k++) {
+      readTile(k, 0, 1, columns, x);
+      MatrixTiles.read(matrix, k, 0, 1, columns, y);
+      for (int i = 0; i < columns; i++) {
+        if (x[i] != y[i])
+          return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return toNMatrix().toString();
+  }
+
+}
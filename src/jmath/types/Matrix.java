@@ -36,13 +36,18 @@ public class Matrix extends IMatrix{
           ;
 
   public static Matrix rotation(double phi, double theta, double psi) {
-    Matrix
-            rx = xRotation(phi),
-            ry = yRotation(theta),
-            rz = zRotation(psi)
+    double
+            ca = JMath.cos(phi), sa = JMath.sin(phi),
+            cb = JMath.cos(theta), sb = JMath.sin(theta),
+            cc = JMath.cos(psi), sc = JMath.sin(psi)
                     ;
 
-    return rx.multiply(ry).multiply(rz);
+    /* The product xRotation(phi) * yRotation(theta) * zRotation(psi) */
+    return new Matrix(
+            cb * cc, -cb * sc, sb,
+            sa * sb * cc + ca * sc, ca * cc - sa * sb * sc, -sa * cb,
+            sa * sc - ca * sb * cc, ca * sb * sc + sa * cc, ca * cb
+      );
   }
 
   public static Matrix xRotation(double theta) {
@@ -397,6 +402,291 @@ public class Matrix extends IMatrix{
     return transform(v.toVector());
   }
 
+  /* Batch operations over points held as separate coordinate arrays */
+
+  /**
+   * Transforms each of the points (xs[k], ys[k], zs[k])
+   * by this matrix in place
+   *
+   * @param xs the x coordinates of the points
+   * @param ys the y coordinates of the points
+   * @param zs the z coordinates of the points
+   */
+  public void transform(double[] xs, double[] ys, double[] zs) {
+    transform(xs, ys, zs, xs, ys, zs);
+  }
+
+  /**
+   * Transforms each of the points (xs[k], ys[k], zs[k])
+   * by this matrix, writing the results into the output
+   * arrays. Each output array may be the same as any
+   * input array.
+   *
+   * @param xs the x coordinates of the points
+   * @param ys the y coordinates of the points
+   * @param zs the z coordinates of the points
+   * @param xOut the destination of the x coordinates
+   * @param yOut the destination of the y coordinates
+   * @param zOut the destination of the z coordinates
+   */
+  public void transform(
+          double[] xs, double[] ys, double[] zs,
+          double[] xOut, double[] yOut, double[] zOut
+    ) {
+    checkPointArrays(xs, ys, zs, xOut, yOut, zOut);
+    transform(xs, ys, zs, xOut, yOut, zOut, 0, xs.length);
+  }
+
+  /**
+   * Transforms the points at indices [offset, offset +
+   * length) of the coordinate arrays by this matrix,
+   * writing the results into the same indices of the
+   * output arrays
+   *
+   * @param offset the index of the first point
+   * @param length the number of points
+   */
+  public void transform(
+          double[] xs, double[] ys, double[] zs,
+          double[] xOut, double[] yOut, double[] zOut,
+          int offset, int length
+    ) {
+    affineTransform(Vector.ZERO, xs, ys, zs, xOut, yOut, zOut, offset, length);
+  }
+
+  /**
+   * Transforms each of the points (xs[k], ys[k], zs[k])
+   * by this matrix and then translates it, in place.
+   * This applies the 4x4 homogeneous transform whose
+   * upper-left block is this matrix and whose last
+   * column is the translation.
+   *
+   * @param translation the translation applied after this matrix
+   * @param xs the x coordinates of the points
+   * @param ys the y coordinates of the points
+   * @param zs the z coordinates of the points
+   */
+  public void affineTransform(Vector translation, double[] xs, double[] ys, double[] zs) {
+    affineTransform(translation, xs, ys, zs, xs, ys, zs);
+  }
+
+  /**
+   * Transforms each of the points (xs[k], ys[k], zs[k])
+   * by this matrix and then translates it, writing the
+   * results into the output arrays. Each output array
+   * may be the same as any input array.
+   *
+   * @param translation the translation applied after this matrix
+   */
+  public void affineTransform(
+          Vector translation,
+          double[] xs, double[] ys, double[] zs,
+          double[] xOut, double[] yOut, double[] zOut
+    ) {
+    checkPointArrays(xs, ys, zs, xOut, yOut, zOut);
+    affineTransform(translation, xs, ys, zs, xOut, yOut, zOut, 0, xs.length);
+  }
+
+  /**
+   * Transforms and translates the points at indices
+   * [offset, offset + length) of the coordinate arrays,
+   * writing the results into the same indices of the
+   * output arrays
+   *
+   * @param translation the translation applied after this matrix
+   * @param offset the index of the first point
+   * @param length the number of points
+   */
+  public void affineTransform(
+          Vector translation,
+          double[] xs, double[] ys, double[] zs,
+          double[] xOut, double[] yOut, double[] zOut,
+          int offset, int length
+    ) {
+    if (translation == null)
+      throw new IllegalArgumentException("Translation vector cannot be null");
+    checkPointArrays(xs, ys, zs, xOut, yOut, zOut, offset, length);
+
+    double[] m = {
+            m00, m01, m02, translation.x,
+            m10, m11, m12, translation.y,
+            m20, m21, m22, translation.z,
+      };
+
+    ArrayKernels.BACKEND.affine3(m, xs, ys, zs, xOut, yOut, zOut, offset, length);
+  }
+
+  /**
+   * Transforms each point (xs[k], ys[k], zs[k]) by its
+   * own matrix, matrices[k], writing the results into
+   * the output arrays. Each output array may be the
+   * same as any input array.
+   *
+   * @param matrices the matrix of each point
+   * @param xs the x coordinates of the points
+   * @param ys the y coordinates of the points
+   * @param zs the z coordinates of the points
+   * @param xOut the destination of the x coordinates
+   * @param yOut the destination of the y coordinates
+   * @param zOut the destination of the z coordinates
+   */
+  public static void transform(
+          Matrix[] matrices,
+          double[] xs, double[] ys, double[] zs,
+          double[] xOut, double[] yOut, double[] zOut
+    ) {
+    if (matrices == null)
+      throw new IllegalArgumentException("Matrix array cannot be null");
+    checkPointArrays(xs, ys, zs, xOut, yOut, zOut);
+    if (matrices.length != xs.length)
+      throw new IllegalArgumentException("Matrix array must hold one matrix per point");
+    if (ArrayTools.containsNull(matrices))
+      throw new IllegalArgumentException("Matrix array cannot contain nulls");
+
+    for (int k = 0; k < matrices.length; k++) {
+      Matrix m = matrices[k];
+      double x = xs[k], y = ys[k], z = zs[k];
+      xOut[k] = m.m00 * x + m.m01 * y + m.m02 * z;
+      yOut[k] = m.m10 * x + m.m11 * y + m.m12 * z;
+      zOut[k] = m.m20 * x + m.m21 * y + m.m22 * z;
+    }
+  }
+
+  /* Linear systems */
+
+  /**
+   * Solves the system this * x = b for x, using
+   * the adjugate of this matrix without forming
+   * the inverse
+   *
+   * @param b the right-hand side
+   * @return the solution vector
+   */
+  public Vector solve(Vector b) {
+    if (b == null)
+      throw new IllegalArgumentException("Right-hand side vector cannot be null");
+
+    double[] x = new double[3];
+    if (!solve(this, b.x, b.y, b.z, x))
+      throw new ArithmeticException("Cannot solve system of singular matrix");
+
+    return new Vector(x[0], x[1], x[2]);
+  }
+
+  /**
+   * Solves each of the systems matrices[k] * x = b[k]
+   *
+   * @param matrices the matrix of each system
+   * @param b the right-hand side of each system
+   * @return a new array of the solution vectors
+   */
+  public static Vector[] solve(Matrix[] matrices, Vector[] b) {
+    if (matrices == null || b == null)
+      throw new IllegalArgumentException("Matrix and vector arrays cannot be null");
+    if (matrices.length != b.length)
+      throw new IllegalArgumentException("Vector array must hold one right-hand side per matrix");
+    if (ArrayTools.containsNull(matrices) || ArrayTools.containsNull(b))
+      throw new IllegalArgumentException("Matrix and vector arrays cannot contain nulls");
+
+    Vector[] ret = new Vector[matrices.length];
+    double[] x = new double[3];
+    for (int k = 0; k < ret.length; k++) {
+      if (!solve(matrices[k], b[k].x, b[k].y, b[k].z, x))
+        throw new ArithmeticException(String.format("Cannot solve system of singular matrix (index %d)", k));
+      ret[k] = new Vector(x[0], x[1], x[2]);
+    }
+
+    return ret;
+  }
+
+  /**
+   * Solves each of the systems matrices[k] * x = b,
+   * where b is the point (bx[k], by[k], bz[k]), writing
+   * x into the output arrays. Each output array may be
+   * the same as any input array.
+   *
+   * @param matrices the matrix of each system
+   * @param bx the x components of the right-hand sides
+   * @param by the y components of the right-hand sides
+   * @param bz the z components of the right-hand sides
+   * @param xOut the destination of the x components of the solutions
+   * @param yOut the destination of the y components of the solutions
+   * @param zOut the destination of the z components of the solutions
+   */
+  public static void solve(
+          Matrix[] matrices,
+          double[] bx, double[] by, double[] bz,
+          double[] xOut, double[] yOut, double[] zOut
+    ) {
+    if (matrices == null)
+      throw new IllegalArgumentException("Matrix array cannot be null");
+    checkPointArrays(bx, by, bz, xOut, yOut, zOut);
+    if (matrices.length != bx.length)
+      throw new IllegalArgumentException("Matrix array must hold one matrix per right-hand side");
+    if (ArrayTools.containsNull(matrices))
+      throw new IllegalArgumentException("Matrix array cannot contain nulls");
+
+    double[] x = new double[3];
+    for (int k = 0; k < matrices.length; k++) {
+      if (!solve(matrices[k], bx[k], by[k], bz[k], x))
+        throw new ArithmeticException(String.format("Cannot solve system of singular matrix (index %d)", k));
+      xOut[k] = x[0];
+      yOut[k] = x[1];
+      zOut[k] = x[2];
+    }
+  }
+
+  /*
+   * Writes the solution of m * x = (x, y, z) into
+   * the first three values of 'dest', returning
+   * false if 'm' is singular
+   */
+  private static boolean solve(Matrix m, double x, double y, double z, double[] dest) {
+    double
+            c00 = m.m11 * m.m22 - m.m12 * m.m21,
+            c10 = m.m12 * m.m20 - m.m10 * m.m22,
+            c20 = m.m10 * m.m21 - m.m11 * m.m20,
+            det = m.m00 * c00 + m.m01 * c10 + m.m02 * c20
+                    ;
+
+    if (det == 0)
+      return false;
+
+    double s = 1 / det;
+    dest[0] = (c00 * x + (m.m02 * m.m21 - m.m01 * m.m22) * y + (m.m01 * m.m12 - m.m02 * m.m11) * z) * s;
+    dest[1] = (c10 * x + (m.m00 * m.m22 - m.m02 * m.m20) * y + (m.m02 * m.m10 - m.m00 * m.m12) * z) * s;
+    dest[2] = (c20 * x + (m.m01 * m.m20 - m.m00 * m.m21) * y + (m.m00 * m.m11 - m.m01 * m.m10) * z) * s;
+    return true;
+  }
+
+  static void checkPointArrays(
+          double[] xs, double[] ys, double[] zs,
+          double[] xOut, double[] yOut, double[] zOut
+    ) {
+    if (xs == null)
+      throw new IllegalArgumentException("Coordinate arrays cannot be null");
+    checkPointArrays(xs, ys, zs, xOut, yOut, zOut, 0, xs.length);
+  }
+
+  static void checkPointArrays(
+          double[] xs, double[] ys, double[] zs,
+          double[] xOut, double[] yOut, double[] zOut,
+          int offset, int length
+    ) {
+    if (xs == null || ys == null || zs == null || xOut == null || yOut == null || zOut == null)
+      throw new IllegalArgumentException("Coordinate arrays cannot be null");
+    if (offset < 0 || length < 0)
+      throw new IllegalArgumentException("Offset and length cannot be negative");
+
+    if (
+            offset > xs.length - length || offset > ys.length - length ||
+            offset > zs.length - length || offset > xOut.length - length ||
+            offset > yOut.length - length || offset > zOut.length - length
+            )
+      throw new IllegalArgumentException("Coordinate arrays are too short for the points to transform");
+  }
+
+
   /* To vector representations */
 
   @Override
@@ -441,6 +731,31 @@ public class Matrix extends IMatrix{
       m00 * m21 * m12;
   }
 
+  /**
+   * Calculates the inverse of this matrix from
+   * its adjugate
+   *
+   * @return the inverse matrix
+   */
+  public Matrix inverse() {
+    double
+            c00 = m11 * m22 - m12 * m21,
+            c10 = m12 * m20 - m10 * m22,
+            c20 = m10 * m21 - m11 * m20,
+            det = m00 * c00 + m01 * c10 + m02 * c20
+                    ;
+
+    if (det == 0)
+      throw new ArithmeticException("Cannot invert singular matrix");
+
+    double s = 1 / det;
+    return new Matrix(
+            c00 * s, (m02 * m21 - m01 * m22) * s, (m01 * m12 - m02 * m11) * s,
+            c10 * s, (m00 * m22 - m02 * m20) * s, (m02 * m10 - m00 * m12) * s,
+            c20 * s, (m01 * m20 - m00 * m21) * s, (m00 * m11 - m01 * m10) * s
+      );
+  }
+
   /* Binary Operations */
 
   public Matrix scale(double s) {
@@ -0,0 +1,444 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A lazily evaluated matrix expression. Building
+ * an expression only records the operation tree;
+ * nothing is computed until evaluate() or
+ * evaluateInto(...) is called, and operands are
+ * read at that time. Evaluation first rewrites
+ * the tree as a scaled sum of operands and
+ * products, pushing transposes down to the
+ * operands (as (A * B)^T = B^T * A^T), so that
+ * every elementwise term is combined in a single
+ * pass over the result and transposed operands
+ * are handed to the multiplication kernel as
+ * strides rather than copied. Only operands of a
+ * product which are themselves compound
+ * expressions are evaluated into temporaries.
+ */
+public abstract class MatrixExpr {
+
+  /* Edge length of the square blocks in which the elementwise pass runs */
+  private static final int BLOCK = 64;
+
+  /**
+   * Creates an expression whose value is the
+   * provided matrix. Matrices backed by an array
+   * are referenced without copying.
+   *
+   * @param m the matrix
+   * @return an expression of the matrix
+   */
+  public static MatrixExpr of(IMatrix m) {
+    if (m == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+
+    StridedMatrix s = StridedMatrix.of(m);
+    if (s == null)
+      s = StridedMatrix.of(m.toNMatrix());
+
+    return new Operand(s.values, s.offset, s.rowStride, s.columnStride, s.rows, s.columns);
+  }
+
+
+  final int rows, columns;
+
+  MatrixExpr(int rows, int columns) {
+    this.rows = rows;
+    this.columns = columns;
+  }
+
+  public int numberOfRows() {
+    return rows;
+  }
+
+  public int numberOfColumns() {
+    return columns;
+  }
+
+
+  /* Building operations */
+
+  public MatrixExpr add(IMatrix m) {
+    return add(of(m));
+  }
+
+  public MatrixExpr add(MatrixExpr e) {
+    checkSameDimensions(e, "addition");
+    return new Sum(this, e, 1);
+  }
+
+  public MatrixExpr sub(IMatrix m) {
+    return sub(of(m));
+  }
+
+  public MatrixExpr sub(MatrixExpr e) {
+    checkSameDimensions(e, "subtraction");
+    return new Sum(this, e, -1);
+  }
+
+  public MatrixExpr subtract(IMatrix m) { /* Alias of sub(IMatrix m) */
+    return sub(m);
+  }
+
+  public MatrixExpr subtract(MatrixExpr e) { /* Alias of sub(MatrixExpr e) */
+    return sub(e);
+  }
+
+  public MatrixExpr scale(double s) {
+    return new Scaled(this, s);
+  }
+
+  public MatrixExpr negative() {
+    return scale(-1);
+  }
+
+  public MatrixExpr transpose() {
+    return new Transposed(this);
+  }
+
+  public MatrixExpr multiply(IMatrix m) {
+    return multiply(of(m));
+  }
+
+  public MatrixExpr multiply(MatrixExpr e) {
+    if (e == null)
+      throw new IllegalArgumentException("Cannot multiply by null expression");
+    if (columns != e.rows)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix multiplication");
+
+    return new Product(this, e);
+  }
+
+  private void checkSameDimensions(MatrixExpr e, String operation) {
+    if (e == null)
+      throw new IllegalArgumentException("Expression cannot be null");
+    if (e.rows != rows || e.columns != columns)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix " + operation);
+  }
+
+
+  /* Evaluation */
+
+  /**
+   * Evaluates this expression into a new matrix
+   *
+   * @return the value of this expression
+   */
+  public NMatrix evaluate() {
+    double[] ret = new double[rows * columns];
+    evaluate(ret);
+    return NMatrix.wrap(rows, columns, ret);
+  }
+
+  /**
+   * Evaluates this expression into the provided
+   * matrix, which may be one of its operands. When
+   * the destination is read only at the position
+   * being written (as in P = A * B + P), no
+   * temporary is allocated for the result.
+   *
+   * @param dest the destination of the value
+   * @return the destination matrix
+   */
+  public MutableNMatrix evaluateInto(MutableNMatrix dest) {
+    if (dest == null)
+      throw new IllegalArgumentException("Destination matrix cannot be null");
+    if (dest.numberOfRows() != rows || dest.numberOfColumns() != columns)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix expression destination");
+
+    evaluate(dest.storage());
+    return dest;
+  }
+
+  /*
+   * Adds the terms of this expression, scaled by
+   * 'coefficient' and transposed if 'transposed' is
+   * set, to the provided list
+   */
+  abstract void collect(double coefficient, boolean transposed, List<Term> terms);
+
+  /* Writes the value of this expression into the row-major array 'dest' */
+  private void evaluate(double[] dest) {
+    List<Term> terms = new ArrayList<>();
+    collect(1, false, terms);
+
+    List<Term> operands = new ArrayList<>(), products = new ArrayList<>();
+    for (Term t : terms) {
+      if (t.operand != null)
+        operands.add(t);
+      else {
+        /* Compound factors are evaluated before 'dest' is written */
+        t.left = t.left.resolve();
+        t.right = t.right.resolve();
+        products.add(t);
+      }
+    }
+
+    if (!isSafeDestination(dest, operands, products)) {
+      double[] scratch = new double[dest.length];
+      combine(scratch, operands, products);
+      System.arraycopy(scratch, 0, dest, 0, dest.length);
+    }
+    else
+      combine(dest, operands, products);
+  }
+
+  /*
+   * Returns whether the terms may be combined directly
+   * into 'dest', reordering the operands such that one
+   * laid out exactly as 'dest' is read first. Any other
+   * reference to 'dest' would be read after being
+   * overwritten.
+   */
+  private boolean isSafeDestination(double[] dest, List<Term> operands, List<Term> products) {
+    for (Term t : products) {
+      if (t.left.operand.values == dest || t.right.operand.values == dest)
+        return false;
+    }
+
+    int aliased = -1;
+    for (int k = 0; k < operands.size(); k++) {
+      Operand o = operands.get(k).operand;
+      if (o.values != dest)
+        continue;
+      if (aliased >= 0 || o.offset != 0 || o.rowStride != columns || o.columnStride != 1)
+        return false;
+      aliased = k;
+    }
+
+    if (aliased > 0)
+      operands.add(0, operands.remove(aliased));
+
+    return true;
+  }
+
+  private void combine(double[] dest, List<Term> operands, List<Term> products) {
+
+    if (operands.isEmpty())
+      Arrays.fill(dest, 0);
+    else {
+      for (int i0 = 0; i0 < rows; i0 += BLOCK) {
+        int i1 = Math.min(rows, i0 + BLOCK);
+        for (int j0 = 0; j0 < columns; j0 += BLOCK) {
+          int length = Math.min(columns, j0 + BLOCK) - j0;
+          for (int i = i0; i < i1; i++) {
+            combineRow(dest, i * columns + j0, i, j0, length, operands);
+          }
+        }
+      }
+    }
+
+    for (Term t : products) {
+      Operand a = t.left.operand, b = t.right.operand;
+      MatrixKernel.multiply(
+              a.rows, b.columns, a.columns, t.coefficient * t.left.coefficient * t.right.coefficient,
+              a.values, a.offset, a.rowStride, a.columnStride,
+              b.values, b.offset, b.rowStride, b.columnStride,
+              dest, 0, columns
+        );
+    }
+
+  }
+
+  /* Writes the sum of the scaled operands over one row segment */
+  private static void combineRow(double[] dest, int index, int row, int column, int length, List<Term> operands) {
+    for (int k = 0; k < operands.size(); k++) {
+      Term t = operands.get(k);
+      Operand o = t.operand;
+      double c = t.coefficient;
+      int from = o.offset + row * o.rowStride + column * o.columnStride, stride = o.columnStride;
+
+      if (k == 0) {
+        for (int j = 0; j < length; j++) {
+          dest[index + j] = c * o.values[from + j * stride];
+        }
+      }
+      else if (stride == 1)
+        ArrayKernels.BACKEND.axpy(c, o.values, from, dest, index, length);
+      else {
+        for (int j = 0; j < length; j++) {
+          dest[index + j] += c * o.values[from + j * stride];
+        }
+      }
+    }
+  }
+
+
+  /* Terms */
+
+  /*
+   * A scaled operand or a scaled product of two
+   * factors. Each factor resolves to a scaled operand,
+   * evaluating it into a temporary if it is compound.
+   */
+  private static final class Term {
+
+    final double coefficient;
+    final Operand operand;
+    Factor left, right;
+
+    Term(double coefficient, Operand operand) {
+      this.coefficient = coefficient;
+      this.operand = operand;
+    }
+
+    Term(double coefficient, Factor left, Factor right) {
+      this.coefficient = coefficient;
+      this.operand = null;
+      this.left = left;
+      this.right = right;
+    }
+  }
+
+  private static final class Factor {
+
+    final MatrixExpr expr;
+    final boolean transposed;
+    double coefficient = 1;
+    Operand operand;
+
+    Factor(MatrixExpr expr, boolean transposed) {
+      this.expr = expr;
+      this.transposed = transposed;
+    }
+
+    Factor resolve() {
+      List<Term> terms = new ArrayList<>();
+      expr.collect(1, transposed, terms);
+
+      if (terms.size() == 1 && terms.get(0).operand != null) {
+        coefficient = terms.get(0).coefficient;
+        operand = terms.get(0).operand;
+      }
+      else {
+        int r = transposed ? expr.columns : expr.rows, c = transposed ? expr.rows : expr.columns;
+        double[] values = new double[r * c];
+        (transposed ? expr.transpose() : expr).evaluate(values);
+        operand = new Operand(values, 0, c, 1, r, c);
+      }
+
+      return this;
+    }
+  }
+
+
+  /* Nodes */
+
+  private static final class Operand extends MatrixExpr {
+
+    final double[] values;
+    final int offset, rowStride, columnStride;
+
+    Operand(double[] values, int offset, int rowStride, int columnStride, int rows, int columns) {
+      super(rows, columns);
+      this.values = values;
+      this.offset = offset;
+      this.rowStride = rowStride;
+      this.columnStride = columnStride;
+    }
+
+    @Override
+    void collect(double coefficient, boolean transposed, List<Term> terms) {
+      terms.add(new Term(
+              coefficient,
+              transposed ? new Operand(values, offset, columnStride, rowStride, columns, rows) : this
+        ));
+    }
+  }
+
+  private static final class Sum extends MatrixExpr {
+
+    private final MatrixExpr a, b;
+    private final double sign;
+
+    Sum(MatrixExpr a, MatrixExpr b, double sign) {
+      super(a.rows, a.columns);
+      this.a = a;
+      this.b = b;
+      this.sign = sign;
+    }
+
+    @Override
+    void collect(double coefficient, boolean transposed, List<Term> terms) {
+      a.collect(coefficient, transposed, terms);
+      b.collect(coefficient * sign, transposed, terms);
+    }
+  }
+
+  private static final class Scaled extends MatrixExpr {
+
+    private final MatrixExpr e;
+    private final double s;
+
+    Scaled(MatrixExpr e, double s) {
+      super(e.rows, e.columns);
+      this.e = e;
+      this.s = s;
+    }
+
+    @Override
+    void collect(double coefficient, boolean transposed, List<Term> terms) {
+      e.collect(coefficient * s, transposed, terms);
+    }
+  }
+
+  private static final class Transposed extends MatrixExpr {
+
+    private final MatrixExpr e;
+
+    Transposed(MatrixExpr e) {
+      super(e.columns, e.rows);
+      this.e = e;
+    }
+
+    @Override
+    void collect(double coefficient, boolean transposed, List<Term> terms) {
+      e.collect(coefficient, !transposed, terms);
+    }
+  }
+
+  private static final class Product extends MatrixExpr {
+
+    private final MatrixExpr a, b;
+
+    Product(MatrixExpr a, MatrixExpr b) {
+      super(a.rows, b.columns);
+      this.a = a;
+      this.b = b;
+    }
+
+    @Override
+    void collect(double coefficient, boolean transposed, List<Term> terms) {
+      if (transposed)
+        terms.add(new Term(coefficient, new Factor(b, true), new Factor(a, true)));
+      else
+        terms.add(new Term(coefficient, new Factor(a, false), new Factor(b, false)));
+    }
+  }
+
+}
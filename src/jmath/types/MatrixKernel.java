@@ -0,0 +1,512 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A static class holding the dense matrix
+ * multiplication kernel used by the matrix
+ * types of this package. Operands are addressed
+ * directly on their backing arrays through an
+ * offset, a row stride and a column stride.
+ *
+ * The product is computed in cache-sized blocks:
+ * panels of the right operand and of the left
+ * operand are packed into contiguous buffers and
+ * consumed by a 4-by-4 register tile. Large
+ * products may instead be split into panels of
+ * the output and scheduled on a fork-join pool.
+ */
+final class MatrixKernel { private MatrixKernel() {}
+
+  /* Register tile dimensions */
+  private static final int
+          MR = 4,
+          NR = 4
+                  ;
+
+  /* Cache block dimensions */
+  private static final int
+          MC = 128,
+          KC = 256,
+          NC = 2048
+                  ;
+
+  /* Products with fewer multiply-adds than this skip packing */
+  private static final long SMALL_PRODUCT = 32 * 32 * 32;
+
+  /* Products with fewer multiply-adds than this are not split across threads */
+  static final long PARALLEL_PRODUCT = 128 * 128 * 128;
+
+
+  /* Whether full tiles are delegated to a vectorized backend */
+  private static final boolean VECTOR_TILE = ArrayKernels.BACKEND.hasMultiplyTile();
+
+
+  private static final ThreadLocal<double[][]> PACKING_BUFFERS = ThreadLocal.withInitial(
+          () -> new double[][] { new double[MC * KC], new double[0] }
+    );
+
+
+  /**
+   * Accumulates the scaled product of two matrices
+   * into a third: C += alpha * A * B, where A is
+   * (m x k), B is (k x n) and C is (m x n) with a
+   * column stride of one.
+   *
+   * @param m number of rows of A and C
+   * @param n number of columns of B and C
+   * @param k number of columns of A and rows of B
+   * @param alpha scalar applied to the product
+   * @param a backing array of A
+   * @param aOffset index of A(0, 0)
+   * @param aRowStride distance between A(i, p) and A(i + 1, p)
+   * @param aColumnStride distance between A(i, p) and A(i, p + 1)
+   * @param b backing array of B
+   * @param bOffset index of B(0, 0)
+   * @param bRowStride distance between B(p, j) and B(p + 1, j)
+   * @param bColumnStride distance between B(p, j) and B(p, j + 1)
+   * @param c backing array of C
+   * @param cOffset index of C(0, 0)
+   * @param cRowStride distance between C(i, j) and C(i + 1, j)
+   */
+  static void multiply(
+          int m, int n, int k, double alpha,
+          double[] a, int aOffset, int aRowStride, int aColumnStride,
+          double[] b, int bOffset, int bRowStride, int bColumnStride,
+          double[] c, int cOffset, int cRowStride
+    ) {
+
+    if (m == 0 || n == 0 || k == 0 || alpha == 0)
+      return;
+
+    if ((long) m * n * k < SMALL_PRODUCT) {
+      multiplySmall(
+              m, n, k, alpha,
+              a, aOffset, aRowStride, aColumnStride,
+              b, bOffset, bRowStride, bColumnStride,
+              c, cOffset, cRowStride
+        );
+      return;
+    }
+
+    double[][] buffers = PACKING_BUFFERS.get();
+    double[] packedA = buffers[0];
+    int packedBLength = KC * roundUp(Math.min(n, NC), NR);
+    if (buffers[1].length < packedBLength)
+      buffers[1] = new double[packedBLength];
+    double[] packedB = buffers[1];
+
+    for (int jc = 0; jc < n; jc += NC) {
+      int nc = Math.min(NC, n - jc);
+
+      for (int pc = 0; pc < k; pc += KC) {
+        int kc = Math.min(KC, k - pc);
+
+        packB(
+                kc, nc,
+                b, bOffset + pc * bRowStride + jc * bColumnStride, bRowStride, bColumnStride,
+                packedB
+          );
+
+        for (int ic = 0; ic < m; ic += MC) {
+          int mc = Math.min(MC, m - ic);
+
+          packA(
+                  mc, kc,
+                  a, aOffset + ic * aRowStride + pc * aColumnStride, aRowStride, aColumnStride,
+                  packedA
+            );
+
+          multiplyBlock(
+                  mc, nc, kc, alpha,
+                  packedA, packedB,
+                  c, cOffset + ic * cRowStride + jc, cRowStride
+            );
+        }
+      }
+    }
+
+  }
+
+
+  /**
+   * Performs the same accumulation as multiply(...),
+   * splitting the output into row and column panels
+   * which are computed as tasks of the provided pool.
+   * Products smaller than PARALLEL_PRODUCT are computed
+   * on the calling thread.
+   *
+   * @param pool the pool on which to schedule the panels
+   */
+  static void multiply(
+          int m, int n, int k, double alpha,
+          double[] a, int aOffset, int aRowStride, int aColumnStride,
+          double[] b, int bOffset, int bRowStride, int bColumnStride,
+          double[] c, int cOffset, int cRowStride,
+          ForkJoinPool pool
+    ) {
+
+    if ((long) m * n * k < PARALLEL_PRODUCT || pool.getParallelism() == 1) {
+      multiply(
+              m, n, k, alpha,
+              a, aOffset, aRowStride, aColumnStride,
+              b, bOffset, bRowStride, bColumnStride,
+              c, cOffset, cRowStride
+        );
+      return;
+    }
+
+    long leaf = Math.max(PARALLEL_PRODUCT, (long) m * n * k / (8L * pool.getParallelism()));
+
+    pool.invoke(new PanelTask(
+            m, n, k, alpha,
+            a, aOffset, aRowStride, aColumnStride,
+            b, bOffset, bRowStride, bColumnStride,
+            c, cOffset, cRowStride,
+            leaf
+      ));
+  }
+
+
+  /*
+   * Computes one panel of the output, halving the
+   * longer of its two output dimensions until the
+   * panel holds no more than 'leaf' multiply-adds.
+   * Panels never overlap in C, so no synchronization
+   * is required beyond the join.
+   */
+  private static final class PanelTask extends RecursiveAction {
+
+    private final int m, n, k;
+    private final double alpha;
+    private final double[] a, b, c;
+    private final int
+            aOffset, aRowStride, aColumnStride,
+            bOffset, bRowStride, bColumnStride,
+            cOffset, cRowStride
+                    ;
+    private final long leaf;
+
+    PanelTask(
+            int m, int n, int k, double alpha,
+            double[] a, int aOffset, int aRowStride, int aColumnStride,
+            double[] b, int bOffset, int bRowStride, int bColumnStride,
+            double[] c, int cOffset, int cRowStride,
+            long leaf
+      ) {
+      this.m = m;
+      this.n = n;
+      this.k = k;
+      this.alpha = alpha;
+      this.a = a;
+      this.aOffset = aOffset;
+      this.aRowStride = aRowStride;
+      this.aColumnStride = aColumnStride;
+      this.b = b;
+      this.bOffset = bOffset;
+      this.bRowStride = bRowStride;
+      this.bColumnStride = bColumnStride;
+      this.c = c;
+      this.cOffset = cOffset;
+      this.cRowStride = cRowStride;
+      this.leaf = leaf;
+    }
+
+    @Override
+    protected void compute() {
+
+      if ((long) m * n * k <= leaf || (m <= MC && n <= 4 * NR)) {
+        multiply(
+                m, n, k, alpha,
+                a, aOffset, aRowStride, aColumnStride,
+                b, bOffset, bRowStride, bColumnStride,
+                c, cOffset, cRowStride
+          );
+        return;
+      }
+
+      PanelTask first, second;
+
+      if (m >= n) {
+        int half = roundUp(m / 2, MR);
+        first = new PanelTask(
+                half, n, k, alpha,
+                a, aOffset, aRowStride, aColumnStride,
+                b, bOffset, bRowStride, bColumnStride,
+                c, cOffset, cRowStride,
+                leaf
+          );
+        second = new PanelTask(
+                m - half, n, k, alpha,
+                a, aOffset + half * aRowStride, aRowStride, aColumnStride,
+                b, bOffset, bRowStride, bColumnStride,
+                c, cOffset + half * cRowStride, cRowStride,
+                leaf
+          );
+      }
+      else {
+        int half = roundUp(n / 2, NR);
+        first = new PanelTask(
+                m, half, k, alpha,
+                a, aOffset, aRowStride, aColumnStride,
+                b, bOffset, bRowStride, bColumnStride,
+                c, cOffset, cRowStride,
+                leaf
+          );
+        second = new PanelTask(
+                m, n - half, k, alpha,
+                a, aOffset, aRowStride, aColumnStride,
+                b, bOffset + half * bColumnStride, bRowStride, bColumnStride,
+                c, cOffset + half, cRowStride,
+                leaf
+          );
+      }
+
+      invokeAll(first, second);
+    }
+
+  }
+
+
+  private static int roundUp(int value, int multiple) {
+    return ((value + multiple - 1) / multiple) * multiple;
+  }
+
+
+  private static void multiplySmall(
+          int m, int n, int k, double alpha,
+          double[] a, int aOffset, int aRowStride, int aColumnStride,
+          double[] b, int bOffset, int bRowStride, int bColumnStride,
+          double[] c, int cOffset, int cRowStride
+    ) {
+
+    for (int i = 0; i < m; i++) {
+      int cRow = cOffset + i * cRowStride;
+      int aRow = aOffset + i * aRowStride;
+
+      for (int p = 0; p < k; p++) {
+        double s = alpha * a[aRow + p * aColumnStride];
+        if (s == 0)
+          continue;
+
+        int bRow = bOffset + p * bRowStride;
+        if (bColumnStride == 1)
+          ArrayKernels.BACKEND.axpy(s, b, bRow, c, cRow, n);
+        else {
+          for (int j = 0; j < n; j++) {
+            c[cRow + j] += s * b[bRow + j * bColumnStride];
+          }
+        }
+      }
+    }
+
+  }
+
+
+  /*
+   * Packs a (mc x kc) block of A into consecutive
+   * MR-row slivers. Within a sliver the MR values of
+   * one column are adjacent. Missing rows of the last
+   * sliver are zero filled.
+   */
+  private static void packA(
+          int mc, int kc,
+          double[] a, int offset, int rowStride, int columnStride,
+          double[] packed
+    ) {
+
+    int top = 0;
+
+    for (int ir = 0; ir < mc; ir += MR) {
+      int mr = Math.min(MR, mc - ir);
+      int base = offset + ir * rowStride;
+
+      if (mr == MR) {
+        for (int p = 0; p < kc; p++) {
+          int index = base + p * columnStride;
+          packed[top] = a[index];
+          packed[top + 1] = a[index + rowStride];
+          packed[top + 2] = a[index + 2 * rowStride];
+          packed[top + 3] = a[index + 3 * rowStride];
+          top += MR;
+        }
+      }
+      else {
+        for (int p = 0; p < kc; p++) {
+          int index = base + p * columnStride;
+          for (int ii = 0; ii < MR; ii++) {
+            packed[top++] = ii < mr ? a[index + ii * rowStride] : 0;
+          }
+        }
+      }
+    }
+
+  }
+
+  /*
+   * Packs a (kc x nc) block of B into consecutive
+   * NR-column slivers. Within a sliver the NR values
+   * of one row are adjacent. Missing columns of the
+   * last sliver are zero filled.
+   */
+  private static void packB(
+          int kc, int nc,
+          double[] b, int offset, int rowStride, int columnStride,
+          double[] packed
+    ) {
+
+    int top = 0;
+
+    for (int jr = 0; jr < nc; jr += NR) {
+      int nr = Math.min(NR, nc - jr);
+      int base = offset + jr * columnStride;
+
+      if (nr == NR) {
+        for (int p = 0; p < kc; p++) {
+          int index = base + p * rowStride;
+          packed[top] = b[index];
+          packed[top + 1] = b[index + columnStride];
+          packed[top + 2] = b[index + 2 * columnStride];
+          packed[top + 3] = b[index + 3 * columnStride];
+          top += NR;
+        }
+      }
+      else {
+        for (int p = 0; p < kc; p++) {
+          int index = base + p * rowStride;
+          for (int jj = 0; jj < NR; jj++) {
+            packed[top++] = jj < nr ? b[index + jj * columnStride] : 0;
+          }
+        }
+      }
+    }
+
+  }
+
+
+  private static void multiplyBlock(
+          int mc, int nc, int kc, double alpha,
+          double[] packedA, double[] packedB,
+          double[] c, int cOffset, int cRowStride
+    ) {
+
+    for (int jr = 0; jr < nc; jr += NR) {
+      int nr = Math.min(NR, nc - jr);
+      int bIndex = jr * kc;
+
+      for (int ir = 0; ir < mc; ir += MR) {
+        int mr = Math.min(MR, mc - ir);
+        int aIndex = ir * kc;
+
+        if (VECTOR_TILE && mr == MR && nr == NR) {
+          ArrayKernels.BACKEND.multiplyTile(
+                  kc, alpha,
+                  packedA, aIndex,
+                  packedB, bIndex,
+                  c, cOffset + ir * cRowStride + jr, cRowStride
+            );
+          continue;
+        }
+
+        multiplyTile(
+                kc, mr, nr, alpha,
+                packedA, aIndex,
+                packedB, bIndex,
+                c, cOffset + ir * cRowStride + jr, cRowStride
+          );
+      }
+    }
+
+  }
+
+  /*
+   * Computes one MR x NR tile of the product from a
+   * packed sliver of A and a packed sliver of B, holding
+   * the sixteen partial sums in locals for the length of
+   * the shared dimension.
+   */
+  private static void multiplyTile(
+          int kc, int mr, int nr, double alpha,
+          double[] a, int aIndex,
+          double[] b, int bIndex,
+          double[] c, int cIndex, int cRowStride
+    ) {
+
+    double
+            c00 = 0, c01 = 0, c02 = 0, c03 = 0,
+            c10 = 0, c11 = 0, c12 = 0, c13 = 0,
+            c20 = 0, c21 = 0, c22 = 0, c23 = 0,
+            c30 = 0, c31 = 0, c32 = 0, c33 = 0
+                    ;
+
+    for (int p = 0; p < kc; p++) {
+      double
+              a0 = a[aIndex], a1 = a[aIndex + 1], a2 = a[aIndex + 2], a3 = a[aIndex + 3],
+              b0 = b[bIndex], b1 = b[bIndex + 1], b2 = b[bIndex + 2], b3 = b[bIndex + 3]
+                      ;
+
+      c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+      c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+      c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+      c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+
+      aIndex += MR;
+      bIndex += NR;
+    }
+
+    if (mr == MR && nr == NR) {
+      int r0 = cIndex, r1 = r0 + cRowStride, r2 = r1 + cRowStride, r3 = r2 + cRowStride;
+
+      c[r0] += alpha * c00; c[r0 + 1] += alpha * c01; c[r0 + 2] += alpha * c02; c[r0 + 3] += alpha * c03;
+      c[r1] += alpha * c10; c[r1 + 1] += alpha * c11; c[r1 + 2] += alpha * c12; c[r1 + 3] += alpha * c13;
+      c[r2] += alpha * c20; c[r2 + 1] += alpha * c21; c[r2 + 2] += alpha * c22; c[r2 + 3] += alpha * c23;
+      c[r3] += alpha * c30; c[r3 + 1] += alpha * c31; c[r3 + 2] += alpha * c32; c[r3 + 3] += alpha * c33;
+    }
+    else {
+      storeRow(c, cIndex, nr, alpha, c00, c01, c02, c03);
+      if (mr > 1)
+        storeRow(c, cIndex + cRowStride, nr, alpha, c10, c11, c12, c13);
+      if (mr > 2)
+        storeRow(c, cIndex + 2 * cRowStride, nr, alpha, c20, c21, c22, c23);
+      if (mr > 3)
+        storeRow(c, cIndex + 3 * cRowStride, nr, alpha, c30, c31, c32, c33);
+    }
+
+  }
+
+  /* Accumulates the first 'nr' values of one row of an edge tile */
+  private static void storeRow(
+          double[] c, int index, int nr, double alpha,
+          double v0, double v1, double v2, double v3
+    ) {
+    c[index] += alpha * v0;
+    if (nr > 1)
+      c[index + 1] += alpha * v1;
+    if (nr > 2)
+      c[index + 2] += alpha * v2;
+    if (nr > 3)
+      c[index + 3] += alpha * v3;
+  }
+
+}
@@ -0,0 +1,152 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import java.util.Arrays;
+
+/**
+ * A static class of tile-by-tile operations for
+ * matrices too large to be held on the heap.
+ * Each operation copies square tiles of its
+ * operands onto the heap, works on them there
+ * and copies the results back, so that only a
+ * few tiles are ever resident at once.
+ */
+/*static*/ class MatrixTiles { private MatrixTiles() {}
+
+  static final int TILE = 512;
+
+  /*
+   * Copies the block of the provided matrix whose
+   * top-left value is at (row, column) into the
+   * provided array, row-major with a row stride of
+   * 'columns'
+   */
+  static void read(IMatrix matrix, int row, int column, int rows, int columns, double[] dest) {
+    if (matrix instanceof OffHeapMatrix) {
+      ((OffHeapMatrix) matrix).readTile(row, column, rows, columns, dest);
+      return;
+    }
+    if (matrix instanceof MappedMatrix) {
+      ((MappedMatrix) matrix).readTile(row, column, rows, columns, dest);
+      return;
+    }
+
+    StridedMatrix m = StridedMatrix.of(matrix);
+    if (m != null) {
+      for (int k = 0; k < rows; k++) {
+        int index = m.offset + (row + k) * m.rowStride + column * m.columnStride;
+        for (int i = 0; i < columns; i++) {
+          dest[k * columns + i] = m.values[index + i * m.columnStride];
+        }
+      }
+      return;
+    }
+
+    for (int k = 0; k < rows; k++) {
+      for (int i = 0; i < columns; i++) {
+        dest[k * columns + i] = matrix.get(row + k, column + i);
+      }
+    }
+  }
+
+  /*
+   * Copies a row-major block into the provided
+   * matrix at (row, column). The matrix must be
+   * off-heap, mapped or mutable.
+   */
+  static void write(IMatrix matrix, int row, int column, int rows, int columns, double[] source) {
+    if (matrix instanceof OffHeapMatrix)
+      ((OffHeapMatrix) matrix).writeTile(row, column, rows, columns, source);
+    else if (matrix instanceof MappedMatrix)
+      ((MappedMatrix) matrix).writeTile(row, column, rows, columns, source);
+    else {
+      MutableNMatrix m = (MutableNMatrix) matrix;
+      for (int k = 0; k < rows; k++) {
+        for (int i = 0; i < columns; i++) {
+          m.set(row + k, column + i, source[k * columns + i]);
+        }
+      }
+    }
+  }
+
+  /*
+   * Writes the product of 'a' and 'b' into 'dest',
+   * computing each tile of the product from tiles
+   * of the operands with the GEMM kernel
+   */
+  static void multiply(IMatrix a, IMatrix b, IMatrix dest) {
+    int m = a.numberOfRows(), n = b.numberOfColumns(), k = a.numberOfColumns();
+
+    double[]
+            aTile = new double[TILE * TILE],
+            bTile = new double[TILE * TILE],
+            cTile = new double[TILE * TILE]
+            ;
+
+    for (int i = 0; i < m; i += TILE) {
+      int h = Math.min(TILE, m - i);
+      for (int j = 0; j < n; j += TILE) {
+        int w = Math.min(TILE, n - j);
+
+        Arrays.fill(cTile, 0, h * w, 0);
+        for (int p = 0; p < k; p += TILE) {
+          int d = Math.min(TILE, k - p);
+
+          read(a, i, p, h, d, aTile);
+          read(b, p, j, d, w, bTile);
+          MatrixKernel.multiply(
+                  h, w, d, 1,
+                  aTile, 0, d, 1,
+                  bTile, 0, w, 1,
+                  cTile, 0, w
+            );
+        }
+
+        write(dest, i, j, h, w, cTile);
+      }
+    }
+  }
+
+  /*
+   * Writes the transpose of 'matrix' into 'dest'
+   */
+  static void transpose(IMatrix matrix, IMatrix dest) {
+    int rows = matrix.numberOfRows(), columns = matrix.numberOfColumns();
+
+    double[] tile = new double[TILE * TILE], transposed = new double[TILE * TILE];
+    for (int k = 0; k < rows; k += TILE) {
+      int h = Math.min(TILE, rows - k);
+      for (int i = 0; i < columns; i += TILE) {
+        int w = Math.min(TILE, columns - i);
+
+        read(matrix, k, i, h, w, tile);
+        for (int r = 0; r < h; r++) {
+          for (int c = 0; c < w; c++) {
+            transposed[c * h + r] = tile[r * w + c];
+          }
+        }
+        write(dest, i, k, w, h, transposed);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,577 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import java.util.Arrays;
+import upsilon.tools.ArrayTools;
+
+/**
+ * A matrix of NxM dimensions whose values
+ * may be modified in place. The in-place
+ * operations of this class (those named
+ * '...InPlace' and '...Into') allocate nothing
+ * unless a product's destination shares storage
+ * with an operand, making it suitable as a
+ * workspace in iterative loops. The operations inherited from IMatrix
+ * leave this matrix unchanged and return new
+ * NMatrix objects, with the exception of set(...)
+ * which modifies this matrix and returns it.
+ */
+public class MutableNMatrix extends IMatrix {
+
+  /**
+   * Creates a mutable matrix which adopts the
+   * provided array as its backing storage without
+   * copying. Values are stored by row, such that
+   * the value at (row, column) is found at index
+   * column + row * columns. As the caller may still
+   * hold the array, freeze() copies the values of a
+   * wrapped matrix rather than transferring them.
+   *
+   * @param rows the number of rows
+   * @param columns the number of columns
+   * @param values the row-major backing array
+   * @return a mutable matrix sharing the provided array
+   */
+  public static MutableNMatrix wrap(int rows, int columns, double[] values) {
+    return new MutableNMatrix(rows, columns, values, false);
+  }
+
+  /*
+   * Creates a mutable matrix which adopts the provided
+   * array, which no other object may hold, as its
+   * backing storage
+   */
+  static MutableNMatrix adopt(int rows, int columns, double[] values) {
+    return new MutableNMatrix(rows, columns, values, true);
+  }
+
+
+  private double[] values;
+  private final int rows, columns;
+
+  /* Whether the backing array was allocated for this matrix alone */
+  private final boolean owned;
+
+  public MutableNMatrix(int rows, int columns) {
+    this(rows, columns, new double[checkedSize(rows, columns)], true);
+  }
+
+  public MutableNMatrix(IMatrix matrix) {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+
+    this.rows = matrix.numberOfRows();
+    this.columns = matrix.numberOfColumns();
+    this.values = new double[rows * columns];
+    this.owned = true;
+
+    assign(matrix);
+  }
+
+  private MutableNMatrix(int rows, int columns, double[] values, boolean owned) {
+    if (values == null)
+      throw new IllegalArgumentException("Values array cannot be null");
+    if (rows <= 0)
+      throw new IllegalArgumentException("Row count cannot be non-positive");
+    if (columns <= 0)
+      throw new IllegalArgumentException("Column count cannot be non-positive");
+    if (rows * columns != values.length)
+      throw new IllegalArgumentException("Matrix is not filled by the number of provided values");
+
+    this.rows = rows;
+    this.columns = columns;
+    this.values = values;
+    this.owned = owned;
+  }
+
+  private static int checkedSize(int rows, int columns) {
+    if (rows <= 0)
+      throw new IllegalArgumentException("Row count cannot be non-positive");
+    if (columns <= 0)
+      throw new IllegalArgumentException("Column count cannot be non-positive");
+    return rows * columns;
+  }
+
+
+  /*
+   * Returns the backing array, failing if its
+   * ownership has been given away by freeze()
+   */
+  double[] storage() {
+    if (values == null)
+      throw new IllegalStateException("Mutable matrix has been frozen and may no longer be used");
+    return values;
+  }
+
+  /*
+   * Returns an NMatrix sharing this matrix's storage
+   * for use by read-only computations whose results
+   * never alias their operand
+   */
+  private NMatrix shared() {
+    return NMatrix.wrap(rows, columns, storage());
+  }
+
+  /*
+   * Returns the row-major backing array of the provided
+   * matrix if it has one, or null otherwise
+   */
+  static double[] arrayOf(IMatrix matrix) {
+    if (matrix instanceof NMatrix)
+      return ((NMatrix) matrix).values;
+    else if (matrix instanceof MutableNMatrix)
+      return ((MutableNMatrix) matrix).storage();
+    else
+      return null;
+  }
+
+  private void checkRowColumn(int row, int column) {
+    if (row < 0 || row >= rows)
+      throw new IllegalArgumentException(String.format("Row index out of bounds for (%dx%d) matrix access: %d", rows, columns, row));
+    if (column < 0 || column >= columns)
+      throw new IllegalArgumentException(String.format("Column index out of bounds for (%dx%d) matrix access: %d", rows, columns, column));
+  }
+
+  private void checkSameDimensions(IMatrix m) {
+    if (m == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    if (m.numberOfRows() != rows || m.numberOfColumns() != columns)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix operation");
+  }
+
+
+  @Override
+  public double get(int row, int column) {
+    checkRowColumn(row, column);
+
+    return storage()[column + row * columns];
+  }
+
+  @Override
+  public MutableNMatrix set(int row, int column, double value) {
+    checkRowColumn(row, column);
+
+    storage()[column + row * columns] = value;
+    return this;
+  }
+
+  @Override
+  public int numberOfRows() {
+    return rows;
+  }
+
+  @Override
+  public int numberOfColumns() {
+    return columns;
+  }
+
+
+  /* In-place operations */
+
+  /**
+   * Overwrites the values of this matrix with
+   * those of the provided matrix
+   *
+   * @param m the matrix from which to copy
+   * @return this matrix
+   */
+  public MutableNMatrix assign(IMatrix m) {
+    checkSameDimensions(m);
+    double[] values = storage();
+
+    if (m instanceof NMatrix)
+      System.arraycopy(((NMatrix) m).values, 0, values, 0, values.length);
+    else if (m instanceof MutableNMatrix)
+      System.arraycopy(((MutableNMatrix) m).storage(), 0, values, 0, values.length);
+    else {
+      for (int k = 0; k < rows; k++) {
+        for (int i = 0; i < columns; i++) {
+          values[i + k * columns] = m.get(k, i);
+        }
+      }
+    }
+
+    return this;
+  }
+
+  /**
+   * Sets every value of this matrix to the
+   * provided value
+   *
+   * @param value the value to which to set this matrix
+   * @return this matrix
+   */
+  public MutableNMatrix fill(double value) {
+    double[] values = storage();
+    for (int k = 0; k < values.length; k++) {
+      values[k] = value;
+    }
+    return this;
+  }
+
+  public MutableNMatrix addInPlace(IMatrix m) {
+    return addScaledInPlace(m, 1);
+  }
+
+  public MutableNMatrix subInPlace(IMatrix m) {
+    return addScaledInPlace(m, -1);
+  }
+
+  public MutableNMatrix subtractInPlace(IMatrix m) { /* Alias of subInPlace(IMatrix m) */
+    return subInPlace(m);
+  }
+
+  /**
+   * Adds the provided matrix scaled by 's' to
+   * this matrix: this = this + s * m
+   *
+   * @param m the matrix to add
+   * @param s the scale applied to 'm'
+   * @return this matrix
+   */
+  public MutableNMatrix addScaledInPlace(IMatrix m, double s) {
+    checkSameDimensions(m);
+    double[] values = storage();
+
+    double[] other = null;
+    if (m instanceof NMatrix)
+      other = ((NMatrix) m).values;
+    else if (m instanceof MutableNMatrix)
+      other = ((MutableNMatrix) m).storage();
+
+    if (other != null)
+      ArrayKernels.BACKEND.axpy(s, other, 0, values, 0, values.length);
+    else {
+      for (int k = 0; k < rows; k++) {
+        for (int i = 0; i < columns; i++) {
+          values[i + k * columns] += s * m.get(k, i);
+        }
+      }
+    }
+
+    return this;
+  }
+
+  public MutableNMatrix scaleInPlace(double s) {
+    double[] values = storage();
+    ArrayKernels.BACKEND.scale(s, values, values, values.length);
+    return this;
+  }
+
+  public MutableNMatrix negateInPlace() {
+    return scaleInPlace(-1);
+  }
+
+  /**
+   * Transposes this square matrix in place
+   *
+   * @return this matrix
+   */
+  public MutableNMatrix transposeInPlace() {
+    if (rows != columns)
+      throw new ArithmeticException(String.format("Cannot transpose non-square matrix (%dx%d) in place", rows, columns));
+
+    double[] values = storage();
+    for (int k = 0; k < rows; k++) {
+      for (int i = k + 1; i < columns; i++) {
+        double t = values[i + k * columns];
+        values[i + k * columns] = values[k + i * columns];
+        values[k + i * columns] = t;
+      }
+    }
+
+    return this;
+  }
+
+  /**
+   * Writes the transpose of this matrix into the
+   * provided destination, which must not be this
+   * matrix
+   *
+   * @param dest the (columns x rows) destination
+   * @return the destination matrix
+   */
+  public MutableNMatrix transposeInto(MutableNMatrix dest) {
+    if (dest == null)
+      throw new IllegalArgumentException("Destination matrix cannot be null");
+    if (dest == this)
+      throw new IllegalArgumentException("Destination matrix cannot be the source matrix");
+    if (dest.rows != columns || dest.columns != rows)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix transpose");
+
+    double[] values = storage(), ret = dest.storage();
+    for (int k = 0; k < rows; k++) {
+      for (int i = 0; i < columns; i++) {
+        ret[k + i * rows] = values[i + k * columns];
+      }
+    }
+
+    return dest;
+  }
+
+  /**
+   * Writes the product of this matrix and another
+   * into the provided destination: dest = this * other.
+   * The destination may share its storage with either
+   * operand, in which case the product is computed in
+   * a scratch buffer.
+   *
+   * @param other the right-hand operand
+   * @param dest the destination of the product
+   * @return the destination matrix
+   */
+  public MutableNMatrix multiplyInto(IMatrix other, MutableNMatrix dest) {
+    return multiplyInto(other, dest, false);
+  }
+
+  /**
+   * Adds the product of this matrix and another to
+   * the provided destination: dest = dest + this * other.
+   * The destination may share its storage with either
+   * operand, in which case the product is computed in
+   * a scratch buffer.
+   *
+   * @param other the right-hand operand
+   * @param dest the destination of the product
+   * @return the destination matrix
+   */
+  public MutableNMatrix multiplyAddInto(IMatrix other, MutableNMatrix dest) {
+    return multiplyInto(other, dest, true);
+  }
+
+  private MutableNMatrix multiplyInto(IMatrix other, MutableNMatrix dest, boolean accumulate) {
+    if (other == null)
+      throw new IllegalArgumentException("Cannot multiply by null matrix");
+    if (dest == null)
+      throw new IllegalArgumentException("Destination matrix cannot be null");
+    if (columns != other.numberOfRows())
+      throw new IllegalArgumentException("Dimensional mismatch on matrix multiplication");
+    if (dest.rows != rows || dest.columns != other.numberOfColumns())
+      throw new IllegalArgumentException("Dimensional mismatch on matrix multiplication destination");
+
+    double[] values = storage(), dests = dest.storage();
+    int newColumns = other.numberOfColumns();
+    StridedMatrix o = StridedMatrix.of(other);
+
+    /* An operand sharing the destination's array would be read after being overwritten */
+    boolean aliased = dests == values || (o != null && o.values == dests);
+    double[] ret;
+    if (aliased)
+      ret = accumulate ? dests.clone() : new double[dests.length];
+    else {
+      ret = dests;
+      if (!accumulate)
+        Arrays.fill(ret, 0);
+    }
+
+    if (o != null) {
+      MatrixKernel.multiply(
+              rows, newColumns, columns, 1,
+              values, 0, columns, 1,
+              o.values, o.offset, o.rowStride, o.columnStride,
+              ret, 0, newColumns
+        );
+    }
+    else {
+      for (int k = 0; k < rows; k++) {
+        for (int p = 0; p < columns; p++) {
+          double a = values[p + k * columns];
+          for (int i = 0; i < newColumns; i++) {
+            ret[i + k * newColumns] += a * other.get(p, i);
+          }
+        }
+      }
+    }
+
+    if (aliased)
+      System.arraycopy(ret, 0, dests, 0, dests.length);
+
+    return dest;
+  }
+
+
+  /* Conversions */
+
+  /**
+   * Returns a lazily evaluated expression whose
+   * value is this matrix (see MatrixExpr)
+   *
+   * @return an expression of this matrix
+   */
+  public MatrixExpr lazy() {
+    return MatrixExpr.of(this);
+  }
+
+  /**
+   * Returns an immutable copy of this matrix
+   *
+   * @return a new NMatrix holding the current values
+   */
+  @Override
+  public NMatrix toNMatrix() {
+    return NMatrix.wrap(rows, columns, storage().clone());
+  }
+
+  /**
+   * Transfers the backing storage of this matrix to
+   * a new NMatrix without copying, unless the storage
+   * was provided to wrap(...), in which case it is
+   * copied. This matrix may not be used after this
+   * call.
+   *
+   * @return an NMatrix holding the values of this matrix
+   */
+  public NMatrix freeze() {
+    NMatrix ret = NMatrix.wrap(rows, columns, owned ? storage() : storage().clone());
+    values = null;
+    return ret;
+  }
+
+  @Override
+  public Matrix toMatrix() {
+    return new Matrix(shared());
+  }
+
+  @Override
+  public NVector[] toColumnVectors() {
+    return shared().toColumnVectors();
+  }
+
+  @Override
+  public NVector[] toRowVectors() {
+    return shared().toRowVectors();
+  }
+
+  @Override
+  public NVector transform(IVector vector) {
+    return shared().transform(vector);
+  }
+
+  /**
+   * Transforms the provided vector by this matrix,
+   * writing the result into the destination vector.
+   * The destination must not be the vector being
+   * transformed.
+   *
+   * @param vector the vector to transform
+   * @param dest the destination of the result
+   * @return the destination vector
+   */
+  public MutableNVector transformInto(IVector vector, MutableNVector dest) {
+    if (vector == null)
+      throw new IllegalArgumentException("Cannot transform null vector");
+    if (dest == null)
+      throw new IllegalArgumentException("Destination vector cannot be null");
+    if (dest == vector)
+      throw new IllegalArgumentException("Destination vector cannot be the transformed vector");
+    if (vector.dimension() != columns || dest.dimension() != rows)
+      throw new IllegalArgumentException("Dimensional mismatch on transform of vector");
+
+    NMatrix.transform(storage(), rows, columns, vector, dest.storage());
+
+    return dest;
+  }
+
+  @Override
+  public void transform(double[] vector, double[] dest) {
+    NMatrix.checkTransformArrays(vector, dest, rows, columns);
+    NMatrix.transform(storage(), rows, columns, vector, dest);
+  }
+
+
+  /* Operations returning new matrices */
+
+  @Override
+  public NMatrix transpose() {
+    return shared().transpose();
+  }
+
+  @Override
+  public NMatrix negative() {
+    return shared().negative();
+  }
+
+  @Override
+  public double determinant() {
+    return shared().determinant();
+  }
+
+  @Override
+  public NMatrix scale(double s) {
+    return shared().scale(s);
+  }
+
+  @Override
+  public NMatrix subtract(IMatrix m) {
+    return sub(m);
+  }
+
+  @Override
+  public NMatrix subtract(IMatrix... matrices) {
+    return sub(matrices);
+  }
+
+  @Override
+  public NMatrix sub(IMatrix m) {
+    return shared().sub(m);
+  }
+
+  @Override
+  public NMatrix sub(IMatrix... matrices) {
+    if (matrices == null)
+      throw new IllegalArgumentException("Matrix array cannot be null");
+    if (ArrayTools.containsNull(matrices))
+      throw new IllegalArgumentException("Matrix array cannot contain nulls");
+
+    MutableNMatrix ret = new MutableNMatrix(this);
+    for (IMatrix m : matrices) {
+      ret.subInPlace(m);
+    }
+
+    return ret.freeze();
+  }
+
+  @Override
+  public NMatrix multiply(IMatrix other) {
+    return shared().multiply(other);
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof IMatrix)
+      return equals((IMatrix) o);
+    else
+      return false;
+  }
+
+  @Override
+  public boolean equals(IMatrix matrix) {
+    return shared().equals(matrix);
+  }
+
+  @Override
+  public String toString() {
+    return shared().toString();
+  }
+
+}
@@ -0,0 +1,418 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import jmath.JMath;
+import upsilon.tools.ArrayTools;
+
+/**
+ * A vector of N dimensions whose values
+ * may be modified in place. The in-place
+ * operations of this class (those named
+ * '...InPlace') allocate nothing, making it
+ * suitable as an accumulator in hot loops.
+ * The operations inherited from IVector leave
+ * this vector unchanged and return new NVector
+ * objects.
+ */
+public class MutableNVector extends IVector {
+
+  /**
+   * Creates a mutable vector which adopts the
+   * provided array as its backing storage
+   * without copying. As the caller may still
+   * hold the array, freeze() copies the values
+   * of a wrapped vector rather than transferring
+   * them.
+   *
+   * @param values the backing array
+   * @return a mutable vector sharing the provided array
+   */
+  public static MutableNVector wrap(double[] values) {
+    return new MutableNVector(values, false);
+  }
+
+  /*
+   * Creates a mutable vector which adopts the provided
+   * array, which no other object may hold, as its
+   * backing storage
+   */
+  static MutableNVector adopt(double[] values) {
+    return new MutableNVector(values, true);
+  }
+
+
+  private double[] values;
+
+  /* Whether the backing array was allocated for this vector alone */
+  private final boolean owned;
+
+  public MutableNVector(int dimension) {
+    if (dimension <= 0)
+      throw new IllegalArgumentException("Cannot create vector of non-positive dimension");
+
+    this.values = new double[dimension];
+    this.owned = true;
+  }
+
+  public MutableNVector(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Vector cannot be null");
+
+    this.values = vector.toArray();
+    this.owned = true;
+  }
+
+  private MutableNVector(double[] values, boolean owned) {
+    if (values == null)
+      throw new IllegalArgumentException("Array cannot be null");
+
+    this.values = values;
+    this.owned = owned;
+  }
+
+
+  /*
+   * Returns the backing array, failing if its
+   * ownership has been given away by freeze()
+   */
+  double[] storage() {
+    if (values == null)
+      throw new IllegalStateException("Mutable vector has been frozen and may no longer be used");
+    return values;
+  }
+
+  /*
+   * Returns an NVector sharing this vector's storage
+   * for use by read-only computations whose results
+   * never alias their operand
+   */
+  private NVector shared() {
+    return NVector.wrap(storage());
+  }
+
+  /*
+   * Returns the backing array of the provided vector
+   * if it has one, or null otherwise
+   */
+  static double[] arrayOf(IVector vector) {
+    if (vector instanceof NVector)
+      return ((NVector) vector).values;
+    else if (vector instanceof MutableNVector)
+      return ((MutableNVector) vector).storage();
+    else
+      return null;
+  }
+
+  private void checkDimension(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Vector cannot be null");
+    if (vector.dimension() != dimension())
+      throw new IllegalArgumentException("Mismatching vector dimensions");
+  }
+
+
+  @Override
+  public int dimension() {
+    return storage().length;
+  }
+
+  @Override
+  public double get(int k) {
+    double[] values = storage();
+    if (k < 0 || k >= values.length)
+      throw new IllegalArgumentException(String.format("Cannot access vector (dimension %d) index %d", values.length, k));
+
+    return values[k];
+  }
+
+  public MutableNVector set(int k, double value) {
+    double[] values = storage();
+    if (k < 0 || k >= values.length)
+      throw new IllegalArgumentException(String.format("Cannot access vector (dimension %d) index %d", values.length, k));
+
+    values[k] = value;
+    return this;
+  }
+
+  @Override
+  public double getX() {
+    return get(0);
+  }
+
+  @Override
+  public double getY() {
+    return get(1);
+  }
+
+  @Override
+  public double getZ() {
+    return get(2);
+  }
+
+  @Override
+  public double[] toArray() {
+    return storage().clone();
+  }
+
+
+  /* In-place operations */
+
+  /**
+   * Overwrites the values of this vector with
+   * those of the provided vector
+   *
+   * @param vector the vector from which to copy
+   * @return this vector
+   */
+  public MutableNVector assign(IVector vector) {
+    checkDimension(vector);
+    double[] values = storage(), other = arrayOf(vector);
+
+    if (other != null)
+      System.arraycopy(other, 0, values, 0, values.length);
+    else {
+      for (int k = 0; k < values.length; k++) {
+        values[k] = vector.get(k);
+      }
+    }
+
+    return this;
+  }
+
+  public MutableNVector fill(double value) {
+    double[] values = storage();
+    for (int k = 0; k < values.length; k++) {
+      values[k] = value;
+    }
+    return this;
+  }
+
+  public MutableNVector addInPlace(IVector vector) {
+    return addScaledInPlace(vector, 1);
+  }
+
+  public MutableNVector subInPlace(IVector vector) {
+    return addScaledInPlace(vector, -1);
+  }
+
+  public MutableNVector subtractInPlace(IVector vector) { /* Alias of subInPlace(IVector vector) */
+    return subInPlace(vector);
+  }
+
+  /**
+   * Adds the provided vector scaled by 's' to
+   * this vector: this = this + s * vector
+   *
+   * @param vector the vector to add
+   * @param s the scale applied to 'vector'
+   * @return this vector
+   */
+  public MutableNVector addScaledInPlace(IVector vector, double s) {
+    checkDimension(vector);
+    double[] values = storage(), other = arrayOf(vector);
+
+    if (other != null)
+      ArrayKernels.BACKEND.axpy(s, other, 0, values, 0, values.length);
+    else {
+      for (int k = 0; k < values.length; k++) {
+        values[k] += s * vector.get(k);
+      }
+    }
+
+    return this;
+  }
+
+  public MutableNVector scaleInPlace(double s) {
+    double[] values = storage();
+    ArrayKernels.BACKEND.scale(s, values, values, values.length);
+    return this;
+  }
+
+  public MutableNVector negateInPlace() {
+    return scaleInPlace(-1);
+  }
+
+  /**
+   * Scales this vector to unit length. A zero
+   * vector is left unchanged.
+   *
+   * @return this vector
+   */
+  public MutableNVector normalizeInPlace() {
+    double abs = absoluteValue();
+    if (abs == 0)
+      return this;
+    return scaleInPlace(1 / abs);
+  }
+
+
+  /* Conversions */
+
+  /**
+   * Transfers the backing storage of this vector to
+   * a new NVector without copying, unless the storage
+   * was provided to wrap(...), in which case it is
+   * copied. This vector may not be used after this
+   * call.
+   *
+   * @return an NVector holding the values of this vector
+   */
+  public NVector freeze() {
+    NVector ret = NVector.wrap(owned ? storage() : storage().clone());
+    values = null;
+    return ret;
+  }
+
+  @Override
+  public NVector toNVector() {
+    return NVector.wrap(storage().clone());
+  }
+
+  @Override
+  public Vector toVector() {
+    return new Vector(shared());
+  }
+
+
+  /* Unary operations */
+
+  @Override
+  public NVector negative() {
+    return shared().negative();
+  }
+
+  @Override
+  public NVector normalize() {
+    return shared().normalize();
+  }
+
+  @Override
+  public double magnitude() {
+    return absoluteValue();
+  }
+
+  @Override
+  public double absoluteValue() {
+    return JMath.sqrt(squareAbsoluteValue());
+  }
+
+  @Override
+  public double squareAbsoluteValue() {
+    double[] values = storage();
+    return ArrayKernels.BACKEND.sumOfSquares(values, values.length);
+  }
+
+
+  /* Binary operations */
+
+  /**
+   * Calculates the inner product of this vector
+   * and the provided vector
+   *
+   * @param vector the other operand
+   * @return the inner product
+   */
+  public double dot(IVector vector) {
+    checkDimension(vector);
+    return NVector.dot(shared(), vector);
+  }
+
+  @Override
+  public NVector scale(double s) {
+    return shared().scale(s);
+  }
+
+  @Override
+  public NVector sub(IVector vector) {
+    return shared().sub(vector);
+  }
+
+  @Override
+  public NVector sub(IVector... vectors) {
+    if (vectors == null)
+      throw new IllegalArgumentException("Vectors array cannot be null");
+    if (ArrayTools.containsNull(vectors))
+      throw new IllegalArgumentException("Vector array cannot contain nulls");
+
+    MutableNVector ret = new MutableNVector(this);
+    for (IVector v : vectors) {
+      ret.subInPlace(v);
+    }
+
+    return ret.freeze();
+  }
+
+  @Override
+  public NVector subtract(IVector vector) {
+    return sub(vector);
+  }
+
+  @Override
+  public NVector subtract(IVector... vectors) {
+    return sub(vectors);
+  }
+
+  @Override
+  public NVector cross(IVector a) {
+    return shared().cross(a);
+  }
+
+  @Override
+  public IVector proj(IVector vector) {
+    return shared().proj(vector);
+  }
+
+  @Override
+  public IVector projection(IVector vector) {
+    return shared().projection(vector);
+  }
+
+  @Override
+  public double sproj(IVector vector) {
+    return shared().sproj(vector);
+  }
+
+  @Override
+  public double scalarProjection(IVector vector) {
+    return shared().scalarProjection(vector);
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof IVector)
+      return equals((IVector) o);
+    else
+      return false;
+  }
+
+  @Override
+  public boolean equals(IVector vector) {
+    return shared().equals(vector);
+  }
+
+  @Override
+  public String toString() {
+    return shared().toString();
+  }
+
+}
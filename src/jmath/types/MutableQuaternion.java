@@ -0,0 +1,196 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import jmath.JMath;
+
+/**
+ * A quaternion whose value may be modified in
+ * place. The in-place operations of this class
+ * (those named '...InPlace') allocate nothing,
+ * making it suitable for accumulating orientation
+ * updates in fixed-rate control loops.
+ */
+public class MutableQuaternion {
+
+  private double w, x, y, z;
+
+  public MutableQuaternion() {
+    this(1, 0, 0, 0);
+  }
+
+  public MutableQuaternion(double w, double x, double y, double z) {
+    this.w = w;
+    this.x = x;
+    this.y = y;
+    this.z = z;
+  }
+
+  public MutableQuaternion(Quaternion q) {
+    assign(q);
+  }
+
+
+  public double getW() {
+    return w;
+  }
+
+  public double getX() {
+    return x;
+  }
+
+  public double getY() {
+    return y;
+  }
+
+  public double getZ() {
+    return z;
+  }
+
+  public MutableQuaternion set(double w, double x, double y, double z) {
+    this.w = w;
+    this.x = x;
+    this.y = y;
+    this.z = z;
+    return this;
+  }
+
+  public MutableQuaternion assign(Quaternion q) {
+    if (q == null)
+      throw new IllegalArgumentException("Quaternion cannot be null");
+
+    return set(q.w, q.x, q.y, q.z);
+  }
+
+  public MutableQuaternion assign(MutableQuaternion q) {
+    if (q == null)
+      throw new IllegalArgumentException("Quaternion cannot be null");
+
+    return set(q.w, q.x, q.y, q.z);
+  }
+
+
+  /* In-place operations */
+
+  /**
+   * Multiplies this quaternion on the right by the
+   * provided one: this = this * q, so that rotation
+   * 'q' is applied before the present rotation
+   *
+   * @param q the right-hand operand
+   * @return this quaternion
+   */
+  public MutableQuaternion multiplyInPlace(Quaternion q) {
+    if (q == null)
+      throw new IllegalArgumentException("Cannot multiply null");
+
+    return multiplyInPlace(q.w, q.x, q.y, q.z);
+  }
+
+  public MutableQuaternion multiplyInPlace(MutableQuaternion q) {
+    if (q == null)
+      throw new IllegalArgumentException("Cannot multiply null");
+
+    return multiplyInPlace(q.w, q.x, q.y, q.z);
+  }
+
+  /**
+   * Multiplies this quaternion on the left by the
+   * provided one: this = q * this, so that rotation
+   * 'q' is applied after the present rotation
+   *
+   * @param q the left-hand operand
+   * @return this quaternion
+   */
+  public MutableQuaternion preMultiplyInPlace(Quaternion q) {
+    if (q == null)
+      throw new IllegalArgumentException("Cannot multiply null");
+
+    return set(
+            q.w * w - q.x * x - q.y * y - q.z * z,
+            q.w * x + q.x * w + q.y * z - q.z * y,
+            q.w * y - q.x * z + q.y * w + q.z * x,
+            q.w * z + q.x * y - q.y * x + q.z * w
+      );
+  }
+
+  private MutableQuaternion multiplyInPlace(double bw, double bx, double by, double bz) {
+    return set(
+            w * bw - x * bx - y * by - z * bz,
+            w * bx + x * bw + y * bz - z * by,
+            w * by - x * bz + y * bw + z * bx,
+            w * bz + x * by - y * bx + z * bw
+      );
+  }
+
+  /**
+   * Advances this orientation by a body-frame angular
+   * velocity held over the provided time step, using
+   * the first order update q += dt / 2 * q * (0, omega)
+   * followed by renormalization
+   *
+   * @param omegaX the angular velocity about the body x axis
+   * @param omegaY the angular velocity about the body y axis
+   * @param omegaZ the angular velocity about the body z axis
+   * @param dt the time step
+   * @return this quaternion
+   */
+  public MutableQuaternion integrateInPlace(double omegaX, double omegaY, double omegaZ, double dt) {
+    double h = dt / 2;
+    set(
+            w - h * (x * omegaX + y * omegaY + z * omegaZ),
+            x + h * (w * omegaX + y * omegaZ - z * omegaY),
+            y + h * (w * omegaY - x * omegaZ + z * omegaX),
+            z + h * (w * omegaZ + x * omegaY - y * omegaX)
+      );
+    return normalizeInPlace();
+  }
+
+  public MutableQuaternion conjugateInPlace() {
+    return set(w, -x, -y, -z);
+  }
+
+  public MutableQuaternion normalizeInPlace() {
+    double n = JMath.sqrt(w * w + x * x + y * y + z * z);
+    if (n == 0)
+      throw new ArithmeticException("Cannot normalize zero quaternion");
+
+    return set(w / n, x / n, y / n, z / n);
+  }
+
+
+  /* Conversions */
+
+  public Quaternion toQuaternion() {
+    return new Quaternion(w, x, y, z);
+  }
+
+  public Matrix toMatrix() {
+    return toQuaternion().toMatrix();
+  }
+
+
+  @Override
+  public String toString() {
+    return toQuaternion().toString();
+  }
+
+}
@@ -22,6 +22,8 @@ package jmath.types;
 
 import upsilon.tools.ArrayTools;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * A class for performing matrix mathematics.
  * An object of this class represents a
@@ -206,10 +208,24 @@ public class NMatrix extends IMatrix{
   }
 
 
-  private final double[] values;
+  /*
+   * Creates a matrix which adopts the provided
+   * array as its backing storage without copying.
+   * The caller must not retain the array.
+   */
+  static NMatrix wrap(int rows, int columns, double[] values) {
+    return new NMatrix(rows, columns, values, false);
+  }
+
+
+  final double[] values;
   private final int rows, columns;
 
   public NMatrix(int rows, int columns, double... values) {
+    this(rows, columns, values, true);
+  }
+
+  private NMatrix(int rows, int columns, double[] values, boolean copy) {
 
     if (values == null)
       throw new IllegalArgumentException("Values array cannot be null");
@@ -222,7 +238,7 @@ public class NMatrix extends IMatrix{
 
     this.rows = rows;
     this.columns = columns;
-    this.values = values.clone();
+    this.values = copy ? values.clone() : values;
   }
 
   public NMatrix(Matrix m) {
@@ -271,7 +287,7 @@ public class NMatrix extends IMatrix{
     double[] values = this.values.clone();
     values[index(row, column)] = value;
 
-    return new NMatrix(rows, columns, values);
+    return wrap(rows, columns, values);
   }
 
   @Override
@@ -320,14 +336,61 @@ public class NMatrix extends IMatrix{
       throw new IllegalArgumentException("Dimensional mismatch on transform of vector");
 
     double[] ret = new double[rows];
+    transform(values, rows, columns, vector, ret);
+
+    return NVector.wrap(ret);
+  }
+
+  /**
+   * Transforms the provided vector by this matrix,
+   * writing the result into the destination vector
+   * rather than allocating a new one. The destination
+   * must not be the vector being transformed.
+   *
+   * @param vector the vector to transform
+   * @param dest the destination of the result
+   * @return the destination vector
+   */
+  public MutableNVector transformInto(IVector vector, MutableNVector dest) {
+    if (vector == null)
+      throw new IllegalArgumentException("Cannot transform null vector");
+    if (dest == null)
+      throw new IllegalArgumentException("Destination vector cannot be null");
+    if (dest == vector)
+      throw new IllegalArgumentException("Destination vector cannot be the transformed vector");
+    if (vector.dimension() != columns || dest.dimension() != rows)
+      throw new IllegalArgumentException("Dimensional mismatch on transform of vector");
+
+    transform(values, rows, columns, vector, dest.storage());
+
+    return dest;
+  }
 
+  @Override
+  public void transform(double[] vector, double[] dest) {
+    checkTransformArrays(vector, dest, rows, columns);
+    transform(values, rows, columns, vector, dest);
+  }
+
+  static void checkTransformArrays(double[] vector, double[] dest, int rows, int columns) {
+    if (vector == null || dest == null)
+      throw new IllegalArgumentException("Arrays cannot be null");
+    if (vector == dest)
+      throw new IllegalArgumentException("Destination array cannot be the transformed array");
+    if (vector.length != columns || dest.length != rows)
+      throw new IllegalArgumentException("Dimensional mismatch on transform of vector");
+  }
+
+  /* Transforms a vector by the row-major matrix held in 'values' */
+  static void transform(double[] values, int rows, int columns, IVector vector, double[] ret) {
+    double[] v = MutableNVector.arrayOf(vector);
+    transform(values, rows, columns, v != null ? v : vector.toArray(), ret);
+  }
+
+  static void transform(double[] values, int rows, int columns, double[] v, double[] ret) {
     for(int k = 0; k < rows; k++) {
-      for(int i = 0; i < columns; i++) {
-        ret[k] += vector.get(i) * get(k, i);
-      }
+      ret[k] = ArrayKernels.BACKEND.dot(values, k * columns, v, 0, columns);
     }
-
-    return new NVector(ret);
   }
 
   @Override
@@ -340,6 +403,25 @@ public class NMatrix extends IMatrix{
     return this;
   }
 
+  /**
+   * Returns a lazily evaluated expression whose
+   * value is this matrix (see MatrixExpr)
+   *
+   * @return an expression of this matrix
+   */
+  public MatrixExpr lazy() {
+    return MatrixExpr.of(this);
+  }
+
+  /**
+   * Returns a mutable copy of this matrix
+   *
+   * @return a new mutable matrix holding the values of this matrix
+   */
+  public MutableNMatrix toMutableNMatrix() {
+    return MutableNMatrix.adopt(rows, columns, values.clone());
+  }
+
   @Override
   public NMatrix transpose() {
     double[] ret = new double[rows * columns];
@@ -350,7 +432,61 @@ public class NMatrix extends IMatrix{
       }
     }
 
-    return new NMatrix(columns, rows, ret);
+    return wrap(columns, rows, ret);
+  }
+
+  /**
+   * Returns a view of the transpose of this matrix
+   * which shares its values rather than copying them
+   *
+   * @return a transposed view of this matrix
+   */
+  public TransposedView transposeView() {
+    return new TransposedView(values, 0, 1, columns, columns, rows);
+  }
+
+  /**
+   * Returns a view of the block of this matrix of
+   * the provided size whose top-left value is at
+   * (row, column). The view shares the values of
+   * this matrix rather than copying them.
+   *
+   * @param row the first row of the block
+   * @param column the first column of the block
+   * @param rows the number of rows of the block
+   * @param columns the number of columns of the block
+   * @return a view of the block
+   */
+  public SubMatrixView subMatrixView(int row, int column, int rows, int columns) {
+    StridedMatrix.checkBlock(row, column, rows, columns, this.rows, this.columns);
+
+    return new SubMatrixView(values, index(row, column), this.columns, 1, rows, columns);
+  }
+
+  /**
+   * Returns a view of a row of this matrix which
+   * shares its values rather than copying them
+   *
+   * @param row the index of the row
+   * @return a view of the row
+   */
+  public RowView rowView(int row) {
+    checkRowColumn(row, 0);
+
+    return new RowView(values, index(row, 0), 1, columns);
+  }
+
+  /**
+   * Returns a view of a column of this matrix which
+   * shares its values rather than copying them
+   *
+   * @param column the index of the column
+   * @return a view of the column
+   */
+  public ColumnView columnView(int column) {
+    checkRowColumn(0, column);
+
+    return new ColumnView(values, index(0, column), columns, rows);
   }
 
   @Override
@@ -360,7 +496,7 @@ public class NMatrix extends IMatrix{
       ret[k] *= -1;
     }
 
-    return new NMatrix(rows, columns, ret);
+    return wrap(rows, columns, ret);
   }
 
   @Override
@@ -430,13 +566,87 @@ public class NMatrix extends IMatrix{
     else if (rows == 2)
       return get(0, 0) * get(1, 1) - get(0, 1) * get(1, 0);
 
-
-    double ret = 0;
-    for(int k = 0; k < rows; k++) {
-      ret += (((k % 2) * -2) + 1) * get(0, k) * minor(0, k).determinant();
-    }
-
-    return ret;
+    return lu().determinant();
+  }
+
+  /**
+   * Computes the LU decomposition of this matrix
+   * with partial pivoting. The returned object may
+   * be reused to solve systems, invert, or find the
+   * determinant without refactoring.
+   *
+   * @return the LU decomposition of this matrix
+   */
+  public LUDecomposition lu() {
+    return new LUDecomposition(this);
+  }
+
+  /**
+   * Computes the Cholesky decomposition of this
+   * symmetric positive definite matrix, reading
+   * only its lower triangle
+   *
+   * @return the Cholesky decomposition of this matrix
+   */
+  public CholeskyDecomposition cholesky() {
+    return new CholeskyDecomposition(this);
+  }
+
+  /**
+   * Computes the Householder QR decomposition of
+   * this matrix, which may be used to find
+   * least-squares solutions
+   *
+   * @return the QR decomposition of this matrix
+   */
+  public QRDecomposition qr() {
+    return new QRDecomposition(this);
+  }
+
+  /**
+   * Computes the singular value decomposition of
+   * this matrix
+   *
+   * @return the singular value decomposition of this matrix
+   */
+  public SingularValueDecomposition svd() {
+    return new SingularValueDecomposition(this);
+  }
+
+  /**
+   * Computes the eigendecomposition of this symmetric
+   * matrix, reading only its lower triangle. The
+   * tridiagonal reduction runs on the common fork-join
+   * pool.
+   *
+   * @return the eigendecomposition of this matrix
+   */
+  public EigenDecomposition eigen() {
+    return eigen(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Computes the eigendecomposition of this symmetric
+   * matrix, reading only its lower triangle. The
+   * tridiagonal reduction runs on the provided pool.
+   *
+   * @param pool the pool on which to run the reduction
+   * @return the eigendecomposition of this matrix
+   */
+  public EigenDecomposition eigen(ForkJoinPool pool) {
+    return new EigenDecomposition(this, pool);
+  }
+
+  /**
+   * Finds the 'count' largest eigenvalues and their
+   * eigenvectors of this symmetric matrix by the
+   * Lanczos method
+   *
+   * @param count the number of eigenpairs to find
+   * @return a decomposition holding 'count' eigenpairs
+   */
+  public EigenDecomposition eigen(int count) {
+    return EigenDecomposition.largest(this, count);
   }
 
   @Override
@@ -447,7 +657,7 @@ public class NMatrix extends IMatrix{
       values[k] *= s;
     }
 
-    return new NMatrix(rows, columns, values);
+    return wrap(rows, columns, values);
   }
 
   @Override
@@ -474,7 +684,7 @@ public class NMatrix extends IMatrix{
       }
     }
 
-    return new NMatrix(rows, columns, ret);
+    return wrap(rows, columns, ret);
   }
 
   @Override
@@ -496,6 +706,23 @@ public class NMatrix extends IMatrix{
     if (numberOfColumns() != other.numberOfRows())
       throw new IllegalArgumentException("Dimensional mismatch on matrix multiplication");
 
+    if (other instanceof NMatrix)
+      return multiply((NMatrix) other);
+
+    StridedMatrix o = StridedMatrix.of(other);
+    if (o != null) {
+      double[] ret = new double[rows * o.columns];
+
+      MatrixKernel.multiply(
+              rows, o.columns, columns, 1,
+              values, 0, columns, 1,
+              o.values, o.offset, o.rowStride, o.columnStride,
+              ret, 0, o.columns
+        );
+
+      return wrap(rows, o.columns, ret);
+    }
+
     int newRows = numberOfRows(), newColumns = other.numberOfColumns();
 
     double[] ret = new double[newRows * newColumns];
@@ -505,13 +732,88 @@ public class NMatrix extends IMatrix{
             otherColumns = other.toColumnVectors()
                     ;
 
-    for(int column = 0; column < newColumns; column++) {
-      for(int row = 0; row < newRows; row++) {
-        ret[row + column * newRows] = NVector.dot(thisRows[column], otherColumns[row]);
+    for(int row = 0; row < newRows; row++) {
+      for(int column = 0; column < newColumns; column++) {
+        ret[column + row * newColumns] = NVector.dot(thisRows[row], otherColumns[column]);
       }
     }
 
-    return new NMatrix(newRows, newColumns, ret);
+    return wrap(newRows, newColumns, ret);
+  }
+
+  /**
+   * Multiplies this matrix by another NMatrix,
+   * working directly on the backing arrays with
+   * a cache-blocked kernel.
+   *
+   * @param other the right-hand operand
+   * @return the matrix product
+   */
+  public NMatrix multiply(NMatrix other) {
+    if (other == null)
+      throw new IllegalArgumentException("Cannot multiply by null matrix");
+    if (columns != other.rows)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix multiplication");
+
+    double[] ret = new double[rows * other.columns];
+
+    MatrixKernel.multiply(
+            rows, other.columns, columns, 1,
+            values, 0, columns, 1,
+            other.values, 0, other.columns, 1,
+            ret, 0, other.columns
+      );
+
+    return wrap(rows, other.columns, ret);
+  }
+
+
+  /**
+   * Multiplies this matrix by another, splitting the
+   * product into panels computed on the common
+   * fork-join pool. Small products are computed on
+   * the calling thread.
+   *
+   * @param other the right-hand operand
+   * @return the matrix product
+   */
+  public NMatrix parallelMultiply(IMatrix other) {
+    return parallelMultiply(other, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Multiplies this matrix by another, splitting the
+   * product into panels computed on the provided
+   * fork-join pool. Small products are computed on
+   * the calling thread.
+   *
+   * @param other the right-hand operand
+   * @param pool the pool on which to compute the product
+   * @return the matrix product
+   */
+  public NMatrix parallelMultiply(IMatrix other, ForkJoinPool pool) {
+    if (other == null)
+      throw new IllegalArgumentException("Cannot multiply by null matrix");
+    if (pool == null)
+      throw new IllegalArgumentException("Fork-join pool cannot be null");
+    if (columns != other.numberOfRows())
+      throw new IllegalArgumentException("Dimensional mismatch on matrix multiplication");
+
+    StridedMatrix o = StridedMatrix.of(other);
+    if (o == null)
+      o = StridedMatrix.of(other.toNMatrix());
+
+    double[] ret = new double[rows * o.columns];
+
+    MatrixKernel.multiply(
+            rows, o.columns, columns, 1,
+            values, 0, columns, 1,
+            o.values, o.offset, o.rowStride, o.columnStride,
+            ret, 0, o.columns,
+            pool
+      );
+
+    return wrap(rows, o.columns, ret);
   }
 
 
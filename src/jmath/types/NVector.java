@@ -112,16 +112,21 @@ public class NVector extends IVector {
   public static NVector add(IVector a, IVector b) {
     if (a == null || b == null)
       throw new IllegalArgumentException("Vector addition cannot operate on null values");
-    if (a.dimension() != a.dimension())
+    if (a.dimension() != b.dimension())
       throw new IllegalArgumentException("Mismatching vector dimensions");
 
     double[] ret = new double[a.dimension()];
+    double[] aValues = MutableNVector.arrayOf(a), bValues = MutableNVector.arrayOf(b);
 
-    for(int k = 0; k < a.dimension(); k++) {
-      ret[k] = a.get(k) + b.get(k);
+    if (aValues != null && bValues != null)
+      ArrayKernels.BACKEND.add(aValues, bValues, ret, ret.length);
+    else {
+      for(int k = 0; k < a.dimension(); k++) {
+        ret[k] = a.get(k) + b.get(k);
+      }
     }
 
-    return new NVector(ret);
+    return wrap(ret);
   }
   public static NVector add(IVector... vectors) {
     checkArray(vectors);
@@ -144,9 +149,17 @@ public class NVector extends IVector {
   public static double dot(IVector a, IVector b) {
     if (a == null || b == null)
       throw new IllegalArgumentException("Vector inner product cannot operate on null values");
-    if (a.dimension() != a.dimension())
+    if (a.dimension() != b.dimension())
       throw new IllegalArgumentException("Mismatching vector dimensions");
 
+    double[] aValues = MutableNVector.arrayOf(a), bValues = MutableNVector.arrayOf(b);
+    if (aValues != null && bValues != null)
+      return ArrayKernels.BACKEND.dot(aValues, 0, bValues, 0, aValues.length);
+
+    StridedVector aView = StridedVector.of(a), bView = StridedVector.of(b);
+    if (aView != null && bView != null)
+      return StridedVector.dot(aView, bView);
+
     double ret = 0;
 
     for (int k = 0; k < a.dimension(); k++) {
@@ -193,99 +206,27 @@ public class NVector extends IVector {
   }
 
 
-  private static Object applyVectorScalarMultiplication(Object a, Object b) {
-    if (a instanceof Double && b instanceof Double)
-      return (Double) a * (Double) b;
-    else if (a instanceof Double && b instanceof IVector)
-      return ((IVector) b).scale((Double) a);
-    else if (a instanceof IVector && b instanceof Double)
-      return ((IVector) a).scale((Double) b);
-    else
-      throw new RuntimeException();
-  }
-  private static Object applyVectorScalarAddition(Object a, Object b) {
-    if (a instanceof Double && b instanceof Double)
-      return (Double) a + (Double) b;
-    else if (a instanceof IVector && b instanceof IVector)
-      return NVector.add((IVector) a, (IVector) b);
-    else
-      throw new RuntimeException();
-  }
-  private static Object applyVectorScalarNegation(Object a) {
-    if (a instanceof Double)
-      return -(Double) a;
-    else if (a instanceof IVector)
-      return ((IVector) a).negative();
-    else
-      throw new RuntimeException();
+  /*
+   * Creates a vector which adopts the provided
+   * array as its backing storage without copying.
+   * The caller must not retain the array.
+   */
+  static NVector wrap(double[] values) {
+    return new NVector(values, false);
   }
 
 
-  private static IVector determinantOfVectorScalarArray(int dim, int fdim,  Object[] objects) {
-    if (dim == 2) {
-      return (IVector) applyVectorScalarAddition(
-              applyVectorScalarMultiplication(objects[0], objects[3]),
-              applyVectorScalarNegation(applyVectorScalarMultiplication(objects[1], objects[2]))
-        );
-    }
-
-    Object ret = null;
-
-    for(int k = 0; k < dim; k++) {
-      Object subRet = applyVectorScalarMultiplication(
-              objects[k],
-              determinantOfVectorScalarArray(dim - 1, fdim, minorOfVectorScalarArray(dim, 0, k, objects))
-        );
-      if (ret == null) {
-        if (subRet instanceof Double)
-          ret = new Double(0);
-        else if (subRet instanceof IVector)
-          ret = zero(fdim);
-        else
-          throw new RuntimeException();
-      }
-
-      if (k % 2 != 0)
-        subRet = applyVectorScalarNegation(subRet);
-
-      ret = applyVectorScalarAddition(ret, subRet);
-    }
-
-    return (IVector) ret;
-  }
-  private static Object[] minorOfVectorScalarArray(int dim, int row, int column, Object[] objects) {
-
-    int rowTop = 0, columnTop;
-    Object[] ret = new Object[ (dim - 1) * (dim -1) ];
-
-    for(int r = 0; r < dim; r++) {
-      if (r == row) continue;
-
-      columnTop = 0;
-      for(int c = 0; c < dim; c++) {
-
-        if (c == column) continue;
-
-        ret[ columnTop + rowTop * (dim - 1) ] = objects[c + r * dim];
-
-        columnTop++;
-      }
-      rowTop++;
-    }
+  final double[] values;
 
-    return ret;
+  public NVector(double... array) {
+    this(array, true);
   }
 
-
-
-
-  private final double[] values;
-
-  public NVector(double... array) {
+  private NVector(double[] array, boolean copy) {
     if (array == null)
       throw new IllegalArgumentException("Array cannot be null");
 
-    this.values = array.clone();
+    this.values = copy ? array.clone() : array;
   }
 
   public NVector(Vector vector) {
@@ -340,21 +281,17 @@ public class NVector extends IVector {
 
   @Override
   public NVector negative() {
-    double[] ret = values.clone();
-    for(int k = 0; k < ret.length; k++) {
-      ret[k] *= -1;
-    }
-    return new NVector(ret);
+    return scale(-1);
   }
 
   @Override
   public NVector normalize() {
-    double[] ret = values.clone();
+    double[] ret = new double[values.length];
     double abs = absoluteValue();
     for(int k = 0; k < ret.length; k++) {
-      ret[k] /= abs;
+      ret[k] = values[k] / abs;
     }
-    return new NVector(ret);
+    return wrap(ret);
   }
 
   @Override
@@ -369,22 +306,16 @@ public class NVector extends IVector {
 
   @Override
   public double squareAbsoluteValue() {
-    double ret = 0;
-    for(double d : values) {
-      ret += d * d;
-    }
-    return ret;
+    return ArrayKernels.BACKEND.sumOfSquares(values, values.length);
   }
 
   /* Scale operat ion */
 
 	@Override
   public NVector scale(double s) {
-    double[] ret = values.clone();
-    for(int k = 0; k < ret.length; k++) {
-      ret[k] *= s;
-    }
-    return new NVector(ret); 
+    double[] ret = new double[values.length];
+    ArrayKernels.BACKEND.scale(s, values, ret, ret.length);
+    return wrap(ret);
   }
 
 
@@ -473,25 +404,39 @@ public class NVector extends IVector {
     if (vectors.length != dimension() - 2)
       throw new IllegalArgumentException("Dimensional mismatch for outer product operation");
 
-    Object[] array = new Object[dimension() * dimension()];
-    for(int k = 0; k < dimension(); k++) {
-      array[k] = get(k);
-    }
+    /*
+     * Component 'k' is the cofactor of the k-th unit
+     * vector in the determinant whose leading rows are
+     * this vector and the provided vectors, each minor
+     * being evaluated through its LU decomposition
+     */
+
+    int dim = dimension(), minorDim = dim - 1;
 
-    int top = dimension();
-    for(IVector vector : vectors) {
-      for(double d : vector.toArray()) {
-        array[top++] = d;
+    double[] rows = new double[minorDim * dim];
+    System.arraycopy(values, 0, rows, 0, dim);
+    for (int k = 0; k < vectors.length; k++) {
+      for (int i = 0; i < dim; i++) {
+        rows[(k + 1) * dim + i] = vectors[k].get(i);
       }
     }
 
-    for(NVector unit : NVector.unitVectors(dimension())) {
-      array[top++] = unit;
-    }
+    double[] ret = new double[dim];
+
+    for (int k = 0; k < dim; k++) {
+      double[] minor = new double[minorDim * minorDim];
+      for (int r = 0; r < minorDim; r++) {
+        for (int c = 0, top = 0; c < dim; c++) {
+          if (c == k) continue;
+          minor[r * minorDim + top++] = rows[r * dim + c];
+        }
+      }
 
-    IVector vector = determinantOfVectorScalarArray(dimension(), dimension(), array);
+      double cofactor = NMatrix.wrap(minorDim, minorDim, minor).determinant();
+      ret[k] = (minorDim + k) % 2 == 0 ? cofactor : -cofactor;
+    }
 
-    return vector.toNVector();
+    return wrap(ret);
   }
 
 
@@ -532,6 +477,15 @@ public class NVector extends IVector {
     return this;
   }
 
+  /**
+   * Returns a mutable copy of this vector
+   *
+   * @return a new mutable vector holding the values of this vector
+   */
+  public MutableNVector toMutableNVector() {
+    return MutableNVector.adopt(values.clone());
+  }
+
   @Override
   public Vector toVector() {
     return new Vector(this);
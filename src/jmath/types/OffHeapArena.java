@@ -0,0 +1,166 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An owner of matrices and vectors whose values
+ * are stored outside of the Java heap, in direct
+ * buffers which the garbage collector neither
+ * scans nor moves. Everything allocated from an
+ * arena, including the results of operations on
+ * its objects, is released together when the
+ * arena is closed, after which any use of those
+ * objects throws an IllegalStateException. The
+ * memory itself is returned once the garbage
+ * collector finds the released buffers
+ * unreachable.
+ *
+ * Direct memory is limited by the JVM option
+ * -XX:MaxDirectMemorySize, which defaults to the
+ * maximum heap size. An arena may be used from
+ * several threads, and may be closed while its
+ * objects are being accessed: an access racing
+ * with the close either completes or throws.
+ */
+public final class OffHeapArena implements AutoCloseable {
+
+  private final List<ChunkedDoubleBuffer> storages = new ArrayList<>();
+  private long allocatedBytes;
+  private boolean closed;
+
+  public OffHeapArena() {
+  }
+
+
+  synchronized ChunkedDoubleBuffer allocate(long length) {
+    if (closed)
+      throw new IllegalStateException("Off-heap arena has been closed");
+
+    ChunkedDoubleBuffer ret = ChunkedDoubleBuffer.allocateDirect(length);
+    storages.add(ret);
+    allocatedBytes += length * Double.BYTES;
+
+    return ret;
+  }
+
+
+  /**
+   * Allocates a zero matrix of the provided
+   * dimensions from this arena
+   *
+   * @param rows the number of rows
+   * @param columns the number of columns
+   * @return a new off-heap matrix
+   */
+  public OffHeapMatrix allocateMatrix(int rows, int columns) {
+    if (rows <= 0 || columns <= 0)
+      throw new IllegalArgumentException("Cannot create matrix of non-positive dimensions");
+
+    return new OffHeapMatrix(this, allocate((long) rows * columns), rows, columns);
+  }
+
+  /**
+   * Allocates a zero vector of the provided
+   * dimension from this arena
+   *
+   * @param dimension the dimension
+   * @return a new off-heap vector
+   */
+  public OffHeapVector allocateVector(int dimension) {
+    if (dimension <= 0)
+      throw new IllegalArgumentException("Cannot create vector of non-positive dimension");
+
+    return new OffHeapVector(this, allocate(dimension), dimension);
+  }
+
+  /**
+   * Copies the provided matrix into a new matrix
+   * allocated from this arena
+   *
+   * @param matrix the matrix to copy
+   * @return a new off-heap matrix of the same values
+   */
+  public OffHeapMatrix copyOf(IMatrix matrix) {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+
+    return allocateMatrix(matrix.numberOfRows(), matrix.numberOfColumns()).assign(matrix);
+  }
+
+  /**
+   * Copies the provided vector into a new vector
+   * allocated from this arena
+   *
+   * @param vector the vector to copy
+   * @return a new off-heap vector of the same values
+   */
+  public OffHeapVector copyOf(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Vector cannot be null");
+
+    return allocateVector(vector.dimension()).assign(vector);
+  }
+
+  /*
+   * Copies the provided array into a new vector,
+   * as used for results computed on the heap
+   */
+  OffHeapVector copyOf(double[] values) {
+    OffHeapVector ret = allocateVector(values.length);
+    ret.storage.put(0, values, 0, values.length);
+    return ret;
+  }
+
+
+  /**
+   * Returns the number of bytes allocated from
+   * this arena since it was created
+   *
+   * @return the number of allocated bytes
+   */
+  public synchronized long allocatedBytes() {
+    return allocatedBytes;
+  }
+
+  public synchronized boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Releases all storage allocated from this arena.
+   * Closing an arena more than once has no effect.
+   */
+  @Override
+  public synchronized void close() {
+    if (closed)
+      return;
+
+    closed = true;
+    for (ChunkedDoubleBuffer storage : storages) {
+      storage.release();
+    }
+    storages.clear();
+  }
+
+}
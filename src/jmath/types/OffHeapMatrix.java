@@ -0,0 +1,415 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import java.util.Arrays;
+import upsilon.tools.ArrayTools;
+
+/**
+ * A matrix whose values are stored row-major
+ * outside of the Java heap, allocated from an
+ * OffHeapArena, so that matrices of many gigabytes
+ * add nothing to the work of the garbage collector.
+ * Its values may be modified in place. Operations
+ * producing new matrices or vectors allocate them
+ * from the same arena, and all are released when
+ * the arena is closed.
+ *
+ * Products are computed tile by tile, each pair
+ * of tiles being copied onto the heap and
+ * multiplied by the same kernel as NMatrix
+ * (see MatrixTiles).
+ */
+public final class OffHeapMatrix extends IMatrix {
+
+  final OffHeapArena arena;
+  final ChunkedDoubleBuffer storage;
+  private final int rows, columns;
+
+  OffHeapMatrix(OffHeapArena arena, ChunkedDoubleBuffer storage, int rows, int columns) {
+    this.arena = arena;
+    this.storage = storage;
+    this.rows = rows;
+    this.columns = columns;
+  }
+
+
+  private void checkRowColumn(int row, int column) {
+    if (row < 0 || row >= rows)
+      throw new IllegalArgumentException(String.format("Row index out of bounds for (%dx%d) matrix access: %d", rows, columns, row));
+    if (column < 0 || column >= columns)
+      throw new IllegalArgumentException(String.format("Column index out of bounds for (%dx%d) matrix access: %d", rows, columns, column));
+  }
+
+  private void checkDimensions(IMatrix m) {
+    if (m == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    if (m.numberOfRows() != rows || m.numberOfColumns() != columns)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix operation");
+  }
+
+  private long index(int row, int column) {
+    return (long) row * columns + column;
+  }
+
+  void readTile(int row, int column, int rows, int columns, double[] dest) {
+    for (int k = 0; k < rows; k++) {
+      storage.get(index(row + k, column), dest, k * columns, columns);
+    }
+  }
+
+  void writeTile(int row, int column, int rows, int columns, double[] source) {
+    for (int k = 0; k < rows; k++) {
+      storage.put(index(row + k, column), source, k * columns, columns);
+    }
+  }
+
+  /**
+   * Returns the arena from which this matrix
+   * was allocated
+   *
+   * @return the owning arena
+   */
+  public OffHeapArena arena() {
+    return arena;
+  }
+
+
+  @Override
+  public double get(int row, int column) {
+    checkRowColumn(row, column);
+    return storage.get(index(row, column));
+  }
+
+  @Override
+  public OffHeapMatrix set(int row, int column, double value) {
+    checkRowColumn(row, column);
+    storage.set(index(row, column), value);
+    return this;
+  }
+
+  @Override
+  public int numberOfRows() {
+    return rows;
+  }
+
+  @Override
+  public int numberOfColumns() {
+    return columns;
+  }
+
+
+  /* In-place operations */
+
+  /**
+   * Overwrites the values of this matrix with
+   * those of the provided matrix
+   *
+   * @param m the matrix from which to copy
+   * @return this matrix
+   */
+  public OffHeapMatrix assign(IMatrix m) {
+    checkDimensions(m);
+
+    double[] row = new double[columns];
+    for (int k = 0; k < rows; k++) {
+      MatrixTiles.read(m, k, 0, 1, columns, row);
+      storage.put(index(k, 0), row, 0, columns);
+    }
+
+    return this;
+  }
+
+  public OffHeapMatrix fill(double value) {
+    double[] row = new double[columns];
+    Arrays.fill(row, value);
+
+    for (int k = 0; k < rows; k++) {
+      storage.put(index(k, 0), row, 0, columns);
+    }
+
+    return this;
+  }
+
+  /**
+   * Adds the provided matrix scaled by 's' to
+   * this matrix: this = this + s * m
+   *
+   * @param m the matrix to add
+   * @param s the scale applied to 'm'
+   * @return this matrix
+   */
+  public OffHeapMatrix addScaledInPlace(IMatrix m, double s) {
+    checkDimensions(m);
+
+    double[] x = new double[columns], y = new double[columns];
+    for (int k = 0; k < rows; k++) {
+      MatrixTiles.read(m, k, 0, 1, columns, x);
+      storage.get(index(k, 0), y, 0, columns);
+      ArrayKernels.BACKEND.axpy(s, x, 0, y, 0, columns);
+      storage.put(index(k, 0), y, 0, columns);
+    }
+
+    return this;
+  }
+
+  public OffHeapMatrix scaleInPlace(double s) {
+    double[] row = new double[columns];
+    for (int k = 0; k < rows; k++) {
+      storage.get(index(k, 0), row, 0, columns);
+      ArrayKernels.BACKEND.scale(s, row, row, columns);
+      storage.put(index(k, 0), row, 0, columns);
+    }
+
+    return this;
+  }
+
+
+  @Override
+  public OffHeapVector[] toColumnVectors() {
+    OffHeapVector[] ret = new OffHeapVector[columns];
+    for (int k = 0; k < columns; k++) {
+      ret[k] = arena.allocateVector(rows);
+    }
+
+    double[] row = new double[columns];
+    for (int k = 0; k < rows; k++) {
+      storage.get(index(k, 0), row, 0, columns);
+      for (int i = 0; i < columns; i++) {
+        ret[i].storage.set(k, row[i]);
+      }
+    }
+
+    return ret;
+  }
+
+  @Override
+  public OffHeapVector[] toRowVectors() {
+    OffHeapVector[] ret = new OffHeapVector[rows];
+
+    double[] row = new double[columns];
+    for (int k = 0; k < rows; k++) {
+      storage.get(index(k, 0), row, 0, columns);
+      ret[k] = arena.copyOf(row);
+    }
+
+    return ret;
+  }
+
+  /**
+   * Transforms the provided vector by this matrix.
+   * The vector is copied onto the heap, and the
+   * result is allocated from this matrix's arena.
+   *
+   * @param vector the vector to transform
+   * @return the transformed vector
+   */
+  @Override
+  public OffHeapVector transform(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Cannot transform null vector");
+    if (vector.dimension() != columns)
+      throw new IllegalArgumentException("Dimensional mismatch on transform of vector");
+
+    double[] ret = new double[rows];
+    multiplyVector(vector.toArray(), ret);
+
+    return arena.copyOf(ret);
+  }
+
+  @Override
+  public void transform(double[] vector, double[] dest) {
+    NMatrix.checkTransformArrays(vector, dest, rows, columns);
+    multiplyVector(vector, dest);
+  }
+
+  private void multiplyVector(double[] vector, double[] dest) {
+    double[] row = new double[Math.min(columns, OffHeapVector.BLOCK)];
+
+    for (int k = 0; k < rows; k++) {
+      double sum = 0;
+      for (int i = 0; i < columns; i += OffHeapVector.BLOCK) {
+        int n = Math.min(OffHeapVector.BLOCK, columns - i);
+        storage.get(index(k, i), row, 0, n);
+        sum += ArrayKernels.BACKEND.dot(row, 0, vector, i, n);
+      }
+      dest[k] = sum;
+    }
+  }
+
+  @Override
+  public Matrix toMatrix() {
+    return new Matrix(toNMatrix());
+  }
+
+  /**
+   * Copies the values of this matrix into a new
+   * matrix on the heap
+   *
+   * @return a new NMatrix holding the values of this matrix
+   */
+  @Override
+  public NMatrix toNMatrix() {
+    if ((long) rows * columns > Integer.MAX_VALUE - 8)
+      throw new IllegalStateException(String.format("Matrix (%dx%d) is too large to be copied onto the heap", rows, columns));
+
+    double[] ret = new double[rows * columns];
+    storage.get(0, ret, 0, ret.length);
+
+    return NMatrix.wrap(rows, columns, ret);
+  }
+
+
+  /* Operations returning new matrices */
+
+  @Override
+  public OffHeapMatrix transpose() {
+    OffHeapMatrix ret = arena.allocateMatrix(columns, rows);
+    MatrixTiles.transpose(this, ret);
+    return ret;
+  }
+
+  @Override
+  public OffHeapMatrix negative() {
+    return scale(-1);
+  }
+
+  /**
+   * Calculates the determinant of this matrix
+   * by LU decomposition of a copy on the heap
+   *
+   * @return the determinant
+   */
+  @Override
+  public double determinant() {
+    if (rows != columns)
+      throw new ArithmeticException(String.format("Cannot find determinant of non-square matrix (%dx%d)", rows, columns));
+
+    return toNMatrix().determinant();
+  }
+
+  @Override
+  public OffHeapMatrix scale(double s) {
+    return arena.copyOf(this).scaleInPlace(s);
+  }
+
+  @Override
+  public OffHeapMatrix subtract(IMatrix m) {
+    return sub(m);
+  }
+
+  @Override
+  public OffHeapMatrix subtract(IMatrix... matrices) {
+    return sub(matrices);
+  }
+
+  @Override
+  public OffHeapMatrix sub(IMatrix m) {
+    if (m == null)
+      throw new IllegalArgumentException("Cannot subtract by a null matrix");
+    if (m.numberOfRows() != rows || m.numberOfColumns() != columns)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix subtraction");
+
+    return arena.copyOf(this).addScaledInPlace(m, -1);
+  }
+
+  @Override
+  public OffHeapMatrix sub(IMatrix... matrices) {
+    if (matrices == null)
+      throw new IllegalArgumentException("Matrix array cannot be null");
+    if (ArrayTools.containsNull(matrices))
+      throw new IllegalArgumentException("Matrix array cannot contain nulls");
+
+    OffHeapMatrix ret = arena.copyOf(this);
+    for (IMatrix m : matrices) {
+      ret.addScaledInPlace(m, -1);
+    }
+
+    return ret;
+  }
+
+  /**
+   * Multiplies this matrix by another, allocating
+   * the product from this matrix's arena. The right
+   * operand may be of any type, including another
+   * off-heap matrix.
+   *
+   * @param other the right-hand operand
+   * @return the matrix product
+   */
+  @Override
+  public OffHeapMatrix multiply(IMatrix other) {
+    if (other == null)
+      throw new IllegalArgumentException("Cannot multiply by null matrix");
+    if (columns != other.numberOfRows())
+      throw new IllegalArgumentException("Dimensional mismatch on matrix multiplication");
+
+    OffHeapMatrix ret = arena.allocateMatrix(rows, other.numberOfColumns());
+    MatrixTiles.multiply(this, other, ret);
+
+    return ret;
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof IMatrix)
+      return equals((IMatrix) o);
+    else
+      return false;
+  }
+
+  @Override
+  public boolean equals(IMatrix matrix) {
+    if (matrix == null)
+      return false;
+    if (matrix.numberOfColumns() != columns || matrix.numberOfRows() != rows)
+      return false;
+
+    double[] x = new double[columns], y = new double[columns];
+    for (int k = 0; k < rows; k++) {
+      storage.get(index(k, 0), x, 0, columns);
+      MatrixTiles.read(matrix, k, 0, 1, columns, y);
+      for (int i = 0; i < columns; i++) {
+        if (x[i] != y[i])
+          return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("[");
+
+    double[] row = new double[columns];
+    for (int k = 0; k < rows; k++) {
+      storage.get(index(k, 0), row, 0, columns);
+      sb.append(NVector.wrap(row).toString());
+    }
+
+    sb.append("]");
+    return sb.toString();
+  }
+
+}
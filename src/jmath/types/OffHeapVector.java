@@ -0,0 +1,393 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import jmath.JMath;
+import upsilon.tools.ArrayTools;
+
+/**
+ * A vector of N dimensions whose values are
+ * stored outside of the Java heap, allocated from
+ * an OffHeapArena. Its values may be modified in
+ * place. Operations producing new vectors allocate
+ * them from the same arena, and all are released
+ * when the arena is closed.
+ */
+public final class OffHeapVector extends IVector {
+
+  static final int BLOCK = 4096;
+
+  /*
+   * Copies 'count' values of the provided vector
+   * starting at 'index' into the provided array
+   */
+  static void read(IVector vector, int index, double[] dest, int count) {
+    if (vector instanceof OffHeapVector) {
+      ((OffHeapVector) vector).storage.get(index, dest, 0, count);
+      return;
+    }
+
+    double[] values = MutableNVector.arrayOf(vector);
+    if (values != null)
+      System.arraycopy(values, index, dest, 0, count);
+    else {
+      for (int k = 0; k < count; k++) {
+        dest[k] = vector.get(index + k);
+      }
+    }
+  }
+
+
+  final OffHeapArena arena;
+  final ChunkedDoubleBuffer storage;
+  private final int dimension;
+
+  OffHeapVector(OffHeapArena arena, ChunkedDoubleBuffer storage, int dimension) {
+    this.arena = arena;
+    this.storage = storage;
+    this.dimension = dimension;
+  }
+
+
+  private void checkDimension(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Vector cannot be null");
+    if (vector.dimension() != dimension)
+      throw new IllegalArgumentException("Mismatching vector dimensions");
+  }
+
+  private void checkIndex(int k) {
+    if (k < 0 || k >= dimension)
+      throw new IllegalArgumentException(String.format("Cannot access vector (dimension %d) index %d", dimension, k));
+  }
+
+  /**
+   * Returns the arena from which this vector
+   * was allocated
+   *
+   * @return the owning arena
+   */
+  public OffHeapArena arena() {
+    return arena;
+  }
+
+
+  @Override
+  public int dimension() {
+    return dimension;
+  }
+
+  @Override
+  public double get(int k) {
+    checkIndex(k);
+    return storage.get(k);
+  }
+
+  public OffHeapVector set(int k, double value) {
+    checkIndex(k);
+    storage.set(k, value);
+    return this;
+  }
+
+  @Override
+  public double getX() {
+    return get(0);
+  }
+
+  @Override
+  public double getY() {
+    return get(1);
+  }
+
+  @Override
+  public double getZ() {
+    return get(2);
+  }
+
+  /**
+   * Copies the values of this vector into a new
+   * array on the heap
+   *
+   * @return the values of this vector
+   */
+  @Override
+  public double[] toArray() {
+    double[] ret = new double[dimension];
+    storage.get(0, ret, 0, dimension);
+    return ret;
+  }
+
+
+  /* In-place operations */
+
+  /**
+   * Overwrites the values of this vector with
+   * those of the provided vector
+   *
+   * @param vector the vector from which to copy
+   * @return this vector
+   */
+  public OffHeapVector assign(IVector vector) {
+    checkDimension(vector);
+
+    double[] buffer = new double[Math.min(BLOCK, dimension)];
+    for (int k = 0; k < dimension; k += BLOCK) {
+      int n = Math.min(BLOCK, dimension - k);
+      read(vector, k, buffer, n);
+      storage.put(k, buffer, 0, n);
+    }
+
+    return this;
+  }
+
+  public OffHeapVector fill(double value) {
+    for (int k = 0; k < dimension; k++) {
+      storage.set(k, value);
+    }
+    return this;
+  }
+
+  /**
+   * Adds the provided vector scaled by 's' to
+   * this vector: this = this + s * vector
+   *
+   * @param vector the vector to add
+   * @param s the scale applied to 'vector'
+   * @return this vector
+   */
+  public OffHeapVector addScaledInPlace(IVector vector, double s) {
+    checkDimension(vector);
+
+    int length = Math.min(BLOCK, dimension);
+    double[] x = new double[length], y = new double[length];
+    for (int k = 0; k < dimension; k += BLOCK) {
+      int n = Math.min(BLOCK, dimension - k);
+      read(vector, k, x, n);
+      storage.get(k, y, 0, n);
+      ArrayKernels.BACKEND.axpy(s, x, 0, y, 0, n);
+      storage.put(k, y, 0, n);
+    }
+
+    return this;
+  }
+
+  public OffHeapVector scaleInPlace(double s) {
+    double[] buffer = new double[Math.min(BLOCK, dimension)];
+    for (int k = 0; k < dimension; k += BLOCK) {
+      int n = Math.min(BLOCK, dimension - k);
+      storage.get(k, buffer, 0, n);
+      ArrayKernels.BACKEND.scale(s, buffer, buffer, n);
+      storage.put(k, buffer, 0, n);
+    }
+
+    return this;
+  }
+
+
+  /* Conversions */
+
+  @Override
+  public NVector toNVector() {
+    return NVector.wrap(toArray());
+  }
+
+  @Override
+  public Vector toVector() {
+    return new Vector(toNVector());
+  }
+
+
+  /* Unary operations */
+
+  @Override
+  public OffHeapVector negative() {
+    return scale(-1);
+  }
+
+  @Override
+  public OffHeapVector normalize() {
+    return scale(1 / absoluteValue());
+  }
+
+  @Override
+  public double magnitude() {
+    return absoluteValue();
+  }
+
+  @Override
+  public double absoluteValue() {
+    return JMath.sqrt(squareAbsoluteValue());
+  }
+
+  @Override
+  public double squareAbsoluteValue() {
+    double ret = 0;
+
+    double[] buffer = new double[Math.min(BLOCK, dimension)];
+    for (int k = 0; k < dimension; k += BLOCK) {
+      int n = Math.min(BLOCK, dimension - k);
+      storage.get(k, buffer, 0, n);
+      ret += ArrayKernels.BACKEND.sumOfSquares(buffer, n);
+    }
+
+    return ret;
+  }
+
+
+  /* Binary operations */
+
+  /**
+   * Calculates the inner product of this vector
+   * and the provided vector
+   *
+   * @param vector the other operand
+   * @return the inner product
+   */
+  public double dot(IVector vector) {
+    checkDimension(vector);
+
+    double ret = 0;
+
+    int length = Math.min(BLOCK, dimension);
+    double[] x = new double[length], y = new double[length];
+    for (int k = 0; k < dimension; k += BLOCK) {
+      int n = Math.min(BLOCK, dimension - k);
+      storage.get(k, x, 0, n);
+      read(vector, k, y, n);
+      ret += ArrayKernels.BACKEND.dot(x, 0, y, 0, n);
+    }
+
+    return ret;
+  }
+
+  @Override
+  public OffHeapVector scale(double s) {
+    return arena.copyOf(this).scaleInPlace(s);
+  }
+
+  @Override
+  public OffHeapVector sub(IVector vector) {
+    checkDimension(vector);
+    return arena.copyOf(this).addScaledInPlace(vector, -1);
+  }
+
+  @Override
+  public OffHeapVector sub(IVector... vectors) {
+    if (vectors == null)
+      throw new IllegalArgumentException("Vectors array cannot be null");
+    if (ArrayTools.containsNull(vectors))
+      throw new IllegalArgumentException("Vector array cannot contain nulls");
+    IVector.checkDimensions(vectors, dimension);
+
+    OffHeapVector ret = arena.copyOf(this);
+    for (IVector v : vectors) {
+      ret.addScaledInPlace(v, -1);
+    }
+
+    return ret;
+  }
+
+  @Override
+  public OffHeapVector subtract(IVector vector) {
+    return sub(vector);
+  }
+
+  @Override
+  public OffHeapVector subtract(IVector... vectors) {
+    return sub(vectors);
+  }
+
+  @Override
+  public OffHeapVector cross(IVector a) {
+    return arena.copyOf(toNVector().cross(a).values);
+  }
+
+  @Override
+  public OffHeapVector proj(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Vector projection cannot operate on null values");
+    if (vector.dimension() != dimension)
+      throw new IllegalArgumentException("Dimensional mismatch for projection operation");
+
+    double square = vector.squareAbsoluteValue();
+    return arena.copyOf(vector).scaleInPlace(dot(vector) / square);
+  }
+
+  @Override
+  public OffHeapVector projection(IVector vector) {
+    return proj(vector);
+  }
+
+  @Override
+  public double sproj(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Vector projection cannot operate on null values");
+    if (vector.dimension() != dimension)
+      throw new IllegalArgumentException("Dimensional mismatch for projection operation");
+
+    return dot(vector) / vector.absoluteValue();
+  }
+
+  @Override
+  public double scalarProjection(IVector vector) {
+    return sproj(vector);
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof IVector)
+      return equals((IVector) o);
+    else
+      return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return toNVector().hashCode();
+  }
+
+  @Override
+  public boolean equals(IVector vector) {
+    if (vector == null || vector.dimension() != dimension)
+      return false;
+
+    int length = Math.min(BLOCK, dimension);
+    double[] x = new double[length], y = new double[length];
+    for (int k = 0; k < dimension; k += BLOCK) {
+      int n = Math.min(BLOCK, dimension - k);
+      storage.get(k, x, 0, n);
+      read(vector, k, y, n);
+      for (int i = 0; i < n; i++) {
+        if (x[i] != y[i])
+          return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return toNVector().toString();
+  }
+
+}
@@ -0,0 +1,488 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import java.util.Arrays;
+import upsilon.tools.ArrayTools;
+
+/**
+ * A cloud of N points in 3 dimensions, stored as
+ * three primitive arrays of x, y and z coordinates
+ * rather than as N Vector objects. This costs 24
+ * bytes per point, and lets bulk operations run
+ * along contiguous arrays. Points are read and
+ * written in place, either by index or through a
+ * reusable Cursor. An object of this class is
+ * mutable and not safe for concurrent modification.
+ */
+public final class PointCloud {
+
+  /**
+   * Creates a point cloud which adopts the provided
+   * coordinate arrays as its storage without copying
+   *
+   * @param xs the x coordinates of the points
+   * @param ys the y coordinates of the points
+   * @param zs the z coordinates of the points
+   * @return a point cloud sharing the provided arrays
+   */
+  public static PointCloud wrap(double[] xs, double[] ys, double[] zs) {
+    if (xs == null || ys == null || zs == null)
+      throw new IllegalArgumentException("Coordinate arrays cannot be null");
+    if (xs.length != ys.length || xs.length != zs.length)
+      throw new IllegalArgumentException("Coordinate arrays must be of equal lengths");
+
+    return new PointCloud(xs, ys, zs);
+  }
+
+
+  private final double[] xs, ys, zs;
+
+  /**
+   * Creates a point cloud of the provided number
+   * of points, each at the origin
+   *
+   * @param size the number of points
+   */
+  public PointCloud(int size) {
+    if (size < 0)
+      throw new IllegalArgumentException("Cannot create point cloud of negative size");
+
+    xs = new double[size];
+    ys = new double[size];
+    zs = new double[size];
+  }
+
+  public PointCloud(Vector... points) {
+    if (points == null)
+      throw new IllegalArgumentException("Points array cannot be null");
+    if (ArrayTools.containsNull(points))
+      throw new IllegalArgumentException("Points array cannot contain nulls");
+
+    xs = new double[points.length];
+    ys = new double[points.length];
+    zs = new double[points.length];
+
+    for (int k = 0; k < points.length; k++) {
+      xs[k] = points[k].x;
+      ys[k] = points[k].y;
+      zs[k] = points[k].z;
+    }
+  }
+
+  private PointCloud(double[] xs, double[] ys, double[] zs) {
+    this.xs = xs;
+    this.ys = ys;
+    this.zs = zs;
+  }
+
+
+  private void checkIndex(int k) {
+    if (k < 0 || k >= xs.length)
+      throw new IllegalArgumentException(String.format("Cannot access point cloud (size %d) index %d", xs.length, k));
+  }
+
+  private void checkSize(PointCloud other) {
+    if (other == null)
+      throw new IllegalArgumentException("Point cloud cannot be null");
+    if (other.size() != size())
+      throw new IllegalArgumentException("Mismatching point cloud sizes");
+  }
+
+  private void checkNonEmpty() {
+    if (xs.length == 0)
+      throw new ArithmeticException("Point cloud is empty");
+  }
+
+
+  public int size() {
+    return xs.length;
+  }
+
+  public double getX(int k) {
+    checkIndex(k);
+    return xs[k];
+  }
+
+  public double getY(int k) {
+    checkIndex(k);
+    return ys[k];
+  }
+
+  public double getZ(int k) {
+    checkIndex(k);
+    return zs[k];
+  }
+
+  /**
+   * Returns the point at the provided index as a
+   * new Vector. A Cursor reads points without
+   * allocating.
+   *
+   * @param k the index of the point
+   * @return the point as a vector
+   */
+  public Vector get(int k) {
+    checkIndex(k);
+    return new Vector(xs[k], ys[k], zs[k]);
+  }
+
+  public PointCloud set(int k, double x, double y, double z) {
+    checkIndex(k);
+    xs[k] = x;
+    ys[k] = y;
+    zs[k] = z;
+    return this;
+  }
+
+  public PointCloud set(int k, Vector point) {
+    if (point == null)
+      throw new IllegalArgumentException("Point cannot be null");
+
+    return set(k, point.x, point.y, point.z);
+  }
+
+  /**
+   * Returns the array of x coordinates backing this
+   * point cloud. Changes to the array are changes to
+   * the points.
+   *
+   * @return the backing array of x coordinates
+   */
+  public double[] xs() {
+    return xs;
+  }
+
+  /**
+   * Returns the array of y coordinates backing this
+   * point cloud
+   *
+   * @return the backing array of y coordinates
+   */
+  public double[] ys() {
+    return ys;
+  }
+
+  /**
+   * Returns the array of z coordinates backing this
+   * point cloud
+   *
+   * @return the backing array of z coordinates
+   */
+  public double[] zs() {
+    return zs;
+  }
+
+  /**
+   * Returns a cursor positioned before the first
+   * point of this point cloud
+   *
+   * @return a new cursor over this point cloud
+   */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+
+  /* Bulk operations */
+
+  /**
+   * Transforms every point of this point cloud by
+   * the provided matrix in place
+   *
+   * @param m the matrix by which to transform
+   * @return this point cloud
+   */
+  public PointCloud transform(Matrix m) {
+    if (m == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+
+    m.transform(xs, ys, zs);
+    return this;
+  }
+
+  /**
+   * Transforms every point of this point cloud by
+   * the provided matrix into the destination, which
+   * may be this point cloud
+   *
+   * @param m the matrix by which to transform
+   * @param dest the point cloud receiving the results
+   * @return the destination point cloud
+   */
+  public PointCloud transform(Matrix m, PointCloud dest) {
+    if (m == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    checkSize(dest);
+
+    m.transform(xs, ys, zs, dest.xs, dest.ys, dest.zs);
+    return dest;
+  }
+
+  /**
+   * Transforms every point of this point cloud by
+   * the provided matrix and then translates it,
+   * in place
+   *
+   * @param m the matrix by which to transform
+   * @param translation the translation applied after the matrix
+   * @return this point cloud
+   */
+  public PointCloud affineTransform(Matrix m, Vector translation) {
+    if (m == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+
+    m.affineTransform(translation, xs, ys, zs);
+    return this;
+  }
+
+  public PointCloud translate(Vector translation) {
+    return affineTransform(Matrix.IDENTITY, translation);
+  }
+
+  /**
+   * Returns a copy of this point cloud which does
+   * not share its arrays
+   *
+   * @return a new point cloud of the same points
+   */
+  public PointCloud copy() {
+    return new PointCloud(xs.clone(), ys.clone(), zs.clone());
+  }
+
+  public Vector[] toVectors() {
+    Vector[] ret = new Vector[xs.length];
+    for (int k = 0; k < ret.length; k++) {
+      ret[k] = new Vector(xs[k], ys[k], zs[k]);
+    }
+    return ret;
+  }
+
+
+  /* Statistics */
+
+  /**
+   * Calculates the centroid (the average) of the
+   * points of this point cloud
+   *
+   * @return the centroid
+   */
+  public Vector centroid() {
+    checkNonEmpty();
+
+    double n = xs.length;
+    return new Vector(
+            ArrayKernels.BACKEND.sum(xs, xs.length) / n,
+            ArrayKernels.BACKEND.sum(ys, ys.length) / n,
+            ArrayKernels.BACKEND.sum(zs, zs.length) / n
+      );
+  }
+
+  /**
+   * Calculates the weighted centroid of the points
+   * of this point cloud. The weights do not need
+   * to sum to one.
+   *
+   * @param weights the weight of each point
+   * @return the weighted centroid
+   */
+  public Vector weightedCentroid(double[] weights) {
+    if (weights == null)
+      throw new IllegalArgumentException("Weight array cannot be null");
+    if (weights.length != xs.length)
+      throw new IllegalArgumentException(String.format("Array length mismatch (%d != %d)", xs.length, weights.length));
+    checkNonEmpty();
+
+    double total = ArrayKernels.BACKEND.sum(weights, weights.length);
+    return new Vector(
+            ArrayKernels.BACKEND.dot(xs, 0, weights, 0, xs.length) / total,
+            ArrayKernels.BACKEND.dot(ys, 0, weights, 0, ys.length) / total,
+            ArrayKernels.BACKEND.dot(zs, 0, weights, 0, zs.length) / total
+      );
+  }
+
+  /**
+   * Finds the axis-aligned bounding box of the
+   * points of this point cloud
+   *
+   * @return the minimum and maximum corners, in that order
+   */
+  public Vector[] boundingBox() {
+    checkNonEmpty();
+
+    double
+            minX = xs[0], minY = ys[0], minZ = zs[0],
+            maxX = minX, maxY = minY, maxZ = minZ
+                    ;
+
+    for (int k = 1; k < xs.length; k++) {
+      double x = xs[k], y = ys[k], z = zs[k];
+      minX = Math.min(minX, x);
+      maxX = Math.max(maxX, x);
+      minY = Math.min(minY, y);
+      maxY = Math.max(maxY, y);
+      minZ = Math.min(minZ, z);
+      maxZ = Math.max(maxZ, z);
+    }
+
+    return new Vector[] {
+            new Vector(minX, minY, minZ),
+            new Vector(maxX, maxY, maxZ),
+      };
+  }
+
+  /**
+   * Calculates the 3x3 sample covariance matrix of
+   * the coordinates of the points of this point
+   * cloud, as JStats.covariance(double[], double[])
+   * calculates the covariance of each pair of
+   * coordinates
+   *
+   * @return the covariance matrix
+   */
+  public Matrix covariance() {
+    if (xs.length < 2)
+      throw new ArithmeticException("Cannot calculate covariance of fewer than two points");
+
+    Vector c = centroid();
+    double density = 1d / (xs.length - 1);
+    int n = xs.length;
+
+    double
+            xx = density * ArrayKernels.BACKEND.sumOfSquaredDeviations(xs, c.x, n),
+            yy = density * ArrayKernels.BACKEND.sumOfSquaredDeviations(ys, c.y, n),
+            zz = density * ArrayKernels.BACKEND.sumOfSquaredDeviations(zs, c.z, n),
+            xy = density * ArrayKernels.BACKEND.sumOfProductDeviations(xs, c.x, ys, c.y, n),
+            xz = density * ArrayKernels.BACKEND.sumOfProductDeviations(xs, c.x, zs, c.z, n),
+            yz = density * ArrayKernels.BACKEND.sumOfProductDeviations(ys, c.y, zs, c.z, n)
+                    ;
+
+    return new Matrix(
+            xx, xy, xz,
+            xy, yy, yz,
+            xz, yz, zz
+      );
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof PointCloud))
+      return false;
+
+    PointCloud other = (PointCloud) o;
+    return
+            Arrays.equals(xs, other.xs) &&
+            Arrays.equals(ys, other.ys) &&
+            Arrays.equals(zs, other.zs)
+            ;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * Arrays.hashCode(xs) + Arrays.hashCode(ys)) + Arrays.hashCode(zs);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+
+    sb.append("{");
+    for (int k = 0; k < xs.length; k++) {
+      if (k != 0)
+        sb.append(",");
+      sb.append(String.format("[%s,%s,%s]", xs[k], ys[k], zs[k]));
+    }
+    sb.append("}");
+
+    return sb.toString();
+  }
+
+
+  /**
+   * A movable reference to a single point of a
+   * point cloud, through which the point may be
+   * read and written without allocating a Vector.
+   * A cursor starts before the first point.
+   */
+  public final class Cursor {
+
+    private int index = -1;
+
+    private Cursor() {
+    }
+
+    /**
+     * Advances this cursor to the next point
+     *
+     * @return false if there was no next point
+     */
+    public boolean next() {
+      if (index + 1 >= xs.length)
+        return false;
+
+      index++;
+      return true;
+    }
+
+    /**
+     * Moves this cursor to the point at the
+     * provided index
+     *
+     * @param k the index of the point
+     * @return this cursor
+     */
+    public Cursor moveTo(int k) {
+      checkIndex(k);
+      index = k;
+      return this;
+    }
+
+    public int index() {
+      return index;
+    }
+
+    public double getX() {
+      return xs[index];
+    }
+
+    public double getY() {
+      return ys[index];
+    }
+
+    public double getZ() {
+      return zs[index];
+    }
+
+    public Cursor set(double x, double y, double z) {
+      xs[index] = x;
+      ys[index] = y;
+      zs[index] = z;
+      return this;
+    }
+
+    public Vector toVector() {
+      return new Vector(xs[index], ys[index], zs[index]);
+    }
+
+  }
+
+}
@@ -0,0 +1,333 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+/**
+ * The QR decomposition of a matrix computed by
+ * Householder reflections, A = Q * R, where Q has
+ * orthonormal columns and R is upper triangular.
+ * Blocks of reflections are applied together in
+ * their compact WY form (I - Y * T * Y^T) through
+ * the blocked matrix multiplication kernel. An
+ * object of this class is immutable and may be
+ * used to solve any number of (least-squares)
+ * systems against the same matrix.
+ */
+public class QRDecomposition {
+
+  /* Number of reflections applied together to the trailing columns */
+  private static final int BLOCK = 32;
+
+
+  private final int rows, columns, reflections;
+
+  /*
+   * The decomposition held by columns: column 'j' of the
+   * matrix occupies [j * rows, (j + 1) * rows). R is on
+   * and above the diagonal, and the Householder vectors
+   * (with implicit leading ones) are below it.
+   */
+  private final double[] qr;
+  private final double[] tau;
+
+  QRDecomposition(NMatrix matrix) {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+
+    rows = matrix.numberOfRows();
+    columns = matrix.numberOfColumns();
+    reflections = Math.min(rows, columns);
+
+    qr = new double[rows * columns];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        qr[j * rows + i] = matrix.values[i * columns + j];
+      }
+    }
+    tau = new double[reflections];
+
+    for (int k = 0; k < reflections; k += BLOCK) {
+      int nb = Math.min(BLOCK, reflections - k);
+
+      for (int j = k; j < k + nb; j++) {
+        reflect(j);
+        for (int c = j + 1; c < k + nb; c++) {
+          applyReflection(j, qr, c * rows);
+        }
+      }
+
+      if (k + nb < columns)
+        applyBlock(k, nb);
+    }
+  }
+
+  /* Computes the reflection zeroing column 'j' below the diagonal */
+  private void reflect(int j) {
+    int offset = j * rows + j, length = rows - j;
+
+    double norm = Math.sqrt(ArrayKernels.BACKEND.dot(qr, offset, qr, offset, length));
+    if (norm == 0)
+      return;
+
+    double alpha = qr[offset];
+    double beta = alpha >= 0 ? -norm : norm;
+    double scale = 1 / (alpha - beta);
+
+    for (int i = 1; i < length; i++) {
+      qr[offset + i] *= scale;
+    }
+    qr[offset] = beta;
+    tau[j] = (beta - alpha) / beta;
+  }
+
+  /* Applies reflection 'j' to the column of 'x' starting at 'offset' */
+  private void applyReflection(int j, double[] x, int offset) {
+    if (tau[j] == 0)
+      return;
+
+    int v = j * rows + j + 1, length = rows - j - 1;
+    double w = tau[j] * (x[offset + j] + ArrayKernels.BACKEND.dot(qr, v, x, offset + j + 1, length));
+
+    x[offset + j] -= w;
+    ArrayKernels.BACKEND.axpy(-w, qr, v, x, offset + j + 1, length);
+  }
+
+  /*
+   * Applies reflections k .. k + nb - 1 to the trailing
+   * columns as C = C - Y * T^T * (Y^T * C), which, with
+   * the columns of C held contiguously, is computed as
+   * C^T = C^T - ((C^T * Y) * T) * Y^T
+   */
+  private void applyBlock(int k, int nb) {
+    int length = rows - k, trailing = columns - k - nb;
+
+    double[] y = new double[nb * length];
+    for (int p = 0; p < nb; p++) {
+      y[p * length + p] = 1;
+      System.arraycopy(qr, (k + p) * rows + k + p + 1, y, p * length + p + 1, length - p - 1);
+    }
+
+    double[] t = new double[nb * nb];
+    for (int i = 0; i < nb; i++) {
+      t[i * nb + i] = tau[k + i];
+      for (int j = 0; j < i; j++) {
+        double z = ArrayKernels.BACKEND.dot(y, j * length, y, i * length, length);
+        for (int p = 0; p <= j; p++) {
+          t[p * nb + i] -= tau[k + i] * t[p * nb + j] * z;
+        }
+      }
+    }
+
+    double[] w = new double[trailing * nb], wt = new double[trailing * nb];
+    int c = (k + nb) * rows + k;
+
+    MatrixKernel.multiply(
+            trailing, nb, length, 1,
+            qr, c, rows, 1,
+            y, 0, 1, length,
+            w, 0, nb
+      );
+    MatrixKernel.multiply(
+            trailing, nb, nb, 1,
+            w, 0, nb, 1,
+            t, 0, nb, 1,
+            wt, 0, nb
+      );
+    MatrixKernel.multiply(
+            trailing, length, nb, -1,
+            wt, 0, nb, 1,
+            y, 0, length, 1,
+            qr, c, rows
+      );
+  }
+
+
+  public int numberOfRows() {
+    return rows;
+  }
+
+  public int numberOfColumns() {
+    return columns;
+  }
+
+  /**
+   * Returns whether the decomposed matrix has full
+   * column rank (no zero on the diagonal of R)
+   *
+   * @return true if R is non-singular
+   */
+  public boolean isFullRank() {
+    if (rows < columns)
+      return false;
+
+    for (int j = 0; j < columns; j++) {
+      if (qr[j * rows + j] == 0)
+        return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns the upper triangular factor R, of size
+   * min(rows, columns) x columns
+   *
+   * @return the R factor
+   */
+  public NMatrix getR() {
+    double[] ret = new double[reflections * columns];
+
+    for (int i = 0; i < reflections; i++) {
+      for (int j = i; j < columns; j++) {
+        ret[i * columns + j] = qr[j * rows + i];
+      }
+    }
+
+    return NMatrix.wrap(reflections, columns, ret);
+  }
+
+  /**
+   * Returns the factor Q with orthonormal columns,
+   * of size rows x min(rows, columns)
+   *
+   * @return the Q factor
+   */
+  public NMatrix getQ() {
+    double[] q = new double[reflections * rows];
+
+    for (int p = 0; p < reflections; p++) {
+      q[p * rows + p] = 1;
+      for (int j = p; j >= 0; j--) {
+        applyReflection(j, q, p * rows);
+      }
+    }
+
+    double[] ret = new double[rows * reflections];
+    for (int i = 0; i < rows; i++) {
+      for (int p = 0; p < reflections; p++) {
+        ret[i * reflections + p] = q[p * rows + i];
+      }
+    }
+
+    return NMatrix.wrap(rows, reflections, ret);
+  }
+
+  /**
+   * Calculates the determinant of a decomposed
+   * square matrix
+   *
+   * @return the determinant
+   */
+  public double determinant() {
+    if (rows != columns)
+      throw new ArithmeticException(String.format("Cannot find determinant of non-square matrix (%dx%d)", rows, columns));
+
+    double ret = 1;
+    for (int j = 0; j < columns; j++) {
+      ret *= qr[j * rows + j];
+      if (tau[j] != 0)
+        ret = -ret;
+    }
+
+    return ret;
+  }
+
+
+  /**
+   * Finds the x minimizing |A * x - b|, which for
+   * a square matrix solves A * x = b
+   *
+   * @param b the right-hand side
+   * @return the least-squares solution
+   */
+  public NVector solve(IVector b) {
+    if (b == null)
+      throw new IllegalArgumentException("Right-hand side vector cannot be null");
+    if (b.dimension() != rows)
+      throw new IllegalArgumentException("Dimensional mismatch on linear solve");
+    checkFullRank();
+
+    double[] x = b.toArray();
+    solveInPlace(x, 0);
+
+    double[] ret = new double[columns];
+    System.arraycopy(x, 0, ret, 0, columns);
+
+    return NVector.wrap(ret);
+  }
+
+  /**
+   * Finds the least-squares solution of A * X = B,
+   * treating each column of B as a right-hand side
+   *
+   * @param b the right-hand side matrix
+   * @return the least-squares solution matrix
+   */
+  public NMatrix solve(IMatrix b) {
+    if (b == null)
+      throw new IllegalArgumentException("Right-hand side matrix cannot be null");
+    if (b.numberOfRows() != rows)
+      throw new IllegalArgumentException("Dimensional mismatch on linear solve");
+    checkFullRank();
+
+    int count = b.numberOfColumns();
+    double[] x = new double[count * rows];
+    for (int i = 0; i < rows; i++) {
+      for (int c = 0; c < count; c++) {
+        x[c * rows + i] = b.get(i, c);
+      }
+    }
+
+    double[] ret = new double[columns * count];
+    for (int c = 0; c < count; c++) {
+      solveInPlace(x, c * rows);
+      for (int i = 0; i < columns; i++) {
+        ret[i * count + c] = x[c * rows + i];
+      }
+    }
+
+    return NMatrix.wrap(columns, count, ret);
+  }
+
+
+  private void checkFullRank() {
+    if (!isFullRank())
+      throw new ArithmeticException("Cannot solve system of rank deficient matrix");
+  }
+
+  /* Applies Q^T then solves with R, leaving x in the first 'columns' entries */
+  private void solveInPlace(double[] x, int offset) {
+
+    for (int j = 0; j < reflections; j++) {
+      applyReflection(j, x, offset);
+    }
+
+    for (int i = columns - 1; i >= 0; i--) {
+      double s = x[offset + i];
+      for (int j = i + 1; j < columns; j++) {
+        s -= qr[j * rows + i] * x[offset + j];
+      }
+      x[offset + i] = s / qr[i * rows + i];
+    }
+
+  }
+
+}
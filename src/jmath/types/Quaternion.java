@@ -0,0 +1,449 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import jmath.JMath;
+import upsilon.tools.ArrayTools;
+
+/**
+ * Class for performing mathematics with
+ * quaternions, in particular for representing
+ * rotations in 3 dimensions. An object of this
+ * class represents the single quaternion
+ * w + xi + yj + zk. Rotations are represented by
+ * unit quaternions, and are composed by
+ * multiplication: a.multiply(b) rotates by 'b'
+ * and then by 'a', as a.toMatrix().multiply(
+ * b.toMatrix()) does.
+ */
+public class Quaternion extends MObject {
+
+  public static final Quaternion
+          IDENTITY = new Quaternion(1, 0, 0, 0),
+          ZERO = new Quaternion(0, 0, 0, 0)
+          ;
+
+  /**
+   * Returns the rotation about the provided axis
+   * by the provided angle
+   *
+   * @param axis the axis of rotation, which need not be of unit length
+   * @param angle the angle of rotation in radians
+   * @return the unit quaternion of the rotation
+   */
+  public static Quaternion axisAngle(Vector axis, double angle) {
+    if (axis == null)
+      throw new IllegalArgumentException("Axis cannot be null");
+
+    double length = axis.magnitude();
+    if (length == 0)
+      throw new ArithmeticException("Cannot rotate about a zero axis");
+
+    double s = JMath.sin(angle / 2) / length;
+    return new Quaternion(JMath.cos(angle / 2), axis.x * s, axis.y * s, axis.z * s);
+  }
+
+  /**
+   * Returns the rotation equal to that of
+   * Matrix.rotation(phi, theta, psi)
+   *
+   * @param phi the angle of rotation about the x axis
+   * @param theta the angle of rotation about the y axis
+   * @param psi the angle of rotation about the z axis
+   * @return the unit quaternion of the rotation
+   */
+  public static Quaternion rotation(double phi, double theta, double psi) {
+    double
+            ca = JMath.cos(phi / 2), sa = JMath.sin(phi / 2),
+            cb = JMath.cos(theta / 2), sb = JMath.sin(theta / 2),
+            cc = JMath.cos(psi / 2), sc = JMath.sin(psi / 2)
+                    ;
+
+    /* The product xRotation(phi) * yRotation(theta) * zRotation(psi) */
+    return new Quaternion(
+            ca * cb * cc - sa * sb * sc,
+            sa * cb * cc + ca * sb * sc,
+            ca * sb * cc - sa * cb * sc,
+            ca * cb * sc + sa * sb * cc
+      );
+  }
+
+  public static Quaternion xRotation(double theta) {
+    return new Quaternion(JMath.cos(theta / 2), JMath.sin(theta / 2), 0, 0);
+  }
+
+  public static Quaternion yRotation(double theta) {
+    return new Quaternion(JMath.cos(theta / 2), 0, JMath.sin(theta / 2), 0);
+  }
+
+  public static Quaternion zRotation(double theta) {
+    return new Quaternion(JMath.cos(theta / 2), 0, 0, JMath.sin(theta / 2));
+  }
+
+  /**
+   * Returns the unit quaternion of the rotation
+   * represented by the provided matrix, which must
+   * be orthogonal with a determinant of one
+   *
+   * @param m the rotation matrix
+   * @return the unit quaternion of the rotation
+   */
+  public static Quaternion fromMatrix(Matrix m) {
+    if (m == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+
+    /* Divides by the largest of 4w^2, 4x^2, 4y^2 and 4z^2 for stability */
+    double trace = m.m00 + m.m11 + m.m22, s;
+    Quaternion ret;
+
+    if (trace > 0) {
+      s = JMath.sqrt(trace + 1) * 2;
+      ret = new Quaternion(s / 4, (m.m21 - m.m12) / s, (m.m02 - m.m20) / s, (m.m10 - m.m01) / s);
+    }
+    else if (m.m00 > m.m11 && m.m00 > m.m22) {
+      s = JMath.sqrt(1 + m.m00 - m.m11 - m.m22) * 2;
+      ret = new Quaternion((m.m21 - m.m12) / s, s / 4, (m.m01 + m.m10) / s, (m.m02 + m.m20) / s);
+    }
+    else if (m.m11 > m.m22) {
+      s = JMath.sqrt(1 + m.m11 - m.m00 - m.m22) * 2;
+      ret = new Quaternion((m.m02 - m.m20) / s, (m.m01 + m.m10) / s, s / 4, (m.m12 + m.m21) / s);
+    }
+    else {
+      s = JMath.sqrt(1 + m.m22 - m.m00 - m.m11) * 2;
+      ret = new Quaternion((m.m10 - m.m01) / s, (m.m02 + m.m20) / s, (m.m12 + m.m21) / s, s / 4);
+    }
+
+    return ret.normalize();
+  }
+
+
+  /* Multiplication methods */
+
+  public static Quaternion multiply(Quaternion a, Quaternion b) {
+    if (a == null || b == null)
+      throw new IllegalArgumentException("Cannot multiply null");
+
+    return new Quaternion(
+            a.w * b.w - a.x * b.x - a.y * b.y - a.z * b.z,
+            a.w * b.x + a.x * b.w + a.y * b.z - a.z * b.y,
+            a.w * b.y - a.x * b.z + a.y * b.w + a.z * b.x,
+            a.w * b.z + a.x * b.y - a.y * b.x + a.z * b.w
+      );
+  }
+
+  public static Quaternion multiply(Quaternion... values) {
+    if (values == null)
+      throw new IllegalArgumentException("Cannot multiply null array");
+    if (ArrayTools.containsNull(values))
+      throw new IllegalArgumentException("Cannot multiply array containing null");
+    if (values.length == 0)
+      return IDENTITY;
+
+    Quaternion ret = values[0];
+    for (int k = 1; k < values.length; k++) {
+      ret = multiply(ret, values[k]);
+    }
+
+    return ret;
+  }
+
+  public static double dot(Quaternion a, Quaternion b) {
+    if (a == null || b == null)
+      throw new IllegalArgumentException("Quaternion inner product cannot operate on null values");
+
+    return a.w * b.w + a.x * b.x + a.y * b.y + a.z * b.z;
+  }
+
+  /**
+   * Spherically interpolates between two rotations
+   * along the shorter arc, at constant angular
+   * velocity in 't'
+   *
+   * @param a the rotation at t = 0
+   * @param b the rotation at t = 1
+   * @param t the interpolation parameter
+   * @return the interpolated unit quaternion
+   */
+  public static Quaternion slerp(Quaternion a, Quaternion b, double t) {
+    if (a == null || b == null)
+      throw new IllegalArgumentException("Cannot interpolate null");
+
+    Quaternion qa = a.normalize(), qb = b.normalize();
+    double cos = dot(qa, qb);
+
+    /* q and -q are the same rotation; the shorter arc is taken */
+    if (cos < 0) {
+      qb = qb.negative();
+      cos = -cos;
+    }
+
+    double sa, sb;
+    if (cos > 1 - 1e-9) {
+      /* Nearly parallel: linear interpolation avoids dividing by sin(angle) ~ 0 */
+      sa = 1 - t;
+      sb = t;
+    }
+    else {
+      double angle = JMath.acos(cos), sin = JMath.sin(angle);
+      sa = JMath.sin((1 - t) * angle) / sin;
+      sb = JMath.sin(t * angle) / sin;
+    }
+
+    return new Quaternion(
+            sa * qa.w + sb * qb.w,
+            sa * qa.x + sb * qb.x,
+            sa * qa.y + sb * qb.y,
+            sa * qa.z + sb * qb.z
+      ).normalize();
+  }
+
+
+
+
+  public final double w, x, y, z;
+
+  public Quaternion(double w, double x, double y, double z) {
+    super(Type.QUATERNION);
+    this.w = w;
+    this.x = x;
+    this.y = y;
+    this.z = z;
+  }
+
+  public Quaternion(double w, Vector v) {
+    this(w, checkVector(v).x, v.y, v.z);
+  }
+
+  private static Vector checkVector(Vector v) {
+    if (v == null)
+      throw new IllegalArgumentException("Vector cannot be null");
+    return v;
+  }
+
+
+  /* Unary operations */
+
+  public Quaternion negative() {
+    return new Quaternion(-w, -x, -y, -z);
+  }
+
+  public Quaternion conjugate() {
+    return new Quaternion(w, -x, -y, -z);
+  }
+
+  public Quaternion inverse() {
+    double n = squareAbsoluteValue();
+    if (n == 0)
+      throw new ArithmeticException("Cannot invert zero quaternion");
+
+    return new Quaternion(w / n, -x / n, -y / n, -z / n);
+  }
+
+  public Quaternion normalize() {
+    double n = absoluteValue();
+    if (n == 0)
+      throw new ArithmeticException("Cannot normalize zero quaternion");
+
+    return new Quaternion(w / n, x / n, y / n, z / n);
+  }
+
+  public double magnitude() { /* Alias of absoluteValue() */
+    return absoluteValue();
+  }
+
+  public double absoluteValue() {
+    return JMath.sqrt(squareAbsoluteValue());
+  }
+
+  public double squareAbsoluteValue() {
+    return w * w + x * x + y * y + z * z;
+  }
+
+  /**
+   * Returns the vector (imaginary) part of this
+   * quaternion
+   *
+   * @return the vector (x, y, z)
+   */
+  public Vector vector() {
+    return new Vector(x, y, z);
+  }
+
+  /**
+   * Returns the angle of the rotation represented
+   * by this unit quaternion
+   *
+   * @return the angle in radians, in [0, 2 pi]
+   */
+  public double angle() {
+    return 2 * JMath.atan2(JMath.sqrt(x * x + y * y + z * z), w);
+  }
+
+
+  /* Binary operations */
+
+  /**
+   * Multiplies this quaternion by another, such that
+   * the result rotates by 'q' and then by this
+   *
+   * @param q the right-hand operand
+   * @return the product
+   */
+  public Quaternion multiply(Quaternion q) {
+    return multiply(this, q);
+  }
+
+  public Quaternion scale(double s) {
+    return new Quaternion(w * s, x * s, y * s, z * s);
+  }
+
+
+  /* Rotation */
+
+  /**
+   * Returns the rotation matrix of this quaternion,
+   * which is first normalized
+   *
+   * @return the rotation matrix
+   */
+  public Matrix toMatrix() {
+    double n = squareAbsoluteValue();
+    if (n == 0)
+      throw new ArithmeticException("Cannot find rotation of zero quaternion");
+
+    double
+            s = 2 / n,
+            xx = s * x * x, yy = s * y * y, zz = s * z * z,
+            xy = s * x * y, xz = s * x * z, yz = s * y * z,
+            wx = s * w * x, wy = s * w * y, wz = s * w * z
+                    ;
+
+    return new Matrix(
+            1 - yy - zz, xy - wz, xz + wy,
+            xy + wz, 1 - xx - zz, yz - wx,
+            xz - wy, yz + wx, 1 - xx - yy
+      );
+  }
+
+  /**
+   * Rotates the provided vector by the rotation
+   * of this quaternion. As with every rotate(...)
+   * method and toMatrix(), a quaternion which is
+   * not of unit length is normalized first, so
+   * the vector is never scaled.
+   *
+   * @param v the vector to rotate
+   * @return the rotated vector
+   */
+  public Vector rotate(Vector v) {
+    if (v == null)
+      throw new IllegalArgumentException("Vector cannot be null");
+
+    double n = squareAbsoluteValue();
+    if (n == 0)
+      throw new ArithmeticException("Cannot find rotation of zero quaternion");
+
+    /* v + (w t + u x t) / |q|^2, where u = (x, y, z) and t = 2 u x v */
+    double
+            s = 1 / n,
+            tx = 2 * (y * v.z - z * v.y),
+            ty = 2 * (z * v.x - x * v.z),
+            tz = 2 * (x * v.y - y * v.x)
+                    ;
+
+    return new Vector(
+            v.x + s * (w * tx + y * tz - z * ty),
+            v.y + s * (w * ty + z * tx - x * tz),
+            v.z + s * (w * tz + x * ty - y * tx)
+      );
+  }
+
+  /**
+   * Rotates each of the provided vectors by the
+   * rotation of this quaternion, normalized as by
+   * rotate(Vector)
+   *
+   * @param vectors the vectors to rotate
+   * @return a new array of the rotated vectors
+   */
+  public Vector[] rotate(Vector... vectors) {
+    if (vectors == null)
+      throw new IllegalArgumentException("Vectors array cannot be null");
+    if (ArrayTools.containsNull(vectors))
+      throw new IllegalArgumentException("Vector array cannot contain nulls");
+
+    Vector[] ret = new Vector[vectors.length];
+    for (int k = 0; k < ret.length; k++) {
+      ret[k] = rotate(vectors[k]);
+    }
+
+    return ret;
+  }
+
+  /**
+   * Rotates each of the points (xs[k], ys[k], zs[k])
+   * by the rotation of this quaternion in place,
+   * normalized as by rotate(Vector), through its
+   * rotation matrix (see Matrix.transform(double[],
+   * double[], double[]))
+   *
+   * @param xs the x coordinates of the points
+   * @param ys the y coordinates of the points
+   * @param zs the z coordinates of the points
+   */
+  public void rotate(double[] xs, double[] ys, double[] zs) {
+    toMatrix().transform(xs, ys, zs);
+  }
+
+  /**
+   * Rotates every point of the provided point
+   * cloud by the rotation of this quaternion in
+   * place, normalized as by rotate(Vector)
+   *
+   * @param points the point cloud to rotate
+   * @return the point cloud
+   */
+  public PointCloud rotate(PointCloud points) {
+    if (points == null)
+      throw new IllegalArgumentException("Point cloud cannot be null");
+
+    return points.transform(toMatrix());
+  }
+
+
+  @Override
+  public String toString() {
+    return String.format("[%s,%s,%s,%s]", w, x, y, z);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof Quaternion)
+      return equals((Quaternion) o);
+    else
+      return false;
+  }
+
+  public boolean equals(Quaternion q) {
+    return q != null && q.w == w && q.x == x && q.y == y && q.z == z;
+  }
+
+}
@@ -0,0 +1,198 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+/**
+ * The portable backend of the array kernels,
+ * written as plain scalar loops
+ */
+class ScalarKernelBackend extends KernelBackend {
+
+  private static final int FLOAT_BLOCK = 1024;
+
+  @Override
+  boolean isAccelerated() {
+    return false;
+  }
+
+  @Override
+  double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+    double ret = 0;
+    for (int k = 0; k < length; k++) {
+      ret += a[aOffset + k] * b[bOffset + k];
+    }
+    return ret;
+  }
+
+  @Override
+  void axpy(double s, double[] x, int xOffset, double[] y, int yOffset, int length) {
+    for (int k = 0; k < length; k++) {
+      y[yOffset + k] += s * x[xOffset + k];
+    }
+  }
+
+  @Override
+  void add(double[] a, double[] b, double[] out, int length) {
+    for (int k = 0; k < length; k++) {
+      out[k] = a[k] + b[k];
+    }
+  }
+
+  @Override
+  void scale(double s, double[] x, double[] out, int length) {
+    for (int k = 0; k < length; k++) {
+      out[k] = s * x[k];
+    }
+  }
+
+  @Override
+  double sum(double[] x, int length) {
+    double ret = 0;
+    for (int k = 0; k < length; k++) {
+      ret += x[k];
+    }
+    return ret;
+  }
+
+  @Override
+  double sumOfSquares(double[] x, int length) {
+    double ret = 0;
+    for (int k = 0; k < length; k++) {
+      ret += x[k] * x[k];
+    }
+    return ret;
+  }
+
+  @Override
+  double sumOfSquaredDeviations(double[] x, double mean, int length) {
+    double ret = 0;
+    for (int k = 0; k < length; k++) {
+      double d = x[k] - mean;
+      ret += d * d;
+    }
+    return ret;
+  }
+
+  @Override
+  double sumOfProductDeviations(double[] x, double xMean, double[] y, double yMean, int length) {
+    double ret = 0;
+    for (int k = 0; k < length; k++) {
+      ret += (x[k] - xMean) * (y[k] - yMean);
+    }
+    return ret;
+  }
+
+  @Override
+  void affine3(
+          double[] m,
+          double[] xs, double[] ys, double[] zs,
+          double[] xOut, double[] yOut, double[] zOut,
+          int offset, int length
+    ) {
+    double
+            m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3],
+            m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7],
+            m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11]
+                    ;
+
+    for (int k = offset, end = offset + length; k < end; k++) {
+      double x = xs[k], y = ys[k], z = zs[k];
+      xOut[k] = m00 * x + m01 * y + m02 * z + m03;
+      yOut[k] = m10 * x + m11 * y + m12 * z + m13;
+      zOut[k] = m20 * x + m21 * y + m22 * z + m23;
+    }
+  }
+
+
+  /*
+   * Sums blocks of FLOAT_BLOCK products in four
+   * independent single precision accumulators, so
+   * that the additions may overlap, before adding
+   * each block to a double total
+   */
+  @Override
+  double dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+    double ret = 0;
+    int k = 0;
+
+    for (int block = 0; block < length; block += FLOAT_BLOCK) {
+      int end = Math.min(length, block + FLOAT_BLOCK), bound = end - 3;
+      float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+
+      for (k = block; k < bound; k += 4) {
+        s0 += a[aOffset + k] * b[bOffset + k];
+        s1 += a[aOffset + k + 1] * b[bOffset + k + 1];
+        s2 += a[aOffset + k + 2] * b[bOffset + k + 2];
+        s3 += a[aOffset + k + 3] * b[bOffset + k + 3];
+      }
+      for (; k < end; k++) {
+        s0 += a[aOffset + k] * b[bOffset + k];
+      }
+
+      ret += (s0 + s1) + (s2 + s3);
+    }
+
+    return ret;
+  }
+
+  @Override
+  void axpy(float s, float[] x, int xOffset, float[] y, int yOffset, int length) {
+    for (int k = 0; k < length; k++) {
+      y[yOffset + k] += s * x[xOffset + k];
+    }
+  }
+
+  @Override
+  void add(float[] a, float[] b, float[] out, int length) {
+    for (int k = 0; k < length; k++) {
+      out[k] = a[k] + b[k];
+    }
+  }
+
+  @Override
+  void scale(float s, float[] x, float[] out, int length) {
+    for (int k = 0; k < length; k++) {
+      out[k] = s * x[k];
+    }
+  }
+
+  @Override
+  double sumOfSquares(float[] x, int length) {
+    return dot(x, 0, x, 0, length);
+  }
+
+
+  @Override
+  boolean hasMultiplyTile() {
+    return false;
+  }
+
+  @Override
+  void multiplyTile(
+          int kc, double alpha,
+          double[] a, int aIndex,
+          double[] b, int bIndex,
+          double[] c, int cIndex, int cRowStride
+    ) {
+    throw new UnsupportedOperationException("Scalar backend does not provide a multiplication tile");
+  }
+
+}
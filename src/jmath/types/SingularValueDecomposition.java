@@ -0,0 +1,306 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import java.util.Arrays;
+
+/**
+ * The singular value decomposition of a matrix,
+ * A = U * S * V^T, computed by the one-sided Jacobi
+ * method. U (rows x k) and V (columns x k) have
+ * orthonormal columns, where k = min(rows, columns),
+ * and S is diagonal with the singular values in
+ * decreasing order. Columns of U belonging to zero
+ * singular values are left zero. An object of this
+ * class is immutable.
+ */
+public class SingularValueDecomposition {
+
+  private static final int MAX_SWEEPS = 75;
+  private static final double EPSILON = Math.ulp(1.0);
+
+
+  private final int rows, columns, k;
+  private final double[] u, v, singularValues;
+
+  SingularValueDecomposition(NMatrix matrix) {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+
+    rows = matrix.numberOfRows();
+    columns = matrix.numberOfColumns();
+    k = Math.min(rows, columns);
+
+    /*
+     * Orthogonalizes the columns of A, or of A^T when A is
+     * wide, held contiguously: 'w' has 'k' columns of
+     * length 'm', and 'z' accumulates the rotations
+     */
+    boolean wide = rows < columns;
+    int m = wide ? columns : rows;
+
+    double[] w = new double[k * m];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        double value = matrix.values[i * columns + j];
+        if (wide)
+          w[i * m + j] = value;
+        else
+          w[j * m + i] = value;
+      }
+    }
+
+    double[] z = new double[k * k];
+    for (int j = 0; j < k; j++) {
+      z[j * k + j] = 1;
+    }
+
+    orthogonalize(w, m, z);
+
+    double[] norms = new double[k];
+    Integer[] order = new Integer[k];
+    for (int j = 0; j < k; j++) {
+      norms[j] = Math.sqrt(ArrayKernels.BACKEND.dot(w, j * m, w, j * m, m));
+      order[j] = j;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(norms[b], norms[a]));
+
+    singularValues = new double[k];
+    double[] left = new double[m * k], right = new double[k * k];
+
+    for (int p = 0; p < k; p++) {
+      int j = order[p];
+      double sigma = norms[j];
+      singularValues[p] = sigma;
+
+      for (int i = 0; i < m; i++) {
+        left[i * k + p] = sigma == 0 ? 0 : w[j * m + i] / sigma;
+      }
+      for (int i = 0; i < k; i++) {
+        right[i * k + p] = z[j * k + i];
+      }
+    }
+
+    u = wide ? right : left;
+    v = wide ? left : right;
+  }
+
+  /* Rotates pairs of columns of 'w' until all are mutually orthogonal */
+  private void orthogonalize(double[] w, int m, double[] z) {
+
+    /*
+     * Columns whose squared norm is below this are rounding
+     * noise of a rank-deficient matrix and are not rotated,
+     * as the relative test on them may never pass
+     */
+    double negligible = EPSILON * EPSILON * ArrayKernels.BACKEND.sumOfSquares(w, w.length);
+
+    for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+      boolean rotated = false;
+
+      for (int p = 0; p < k - 1; p++) {
+        for (int q = p + 1; q < k; q++) {
+          int pOffset = p * m, qOffset = q * m;
+
+          double alpha = ArrayKernels.BACKEND.dot(w, pOffset, w, pOffset, m);
+          double beta = ArrayKernels.BACKEND.dot(w, qOffset, w, qOffset, m);
+          double gamma = ArrayKernels.BACKEND.dot(w, pOffset, w, qOffset, m);
+
+          if (
+                  gamma == 0 || alpha <= negligible || beta <= negligible ||
+                  Math.abs(gamma) <= EPSILON * Math.sqrt(alpha * beta)
+                  )
+            continue;
+          rotated = true;
+
+          double zeta = (beta - alpha) / (2 * gamma);
+          double t = Math.signum(zeta) / (Math.abs(zeta) + Math.sqrt(1 + zeta * zeta));
+          if (zeta == 0)
+            t = 1;
+          double c = 1 / Math.sqrt(1 + t * t), s = c * t;
+
+          rotate(w, pOffset, qOffset, m, c, s);
+          rotate(z, p * k, q * k, k, c, s);
+        }
+      }
+
+      if (!rotated)
+        return;
+    }
+
+    throw new ArithmeticException("Singular value decomposition failed to converge");
+  }
+
+  private static void rotate(double[] x, int pOffset, int qOffset, int length, double c, double s) {
+    for (int i = 0; i < length; i++) {
+      double a = x[pOffset + i], b = x[qOffset + i];
+      x[pOffset + i] = c * a - s * b;
+      x[qOffset + i] = s * a + c * b;
+    }
+  }
+
+
+  public int numberOfRows() {
+    return rows;
+  }
+
+  public int numberOfColumns() {
+    return columns;
+  }
+
+  /**
+   * Returns the singular values in decreasing order
+   *
+   * @return a copy of the singular values
+   */
+  public double[] getSingularValues() {
+    return singularValues.clone();
+  }
+
+  /**
+   * Returns the left singular vectors as the columns
+   * of a rows x min(rows, columns) matrix
+   *
+   * @return the U factor
+   */
+  public NMatrix getU() {
+    return NMatrix.wrap(rows, k, u.clone());
+  }
+
+  /**
+   * Returns the diagonal matrix of singular values
+   *
+   * @return the S factor
+   */
+  public NMatrix getS() {
+    double[] ret = new double[k * k];
+    for (int j = 0; j < k; j++) {
+      ret[j * k + j] = singularValues[j];
+    }
+
+    return NMatrix.wrap(k, k, ret);
+  }
+
+  /**
+   * Returns the right singular vectors as the columns
+   * of a columns x min(rows, columns) matrix
+   *
+   * @return the V factor
+   */
+  public NMatrix getV() {
+    return NMatrix.wrap(columns, k, v.clone());
+  }
+
+  /**
+   * Returns the two-norm of the decomposed matrix,
+   * its largest singular value
+   *
+   * @return the two-norm
+   */
+  public double norm2() {
+    return singularValues[0];
+  }
+
+  public double conditionNumber() {
+    return singularValues[0] / singularValues[k - 1];
+  }
+
+  /**
+   * Returns the numerical rank of the decomposed
+   * matrix: the number of singular values greater
+   * than max(rows, columns) * ulp(largest)
+   *
+   * @return the rank
+   */
+  public int rank() {
+    double threshold = Math.max(rows, columns) * Math.ulp(singularValues[0]);
+    int ret = 0;
+    for (double sigma : singularValues) {
+      if (sigma > threshold)
+        ret++;
+    }
+
+    return ret;
+  }
+
+
+  /**
+   * Finds the minimum-norm x minimizing |A * x - b|,
+   * ignoring singular values below the numerical
+   * rank threshold
+   *
+   * @param b the right-hand side
+   * @return the least-squares solution
+   */
+  public NVector solve(IVector b) {
+    if (b == null)
+      throw new IllegalArgumentException("Right-hand side vector cannot be null");
+    if (b.dimension() != rows)
+      throw new IllegalArgumentException("Dimensional mismatch on linear solve");
+
+    int rank = rank();
+    double[] c = new double[rank];
+    for (int i = 0; i < rows; i++) {
+      double bi = b.get(i);
+      for (int p = 0; p < rank; p++) {
+        c[p] += u[i * k + p] * bi;
+      }
+    }
+    for (int p = 0; p < rank; p++) {
+      c[p] /= singularValues[p];
+    }
+
+    double[] ret = new double[columns];
+    for (int i = 0; i < columns; i++) {
+      ret[i] = ArrayKernels.BACKEND.dot(v, i * k, c, 0, rank);
+    }
+
+    return NVector.wrap(ret);
+  }
+
+  /**
+   * Calculates the Moore-Penrose pseudo-inverse of
+   * the decomposed matrix, V * S^+ * U^T
+   *
+   * @return the columns x rows pseudo-inverse
+   */
+  public NMatrix pseudoInverse() {
+    int rank = rank();
+
+    double[] scaled = new double[columns * k];
+    for (int i = 0; i < columns; i++) {
+      for (int p = 0; p < rank; p++) {
+        scaled[i * k + p] = v[i * k + p] / singularValues[p];
+      }
+    }
+
+    double[] ret = new double[columns * rows];
+    MatrixKernel.multiply(
+            columns, rows, rank, 1,
+            scaled, 0, k, 1,
+            u, 0, 1, k,
+            ret, 0, rows
+      );
+
+    return NMatrix.wrap(columns, rows, ret);
+  }
+
+}
@@ -0,0 +1,823 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import upsilon.tools.ArrayTools;
+
+import java.util.Arrays;
+
+/**
+ * A matrix stored in compressed sparse row (CSR)
+ * form, holding only its non-zero values. The
+ * memory used by an object of this class is
+ * proportional to its number of non-zeros rather
+ * than to rows * columns. Objects of this class
+ * are immutable and are created by a Builder.
+ */
+public class SparseMatrix extends IMatrix {
+
+  public static Builder builder(int rows, int columns) {
+    return new Builder(rows, columns);
+  }
+
+  public static SparseMatrix identity(int dim) {
+    if (dim <= 0)
+      throw new IllegalArgumentException("Cannot create identity matrix of non-positive dimensions");
+
+    int[] rowPointers = new int[dim + 1], columnIndices = new int[dim];
+    double[] values = new double[dim];
+
+    for (int k = 0; k < dim; k++) {
+      rowPointers[k + 1] = k + 1;
+      columnIndices[k] = k;
+      values[k] = 1;
+    }
+
+    return new SparseMatrix(dim, dim, rowPointers, columnIndices, values);
+  }
+
+  public static SparseMatrix zero(int rows, int columns) {
+    return builder(rows, columns).build();
+  }
+
+  /**
+   * Creates a sparse matrix holding the non-zero
+   * values of the provided matrix
+   *
+   * @param matrix the matrix to compress
+   * @return a sparse copy of the matrix
+   */
+  public static SparseMatrix fromMatrix(IMatrix matrix) {
+    if (matrix == null)
+      throw new IllegalArgumentException("Matrix cannot be null");
+    if (matrix instanceof SparseMatrix)
+      return (SparseMatrix) matrix;
+
+    Builder builder = builder(matrix.numberOfRows(), matrix.numberOfColumns());
+    for (int row = 0; row < matrix.numberOfRows(); row++) {
+      for (int column = 0; column < matrix.numberOfColumns(); column++) {
+        double value = matrix.get(row, column);
+        if (value != 0)
+          builder.add(row, column, value);
+      }
+    }
+
+    return builder.build();
+  }
+
+
+  /* Addition operations */
+
+  public static SparseMatrix add(SparseMatrix a, SparseMatrix b) {
+    if (a == null || b == null)
+      throw new IllegalArgumentException("Matrix addition cannot be applied to nulls");
+    if (a.rows != b.rows || a.columns != b.columns)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix addition");
+
+    return a.addScaled(b, 1);
+  }
+
+
+  /**
+   * A builder of sparse matrices accepting values
+   * as (row, column, value) triplets in any order.
+   * Triplets given more than once for the same
+   * position are summed, and positions whose value
+   * is zero are not stored.
+   */
+  public static class Builder {
+
+    private final int rows, columns;
+    private int[] rowIndices, columnIndices;
+    private double[] values;
+    private int size;
+
+    public Builder(int rows, int columns) {
+      if (rows <= 0)
+        throw new IllegalArgumentException("Row count cannot be non-positive");
+      if (columns <= 0)
+        throw new IllegalArgumentException("Column count cannot be non-positive");
+
+      this.rows = rows;
+      this.columns = columns;
+      this.rowIndices = new int[16];
+      this.columnIndices = new int[16];
+      this.values = new double[16];
+    }
+
+    public Builder add(int row, int column, double value) {
+      if (row < 0 || row >= rows)
+        throw new IllegalArgumentException(String.format("Row index out of bounds for (%dx%d) matrix: %d", rows, columns, row));
+      if (column < 0 || column >= columns)
+        throw new IllegalArgumentException(String.format("Column index out of bounds for (%dx%d) matrix: %d", rows, columns, column));
+
+      if (size == values.length) {
+        int capacity = size * 2;
+        rowIndices = Arrays.copyOf(rowIndices, capacity);
+        columnIndices = Arrays.copyOf(columnIndices, capacity);
+        values = Arrays.copyOf(values, capacity);
+      }
+
+      rowIndices[size] = row;
+      columnIndices[size] = column;
+      values[size] = value;
+      size++;
+
+      return this;
+    }
+
+    public Builder add(int[] rows, int[] columns, double[] values) {
+      if (rows == null || columns == null || values == null)
+        throw new IllegalArgumentException("Triplet arrays cannot be null");
+      if (rows.length != columns.length || rows.length != values.length)
+        throw new IllegalArgumentException("Triplet arrays must be of equal length");
+
+      for (int k = 0; k < values.length; k++) {
+        add(rows[k], columns[k], values[k]);
+      }
+
+      return this;
+    }
+
+    /**
+     * Returns the number of triplets added to
+     * this builder, including duplicates
+     *
+     * @return the number of triplets
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Creates a sparse matrix from the triplets
+     * added so far. The triplets are ordered with
+     * two stable counting sorts (by column, then
+     * by row), so building takes time linear in
+     * the number of triplets and dimensions.
+     *
+     * @return the sparse matrix
+     */
+    public SparseMatrix build() {
+
+      int[] byColumn = new int[size];
+      int[] counts = new int[columns + 1];
+      for (int k = 0; k < size; k++) {
+        counts[columnIndices[k] + 1]++;
+      }
+      for (int k = 0; k < columns; k++) {
+        counts[k + 1] += counts[k];
+      }
+      for (int k = 0; k < size; k++) {
+        byColumn[counts[columnIndices[k]]++] = k;
+      }
+
+      int[] order = new int[size];
+      int[] offsets = new int[rows + 1];
+      for (int k = 0; k < size; k++) {
+        offsets[rowIndices[k] + 1]++;
+      }
+      for (int k = 0; k < rows; k++) {
+        offsets[k + 1] += offsets[k];
+      }
+      int[] next = Arrays.copyOf(offsets, rows);
+      for (int k : byColumn) {
+        order[next[rowIndices[k]]++] = k;
+      }
+
+      int[] rowPointers = new int[rows + 1], retColumns = new int[size];
+      double[] retValues = new double[size];
+      int top = 0;
+
+      for (int row = 0; row < rows; row++) {
+        int start = top;
+        for (int p = offsets[row]; p < offsets[row + 1]; p++) {
+          int k = order[p];
+          if (top > start && retColumns[top - 1] == columnIndices[k])
+            retValues[top - 1] += values[k];
+          else {
+            retColumns[top] = columnIndices[k];
+            retValues[top] = values[k];
+            top++;
+          }
+        }
+
+        int kept = start;
+        for (int p = start; p < top; p++) {
+          if (retValues[p] != 0) {
+            retColumns[kept] = retColumns[p];
+            retValues[kept] = retValues[p];
+            kept++;
+          }
+        }
+        top = kept;
+        rowPointers[row + 1] = top;
+      }
+
+      return new SparseMatrix(
+              rows, columns,
+              rowPointers,
+              Arrays.copyOf(retColumns, top),
+              Arrays.copyOf(retValues, top)
+        );
+    }
+
+  }
+
+
+  private final int rows, columns;
+  private final int[] rowPointers, columnIndices;
+  private final double[] values;
+
+  /*
+   * Adopts the provided CSR arrays without copying.
+   * Column indices within each row must be strictly
+   * increasing.
+   */
+  private SparseMatrix(int rows, int columns, int[] rowPointers, int[] columnIndices, double[] values) {
+    this.rows = rows;
+    this.columns = columns;
+    this.rowPointers = rowPointers;
+    this.columnIndices = columnIndices;
+    this.values = values;
+  }
+
+
+  private void checkRowColumn(int row, int column) {
+    if (row < 0 || row >= rows)
+      throw new IllegalArgumentException(String.format("Row index out of bounds for (%dx%d) matrix access: %d", rows, columns, row));
+    if (column < 0 || column >= columns)
+      throw new IllegalArgumentException(String.format("Column index out of bounds for (%dx%d) matrix access: %d", rows, columns, column));
+  }
+
+  /* Returns the position of (row, column) in the CSR arrays, or -(insertion point) - 1 */
+  private int find(int row, int column) {
+    return Arrays.binarySearch(columnIndices, rowPointers[row], rowPointers[row + 1], column);
+  }
+
+
+  @Override
+  public double get(int row, int column) {
+    checkRowColumn(row, column);
+
+    int p = find(row, column);
+    return p >= 0 ? values[p] : 0;
+  }
+
+  /**
+   * Returns a copy of this matrix with the value at
+   * (row, column) replaced. This takes time linear
+   * in the number of non-zeros; a Builder should be
+   * preferred for constructing matrices.
+   */
+  @Override
+  public SparseMatrix set(int row, int column, double value) {
+    checkRowColumn(row, column);
+
+    int p = find(row, column);
+    int nnz = values.length;
+
+    if (p >= 0 && value != 0) {
+      double[] values = this.values.clone();
+      values[p] = value;
+      return new SparseMatrix(rows, columns, rowPointers, columnIndices, values);
+    }
+    else if (p >= 0) {
+      int[] retPointers = rowPointers.clone(), retColumns = new int[nnz - 1];
+      double[] retValues = new double[nnz - 1];
+
+      System.arraycopy(columnIndices, 0, retColumns, 0, p);
+      System.arraycopy(columnIndices, p + 1, retColumns, p, nnz - p - 1);
+      System.arraycopy(values, 0, retValues, 0, p);
+      System.arraycopy(values, p + 1, retValues, p, nnz - p - 1);
+      for (int k = row + 1; k <= rows; k++) {
+        retPointers[k]--;
+      }
+
+      return new SparseMatrix(rows, columns, retPointers, retColumns, retValues);
+    }
+    else if (value != 0) {
+      p = -p - 1;
+      int[] retPointers = rowPointers.clone(), retColumns = new int[nnz + 1];
+      double[] retValues = new double[nnz + 1];
+
+      System.arraycopy(columnIndices, 0, retColumns, 0, p);
+      System.arraycopy(columnIndices, p, retColumns, p + 1, nnz - p);
+      System.arraycopy(values, 0, retValues, 0, p);
+      System.arraycopy(values, p, retValues, p + 1, nnz - p);
+      retColumns[p] = column;
+      retValues[p] = value;
+      for (int k = row + 1; k <= rows; k++) {
+        retPointers[k]++;
+      }
+
+      return new SparseMatrix(rows, columns, retPointers, retColumns, retValues);
+    }
+    else
+      return this;
+  }
+
+  @Override
+  public int numberOfRows() {
+    return rows;
+  }
+
+  @Override
+  public int numberOfColumns() {
+    return columns;
+  }
+
+  public int numberOfNonZeros() {
+    return values.length;
+  }
+
+
+  /* CSR accessors */
+
+  /**
+   * Returns a copy of the row pointer array, of
+   * length rows + 1, where the non-zeros of row 'k'
+   * occupy positions [p[k], p[k + 1]) of the column
+   * index and value arrays
+   *
+   * @return the row pointers
+   */
+  public int[] getRowPointers() {
+    return rowPointers.clone();
+  }
+
+  public int[] getColumnIndices() {
+    return columnIndices.clone();
+  }
+
+  public double[] getValues() {
+    return values.clone();
+  }
+
+
+  @Override
+  public NVector[] toColumnVectors() {
+    return transpose().toRowVectors();
+  }
+
+  @Override
+  public NVector[] toRowVectors() {
+    NVector[] ret = new NVector[rows];
+
+    for (int k = 0; k < rows; k++) {
+      double[] row = new double[columns];
+      for (int p = rowPointers[k]; p < rowPointers[k + 1]; p++) {
+        row[columnIndices[p]] = values[p];
+      }
+      ret[k] = NVector.wrap(row);
+    }
+
+    return ret;
+  }
+
+  @Override
+  public NVector transform(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Cannot transform null vector");
+    if (vector.dimension() != columns)
+      throw new IllegalArgumentException("Dimensional mismatch on transform of vector");
+
+    double[] ret = new double[rows];
+    transform(vector, ret);
+
+    return NVector.wrap(ret);
+  }
+
+  /**
+   * Transforms the provided vector by this matrix,
+   * writing the result into the destination vector
+   * rather than allocating a new one. The destination
+   * must not be the vector being transformed.
+   *
+   * @param vector the vector to transform
+   * @param dest the destination of the result
+   * @return the destination vector
+   */
+  public MutableNVector transformInto(IVector vector, MutableNVector dest) {
+    if (vector == null)
+      throw new IllegalArgumentException("Cannot transform null vector");
+    if (dest == null)
+      throw new IllegalArgumentException("Destination vector cannot be null");
+    if (dest == vector)
+      throw new IllegalArgumentException("Destination vector cannot be the transformed vector");
+    if (vector.dimension() != columns || dest.dimension() != rows)
+      throw new IllegalArgumentException("Dimensional mismatch on transform of vector");
+
+    transform(vector, dest.storage());
+
+    return dest;
+  }
+
+  @Override
+  public void transform(double[] vector, double[] dest) {
+    NMatrix.checkTransformArrays(vector, dest, rows, columns);
+    multiplyVector(vector, dest);
+  }
+
+  private void transform(IVector vector, double[] ret) {
+    double[] v = MutableNVector.arrayOf(vector);
+    multiplyVector(v != null ? v : vector.toArray(), ret);
+  }
+
+  private void multiplyVector(double[] v, double[] ret) {
+    for (int k = 0; k < rows; k++) {
+      double sum = 0;
+      for (int p = rowPointers[k]; p < rowPointers[k + 1]; p++) {
+        sum += values[p] * v[columnIndices[p]];
+      }
+      ret[k] = sum;
+    }
+  }
+
+  @Override
+  public Matrix toMatrix() {
+    return new Matrix(toNMatrix());
+  }
+
+  @Override
+  public NMatrix toNMatrix() {
+    double[] ret = new double[rows * columns];
+
+    for (int k = 0; k < rows; k++) {
+      for (int p = rowPointers[k]; p < rowPointers[k + 1]; p++) {
+        ret[columnIndices[p] + k * columns] = values[p];
+      }
+    }
+
+    return NMatrix.wrap(rows, columns, ret);
+  }
+
+
+  /* Unary operations */
+
+  /**
+   * Returns the transpose of this matrix. Its CSR
+   * arrays are the compressed sparse column (CSC)
+   * arrays of this matrix, computed by a counting
+   * sort over the column indices.
+   *
+   * @return the transposed matrix
+   */
+  @Override
+  public SparseMatrix transpose() {
+    int nnz = values.length;
+    int[] retPointers = new int[columns + 1], retColumns = new int[nnz];
+    double[] retValues = new double[nnz];
+
+    for (int k = 0; k < nnz; k++) {
+      retPointers[columnIndices[k] + 1]++;
+    }
+    for (int k = 0; k < columns; k++) {
+      retPointers[k + 1] += retPointers[k];
+    }
+
+    int[] next = Arrays.copyOf(retPointers, columns);
+    for (int k = 0; k < rows; k++) {
+      for (int p = rowPointers[k]; p < rowPointers[k + 1]; p++) {
+        int q = next[columnIndices[p]]++;
+        retColumns[q] = k;
+        retValues[q] = values[p];
+      }
+    }
+
+    return new SparseMatrix(columns, rows, retPointers, retColumns, retValues);
+  }
+
+  @Override
+  public SparseMatrix negative() {
+    return scale(-1);
+  }
+
+  /**
+   * Calculates the determinant of this matrix
+   * by the LU decomposition of its dense form,
+   * and so is only suitable for small matrices
+   */
+  @Override
+  public double determinant() {
+    if (rows != columns)
+      throw new ArithmeticException(String.format("Cannot find determinant of non-square matrix (%dx%d)", rows, columns));
+
+    return toNMatrix().determinant();
+  }
+
+
+  /* Binary operations */
+
+  @Override
+  public SparseMatrix scale(double s) {
+    if (s == 0)
+      return zero(rows, columns);
+
+    double[] values = this.values.clone();
+    for (int k = 0; k < values.length; k++) {
+      values[k] *= s;
+    }
+
+    return new SparseMatrix(rows, columns, rowPointers, columnIndices, values);
+  }
+
+  @Override
+  public IMatrix subtract(IMatrix m) {
+    return sub(m);
+  }
+
+  @Override
+  public IMatrix subtract(IMatrix... matrices) {
+    return sub(matrices);
+  }
+
+  /**
+   * Subtracts the provided matrix from this one. The
+   * difference is sparse if the provided matrix is
+   * sparse, and dense otherwise.
+   */
+  @Override
+  public IMatrix sub(IMatrix m) {
+    if (m == null)
+      throw new IllegalArgumentException("Cannot subtract by a null matrix");
+    if (m instanceof SparseMatrix)
+      return sub((SparseMatrix) m);
+    if (m.numberOfColumns() != columns || m.numberOfRows() != rows)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix subtraction");
+
+    return toNMatrix().sub(m);
+  }
+
+  public SparseMatrix sub(SparseMatrix m) {
+    if (m == null)
+      throw new IllegalArgumentException("Cannot subtract by a null matrix");
+    if (m.columns != columns || m.rows != rows)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix subtraction");
+
+    return addScaled(m, -1);
+  }
+
+  @Override
+  public IMatrix sub(IMatrix... matrices) {
+    if (matrices == null)
+      throw new IllegalArgumentException("Matrix array cannot be null");
+    if (ArrayTools.containsNull(matrices))
+      throw new IllegalArgumentException("Matrix array cannot contain nulls");
+
+    IMatrix ret = this;
+    for (IMatrix m : matrices) {
+      ret = ret.sub(m);
+    }
+
+    return ret;
+  }
+
+  /* Merges the rows of this matrix and s * m, dropping cancelled values */
+  private SparseMatrix addScaled(SparseMatrix m, double s) {
+    int capacity = values.length + m.values.length;
+    int[] retPointers = new int[rows + 1], retColumns = new int[capacity];
+    double[] retValues = new double[capacity];
+    int top = 0;
+
+    for (int k = 0; k < rows; k++) {
+      int p = rowPointers[k], pEnd = rowPointers[k + 1];
+      int q = m.rowPointers[k], qEnd = m.rowPointers[k + 1];
+
+      while (p < pEnd || q < qEnd) {
+        int column;
+        double value;
+
+        if (q == qEnd || (p < pEnd && columnIndices[p] < m.columnIndices[q])) {
+          column = columnIndices[p];
+          value = values[p++];
+        }
+        else if (p == pEnd || m.columnIndices[q] < columnIndices[p]) {
+          column = m.columnIndices[q];
+          value = s * m.values[q++];
+        }
+        else {
+          column = columnIndices[p];
+          value = values[p++] + s * m.values[q++];
+        }
+
+        if (value != 0) {
+          retColumns[top] = column;
+          retValues[top] = value;
+          top++;
+        }
+      }
+
+      retPointers[k + 1] = top;
+    }
+
+    return new SparseMatrix(
+            rows, columns,
+            retPointers,
+            Arrays.copyOf(retColumns, top),
+            Arrays.copyOf(retValues, top)
+      );
+  }
+
+  /**
+   * Multiplies this matrix by another. The product
+   * is sparse if the other matrix is sparse, and
+   * dense otherwise.
+   *
+   * @param other the right-hand operand
+   * @return the matrix product
+   */
+  @Override
+  public IMatrix multiply(IMatrix other) {
+    if (other == null)
+      throw new IllegalArgumentException("Cannot multiply by null matrix");
+    if (other instanceof SparseMatrix)
+      return multiply((SparseMatrix) other);
+    if (columns != other.numberOfRows())
+      throw new IllegalArgumentException("Dimensional mismatch on matrix multiplication");
+
+    int newColumns = other.numberOfColumns();
+    StridedMatrix o = StridedMatrix.of(other);
+    if (o == null || o.columnStride != 1)
+      o = StridedMatrix.of(other.toNMatrix());
+
+    double[] ret = new double[rows * newColumns];
+
+    for (int k = 0; k < rows; k++) {
+      for (int p = rowPointers[k]; p < rowPointers[k + 1]; p++) {
+        ArrayKernels.BACKEND.axpy(
+                values[p],
+                o.values, o.offset + columnIndices[p] * o.rowStride,
+                ret, k * newColumns,
+                newColumns
+          );
+      }
+    }
+
+    return NMatrix.wrap(rows, newColumns, ret);
+  }
+
+  /**
+   * Multiplies this matrix by another sparse matrix
+   * by accumulating scaled rows of the right-hand
+   * operand into a dense work row (Gustavson's
+   * algorithm), taking time proportional to the
+   * number of multiplications performed.
+   *
+   * @param other the right-hand operand
+   * @return the sparse matrix product
+   */
+  public SparseMatrix multiply(SparseMatrix other) {
+    if (other == null)
+      throw new IllegalArgumentException("Cannot multiply by null matrix");
+    if (columns != other.rows)
+      throw new IllegalArgumentException("Dimensional mismatch on matrix multiplication");
+
+    int newColumns = other.columns;
+    double[] work = new double[newColumns];
+    int[] marker = new int[newColumns];
+    Arrays.fill(marker, -1);
+
+    int[] retPointers = new int[rows + 1];
+    int[] retColumns = new int[Math.max(16, values.length + other.values.length)];
+    double[] retValues = new double[retColumns.length];
+    int top = 0;
+
+    for (int k = 0; k < rows; k++) {
+      int start = top;
+
+      for (int p = rowPointers[k]; p < rowPointers[k + 1]; p++) {
+        int row = columnIndices[p];
+        double a = values[p];
+
+        for (int q = other.rowPointers[row]; q < other.rowPointers[row + 1]; q++) {
+          int column = other.columnIndices[q];
+          if (marker[column] != k) {
+            marker[column] = k;
+            work[column] = 0;
+
+            if (top == retColumns.length) {
+              retColumns = Arrays.copyOf(retColumns, top * 2);
+              retValues = Arrays.copyOf(retValues, top * 2);
+            }
+            retColumns[top++] = column;
+          }
+          work[column] += a * other.values[q];
+        }
+      }
+
+      Arrays.sort(retColumns, start, top);
+
+      int kept = start;
+      for (int p = start; p < top; p++) {
+        double value = work[retColumns[p]];
+        if (value != 0) {
+          retColumns[kept] = retColumns[p];
+          retValues[kept] = value;
+          kept++;
+        }
+      }
+      top = kept;
+      retPointers[k + 1] = top;
+    }
+
+    return new SparseMatrix(
+            rows, newColumns,
+            retPointers,
+            Arrays.copyOf(retColumns, top),
+            Arrays.copyOf(retValues, top)
+      );
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof IMatrix)
+      return equals((IMatrix) o);
+    else
+      return false;
+  }
+
+  @Override
+  public boolean equals(IMatrix matrix) {
+    if (matrix == null)
+      return false;
+    if (matrix.numberOfColumns() != columns || matrix.numberOfRows() != rows)
+      return false;
+
+    if (matrix instanceof SparseMatrix) {
+      SparseMatrix m = (SparseMatrix) matrix;
+
+      /* Merges each pair of rows, comparing a value missing from either as zero */
+      for (int k = 0; k < rows; k++) {
+        int
+                p = rowPointers[k], pEnd = rowPointers[k + 1],
+                q = m.rowPointers[k], qEnd = m.rowPointers[k + 1]
+                        ;
+
+        while (p < pEnd || q < qEnd) {
+          int
+                  column = p < pEnd ? columnIndices[p] : Integer.MAX_VALUE,
+                  mColumn = q < qEnd ? m.columnIndices[q] : Integer.MAX_VALUE
+                          ;
+          double a = column <= mColumn ? values[p++] : 0;
+          double b = mColumn <= column ? m.values[q++] : 0;
+
+          if (a != b)
+            return false;
+        }
+      }
+
+      return true;
+    }
+
+    for (int k = 0; k < rows; k++) {
+      for (int i = 0; i < columns; i++) {
+        if (get(k, i) != matrix.get(k, i))
+          return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns a string listing the non-zero values
+   * of this matrix as (row,column)=value entries
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("(%dx%d){", rows, columns));
+
+    for (int k = 0; k < rows; k++) {
+      for (int p = rowPointers[k]; p < rowPointers[k + 1]; p++) {
+        if (p > 0)
+          sb.append(",");
+        sb.append(String.format("(%d,%d)=%s", k, columnIndices[p], Double.toString(values[p])));
+      }
+    }
+
+    sb.append("}");
+    return sb.toString();
+  }
+
+}
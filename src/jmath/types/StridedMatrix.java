@@ -0,0 +1,374 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import upsilon.tools.ArrayTools;
+
+/**
+ * The base of the matrix views, which address
+ * elements of another matrix's backing array
+ * through an offset and row and column strides
+ * rather than holding values of their own. The
+ * value at (row, column) of a view is found at
+ * index offset + row * rowStride + column *
+ * columnStride. Views of views are views of the
+ * original array. Operations producing new
+ * matrices return NMatrix objects.
+ */
+abstract class StridedMatrix extends IMatrix {
+
+  /*
+   * Returns a view of the provided matrix if it
+   * is backed by an array, or null otherwise
+   */
+  static StridedMatrix of(IMatrix matrix) {
+    if (matrix instanceof StridedMatrix)
+      return (StridedMatrix) matrix;
+
+    double[] values = MutableNMatrix.arrayOf(matrix);
+    if (values == null)
+      return null;
+
+    int rows = matrix.numberOfRows(), columns = matrix.numberOfColumns();
+    return new SubMatrixView(values, 0, columns, 1, rows, columns);
+  }
+
+
+  final double[] values;
+  final int offset, rowStride, columnStride, rows, columns;
+
+  StridedMatrix(double[] values, int offset, int rowStride, int columnStride, int rows, int columns) {
+    this.values = values;
+    this.offset = offset;
+    this.rowStride = rowStride;
+    this.columnStride = columnStride;
+    this.rows = rows;
+    this.columns = columns;
+  }
+
+
+  private void checkRowColumn(int row, int column) {
+    if (row < 0 || row >= rows)
+      throw new IllegalArgumentException(String.format("Row index out of bounds for (%dx%d) matrix access: %d", rows, columns, row));
+    if (column < 0 || column >= columns)
+      throw new IllegalArgumentException(String.format("Column index out of bounds for (%dx%d) matrix access: %d", rows, columns, column));
+  }
+
+  private int index(int row, int column) {
+    return offset + row * rowStride + column * columnStride;
+  }
+
+
+  @Override
+  public double get(int row, int column) {
+    checkRowColumn(row, column);
+
+    return values[index(row, column)];
+  }
+
+  /**
+   * Returns a copy of this view with the value at
+   * (row, column) replaced. The shared array is
+   * not modified.
+   */
+  @Override
+  public NMatrix set(int row, int column, double value) {
+    checkRowColumn(row, column);
+
+    return toNMatrix().set(row, column, value);
+  }
+
+  @Override
+  public int numberOfRows() {
+    return rows;
+  }
+
+  @Override
+  public int numberOfColumns() {
+    return columns;
+  }
+
+
+  /* Views */
+
+  /**
+   * Returns a view of the transpose of this matrix
+   *
+   * @return a transposed view sharing this matrix's array
+   */
+  public TransposedView transposeView() {
+    return new TransposedView(values, offset, columnStride, rowStride, columns, rows);
+  }
+
+  /**
+   * Returns a view of the block of this matrix of
+   * the provided size whose top-left value is at
+   * (row, column)
+   *
+   * @param row the first row of the block
+   * @param column the first column of the block
+   * @param rows the number of rows of the block
+   * @param columns the number of columns of the block
+   * @return a view of the block sharing this matrix's array
+   */
+  public SubMatrixView subMatrixView(int row, int column, int rows, int columns) {
+    checkBlock(row, column, rows, columns, this.rows, this.columns);
+
+    return new SubMatrixView(values, index(row, column), rowStride, columnStride, rows, columns);
+  }
+
+  public RowView rowView(int row) {
+    checkRowColumn(row, 0);
+
+    return new RowView(values, index(row, 0), columnStride, columns);
+  }
+
+  public ColumnView columnView(int column) {
+    checkRowColumn(0, column);
+
+    return new ColumnView(values, index(0, column), rowStride, rows);
+  }
+
+  static void checkBlock(int row, int column, int rows, int columns, int parentRows, int parentColumns) {
+    if (rows <= 0 || columns <= 0)
+      throw new IllegalArgumentException("Cannot create view of non-positive dimensions");
+    if (row < 0 || column < 0 || row + rows > parentRows || column + columns > parentColumns)
+      throw new IllegalArgumentException(String.format(
+              "Block (%dx%d) at (%d, %d) out of bounds for (%dx%d) matrix",
+              rows, columns, row, column, parentRows, parentColumns
+        ));
+  }
+
+
+  @Override
+  public RowView[] toRowVectors() {
+    RowView[] ret = new RowView[rows];
+    for (int k = 0; k < rows; k++) {
+      ret[k] = new RowView(values, index(k, 0), columnStride, columns);
+    }
+
+    return ret;
+  }
+
+  @Override
+  public ColumnView[] toColumnVectors() {
+    ColumnView[] ret = new ColumnView[columns];
+    for (int k = 0; k < columns; k++) {
+      ret[k] = new ColumnView(values, index(0, k), rowStride, rows);
+    }
+
+    return ret;
+  }
+
+  @Override
+  public NVector transform(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Cannot transform null vector");
+    if (vector.dimension() != columns)
+      throw new IllegalArgumentException("Dimensional mismatch on transform of vector");
+
+    double[] ret = new double[rows];
+    transform(vector, ret);
+
+    return NVector.wrap(ret);
+  }
+
+  @Override
+  public void transform(double[] vector, double[] dest) {
+    NMatrix.checkTransformArrays(vector, dest, rows, columns);
+    transform(new RowView(vector, 0, 1, vector.length), dest);
+  }
+
+  /**
+   * Transforms the provided vector by this matrix,
+   * writing the result into the destination vector
+   * rather than allocating a new one. The destination
+   * must not be the vector being transformed.
+   *
+   * @param vector the vector to transform
+   * @param dest the destination of the result
+   * @return the destination vector
+   */
+  public MutableNVector transformInto(IVector vector, MutableNVector dest) {
+    if (vector == null)
+      throw new IllegalArgumentException("Cannot transform null vector");
+    if (dest == null)
+      throw new IllegalArgumentException("Destination vector cannot be null");
+    if (dest == vector)
+      throw new IllegalArgumentException("Destination vector cannot be the transformed vector");
+    if (vector.dimension() != columns || dest.dimension() != rows)
+      throw new IllegalArgumentException("Dimensional mismatch on transform of vector");
+
+    transform(vector, dest.storage());
+
+    return dest;
+  }
+
+  private void transform(IVector vector, double[] ret) {
+    StridedVector v = StridedVector.of(vector);
+    if (v == null)
+      v = new RowView(vector.toArray(), 0, 1, columns);
+
+    for (int k = 0; k < rows; k++) {
+      ret[k] = StridedVector.dot(values, index(k, 0), columnStride, v.values, v.offset, v.stride, columns);
+    }
+  }
+
+  @Override
+  public Matrix toMatrix() {
+    return new Matrix(toNMatrix());
+  }
+
+  /**
+   * Copies the values of this view into a new
+   * matrix
+   *
+   * @return a new NMatrix holding the viewed values
+   */
+  @Override
+  public NMatrix toNMatrix() {
+    double[] ret = new double[rows * columns];
+
+    for (int k = 0; k < rows; k++) {
+      int row = index(k, 0);
+      if (columnStride == 1)
+        System.arraycopy(values, row, ret, k * columns, columns);
+      else {
+        for (int i = 0; i < columns; i++) {
+          ret[k * columns + i] = values[row + i * columnStride];
+        }
+      }
+    }
+
+    return NMatrix.wrap(rows, columns, ret);
+  }
+
+
+  /* Operations returning new matrices */
+
+  @Override
+  public NMatrix transpose() {
+    return transposeView().toNMatrix();
+  }
+
+  @Override
+  public NMatrix negative() {
+    return scale(-1);
+  }
+
+  @Override
+  public double determinant() {
+    return toNMatrix().determinant();
+  }
+
+  @Override
+  public NMatrix scale(double s) {
+    return toNMatrix().toMutableNMatrix().scaleInPlace(s).freeze();
+  }
+
+  @Override
+  public NMatrix subtract(IMatrix m) {
+    return sub(m);
+  }
+
+  @Override
+  public NMatrix subtract(IMatrix... matrices) {
+    return sub(matrices);
+  }
+
+  @Override
+  public NMatrix sub(IMatrix m) {
+    return toNMatrix().sub(m);
+  }
+
+  @Override
+  public NMatrix sub(IMatrix... matrices) {
+    if (matrices == null)
+      throw new IllegalArgumentException("Matrix array cannot be null");
+    if (ArrayTools.containsNull(matrices))
+      throw new IllegalArgumentException("Matrix array cannot contain nulls");
+
+    return toNMatrix().sub(matrices);
+  }
+
+  /**
+   * Multiplies this matrix by another, reading both
+   * operands in place through their strides when
+   * they are backed by arrays
+   *
+   * @param other the right-hand operand
+   * @return the matrix product
+   */
+  @Override
+  public NMatrix multiply(IMatrix other) {
+    if (other == null)
+      throw new IllegalArgumentException("Cannot multiply by null matrix");
+    if (columns != other.numberOfRows())
+      throw new IllegalArgumentException("Dimensional mismatch on matrix multiplication");
+
+    StridedMatrix o = of(other);
+    if (o == null)
+      o = of(other.toNMatrix());
+
+    double[] ret = new double[rows * o.columns];
+
+    MatrixKernel.multiply(
+            rows, o.columns, columns, 1,
+            values, offset, rowStride, columnStride,
+            o.values, o.offset, o.rowStride, o.columnStride,
+            ret, 0, o.columns
+      );
+
+    return NMatrix.wrap(rows, o.columns, ret);
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof IMatrix)
+      return equals((IMatrix) o);
+    else
+      return false;
+  }
+
+  @Override
+  public boolean equals(IMatrix matrix) {
+    if (matrix == null)
+      return false;
+    if (matrix.numberOfColumns() != columns || matrix.numberOfRows() != rows)
+      return false;
+
+    for (int k = 0; k < rows; k++) {
+      for (int i = 0; i < columns; i++) {
+        if (get(k, i) != matrix.get(k, i))
+          return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return toNMatrix().toString();
+  }
+
+}
@@ -0,0 +1,267 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+import jmath.JMath;
+import upsilon.tools.ArrayTools;
+
+/**
+ * The base of the vector views, which address
+ * elements of another object's backing array
+ * through an offset and a stride rather than
+ * holding values of their own. Element 'k' of a
+ * view is found at index offset + k * stride.
+ * Operations producing new vectors return NVector
+ * objects.
+ */
+abstract class StridedVector extends IVector {
+
+  /*
+   * Returns a view of the provided vector if it
+   * is backed by an array, or null otherwise
+   */
+  static StridedVector of(IVector vector) {
+    if (vector instanceof StridedVector)
+      return (StridedVector) vector;
+
+    double[] values = MutableNVector.arrayOf(vector);
+    if (values == null)
+      return null;
+
+    return new RowView(values, 0, 1, values.length);
+  }
+
+  /* Calculates the inner product of two views of equal dimension */
+  static double dot(StridedVector a, StridedVector b) {
+    return dot(a.values, a.offset, a.stride, b.values, b.offset, b.stride, a.dimension);
+  }
+
+  static double dot(double[] a, int aOffset, int aStride, double[] b, int bOffset, int bStride, int length) {
+    if (aStride == 1 && bStride == 1)
+      return ArrayKernels.BACKEND.dot(a, aOffset, b, bOffset, length);
+
+    double ret = 0;
+    for (int k = 0, i = aOffset, j = bOffset; k < length; k++, i += aStride, j += bStride) {
+      ret += a[i] * b[j];
+    }
+
+    return ret;
+  }
+
+
+  final double[] values;
+  final int offset, stride, dimension;
+
+  StridedVector(double[] values, int offset, int stride, int dimension) {
+    this.values = values;
+    this.offset = offset;
+    this.stride = stride;
+    this.dimension = dimension;
+  }
+
+
+  @Override
+  public int dimension() {
+    return dimension;
+  }
+
+  @Override
+  public double get(int k) {
+    if (k < 0 || k >= dimension)
+      throw new IllegalArgumentException(String.format("Cannot access vector (dimension %d) index %d", dimension, k));
+
+    return values[offset + k * stride];
+  }
+
+  @Override
+  public double getX() {
+    return get(0);
+  }
+
+  @Override
+  public double getY() {
+    return get(1);
+  }
+
+  @Override
+  public double getZ() {
+    return get(2);
+  }
+
+  @Override
+  public double[] toArray() {
+    double[] ret = new double[dimension];
+
+    if (stride == 1)
+      System.arraycopy(values, offset, ret, 0, dimension);
+    else {
+      for (int k = 0, i = offset; k < dimension; k++, i += stride) {
+        ret[k] = values[i];
+      }
+    }
+
+    return ret;
+  }
+
+  @Override
+  public NVector toNVector() {
+    return NVector.wrap(toArray());
+  }
+
+  @Override
+  public Vector toVector() {
+    return new Vector(toNVector());
+  }
+
+
+  /* Unary operations */
+
+  @Override
+  public NVector negative() {
+    return scale(-1);
+  }
+
+  @Override
+  public NVector normalize() {
+    return scale(1 / absoluteValue());
+  }
+
+  @Override
+  public double magnitude() {
+    return absoluteValue();
+  }
+
+  @Override
+  public double absoluteValue() {
+    return JMath.sqrt(squareAbsoluteValue());
+  }
+
+  @Override
+  public double squareAbsoluteValue() {
+    return dot(this, this);
+  }
+
+
+  /* Binary operations */
+
+  @Override
+  public NVector scale(double s) {
+    double[] ret = toArray();
+    for (int k = 0; k < ret.length; k++) {
+      ret[k] *= s;
+    }
+
+    return NVector.wrap(ret);
+  }
+
+  @Override
+  public NVector sub(IVector vector) {
+    if (vector == null)
+      throw new IllegalArgumentException("Vector subtraction cannot operate on null values");
+    if (vector.dimension() != dimension)
+      throw new IllegalArgumentException("Mismatching vector dimensions");
+
+    return MutableNVector.adopt(toArray()).subInPlace(vector).freeze();
+  }
+
+  @Override
+  public NVector sub(IVector... vectors) {
+    if (vectors == null)
+      throw new IllegalArgumentException("Vectors array cannot be null");
+    if (ArrayTools.containsNull(vectors))
+      throw new IllegalArgumentException("Vector array cannot contain nulls");
+
+    MutableNVector ret = MutableNVector.adopt(toArray());
+    for (IVector v : vectors) {
+      ret.subInPlace(v);
+    }
+
+    return ret.freeze();
+  }
+
+  @Override
+  public NVector subtract(IVector vector) {
+    return sub(vector);
+  }
+
+  @Override
+  public NVector subtract(IVector... vectors) {
+    return sub(vectors);
+  }
+
+  @Override
+  public NVector cross(IVector a) {
+    return toNVector().cross(a);
+  }
+
+  @Override
+  public IVector proj(IVector vector) {
+    return toNVector().proj(vector);
+  }
+
+  @Override
+  public IVector projection(IVector vector) {
+    return toNVector().projection(vector);
+  }
+
+  @Override
+  public double sproj(IVector vector) {
+    return toNVector().sproj(vector);
+  }
+
+  @Override
+  public double scalarProjection(IVector vector) {
+    return toNVector().scalarProjection(vector);
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof IVector)
+      return equals((IVector) o);
+    else
+      return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return toNVector().hashCode();
+  }
+
+  @Override
+  public boolean equals(IVector vector) {
+    if (vector == null || vector.dimension() != dimension)
+      return false;
+
+    for (int k = 0; k < dimension; k++) {
+      if (get(k) != vector.get(k))
+        return false;
+    }
+
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return toNVector().toString();
+  }
+
+}
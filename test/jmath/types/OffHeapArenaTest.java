@@ -0,0 +1,67 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+/**
+ * Checks that off-heap matrices and vectors fail
+ * with an IllegalStateException once their arena
+ * has been closed. Run with the compiled library
+ * on the class path; exits with a non-zero status
+ * on failure.
+ */
+public class OffHeapArenaTest {
+
+  public static void main(String[] args) {
+    OffHeapArena arena = new OffHeapArena();
+    OffHeapMatrix matrix = arena.allocateMatrix(3, 3);
+    OffHeapVector vector = arena.allocateVector(3);
+
+    matrix.set(1, 1, 2);
+    check(matrix.get(1, 1) == 2, "matrix holds its values before close");
+
+    arena.close();
+    arena.close();
+
+    expectIllegalState(() -> matrix.get(1, 1), "matrix get after close");
+    expectIllegalState(() -> matrix.set(0, 0, 1), "matrix set after close");
+    expectIllegalState(() -> vector.get(0), "vector get after close");
+    expectIllegalState(() -> arena.allocateVector(3), "allocation after close");
+
+    System.out.println("OffHeapArenaTest passed");
+  }
+
+  private static void expectIllegalState(Runnable action, String description) {
+    try {
+      action.run();
+    } catch (IllegalStateException e) {
+      return;
+    }
+    check(false, description + " throws IllegalStateException");
+  }
+
+  private static void check(boolean condition, String description) {
+    if (!condition) {
+      System.err.println("OffHeapArenaTest failed: " + description);
+      System.exit(1);
+    }
+  }
+
+}
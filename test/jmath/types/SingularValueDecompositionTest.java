@@ -0,0 +1,75 @@
+/* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *\
+ *                                                                         *
+ *  jmath: a library for mathematical computation for Java                 *
+ *  Copyright (C) 2017  LeqxLeqx                                           *
+ *                                                                         *
+ *  This program is free software: you can redistribute it and/or modify   *
+ *  it under the terms of the GNU General Public License as published by   *
+ *  the Free Software Foundation, either version 3 of the License, or      *
+ *  (at your option) any later version.                                    *
+ *                                                                         *
+ *  This program is distributed in the hope that it will be useful,        *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *  GNU General Public License for more details.                           *
+ *                                                                         *
+ *  You should have received a copy of the GNU General Public License      *
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.  *
+ *                                                                         *
+\* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * */
+
+package jmath.types;
+
+/**
+ * Checks that the singular value decomposition
+ * converges on rank-deficient matrices and
+ * reconstructs them. Run with the compiled library
+ * on the class path; exits with a non-zero status
+ * on failure.
+ */
+public class SingularValueDecompositionTest {
+
+  private static final double TOLERANCE = 1e-12;
+
+  public static void main(String[] args) {
+    /* Second row is twice the first */
+    checkReconstruction(new NMatrix(3, 3, 1, 2, 3, 2, 4, 6, 1, 1, 1), 2, "rank-deficient matrix");
+
+    /* Middle column is zero */
+    checkReconstruction(new NMatrix(3, 3, 1, 0, 3, 2, 0, 6, 1, 0, 1), 2, "zero-column matrix");
+
+    checkReconstruction(NMatrix.zero(2, 2), 0, "zero matrix");
+
+    System.out.println("SingularValueDecompositionTest passed");
+  }
+
+  private static void checkReconstruction(NMatrix matrix, int rank, String description) {
+    SingularValueDecomposition svd;
+    try {
+      svd = matrix.svd();
+    } catch (ArithmeticException e) {
+      fail(description + " decomposes (" + e.getMessage() + ")");
+      return;
+    }
+
+    NMatrix product = svd.getU().multiply(svd.getS()).multiply(svd.getV().transpose());
+    for (int i = 0; i < matrix.numberOfRows(); i++) {
+      for (int j = 0; j < matrix.numberOfColumns(); j++) {
+        if (Math.abs(product.get(i, j) - matrix.get(i, j)) > TOLERANCE)
+          fail(description + " is reconstructed by U * S * V^T");
+      }
+    }
+
+    double[] singularValues = svd.getSingularValues();
+    for (int k = 0; k < singularValues.length; k++) {
+      if ((k < rank) != (singularValues[k] > TOLERANCE))
+        fail(description + " has " + rank + " non-zero singular values");
+    }
+  }
+
+  private static void fail(String description) {
+    System.err.println("SingularValueDecompositionTest failed: " + description);
+    System.exit(1);
+  }
+
+}